@@ -0,0 +1,10 @@
+package org.example.chatapp.auth;
+
+/**
+ * What a producer does when a bounded queue is full.
+ */
+public enum BackpressurePolicy {
+    BLOCK, // Wait until there is room
+    DROP,  // Give up on the element and report it as not queued
+    FAIL   // Throw IllegalStateException
+}
@@ -0,0 +1,141 @@
+package org.example.chatapp.auth;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter over long keys.
+ * Answers "definitely not added" or "possibly added" in constant time using
+ * about 1.44 * log2(1 / falsePositiveRate) bits per key. Bits are set with compare-and-set,
+ * so concurrent adds and lookups are safe.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final long capacity;
+    private final double falsePositiveRate;
+
+    /**
+     * Creates a filter sized for a number of keys and a target false-positive rate.
+     * @param capacity The number of keys the filter is sized for.
+     * @param falsePositiveRate The false-positive rate once the filter holds {@code capacity} keys.
+     */
+    public BloomFilter(long capacity, double falsePositiveRate) {
+        if (capacity <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Capacity must be positive and the false-positive rate between 0 and 1.");
+        }
+        this.capacity = capacity;
+        this.falsePositiveRate = falsePositiveRate;
+        long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        long words = Math.max(1, (optimalBits + 63) / 64);
+        if (words > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Filter too large.");
+        }
+        this.bits = new AtomicLongArray((int) words);
+        this.bitCount = words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+    }
+
+    private BloomFilter(long capacity, double falsePositiveRate, int hashCount, long[] words) {
+        this.capacity = capacity;
+        this.falsePositiveRate = falsePositiveRate;
+        this.hashCount = hashCount;
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words.length * 64;
+    }
+
+    /**
+     * Adds a key.
+     * @param key The key.
+     * @return True if the filter changed, i.e. the key was definitely not present before.
+     */
+    public boolean add(long key) {
+        long h1 = mix(key);
+        long h2 = mix(key ^ 0x9E3779B97F4A7C15L) | 1; // Odd, so the probe sequence covers all bits
+        boolean changed = false;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            while (((current = bits.get(word)) & mask) == 0) {
+                if (bits.compareAndSet(word, current, current | mask)) {
+                    changed = true;
+                    break;
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Checks whether a key may have been added.
+     * @param key The key.
+     * @return False if the key was definitely never added; true if it possibly was.
+     */
+    public boolean mightContain(long key) {
+        long h1 = mix(key);
+        long h2 = mix(key ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public double getFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    /**
+     * Writes the filter to a stream.
+     * @param out The stream to write to.
+     * @throws IOException If writing fails.
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeLong(capacity);
+        out.writeDouble(falsePositiveRate);
+        out.writeInt(hashCount);
+        out.writeInt(bits.length());
+        for (int i = 0; i < bits.length(); i++) {
+            out.writeLong(bits.get(i));
+        }
+    }
+
+    /**
+     * Reads a filter written by {@link #writeTo(DataOutputStream)}.
+     * @param in The stream to read from.
+     * @return The filter.
+     * @throws IOException If reading fails.
+     */
+    static BloomFilter readFrom(DataInputStream in) throws IOException {
+        long capacity = in.readLong();
+        double falsePositiveRate = in.readDouble();
+        int hashCount = in.readInt();
+        long[] words = new long[in.readInt()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = in.readLong();
+        }
+        return new BloomFilter(capacity, falsePositiveRate, hashCount, words);
+    }
+
+    // 64-bit finalizer from MurmurHash3, spreads nearby keys (e.g. sequential IDs) across the bit array
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        key *= 0xC4CEB9FE1A85EC53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
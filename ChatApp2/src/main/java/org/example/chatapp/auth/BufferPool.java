@@ -0,0 +1,77 @@
+package org.example.chatapp.auth;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Pool of equally sized direct byte buffers.
+ * Direct buffers are costly to allocate and are freed only when garbage collected, so they are
+ * reused instead; a connection holds one only while it has a partial request or an unsent
+ * response. At most {@code maxPooled} free buffers are kept, extra ones are left to the collector.
+ * Not thread-safe; owned by a single selector thread.
+ */
+public class BufferPool {
+
+    private final int bufferSize;
+    private final int maxPooled;
+    private final ArrayDeque<ByteBuffer> free = new ArrayDeque<>();
+    private int inUse = 0;
+
+    /**
+     * Creates an empty pool.
+     * @param bufferSize Capacity of each buffer in bytes.
+     * @param maxPooled Maximum number of free buffers kept for reuse.
+     */
+    public BufferPool(int bufferSize, int maxPooled) {
+        if (bufferSize <= 0 || maxPooled < 0) {
+            throw new IllegalArgumentException("Buffer size must be positive and the pool size not negative.");
+        }
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * Takes a cleared buffer from the pool, allocating one if none is free.
+     * @return A buffer ready for writing.
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = free.pollFirst();
+        inUse++;
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * Returns a buffer to the pool.
+     * @param buffer A buffer taken from this pool; it must not be used afterwards.
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer.capacity() != bufferSize || !buffer.isDirect()) {
+            throw new IllegalArgumentException("Buffer does not belong to this pool.");
+        }
+        inUse--;
+        if (free.size() < maxPooled) {
+            buffer.clear();
+            free.addFirst(buffer); // Most recently used first, while it is still warm in cache
+        }
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Returns the number of buffers acquired and not yet released.
+     * @return The buffers in use.
+     */
+    public int getInUseCount() {
+        return inUse;
+    }
+
+    /**
+     * Returns the number of free buffers held for reuse.
+     * @return The pooled buffers.
+     */
+    public int getPooledCount() {
+        return free.size();
+    }
+}
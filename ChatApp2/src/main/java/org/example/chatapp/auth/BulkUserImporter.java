@@ -0,0 +1,297 @@
+package org.example.chatapp.auth;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Imports users in bulk from a CSV file of {@code username,password,cellPhoneNumber,firstName,lastName}
+ * rows (an optional header row starting with "username" is skipped).
+ *
+ * The file is streamed in chunks. Each chunk is validated with the same rules as
+ * {@link Login#registerUser} and its passwords hashed on a pool of worker threads; the validation
+ * and hashing of several chunks overlap while earlier chunks are committed. Chunks are committed
+ * in file order, one batch at a time, so when a username appears twice the first row wins, and the
+ * user store is flushed after every batch. Imported users are written to the user store only, not
+ * cached in memory; they are loaded when they first log in. Rejected rows are reported with their
+ * line numbers and the same messages interactive registration uses.
+ */
+public class BulkUserImporter {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+    private static final int FIELD_COUNT = 5;
+
+    private final int parallelism;
+    private final int chunkSize;
+    private final PasswordHasher hasher;
+
+    // A chunk of rows; workers fill in the validation results and hashes
+    private static final class Chunk {
+        final List<String[]> rows;
+        final long[] lineNumbers; // Line in the file of each row, since blank lines are skipped
+        final String[] failures;
+        final String[] passwordHashes;
+
+        Chunk(List<String[]> rows, long[] lineNumbers) {
+            this.rows = rows;
+            this.lineNumbers = lineNumbers;
+            this.failures = new String[rows.size()];
+            this.passwordHashes = new String[rows.size()];
+        }
+    }
+
+    /**
+     * Creates an importer using one worker per processor and Login's password hasher.
+     */
+    public BulkUserImporter() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE, Login.getCredentialVerifier().getHasher());
+    }
+
+    /**
+     * Creates an importer.
+     * @param parallelism The number of worker threads validating and hashing.
+     * @param chunkSize The number of rows per chunk, which is also the commit batch size.
+     * @param hasher The password hasher.
+     */
+    public BulkUserImporter(int parallelism, int chunkSize, PasswordHasher hasher) {
+        if (parallelism <= 0 || chunkSize <= 0) {
+            throw new IllegalArgumentException("Parallelism and chunk size must be positive.");
+        }
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+        this.hasher = hasher;
+    }
+
+    /**
+     * Imports users from a CSV file.
+     * @param csvFile The file.
+     * @param rejectListener Called for every rejected row in file order; may be null.
+     * @return The import report.
+     * @throws IOException If the file cannot be read or the user store cannot be written.
+     */
+    public ImportReport importCsv(Path csvFile, Consumer<ImportReport.Reject> rejectListener) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8)) {
+            return importCsv(reader, rejectListener);
+        }
+    }
+
+    /**
+     * Imports users from CSV text.
+     * @param csv The CSV text.
+     * @param rejectListener Called for every rejected row in file order; may be null.
+     * @return The import report.
+     * @throws IOException If the text cannot be read or the user store cannot be written.
+     */
+    public ImportReport importCsv(Reader csv, Consumer<ImportReport.Reject> rejectListener) throws IOException {
+        long start = System.nanoTime();
+        ImportReport report = new ImportReport();
+        BufferedReader reader = csv instanceof BufferedReader buffered ? buffered : new BufferedReader(csv);
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, task -> {
+            Thread thread = new Thread(task, "user-import-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Chunks being validated, oldest first; bounded so memory stays flat however large the file
+        ArrayDeque<Future<Chunk>> inFlight = new ArrayDeque<>();
+        try {
+            long lineNumber = 0;
+            List<String[]> rows = new ArrayList<>(chunkSize);
+            long[] lineNumbers = new long[chunkSize];
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1 && line.regionMatches(true, 0, "username", 0, 8)) {
+                    continue; // Header row
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                lineNumbers[rows.size()] = lineNumber;
+                rows.add(parseCsvLine(line));
+                if (rows.size() == chunkSize) {
+                    submit(workers, inFlight, new Chunk(rows, lineNumbers), report, rejectListener);
+                    rows = new ArrayList<>(chunkSize);
+                    lineNumbers = new long[chunkSize];
+                }
+            }
+            if (!rows.isEmpty()) {
+                submit(workers, inFlight, new Chunk(rows, lineNumbers), report, rejectListener);
+            }
+            while (!inFlight.isEmpty()) {
+                commit(await(inFlight.poll()), report, rejectListener);
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        report.setElapsedNanos(System.nanoTime() - start);
+        return report;
+    }
+
+    private void submit(ExecutorService workers, ArrayDeque<Future<Chunk>> inFlight, Chunk chunk,
+                        ImportReport report, Consumer<ImportReport.Reject> rejectListener) throws IOException {
+        if (inFlight.size() >= 2 * parallelism) {
+            commit(await(inFlight.poll()), report, rejectListener);
+        }
+        inFlight.add(workers.submit(() -> validate(chunk)));
+    }
+
+    private Chunk validate(Chunk chunk) {
+        int n = chunk.rows.size();
+        String[] usernames = new String[n];
+        String[] passwords = new String[n];
+        String[] cellNumbers = new String[n];
+        for (int i = 0; i < n; i++) {
+            String[] row = chunk.rows.get(i);
+            if (row.length == FIELD_COUNT) {
+                usernames[i] = row[0];
+                passwords[i] = row[1];
+                cellNumbers[i] = row[2];
+            }
+        }
+        BitSet validUsernames = InputValidator.validateUserNames(usernames);
+        BitSet validPasswords = InputValidator.validatePasswords(passwords);
+        BitSet validCellNumbers = InputValidator.validateCellNumbers(cellNumbers);
+        for (int i = 0; i < n; i++) {
+            int fields = chunk.rows.get(i).length;
+            if (fields != FIELD_COUNT) {
+                chunk.failures[i] = "Expected " + FIELD_COUNT + " fields but found " + fields + ".";
+            } else if (!validUsernames.get(i)) {
+                chunk.failures[i] = Login.INVALID_USERNAME_MESSAGE;
+            } else if (!validPasswords.get(i)) {
+                chunk.failures[i] = Login.INVALID_PASSWORD_MESSAGE;
+            } else if (!validCellNumbers.get(i)) {
+                chunk.failures[i] = Login.INVALID_CELL_NUMBER_MESSAGE;
+            } else if (Login.isRegistered(usernames[i])) {
+                chunk.failures[i] = Login.USERNAME_EXISTS_MESSAGE; // Skip hashing for users that exist already
+            } else {
+                chunk.passwordHashes[i] = hasher.hash(passwords[i]);
+            }
+        }
+        return chunk;
+    }
+
+    // Runs on the reading thread, one chunk at a time in file order
+    private void commit(Chunk chunk, ImportReport report, Consumer<ImportReport.Reject> rejectListener) throws IOException {
+        List<UserRecord> valid = new ArrayList<>(chunk.rows.size());
+        for (int i = 0; i < chunk.rows.size(); i++) {
+            if (chunk.failures[i] == null) {
+                String[] row = chunk.rows.get(i);
+                valid.add(new UserRecord(row[0], chunk.passwordHashes[i], row[2], row[3], row[4]));
+            }
+        }
+        String[] commitFailures = Login.commitUsers(valid);
+        for (int i = 0, committed = 0; i < chunk.rows.size(); i++) {
+            String[] row = chunk.rows.get(i);
+            String failure = chunk.failures[i];
+            if (failure == null) {
+                failure = commitFailures[committed++];
+            }
+            if (failure == null) {
+                report.recordImported();
+            } else {
+                ImportReport.Reject reject = new ImportReport.Reject(chunk.lineNumbers[i], row.length > 0 ? row[0] : "", failure);
+                report.recordRejected(reject);
+                if (rejectListener != null) {
+                    rejectListener.accept(reject);
+                }
+            }
+        }
+        Login.flushUserStore();
+    }
+
+    private static Chunk await(Future<Chunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw new IOException("Import failed: " + e.getCause(), e.getCause());
+        }
+    }
+
+    /**
+     * Splits a CSV line into fields. Fields may be quoted, with "" standing for a quote inside a quoted field.
+     * @param line The line.
+     * @return The fields.
+     */
+    static String[] parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>(FIELD_COUNT);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+
+    /**
+     * Command-line entry point.
+     * Usage: {@code BulkUserImporter <users.csv> [userStoreBase] [rejects.txt]}
+     * @param args The CSV file, the user store path without extension (default "users") and an
+     *             optional file to write every rejected row to.
+     */
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 3) {
+            System.err.println("Usage: BulkUserImporter <users.csv> [userStoreBase] [rejects.txt]");
+            System.exit(2);
+        }
+        Path csvFile = Paths.get(args[0]);
+        Path storeBase = Paths.get(args.length > 1 ? args[1] : "users");
+        try (UserStore store = UserStore.open(storeBase)) {
+            Login.attachUserStore(store);
+            ImportReport report;
+            if (args.length > 2) {
+                try (PrintWriter rejects = new PrintWriter(Files.newBufferedWriter(Paths.get(args[2]), StandardCharsets.UTF_8))) {
+                    report = new BulkUserImporter().importCsv(csvFile, rejects::println);
+                }
+            } else {
+                report = new BulkUserImporter().importCsv(csvFile, null);
+                report.getRejects().stream().limit(20).forEach(System.out::println);
+            }
+            System.out.println(report);
+        } catch (IOException e) {
+            System.err.println("Import failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package org.example.chatapp.auth;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Line-based protocol spoken by the chat servers, one instance per client connection.
+ * Each request is one line, a command followed by its arguments separated by single spaces;
+ * the last argument may contain spaces. Each response starts with "OK" or "ERR".
+ *
+ *   REGISTER username password cellNumber firstName lastName   OK | ERR reason
+ *   LOGIN username password                                    OK token firstName lastName | ERR reason
+ *   SEND recipient text / STORE recipient text                 OK messageID messageHash
+ *                                                              (OK messageID when sends are queued)
+ *   SCHEDULE sendAtMillis recipient text                       OK messageID messageHash
+ *   DISREGARD recipient text                                   OK messageID
+ *   FIND messageID                                             OK 1 followed by one MSG line
+ *   RECIPIENT cellNumber / SEARCH query                        OK n followed by n MSG lines
+ *   DELETE messageHash                                         OK messageID
+ *   STATS                                                      OK sent stored disregarded sentByYou
+ *   LOGOUT                                                     OK
+ *   QUIT                                                       OK (the connection is then closed)
+ *
+ * MSG lines read "MSG messageID status recipient text". Every command other than REGISTER,
+ * LOGIN and QUIT needs a logged-in session. With an {@link OutboundDispatcher}, SEND only queues
+ * the message; its hash is created when the dispatcher sends it and can be read back with FIND.
+ * SCHEDULE stores the message with a send time in epoch milliseconds; a {@link DeliveryScheduler}
+ * running on the service sends it then.
+ * Not thread-safe; a connection handles one request at a time.
+ */
+public class ChatProtocol {
+
+    private static final String NOT_LOGGED_IN_MESSAGE = "ERR Not logged in.";
+
+    private final MessageService messageService;
+    private final OutboundDispatcher outbound; // Null to send on the calling thread
+    private final Login login = new Login();
+    private String sessionToken;
+    private boolean closed;
+
+    /**
+     * Creates the protocol state for a new connection.
+     * @param messageService The message service shared by all connections.
+     */
+    public ChatProtocol(MessageService messageService) {
+        this(messageService, null);
+    }
+
+    /**
+     * Creates the protocol state for a new connection whose sends are queued.
+     * @param messageService The message service shared by all connections.
+     * @param outbound The dispatcher SEND queues messages on, or null to send them directly.
+     */
+    public ChatProtocol(MessageService messageService, OutboundDispatcher outbound) {
+        this.messageService = messageService;
+        this.outbound = outbound;
+    }
+
+    /**
+     * Handles one request line.
+     * @param line The request, without its line terminator.
+     * @return The response; multi-line responses are separated by '\n' with no trailing terminator.
+     */
+    public String handle(String line) {
+        if (line == null || line.isBlank()) {
+            return "ERR Empty command.";
+        }
+        String[] parts = line.strip().split(" ", 2);
+        String command = parts[0].toUpperCase();
+        String arguments = parts.length > 1 ? parts[1] : "";
+        try {
+            switch (command) {
+                case "REGISTER":
+                    return register(arguments);
+                case "LOGIN":
+                    return login(arguments);
+                case "QUIT":
+                    logout();
+                    closed = true;
+                    return "OK Goodbye.";
+                default:
+                    break;
+            }
+            Session session = sessionToken == null ? null : login.getSession(sessionToken);
+            if (session == null) {
+                sessionToken = null;
+                return NOT_LOGGED_IN_MESSAGE; // Never logged in, or the session expired
+            }
+            switch (command) {
+                case "SEND":
+                    return submit(arguments, MessageStatus.SENT, session.getUsername());
+                case "STORE":
+                    return submit(arguments, MessageStatus.STORED, session.getUsername());
+                case "SCHEDULE":
+                    return schedule(arguments, session.getUsername());
+                case "DISREGARD":
+                    return submit(arguments, MessageStatus.DISREGARDED, session.getUsername());
+                case "FIND": {
+                    Message message = messageService.findByID(arguments.strip());
+                    return message == null ? "ERR No message found with ID: " + arguments.strip() : list(List.of(message));
+                }
+                case "RECIPIENT":
+                    return list(messageService.findByRecipient(arguments.strip()));
+                case "SEARCH":
+                    return list(messageService.searchText(arguments));
+                case "DELETE": {
+                    Message message = messageService.deleteByHash(arguments.strip());
+                    return message == null ? "ERR No message found with hash: " + arguments.strip() : "OK " + message.getMessageID();
+                }
+                case "STATS": {
+                    MessageCounters counters = Message.getCounters();
+                    return "OK " + counters.getSentCount() + " " + counters.getStoredCount() + " "
+                            + counters.getDisregardedCount() + " " + counters.getSentBy(session.getUsername());
+                }
+                case "LOGOUT":
+                    logout();
+                    return "OK";
+                default:
+                    return "ERR Unknown command: " + parts[0];
+            }
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return "ERR " + e.getMessage();
+        } catch (IOException e) {
+            return "ERR Error saving messages: " + e.getMessage();
+        }
+    }
+
+    /**
+     * Returns whether the client asked to close the connection.
+     * @return True after QUIT.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Ends the connection's session, if any. Called when the connection closes.
+     */
+    public void logout() {
+        if (sessionToken != null) {
+            login.logout(sessionToken);
+            sessionToken = null;
+        }
+    }
+
+    private String register(String arguments) {
+        String[] fields = arguments.split(" ", 5);
+        if (fields.length < 5) {
+            return "ERR Usage: REGISTER username password cellNumber firstName lastName";
+        }
+        String result = login.registerUser(fields[0], fields[1], fields[2], fields[3], fields[4]);
+        return result.equals("User registered successfully.") ? "OK" : "ERR " + result;
+    }
+
+    private String login(String arguments) {
+        String[] fields = arguments.split(" ", 2);
+        Session session = fields.length < 2 ? null : login.startSession(fields[0], fields[1]);
+        if (session == null) {
+            return "ERR " + login.returnLoginStatus(false);
+        }
+        logout(); // Logging in again replaces the connection's previous session
+        sessionToken = session.getToken();
+        return "OK " + sessionToken + " " + session.getFirstName() + " " + session.getLastName();
+    }
+
+    private String submit(String arguments, MessageStatus action, String sender) throws IOException {
+        String[] fields = arguments.split(" ", 2);
+        Message message = messageService.compose(fields[0], fields.length > 1 ? fields[1] : "");
+        message.setSender(sender);
+        if (action == MessageStatus.SENT && outbound != null) {
+            return outbound.submit(message)
+                    ? "OK " + message.getMessageID()
+                    : "ERR Too many messages are waiting to be sent, please try again later.";
+        }
+        messageService.submit(message, action);
+        return action == MessageStatus.DISREGARDED
+                ? "OK " + message.getMessageID()
+                : "OK " + message.getMessageID() + " " + message.getMessageHash();
+    }
+
+    private String schedule(String arguments, String sender) throws IOException {
+        String[] fields = arguments.split(" ", 2);
+        long sendAt;
+        try {
+            sendAt = Long.parseLong(fields[0]);
+        } catch (NumberFormatException e) {
+            return "ERR Usage: SCHEDULE sendAtMillis recipient text";
+        }
+        if (sendAt <= 0 || fields.length < 2) {
+            return "ERR Usage: SCHEDULE sendAtMillis recipient text";
+        }
+        String[] message = fields[1].split(" ", 2);
+        Message scheduled = messageService.compose(message[0], message.length > 1 ? message[1] : "");
+        scheduled.setSender(sender);
+        scheduled.setSendAt(sendAt);
+        messageService.store(scheduled);
+        return "OK " + scheduled.getMessageID() + " " + scheduled.getMessageHash();
+    }
+
+    private static String list(List<Message> messages) {
+        StringBuilder response = new StringBuilder("OK ").append(messages.size());
+        for (Message message : messages) {
+            response.append("\nMSG ").append(message.getMessageID()).append(' ').append(message.getStatus())
+                    .append(' ').append(message.getRecipientCellNumber()).append(' ')
+                    .append(message.getMessageText().replace('\n', ' ').replace('\r', ' '));
+        }
+        return response.toString();
+    }
+}
@@ -0,0 +1,203 @@
+package org.example.chatapp.auth;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * TCP chat server speaking {@link ChatProtocol}, one virtual thread per client connection.
+ * Virtual threads park instead of holding a platform thread while a client is idle, so blocking
+ * reads cost only the connection's small buffers and one JVM can hold tens of thousands of clients.
+ * All connections share one {@link MessageService}; logins go through {@link Login}.
+ *
+ * Requests longer than {@link #MAX_LINE_BYTES} are answered with an error and the connection closed.
+ */
+public class ChatServer implements Closeable {
+
+    public static final int DEFAULT_PORT = 5121;
+    public static final int MAX_LINE_BYTES = 4096;
+
+    private static final int READ_BUFFER_SIZE = 512; // Requests are short; keep per-client memory small
+
+    private final MessageService messageService;
+    private final OutboundDispatcher outbound; // Null to send on the client's request
+    private final ServerSocket serverSocket;
+    private final ExecutorService clients = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("chat-client-", 0).factory());
+    private final Set<Socket> openSockets = ConcurrentHashMap.newKeySet();
+    private final Thread acceptor;
+    private volatile boolean closed;
+
+    /**
+     * Binds the server to a port on the loopback interface only and starts accepting clients.
+     * @param port The port, or 0 for any free port.
+     * @param messageService The message service shared by all clients.
+     * @return The running server.
+     * @throws IOException If the port cannot be bound.
+     */
+    public static ChatServer start(int port, MessageService messageService) throws IOException {
+        return start(port, messageService, null);
+    }
+
+    /**
+     * Binds the server to a port on the loopback interface only and starts accepting clients.
+     * @param port The port, or 0 for any free port.
+     * @param messageService The message service shared by all clients.
+     * @param outbound The dispatcher sends are queued on, or null to send on the client's request.
+     * @return The running server.
+     * @throws IOException If the port cannot be bound.
+     */
+    public static ChatServer start(int port, MessageService messageService, OutboundDispatcher outbound) throws IOException {
+        return start(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), messageService, outbound);
+    }
+
+    /**
+     * Binds the server to an address and starts accepting clients. The protocol sends passwords in
+     * plain text and lets any logged-in client read and delete stored messages, so only bind beyond
+     * the loopback interface on a trusted network.
+     * @param address The address, e.g. {@code new InetSocketAddress(port)} for all interfaces.
+     * @param messageService The message service shared by all clients.
+     * @param outbound The dispatcher sends are queued on, or null to send on the client's request.
+     * @return The running server.
+     * @throws IOException If the address cannot be bound.
+     */
+    public static ChatServer start(InetSocketAddress address, MessageService messageService, OutboundDispatcher outbound) throws IOException {
+        return new ChatServer(address, messageService, outbound);
+    }
+
+    private ChatServer(InetSocketAddress address, MessageService messageService, OutboundDispatcher outbound) throws IOException {
+        this.messageService = messageService;
+        this.outbound = outbound;
+        this.serverSocket = new ServerSocket();
+        serverSocket.bind(address, 1024); // Large backlog so bursts of connects are not refused
+        this.acceptor = new Thread(this::acceptLoop, "chat-server-acceptor");
+        acceptor.start();
+    }
+
+    /**
+     * Returns the port the server is listening on.
+     * @return The local port.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Returns the number of connected clients.
+     * @return The open connection count.
+     */
+    public int getConnectionCount() {
+        return openSockets.size();
+    }
+
+    /**
+     * Stops accepting clients, disconnects the connected ones and waits for their threads to finish.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        serverSocket.close();
+        for (Socket socket : openSockets) {
+            closeQuietly(socket);
+        }
+        clients.close(); // Waits for the client threads, which exit once their sockets are closed
+        try {
+            acceptor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                openSockets.add(socket);
+                if (closed) {
+                    closeQuietly(socket); // Accepted while close() was disconnecting the others
+                    openSockets.remove(socket);
+                    break;
+                }
+                clients.execute(() -> serve(socket));
+            } catch (RejectedExecutionException e) {
+                break; // The server closed after the connection was accepted; close() already closed its socket
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("Error accepting chat client: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        ChatProtocol protocol = new ChatProtocol(messageService, outbound);
+        try (socket) {
+            socket.setTcpNoDelay(true); // Responses are small and a client waits for each one
+            InputStream in = new BufferedInputStream(socket.getInputStream(), READ_BUFFER_SIZE);
+            OutputStream out = socket.getOutputStream();
+            ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+            while (!protocol.isClosed()) {
+                int status = readLine(in, line);
+                if (status < 0) {
+                    break; // Client disconnected
+                }
+                String response = status == 0
+                        ? protocol.handle(line.toString(StandardCharsets.UTF_8))
+                        : "ERR Request longer than " + MAX_LINE_BYTES + " bytes.";
+                out.write((response + "\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                if (status > 0) {
+                    break;
+                }
+            }
+        } catch (SocketException e) {
+            // Connection reset, or closed by close(); nothing to report
+        } catch (IOException e) {
+            System.err.println("Error serving chat client: " + e.getMessage());
+        } finally {
+            protocol.logout();
+            openSockets.remove(socket);
+        }
+    }
+
+    /**
+     * Reads one '\n' terminated line. A preceding '\r' is kept; the protocol strips it.
+     * @return 0 if a line was read, 1 if it was too long, -1 at end of stream.
+     */
+    private static int readLine(InputStream in, ByteArrayOutputStream line) throws IOException {
+        line.reset();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) {
+                return -1; // An unterminated last line is dropped
+            }
+            if (line.size() == MAX_LINE_BYTES) {
+                return 1;
+            }
+            line.write(b);
+        }
+        return 0;
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // Already closing
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package org.example.chatapp.auth;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Verifies login passwords on a dedicated, bounded pool of worker threads.
+ * PBKDF2 is deliberately CPU-heavy, so verification runs on at most {@code threads} threads with a
+ * queue of at most {@code queueCapacity} waiting logins; when the queue is full further logins are
+ * refused instead of piling up, and a burst of logins cannot take every core away from message sending.
+ *
+ * Successful verifications are remembered for a short time so a user logging in again with the
+ * same password skips PBKDF2. The cache holds a SHA-256 digest of the password and the stored
+ * hash, never the password itself, and an entry is ignored once the user's stored hash changes.
+ */
+public class CredentialVerifier implements AutoCloseable {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+    public static final long DEFAULT_CACHE_TTL_MILLIS = 60_000;
+    private static final int MAX_CACHE_ENTRIES = 10_000;
+
+    private final PasswordHasher hasher;
+    private final ThreadPoolExecutor executor;
+    private final long cacheTtlNanos;
+    private final ConcurrentHashMap<String, CachedCredential> verified = new ConcurrentHashMap<>();
+
+    private static final class CachedCredential {
+        final String passwordHash;
+        final byte[] digest;
+        final long expiresAtNanos;
+
+        CachedCredential(String passwordHash, byte[] digest, long expiresAtNanos) {
+            this.passwordHash = passwordHash;
+            this.digest = digest;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    /**
+     * Creates a verifier with half the available processors, the default queue depth and cache lifetime.
+     * @param hasher The password hasher.
+     */
+    public CredentialVerifier(PasswordHasher hasher) {
+        this(hasher, Math.max(1, Runtime.getRuntime().availableProcessors() / 2), DEFAULT_QUEUE_CAPACITY, DEFAULT_CACHE_TTL_MILLIS);
+    }
+
+    /**
+     * Creates a verifier.
+     * @param hasher The password hasher.
+     * @param threads The number of verification threads.
+     * @param queueCapacity The number of logins that may wait for a verification thread.
+     * @param cacheTtlMillis How long a successful verification is remembered; 0 disables the cache.
+     */
+    public CredentialVerifier(PasswordHasher hasher, int threads, int queueCapacity, long cacheTtlMillis) {
+        if (threads <= 0 || queueCapacity <= 0 || cacheTtlMillis < 0) {
+            throw new IllegalArgumentException("Threads and queue capacity must be positive and the cache lifetime not negative.");
+        }
+        this.hasher = hasher;
+        this.cacheTtlNanos = TimeUnit.MILLISECONDS.toNanos(cacheTtlMillis);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> {
+                    Thread thread = new Thread(task, "credential-verifier-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public PasswordHasher getHasher() {
+        return hasher;
+    }
+
+    /**
+     * Checks a password against a user's stored hash, waiting for a verification thread.
+     * @param user The user, may be null.
+     * @param password The password, may be null.
+     * @return True if the password matches; false if it does not, the user is null, or the
+     *         verification queue is full.
+     */
+    public boolean verify(UserRecord user, String password) {
+        if (user == null || password == null || user.getPasswordHash() == null) {
+            return false;
+        }
+        byte[] digest = cacheTtlNanos > 0 ? cacheDigest(user.getPasswordHash(), password) : null;
+        if (digest != null && isCached(user, digest)) {
+            return true;
+        }
+
+        Future<Boolean> result;
+        try {
+            result = executor.submit(() -> hasher.verify(password, user.getPasswordHash()));
+        } catch (RejectedExecutionException e) {
+            return false; // Too many logins waiting; refuse rather than queue without bound
+        }
+        boolean matches;
+        try {
+            matches = result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            return false;
+        }
+        if (matches && digest != null) {
+            remember(user, digest);
+        }
+        return matches;
+    }
+
+    /**
+     * Returns the number of logins waiting for a verification thread.
+     * @return The queue depth.
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Forgets every cached verification, e.g. after users are removed.
+     */
+    public void clearCache() {
+        verified.clear();
+    }
+
+    /**
+     * Forgets a user's cached verification, e.g. after a password change.
+     * @param username The username.
+     */
+    public void invalidate(String username) {
+        verified.remove(username);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private boolean isCached(UserRecord user, byte[] digest) {
+        CachedCredential cached = verified.get(user.getUsername());
+        if (cached == null) {
+            return false;
+        }
+        if (System.nanoTime() - cached.expiresAtNanos >= 0) {
+            verified.remove(user.getUsername(), cached);
+            return false;
+        }
+        return cached.passwordHash.equals(user.getPasswordHash()) && MessageDigest.isEqual(cached.digest, digest);
+    }
+
+    private void remember(UserRecord user, byte[] digest) {
+        long now = System.nanoTime();
+        if (verified.size() >= MAX_CACHE_ENTRIES) {
+            verified.values().removeIf(cached -> now - cached.expiresAtNanos >= 0);
+            if (verified.size() >= MAX_CACHE_ENTRIES) {
+                return; // Still full of live entries; this login just won't be cached
+            }
+        }
+        verified.put(user.getUsername(), new CachedCredential(user.getPasswordHash(), digest, now + cacheTtlNanos));
+    }
+
+    private static byte[] cacheDigest(String passwordHash, String password) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            sha256.update(passwordHash.getBytes(StandardCharsets.UTF_8));
+            sha256.update((byte) 0);
+            return sha256.digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package org.example.chatapp.auth;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends stored messages automatically at their send-at time (see {@link Message#setSendAt}).
+ * Pending deliveries are held in a {@link TimingWheel}, so scheduling and cancelling cost the same
+ * however many are pending, and a tick only touches the deliveries that are due.
+ *
+ * The scheduler listens to the {@link MessageService}: a stored message with a send-at time is
+ * scheduled when it is added, and cancelled when it is deleted or sent some other way. On start
+ * it schedules every stored message the service already holds, so after a restart the pending
+ * deliveries are rebuilt from the message store; messages whose time passed while the app was
+ * down are sent on the first tick. Archived messages are scheduled from their store headers
+ * without being read.
+ *
+ * With a {@link DeliveryTransport}, each message is handed to the transport once it is recorded
+ * as sent; deliveries that still fail after the transport's retries are logged.
+ */
+public class DeliveryScheduler implements Closeable, MessageRepositoryListener {
+
+    public static final long DEFAULT_TICK_MILLIS = 100;
+    private static final int SLOTS_PER_LEVEL = 256;
+    private static final int LEVEL_COUNT = 4; // 256^4 ticks of 100 ms span over 13 years
+
+    private final MessageService messageService;
+    private final long tickMillis;
+    private final DeliveryTransport transport; // Null when due messages are only recorded as sent
+    private final Object wheelLock = new Object();
+    // Guarded by wheelLock
+    private final TimingWheel<String> wheel;
+    private final Map<String, TimingWheel.Timeout<String>> pending = new HashMap<>();
+    private final Thread ticker;
+    private volatile long delivered = 0; // Written by the ticker thread only
+    private volatile boolean closed;
+
+    /**
+     * Starts a scheduler with the default tick.
+     * @param messageService The service whose stored messages are delivered.
+     * @return The running scheduler.
+     */
+    public static DeliveryScheduler start(MessageService messageService) {
+        return start(messageService, DEFAULT_TICK_MILLIS);
+    }
+
+    /**
+     * Starts a scheduler.
+     * @param messageService The service whose stored messages are delivered.
+     * @param tickMillis How often due deliveries are sent; messages go out at most this late.
+     * @return The running scheduler.
+     */
+    public static DeliveryScheduler start(MessageService messageService, long tickMillis) {
+        return start(messageService, tickMillis, null);
+    }
+
+    /**
+     * Starts a scheduler that delivers the messages it sends.
+     * @param messageService The service whose stored messages are delivered.
+     * @param tickMillis How often due deliveries are sent; messages go out at most this late.
+     * @param transport The transport due messages are delivered on, or null to only record them as sent.
+     * @return The running scheduler.
+     */
+    public static DeliveryScheduler start(MessageService messageService, long tickMillis, DeliveryTransport transport) {
+        DeliveryScheduler scheduler = new DeliveryScheduler(messageService, tickMillis, transport);
+        // Registered once fully built, so the service never calls back into a half-made scheduler
+        messageService.addListener(scheduler);
+        // Messages stored before the scheduler started (e.g. loaded from the message store)
+        for (Message message : messageService.findScheduled()) {
+            scheduler.schedule(message);
+        }
+        scheduler.ticker.start();
+        return scheduler;
+    }
+
+    private DeliveryScheduler(MessageService messageService, long tickMillis, DeliveryTransport transport) {
+        this.messageService = messageService;
+        this.tickMillis = tickMillis;
+        this.transport = transport;
+        this.wheel = new TimingWheel<>(tickMillis, SLOTS_PER_LEVEL, LEVEL_COUNT, System.currentTimeMillis());
+        this.ticker = new Thread(this::tickLoop, "delivery-scheduler");
+        ticker.setDaemon(true);
+    }
+
+    /**
+     * Returns the number of deliveries waiting for their time.
+     * @return The pending delivery count.
+     */
+    public int getPendingCount() {
+        synchronized (wheelLock) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * Returns whether a message is waiting to be delivered.
+     * @param messageID The message ID.
+     * @return True if the message is scheduled and not yet sent.
+     */
+    public boolean isScheduled(String messageID) {
+        synchronized (wheelLock) {
+            return pending.containsKey(messageID);
+        }
+    }
+
+    public long getDeliveredCount() {
+        return delivered;
+    }
+
+    @Override
+    public void messageAdded(Message message) {
+        schedule(message);
+    }
+
+    @Override
+    public void messageRemoved(Message message) {
+        cancel(message.getMessageID());
+    }
+
+    @Override
+    public void archivedMessageAdded(MappedMessageStore archive, int ref) {
+        schedule(archive.getMessageID(ref), archive.getStatus(ref), archive.getSendAt(ref));
+    }
+
+    @Override
+    public void archivedMessageRemoved(MappedMessageStore archive, int ref) {
+        cancel(archive.getMessageID(ref));
+    }
+
+    @Override
+    public void statusChanged(Message message, MessageStatus oldStatus) {
+        if (message.getStatus() == MessageStatus.STORED) {
+            schedule(message);
+        } else {
+            cancel(message.getMessageID());
+        }
+    }
+
+    /**
+     * Stops the scheduler thread. Deliveries still pending stay stored and are rescheduled
+     * by the next scheduler started on the same messages.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(ticker);
+        try {
+            ticker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void schedule(Message message) {
+        schedule(message.getMessageID(), message.getStatus(), message.getSendAt());
+    }
+
+    private void schedule(String messageID, MessageStatus status, long sendAt) {
+        if (status != MessageStatus.STORED || sendAt <= 0) {
+            return;
+        }
+        synchronized (wheelLock) {
+            if (!pending.containsKey(messageID)) {
+                pending.put(messageID, wheel.schedule(messageID, sendAt));
+            }
+        }
+    }
+
+    private void cancel(String messageID) {
+        synchronized (wheelLock) {
+            wheel.cancel(pending.remove(messageID));
+        }
+    }
+
+    private void tickLoop() {
+        List<String> due = new ArrayList<>();
+        while (!closed) {
+            synchronized (wheelLock) {
+                wheel.advance(System.currentTimeMillis(), messageID -> {
+                    pending.remove(messageID);
+                    due.add(messageID);
+                });
+            }
+            // Sent outside the wheel lock: sending takes the service lock, whose listeners take the wheel lock
+            for (String messageID : due) {
+                try {
+                    if (messageService.sendStored(messageID)) {
+                        delivered++;
+                        deliver(messageID);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Error sending scheduled message " + messageID + ": " + e.getMessage());
+                }
+            }
+            due.clear();
+            LockSupport.parkNanos(this, tickMillis * 1_000_000);
+        }
+    }
+
+    // Blocks only while the transport's window is full
+    private void deliver(String messageID) {
+        Message message = messageService.findByID(messageID);
+        if (transport == null || message == null) {
+            return;
+        }
+        transport.send(message).whenComplete((ignored, e) -> {
+            if (e != null) {
+                System.err.println("Error delivering scheduled message " + messageID + ": " + e.getMessage());
+            }
+        });
+    }
+}
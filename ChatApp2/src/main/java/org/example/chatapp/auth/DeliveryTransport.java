@@ -0,0 +1,22 @@
+package org.example.chatapp.auth;
+
+import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Hands sent messages to whatever delivers them to recipients (a carrier gateway, another node).
+ * Sends are asynchronous: {@link #send} returns as soon as the message is on its way and the
+ * returned future completes when the far side acknowledges it, so a caller can keep many
+ * messages in flight instead of waiting a round trip for each.
+ */
+public interface DeliveryTransport extends Closeable {
+
+    /**
+     * Starts delivering a message.
+     * @param message The sent message.
+     * @return A future completed when the message is acknowledged, or completed exceptionally with
+     * an {@link java.io.IOException} if it was rejected, timed out or the connection failed, or with
+     * an {@link IllegalStateException} if the transport is closed.
+     */
+    CompletableFuture<Void> send(Message message);
+}
@@ -0,0 +1,105 @@
+package org.example.chatapp.auth;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of a {@link BulkUserImporter} run: row counts, throughput and the rejected rows.
+ * Only the first {@link #MAX_RECORDED_REJECTS} rejects are kept; use a reject listener on the
+ * importer to see every one.
+ */
+public class ImportReport {
+
+    public static final int MAX_RECORDED_REJECTS = 10_000;
+
+    /**
+     * A row that was not imported.
+     */
+    public static final class Reject {
+        private final long lineNumber;
+        private final String username;
+        private final String reason;
+
+        Reject(long lineNumber, String username, String reason) {
+            this.lineNumber = lineNumber;
+            this.username = username;
+            this.reason = reason;
+        }
+
+        public long getLineNumber() {
+            return lineNumber;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return "Line " + lineNumber + " (" + username + "): " + reason;
+        }
+    }
+
+    private long rowsRead;
+    private long imported;
+    private long rejected;
+    private long elapsedNanos;
+    private final List<Reject> rejects = new ArrayList<>();
+
+    void recordImported() {
+        rowsRead++;
+        imported++;
+    }
+
+    void recordRejected(Reject reject) {
+        rowsRead++;
+        rejected++;
+        if (rejects.size() < MAX_RECORDED_REJECTS) {
+            rejects.add(reject);
+        }
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public List<Reject> getRejects() {
+        return Collections.unmodifiableList(rejects);
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    /**
+     * Returns the import throughput.
+     * @return Rows processed per second.
+     */
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rowsRead * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Rows read: %d, imported: %d, rejected: %d, time: %d ms (%.0f rows/s)",
+                rowsRead, imported, rejected, getElapsedMillis(), getRowsPerSecond());
+    }
+}
@@ -0,0 +1,147 @@
+package org.example.chatapp.auth;
+
+import java.util.BitSet;
+
+/**
+ * Hand-coded, single-pass validators for registration and recipient input.
+ * Each method accepts exactly what the regular expression in its description accepts, without
+ * compiling or running a regex, so validating large batches (bulk registration, bulk sends)
+ * costs one scan of each string and no allocation.
+ */
+public final class InputValidator {
+
+    private static final String PASSWORD_SPECIAL_CHARACTERS = "!@#$%^&*()_+-=[]{};':\"\\|,.<>/?";
+
+    private InputValidator() {
+        // Static helpers only
+    }
+
+    /**
+     * Validates a username: 2 to 7 characters, letters, digits and underscores only, starting with
+     * a letter or digit and containing at least one underscore.
+     * Equivalent to: length 2-7, contains "_" and matches {@code ^[a-zA-Z0-9]+[a-zA-Z0-9_]*$}.
+     * @param username The username to validate.
+     * @return True if the username is valid, false otherwise.
+     */
+    public static boolean isValidUserName(String username) {
+        if (username == null || username.length() < 2 || username.length() > 7) {
+            return false;
+        }
+        if (!isAsciiAlphanumeric(username.charAt(0))) {
+            return false;
+        }
+        boolean hasUnderscore = false;
+        for (int i = 1; i < username.length(); i++) {
+            char c = username.charAt(i);
+            if (c == '_') {
+                hasUnderscore = true;
+            } else if (!isAsciiAlphanumeric(c)) {
+                return false;
+            }
+        }
+        return hasUnderscore;
+    }
+
+    /**
+     * Validates password complexity: at least 8 characters with a capital letter, a digit and one
+     * of the special characters {@code !@#$%^&*()_+-=[]{};':"\|,.<>/?}, and no line breaks.
+     * Equivalent to: {@code ^(?=.*[A-Z])(?=.*\d)(?=.*[!@#$%^&*()_+\-=\[\]{};':"\\|,.<>/?]).{8,}$}.
+     * @param password The password to validate.
+     * @return True if the password meets complexity requirements, false otherwise.
+     */
+    public static boolean isValidPassword(String password) {
+        if (password == null || password.length() < 8) {
+            return false;
+        }
+        boolean hasCapital = false;
+        boolean hasDigit = false;
+        boolean hasSpecial = false;
+        int characters = 0; // Counted in code points, as the regex '.' matches a whole surrogate pair
+        for (int i = 0; i < password.length(); i++) {
+            char c = password.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return false; // '.' does not match line terminators
+            }
+            if (Character.isHighSurrogate(c) && i + 1 < password.length() && Character.isLowSurrogate(password.charAt(i + 1))) {
+                i++;
+            } else if (c >= 'A' && c <= 'Z') {
+                hasCapital = true;
+            } else if (c >= '0' && c <= '9') {
+                hasDigit = true;
+            } else if (PASSWORD_SPECIAL_CHARACTERS.indexOf(c) >= 0) {
+                hasSpecial = true;
+            }
+            characters++;
+        }
+        return characters >= 8 && hasCapital && hasDigit && hasSpecial;
+    }
+
+    /**
+     * Validates a South African cell phone number: +27 followed by exactly 9 digits.
+     * Equivalent to: {@code ^\+27[0-9]{9}$}.
+     * @param cellPhoneNumber The cell phone number to validate.
+     * @return True if the cell phone number is valid, false otherwise.
+     */
+    public static boolean isValidCellNumber(String cellPhoneNumber) {
+        if (cellPhoneNumber == null || cellPhoneNumber.length() != 12
+                || cellPhoneNumber.charAt(0) != '+' || cellPhoneNumber.charAt(1) != '2' || cellPhoneNumber.charAt(2) != '7') {
+            return false;
+        }
+        for (int i = 3; i < 12; i++) {
+            char c = cellPhoneNumber.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Validates a batch of usernames.
+     * @param usernames The usernames to validate.
+     * @return A bit set with bit i set if usernames[i] is valid.
+     */
+    public static BitSet validateUserNames(String[] usernames) {
+        BitSet valid = new BitSet(usernames.length);
+        for (int i = 0; i < usernames.length; i++) {
+            if (isValidUserName(usernames[i])) {
+                valid.set(i);
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Validates a batch of passwords.
+     * @param passwords The passwords to validate.
+     * @return A bit set with bit i set if passwords[i] is valid.
+     */
+    public static BitSet validatePasswords(String[] passwords) {
+        BitSet valid = new BitSet(passwords.length);
+        for (int i = 0; i < passwords.length; i++) {
+            if (isValidPassword(passwords[i])) {
+                valid.set(i);
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Validates a batch of cell phone numbers, e.g. the recipients of a bulk send.
+     * @param cellPhoneNumbers The numbers to validate.
+     * @return A bit set with bit i set if cellPhoneNumbers[i] is valid.
+     */
+    public static BitSet validateCellNumbers(String[] cellPhoneNumbers) {
+        BitSet valid = new BitSet(cellPhoneNumbers.length);
+        for (int i = 0; i < cellPhoneNumbers.length; i++) {
+            if (isValidCellNumber(cellPhoneNumbers[i])) {
+                valid.set(i);
+            }
+        }
+        return valid;
+    }
+
+    private static boolean isAsciiAlphanumeric(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+}
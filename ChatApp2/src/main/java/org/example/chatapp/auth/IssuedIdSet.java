@@ -0,0 +1,261 @@
+package org.example.chatapp.auth;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongConsumer;
+
+/**
+ * Exact, persistent set of issued message IDs: a memory-mapped open-addressing hash table.
+ * The table lives in the file, not on the heap, so it can hold hundreds of millions of IDs; the
+ * operating system keeps the pages that are in use in memory. {@link UniqueRandomMessageIdGenerator}
+ * only consults it when its Bloom filter reports a possible collision, so most lookups never
+ * touch it.
+ *
+ * File layout: a 32 byte header (magic, version, slot count, ID count, clean flag) followed by
+ * 8 byte slots holding ID + 1 (0 = empty). The table is mapped in 1GB chunks, so it is not
+ * limited by the 2GB size of a single mapping. When it is half full it is rebuilt at twice the
+ * size in a temporary file that then replaces the old one, so a crash leaves one table or the
+ * other. The clean flag is cleared by the first change after a {@link #force()} and set again
+ * by the next one, so callers can tell whether the last run ended without forcing its changes.
+ * Thread-safe.
+ */
+public class IssuedIdSet implements Closeable {
+
+    private static final int MAGIC = 0x51434944; // "QCID"
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 32;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int COUNT_OFFSET = 16;
+    private static final int CLEAN_OFFSET = 24;
+    private static final int SLOT_SIZE = 8;
+    private static final int CHUNK_SHIFT = 27; // 2^27 slots of 8 bytes = 1GB per mapping
+    private static final long CHUNK_SLOTS = 1L << CHUNK_SHIFT;
+
+    private static final long INITIAL_CAPACITY = 1 << 16; // Slots, always a power of two
+    private static final double MAX_LOAD_FACTOR = 0.5;
+
+    private final Path file;
+    private FileChannel channel;
+    private MappedByteBuffer header;
+    private MappedByteBuffer[] chunks;
+    private long capacity;
+    private long count;
+    private boolean clean;
+
+    /**
+     * Opens (or creates) the set stored in a file.
+     * @param file The file.
+     * @return The set.
+     * @throws IOException If the file cannot be opened or is not an issued ID file.
+     */
+    public static IssuedIdSet open(Path file) throws IOException {
+        return open(file, 0);
+    }
+
+    /**
+     * Opens (or creates) the set stored in a file, sizing a new table for an expected number of IDs
+     * so it does not have to grow on the way there.
+     * @param file The file.
+     * @param expectedIDs The number of IDs a new table should hold; ignored if the file exists.
+     * @return The set.
+     * @throws IOException If the file cannot be opened or is not an issued ID file.
+     */
+    public static IssuedIdSet open(Path file, long expectedIDs) throws IOException {
+        if (!Files.exists(file) || Files.size(file) == 0) {
+            createTable(file, capacityFor(expectedIDs)).close();
+        }
+        return new IssuedIdSet(file);
+    }
+
+    /**
+     * Returns the slot count of a table that holds a number of IDs without growing.
+     * @param ids The number of IDs.
+     * @return A power of two, at least the initial capacity.
+     */
+    private static long capacityFor(long ids) {
+        long needed = (long) Math.ceil(ids / MAX_LOAD_FACTOR);
+        return Math.max(INITIAL_CAPACITY, Long.highestOneBit(Math.max(1, needed - 1)) << 1);
+    }
+
+    /**
+     * Returns the size of the file holding a table.
+     * @param capacity The slot count.
+     * @return The file size in bytes.
+     */
+    private static long fileSize(long capacity) {
+        return HEADER_SIZE + capacity * SLOT_SIZE;
+    }
+
+    private IssuedIdSet(Path file) throws IOException {
+        this.file = file;
+        map();
+    }
+
+    /**
+     * Checks whether an ID was added.
+     * @param id The ID, 0 to 9,999,999,999.
+     * @return True if the ID is in the set.
+     */
+    public synchronized boolean contains(long id) {
+        return getSlot(findSlot(id)) != 0;
+    }
+
+    /**
+     * Adds an ID.
+     * @param id The ID, 0 to 9,999,999,999.
+     * @return True if the ID was added, false if it was already in the set.
+     * @throws IOException If the table has to grow and the new table cannot be written.
+     */
+    public synchronized boolean add(long id) throws IOException {
+        if (id < 0 || id == Long.MAX_VALUE) {
+            throw new IllegalArgumentException("ID out of range: " + id);
+        }
+        long slot = findSlot(id);
+        if (getSlot(slot) != 0) {
+            return false;
+        }
+        if (count + 1 > capacity * MAX_LOAD_FACTOR) {
+            grow();
+            slot = findSlot(id);
+        }
+        if (clean) {
+            clean = false;
+            header.putInt(CLEAN_OFFSET, 0);
+        }
+        putSlot(slot, id + 1);
+        header.putLong(COUNT_OFFSET, ++count);
+        return true;
+    }
+
+    /**
+     * Passes every ID in the set to an action, in no particular order.
+     * @param action Receives each ID.
+     */
+    public synchronized void forEach(LongConsumer action) {
+        for (long slot = 0; slot < capacity; slot++) {
+            long value = getSlot(slot);
+            if (value != 0) {
+                action.accept(value - 1);
+            }
+        }
+    }
+
+    public synchronized long size() {
+        return count;
+    }
+
+    /**
+     * Returns whether every change was forced to disk before the set was last closed.
+     * @return False if the set was changed after the last {@link #force()}.
+     */
+    public synchronized boolean isClean() {
+        return clean;
+    }
+
+    /**
+     * Flushes the table to disk and marks the set clean.
+     */
+    public synchronized void force() {
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+        clean = true;
+        header.putInt(CLEAN_OFFSET, 1);
+        header.force();
+    }
+
+    /**
+     * Closes the file without forcing changes; call {@link #force()} first to keep the set clean.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        chunks = null;
+        header = null;
+        channel.close();
+    }
+
+    // Returns the slot holding the ID, or the empty slot where it would go
+    private long findSlot(long id) {
+        long mask = capacity - 1;
+        for (long slot = hash(id) & mask; ; slot = (slot + 1) & mask) {
+            long value = getSlot(slot);
+            if (value == 0 || value == id + 1) {
+                return slot;
+            }
+        }
+    }
+
+    private long getSlot(long slot) {
+        return chunks[(int) (slot >>> CHUNK_SHIFT)].getLong((int) (slot & (CHUNK_SLOTS - 1)) * SLOT_SIZE);
+    }
+
+    private void putSlot(long slot, long value) {
+        chunks[(int) (slot >>> CHUNK_SHIFT)].putLong((int) (slot & (CHUNK_SLOTS - 1)) * SLOT_SIZE, value);
+    }
+
+    private void grow() throws IOException {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (IssuedIdSet grown = createTable(tempFile, capacity * 2)) {
+            forEach(id -> {
+                long slot = grown.findSlot(id);
+                grown.putSlot(slot, id + 1);
+            });
+            grown.count = count;
+            grown.header.putLong(COUNT_OFFSET, count);
+            grown.force();
+        }
+        channel.close();
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        map();
+    }
+
+    private void map() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            channel.close();
+            throw new IOException("Not an issued message ID file: " + file);
+        }
+        capacity = header.getLong(CAPACITY_OFFSET);
+        count = header.getLong(COUNT_OFFSET);
+        clean = header.getInt(CLEAN_OFFSET) != 0;
+        int chunkCount = (int) ((capacity + CHUNK_SLOTS - 1) >>> CHUNK_SHIFT);
+        chunks = new MappedByteBuffer[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            long slots = Math.min(CHUNK_SLOTS, capacity - ((long) i << CHUNK_SHIFT));
+            chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                    HEADER_SIZE + ((long) i << CHUNK_SHIFT) * SLOT_SIZE, slots * SLOT_SIZE);
+        }
+    }
+
+    // Writes an empty, clean table of the given size and opens it
+    private static IssuedIdSet createTable(Path file, long capacity) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            // Size the file with one byte at its end, which reads back as zeros (empty slots) before it;
+            // only the header is mapped here, since a single mapping cannot exceed 2GB
+            channel.write(ByteBuffer.allocate(1), fileSize(capacity) - 1);
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            header.putLong(CAPACITY_OFFSET, capacity);
+            header.putLong(COUNT_OFFSET, 0);
+            header.putInt(CLEAN_OFFSET, 1);
+            header.force();
+        }
+        return new IssuedIdSet(file);
+    }
+
+    private static long hash(long id) {
+        long h = id * 0x9E3779B97F4A7C15L; // Spread consecutive IDs across the table
+        return h ^ (h >>> 32);
+    }
+}
@@ -1,24 +1,33 @@
 package org.example.chatapp.auth;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
 
 public class Login {
 
-    // Store user data: username -> [password, cell, firstName, lastName]
-    private static final Map<String, String[]> users = new HashMap<>();
+    // Store user data: username -> user record, safe for concurrent registration and login
+    private static final UserRegistry users = new UserRegistry();
+    // Optional on-disk store; users are written through to it and loaded from it on first use
+    private static volatile UserStore userStore;
+    // Hashes passwords at registration and verifies them at login on a bounded worker pool
+    private static volatile CredentialVerifier verifier = new CredentialVerifier(new PasswordHasher());
+    // Logged-in users, so one process can serve many users at once
+    private static final SessionManager sessions = new SessionManager();
+    // Limits failed login attempts per username, across every client of this process
+    private static volatile LoginThrottle throttle = new LoginThrottle();
+    // Registration results, shared with BulkUserImporter so rejects read the same as interactive failures
+    static final String INVALID_USERNAME_MESSAGE = "Invalid username format. Must be 2-7 characters, Include an underscore.";
+    static final String INVALID_PASSWORD_MESSAGE = "Invalid password format. Must be min 8 chars, 1 capital, 1 number, 1 special char.";
+    static final String INVALID_CELL_NUMBER_MESSAGE = "Invalid cell phone number format. Must start with +27 and be 12 digits total.";
+    static final String USERNAME_EXISTS_MESSAGE = "Username already exists.";
+
+    // Details of the user last logged in through this instance, for the single-user console app
     private String storedFirstName;
     private String storedLastName;
     private String storedCellPhoneNumber;
 
-    // Regex patterns for validation
-    // Password: minimum 8 characters, at least one capital letter, one number, and one special character
-    private static final String PASSWORD_REGEX = "^(?=.*[A-Z])(?=.*\\d)(?=.*[!@#$%^&*()_+\\-=\\[\\]{};':\"\\\\|,.<>/?]).{8,}$";
-    // Cell Phone Number: Must start with +27 followed by exactly 9 digits
-    private static final String CELL_NUMBER_REGEX = "^\\+27[0-9]{9}$"; // Updated regex for SA numbers
-
     public Login() {
         // Default constructor
     }
@@ -34,19 +43,22 @@ public class Login {
      */
     public String registerUser(String username, String password, String cellPhoneNumber, String firstName, String lastName) {
         if (!checkUserName(username)) {
-            return "Invalid username format. Must be 2-7 characters, Include an underscore."; // Adjusted message
+            return INVALID_USERNAME_MESSAGE;
         }
         if (!checkPasswordComplexity(password)) {
-            return "Invalid password format. Must be min 8 chars, 1 capital, 1 number, 1 special char.";
+            return INVALID_PASSWORD_MESSAGE;
         }
         if (!checkCellPhoneNumber(cellPhoneNumber)) {
-            return "Invalid cell phone number format. Must start with +27 and be 12 digits total.";
+            return INVALID_CELL_NUMBER_MESSAGE;
         }
-        if (users.containsKey(username)) {
-            return "Username already exists.";
+        if (isRegistered(username)) {
+            return USERNAME_EXISTS_MESSAGE; // Cheap early exit before paying for the hash
+        }
+        String passwordHash = verifier.getHasher().hash(password);
+        String failure = commitUser(new UserRecord(username, passwordHash, cellPhoneNumber, firstName, lastName));
+        if (failure != null) {
+            return failure;
         }
-
-        users.put(username, new String[]{password, cellPhoneNumber, firstName, lastName});
         return "User registered successfully.";
     }
 
@@ -57,18 +69,55 @@ public class Login {
      * @return True if login is successful, false otherwise.
      */
     public boolean loginUser(String username, String password) {
-        if (users.containsKey(username)) {
-            String[] userData = users.get(username);
-            if (userData[0].equals(password)) {
-                this.storedCellPhoneNumber = userData[1];
-                this.storedFirstName = userData[2];
-                this.storedLastName = userData[3];
-                return true;
-            }
+        Session session = startSession(username, password);
+        if (session != null) {
+            this.storedCellPhoneNumber = session.getCellPhoneNumber();
+            this.storedFirstName = session.getFirstName();
+            this.storedLastName = session.getLastName();
+            return true;
         }
         return false;
     }
 
+    /**
+     * Logs in a user and starts a session, without touching this instance's stored details.
+     * Safe to call from many threads for different users.
+     * @param username The username.
+     * @param password The password.
+     * @return The new session, or null if the username or password is incorrect or the username
+     *         has had too many failed attempts recently.
+     */
+    public Session startSession(String username, String password) {
+        LoginThrottle currentThrottle = throttle;
+        if (!currentThrottle.tryAcquire(username)) {
+            return null; // Throttled before paying for password verification
+        }
+        UserRecord user = findUser(username);
+        if (user != null && verifier.verify(user, password)) {
+            currentThrottle.recordSuccess(username);
+            return sessions.create(user);
+        }
+        return null;
+    }
+
+    /**
+     * Looks up the session for a token.
+     * @param token The session token.
+     * @return The session, or null if the token is unknown or has expired.
+     */
+    public Session getSession(String token) {
+        return sessions.validate(token);
+    }
+
+    /**
+     * Ends a session.
+     * @param token The session token.
+     * @return True if a session was ended.
+     */
+    public boolean logout(String token) {
+        return sessions.invalidate(token);
+    }
+
     /**
      * Returns a login status message.
      * @param isLoggedIn True if the user is logged in, false otherwise.
@@ -85,110 +134,32 @@ public class Login {
     /**
      * Validates a username.
      * Username: minimum 2 characters, maximum 7 characters (to make 'john_doe' invalid), must contain an underscore,
-     * no special characters other than underscore.
+     * no special characters other than underscore, and must not start with an underscore.
      * @param username The username to validate.
      * @return True if the username is valid, false otherwise.
      */
     public boolean checkUserName(String username) {
-        if (username == null) {
-            return false;
-        }
-
-        // Enforce total length first: min 2, max 7 (as per test case 'john_doe' being too long)
-        if (username.length() < 2 || username.length() > 7) {
-            return false;
-        }
-
-        // Regex to ensure it contains at least one alphanumeric character
-        // followed by an underscore, followed by at least one alphanumeric character,
-        // or starting with alphanumeric and ending with underscore,
-        // or starting with underscore and ending with alphanumeric (but this might fail 's_' or 'john_').
-        // Let's refine the regex for clarity and correctness based on existing tests.
-        // It must contain an underscore. All other characters must be alphanumeric.
-        // It should match "john_" (length 5) and "s_" (length 2).
-        // It should NOT match "john" (no underscore).
-        // It should NOT match "john.doe" (invalid char).
-        // It should NOT match "_user" or "user_" with special characters
-        Pattern pattern = Pattern.compile("^[a-zA-Z0-9]+_[a-zA-Z0-9]*$|^[a-zA-Z0-9]*_[a-zA-Z0-9]+$"); // Allows underscore at start/end if characters exist on other side
-        // Let's simplify this further by combining with the length check and the existing good tests
-        // The regex `^[a-zA-Z0-9_]+$` checks for only alphanumeric and underscore.
-        // Then we need to ensure at least one underscore.
-        // Pattern pattern = Pattern.compile("^[a-zA-Z0-9_]+$"); // Allows any position of underscore, multiple underscores.
-        // The original `john_` and `s_` implies a single underscore as a delimiter or suffix.
-
-        // A better approach for "must contain an underscore" is a simple contains check, then combined with pattern for valid characters
-        // and overall length.
-        if (!username.contains("_")) {
-            return false;
-        }
-
-        // Updated regex to allow alphanumeric characters and only one underscore anywhere, not at the beginning.
-        // Or to handle cases like "s_" or "john_" where underscore is at the end.
-        // Let's consider the test cases: "john_", "s_". "john_doe" fails (too long due to length check).
-        // The characters must be alphanumeric or underscore, and must contain at least one underscore.
-        Pattern charactersPattern = Pattern.compile("^[a-zA-Z0-9_]*$"); // Allows only alphanumeric and underscore
-        if (!charactersPattern.matcher(username).matches()) {
-            return false;
-        }
-
-        // If it passes length and character check, and contains an underscore, it should be valid.
-        // The original regex `^[a-zA-Z0-9]*_[a-zA-Z0-9]*$` was the issue, let's go back to it
-        // but ensure our test cases match the exact intent.
-        // The problem with "a_user_" might be that "a_user" matches [a-zA-Z0-9]*, and then "_" matches, but then empty after.
-        // The test cases "john_" and "s_" mean the underscore can be at the end.
-        // So the regex should be: `^[a-zA-Z0-9]+_?[a-zA-Z0-9]*$` allowing optional underscore or underscore at the end.
-        // Or requiring at least one char before AND after underscore (unless underscore is at end).
-
-        // Let's explicitly check for the underscore position to match the tests.
-        // It needs to contain at least one character, then an underscore, then other characters.
-        // Or start with a character and end with an underscore (like "john_").
-        // And total length is 2-7.
-
-        // Re-evaluating the test cases to define the specific underscore rule:
-        // "john_" (valid) - starts alpha, ends underscore.
-        // "s_" (valid) - starts alpha, ends underscore.
-        // "john_doe" (invalid - too long, but otherwise would match) - starts alpha, contains underscore, ends alpha.
-        // "john" (invalid - no underscore)
-        // So, it's alphanumeric, MUST contain an underscore, total 2-7 chars.
-
-        // The simplest regex for "alphanumeric + underscore only" AND "contains underscore" AND "overall length"
-        // is to do the length check and contains check separately, and the regex for character set.
-        // The previous regex `^[a-zA-Z0-9]*_[a-zA-Z0-9]*$` allows `_` or `_a` which might not be valid.
-
-        // Let's ensure at least one alphanumeric character *before* the underscore, and only alphanumeric characters or underscore.
-        // AND it must contain an underscore.
-        Pattern finalPattern = Pattern.compile("^[a-zA-Z0-9]+[a-zA-Z0-9_]*$"); // Starts with alphanumeric, then alphanumeric or underscore.
-        // This ensures it doesn't start with underscore, but can end with underscore.
-        // And then we need to ensure it has an underscore at all.
-        return username.contains("_") && finalPattern.matcher(username).matches();
+        return InputValidator.isValidUserName(username);
     }
 
     /**
      * Validates password complexity.
+     * Password: minimum 8 characters, at least one capital letter, one number, and one special character.
      * @param password The password to validate.
      * @return True if the password meets complexity requirements, false otherwise.
      */
     public boolean checkPasswordComplexity(String password) {
-        if (password == null) {
-            return false;
-        }
-        Pattern pattern = Pattern.compile(PASSWORD_REGEX);
-        Matcher matcher = pattern.matcher(password);
-        return matcher.matches();
+        return InputValidator.isValidPassword(password);
     }
 
     /**
      * Validates a cell phone number.
+     * Cell Phone Number: Must start with +27 followed by exactly 9 digits.
      * @param cellPhoneNumber The cell phone number to validate.
      * @return True if the cell phone number is valid, false otherwise.
      */
     public boolean checkCellPhoneNumber(String cellPhoneNumber) {
-        if (cellPhoneNumber == null) {
-            return false;
-        }
-        Pattern pattern = Pattern.compile(CELL_NUMBER_REGEX);
-        Matcher matcher = pattern.matcher(cellPhoneNumber);
-        return matcher.matches();
+        return InputValidator.isValidCellNumber(cellPhoneNumber);
     }
 
     // Getters for stored user details (after successful login)
@@ -210,10 +181,157 @@ public class Login {
     }
 
     /**
-     * Clears the static users map. Used for test isolation.
+     * Adds a validated user whose password is already hashed to the registry and the user store.
+     * @param user The user.
+     * @return Null if the user was added, otherwise the reason it was not.
+     */
+    static String commitUser(UserRecord user) {
+        // Check and insert in one atomic step so concurrent registrations cannot both claim a username
+        if (!users.register(user)) {
+            return USERNAME_EXISTS_MESSAGE;
+        }
+        UserStore store = userStore;
+        if (store != null) {
+            try {
+                if (!store.put(user)) {
+                    users.remove(user.getUsername()); // Registered on disk by another process since the check above
+                    return USERNAME_EXISTS_MESSAGE;
+                }
+            } catch (IOException e) {
+                users.remove(user.getUsername());
+                return "Registration failed: could not save user.";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds validated users whose passwords are already hashed, in one batch. With a user store
+     * attached they are written to the store only and loaded into memory the first time they log
+     * in, like users from an earlier run; without one they are kept in memory.
+     * @param batch The users.
+     * @return For each user, null if it was added, otherwise the reason it was not.
+     * @throws IOException If the user store cannot be written.
+     */
+    static String[] commitUsers(List<UserRecord> batch) throws IOException {
+        String[] failures = new String[batch.size()];
+        UserStore store = userStore;
+        if (store == null) {
+            for (int i = 0; i < batch.size(); i++) {
+                failures[i] = commitUser(batch.get(i));
+            }
+            return failures;
+        }
+        // Users held in memory are also in the store unless they registered before it was attached
+        List<UserRecord> toStore = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            if (users.contains(batch.get(i).getUsername())) {
+                failures[i] = USERNAME_EXISTS_MESSAGE;
+            } else {
+                toStore.add(batch.get(i));
+            }
+        }
+        boolean[] added = store.putAll(toStore);
+        for (int i = 0, stored = 0; i < batch.size(); i++) {
+            if (failures[i] == null && !added[stored++]) {
+                failures[i] = USERNAME_EXISTS_MESSAGE;
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Flushes the user store, if one is attached, so users committed so far survive a crash.
+     * @throws IOException If flushing fails.
+     */
+    static void flushUserStore() throws IOException {
+        UserStore store = userStore;
+        if (store != null) {
+            store.force();
+        }
+    }
+
+    /**
+     * Checks whether a username is registered, in memory or in the user store.
+     * @param username The username.
+     * @return True if the username is taken.
+     */
+    static boolean isRegistered(String username) {
+        return findUser(username) != null;
+    }
+
+    /**
+     * Finds a user in memory, falling back to the user store and caching what it finds.
+     * @param username The username.
+     * @return The user, or null if the username is not registered.
+     */
+    private static UserRecord findUser(String username) {
+        UserRecord user = users.find(username);
+        UserStore store = userStore;
+        if (user != null || store == null || username == null) {
+            return user;
+        }
+        try {
+            user = store.find(username);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read user store.", e);
+        }
+        if (user != null) {
+            users.register(user);
+        }
+        return user;
+    }
+
+    /**
+     * Attaches an on-disk user store. Registered users are saved to it, and users registered in
+     * earlier runs are loaded from it the first time they register or log in.
+     * @param store The store, or null to keep users in memory only.
+     */
+    public static void attachUserStore(UserStore store) {
+        userStore = store;
+    }
+
+    /**
+     * Replaces the credential verifier, e.g. to change the PBKDF2 iteration count or pool size.
+     * Existing hashes stay valid since each records its own iteration count.
+     * @param credentialVerifier The verifier to use from now on.
+     */
+    public static void setCredentialVerifier(CredentialVerifier credentialVerifier) {
+        CredentialVerifier previous = verifier;
+        verifier = credentialVerifier;
+        previous.close();
+    }
+
+    public static CredentialVerifier getCredentialVerifier() {
+        return verifier;
+    }
+
+    /**
+     * Removes every expired session. Scans all sessions, so call it periodically (the server
+     * does so every minute) rather than on each login.
+     * @return The number of sessions removed.
+     */
+    public static int evictExpiredSessions() {
+        return sessions.evictExpired();
+    }
+
+    /**
+     * Replaces the login throttle, e.g. to change how many failed attempts are allowed.
+     * @param loginThrottle The throttle to use from now on.
+     */
+    public static void setLoginThrottle(LoginThrottle loginThrottle) {
+        throttle = loginThrottle;
+    }
+
+    /**
+     * Clears the static user registry and detaches any user store. Used for test isolation.
      */
     public static void clearUsersForTesting() {
         users.clear();
+        verifier.clearCache();
+        sessions.clear();
+        throttle.clear();
+        userStore = null;
     }
 }
 
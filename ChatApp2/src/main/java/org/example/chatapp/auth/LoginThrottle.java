@@ -0,0 +1,178 @@
+package org.example.chatapp.auth;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-username token buckets limiting login attempts.
+ * Each username gets {@code capacity} attempts, refilled at one per refill interval. A login
+ * attempt takes a token before the password is verified and gives it back if the login succeeds,
+ * so only failed attempts count against the limit and guessing a password is slowed to the
+ * refill rate, however many clients try at once.
+ *
+ * A bucket is a single {@link AtomicLong} packing the last refill time (high 48 bits, milliseconds)
+ * with the token count (low 16 bits), updated by compare-and-set, so legitimate logins never take a
+ * lock. Buckets that have refilled completely carry no information and are swept once the number
+ * of tracked usernames grows large.
+ */
+public class LoginThrottle {
+
+    public static final int DEFAULT_CAPACITY = 5;
+    public static final long DEFAULT_REFILL_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private static final int TOKEN_BITS = 16;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    // Marks a bucket being swept; threads that see it fetch a fresh bucket
+    private static final long SWEPT = -1;
+    private static final int SWEEP_THRESHOLD = 10_000; // Tracked usernames before full buckets are swept
+    private static final int SWEEP_CHECK_INTERVAL = 1024; // Attempts between threshold checks
+
+    private final int capacity;
+    private final long refillIntervalMillis;
+    private final LongSupplier clock;
+    private final long startMillis;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicInteger attemptsSinceSweepCheck = new AtomicInteger();
+
+    public LoginThrottle() {
+        this(DEFAULT_CAPACITY, DEFAULT_REFILL_INTERVAL_MILLIS, System::currentTimeMillis);
+    }
+
+    /**
+     * Creates a throttle.
+     * @param capacity The number of failed attempts allowed in a burst (at most 65535).
+     * @param refillIntervalMillis The time it takes to earn back one attempt.
+     * @param clock Source of millisecond timestamps.
+     */
+    public LoginThrottle(int capacity, long refillIntervalMillis, LongSupplier clock) {
+        if (capacity <= 0 || capacity > TOKEN_MASK || refillIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Capacity must be between 1 and " + TOKEN_MASK + " and the refill interval positive.");
+        }
+        this.capacity = capacity;
+        this.refillIntervalMillis = refillIntervalMillis;
+        this.clock = clock;
+        this.startMillis = clock.getAsLong();
+    }
+
+    /**
+     * Takes a login attempt for a username.
+     * @param username The username being logged in to.
+     * @return True if the attempt may go ahead, false if the username is throttled.
+     */
+    public boolean tryAcquire(String username) {
+        if (username == null) {
+            return false;
+        }
+        long now = now();
+        if (attemptsSinceSweepCheck.incrementAndGet() % SWEEP_CHECK_INTERVAL == 0 && buckets.size() > SWEEP_THRESHOLD) {
+            sweep(now);
+        }
+        while (true) {
+            AtomicLong bucket = buckets.computeIfAbsent(username, key -> new AtomicLong(pack(now, capacity)));
+            long state = bucket.get();
+            if (state == SWEPT) {
+                Thread.onSpinWait(); // The sweeper is about to remove it
+                continue;
+            }
+            long refilled = refill(state, now);
+            if (tokens(refilled) == 0) {
+                return false;
+            }
+            if (bucket.compareAndSet(state, refilled - 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives back the attempt taken for a login that succeeded.
+     * @param username The username that was logged in to.
+     */
+    public void recordSuccess(String username) {
+        AtomicLong bucket = username == null ? null : buckets.get(username);
+        if (bucket == null) {
+            return;
+        }
+        while (true) {
+            long state = bucket.get();
+            if (state == SWEPT || tokens(state) >= capacity) {
+                return;
+            }
+            if (bucket.compareAndSet(state, state + 1)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns how many attempts a username has left right now.
+     * @param username The username.
+     * @return The number of attempts available.
+     */
+    public int getRemainingAttempts(String username) {
+        AtomicLong bucket = username == null ? null : buckets.get(username);
+        long state = bucket == null ? SWEPT : bucket.get();
+        return state == SWEPT ? capacity : tokens(refill(state, now()));
+    }
+
+    /**
+     * Forgets buckets that have refilled completely.
+     * @return The number of buckets removed.
+     */
+    public int evictIdle() {
+        return sweep(now());
+    }
+
+    /**
+     * Forgets every bucket.
+     */
+    public void clear() {
+        buckets.clear();
+    }
+
+    private int sweep(long now) {
+        int removed = 0;
+        for (Map.Entry<String, AtomicLong> entry : buckets.entrySet()) {
+            AtomicLong bucket = entry.getValue();
+            long state = bucket.get();
+            // Mark before removing so a concurrent attempt cannot take a token from a bucket being dropped
+            if (state != SWEPT && tokens(refill(state, now)) == capacity && bucket.compareAndSet(state, SWEPT)) {
+                buckets.remove(entry.getKey(), bucket);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private long refill(long state, long now) {
+        int tokens = tokens(state);
+        if (tokens >= capacity) {
+            return pack(now, capacity); // A full bucket starts counting from now
+        }
+        long lastRefill = state >>> TOKEN_BITS;
+        long earned = (now - lastRefill) / refillIntervalMillis;
+        if (earned <= 0) {
+            return state;
+        }
+        if (tokens + earned >= capacity) {
+            return pack(now, capacity);
+        }
+        return pack(lastRefill + earned * refillIntervalMillis, tokens + (int) earned);
+    }
+
+    private long now() {
+        return Math.max(0, clock.getAsLong() - startMillis);
+    }
+
+    private static long pack(long millis, int tokens) {
+        return (millis << TOKEN_BITS) | tokens;
+    }
+
+    private static int tokens(long state) {
+        return (int) (state & TOKEN_MASK);
+    }
+}
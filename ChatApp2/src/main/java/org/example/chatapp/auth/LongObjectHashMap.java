@@ -0,0 +1,225 @@
+package org.example.chatapp.auth;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+/**
+ * Hash map from primitive long keys to objects.
+ * Keys live in a flat {@code long[]} with linear probing, so there is no boxing and no entry
+ * object per mapping, and a lookup usually touches one or two adjacent array slots. Removal
+ * shifts later entries of the probe run back instead of leaving tombstones.
+ * Not thread-safe.
+ * @param <V> The value type.
+ */
+public class LongObjectHashMap<V> {
+
+    private static final int MIN_CAPACITY = 8;
+    private static final double LOAD_FACTOR = 0.6;
+    // Key 0 marks an empty slot; a mapping for key 0 is kept separately
+    private static final long EMPTY = 0;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+    private int resizeAt;
+    private boolean hasZeroKey;
+    private Object zeroValue;
+
+    public LongObjectHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Creates a map sized for a number of mappings.
+     * @param expectedSize The number of mappings expected.
+     */
+    public LongObjectHashMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * Returns the value for a key.
+     * @param key The key.
+     * @return The value, or null if the key is not mapped.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key == EMPTY) {
+            return (V) zeroValue;
+        }
+        int slot = find(key);
+        return slot < 0 ? null : (V) values[slot];
+    }
+
+    public boolean containsKey(long key) {
+        return key == EMPTY ? hasZeroKey : find(key) >= 0;
+    }
+
+    /**
+     * Maps a key to a value.
+     * @param key The key.
+     * @param value The value.
+     * @return The previous value, or null if the key was not mapped.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (key == EMPTY) {
+            V previous = (V) zeroValue;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return previous;
+        }
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the value for a key, computing and mapping it first if the key is not mapped.
+     * @param key The key.
+     * @param mappingFunction Computes the value for an unmapped key.
+     * @return The existing or computed value.
+     */
+    public V computeIfAbsent(long key, LongFunction<? extends V> mappingFunction) {
+        V value = get(key);
+        if (value == null) {
+            value = mappingFunction.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Removes the mapping for a key.
+     * @param key The key.
+     * @return The removed value, or null if the key was not mapped.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        if (key == EMPTY) {
+            V previous = (V) zeroValue;
+            if (hasZeroKey) {
+                hasZeroKey = false;
+                zeroValue = null;
+                size--;
+            }
+            return previous;
+        }
+        int slot = find(key);
+        if (slot < 0) {
+            return null;
+        }
+        V previous = (V) values[slot];
+        size--;
+        // Shift back later entries of the probe run so lookups never stop early at the gap
+        int mask = keys.length - 1;
+        int gap = slot;
+        for (int next = (gap + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+            int home = mix(keys[next]) & mask;
+            // Move the entry if its home slot is not between the gap (exclusive) and its slot (inclusive)
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        keys[gap] = EMPTY;
+        values[gap] = null;
+        return previous;
+    }
+
+    /**
+     * Calls an action for every value, in no particular order.
+     * @param action The action.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<? super V> action) {
+        if (hasZeroKey) {
+            action.accept((V) zeroValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                action.accept((V) values[i]);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes every mapping, keeping the current capacity.
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, null);
+        hasZeroKey = false;
+        zeroValue = null;
+        size = 0;
+    }
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        for (int slot = mix(key) & mask; keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    // Phone numbers share long prefixes (e.g. 2783...), so spread all the bits before masking
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,167 @@
+package org.example.chatapp.auth;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Local stand-in for a delivery gateway, listening on the loopback interface.
+ * Each request line is "DELIVER messageID recipient text" and is answered with "ACK messageID",
+ * or "NACK messageID reason" when the gateway rejects it. Requests may be pipelined: answers are
+ * written in request order and flushed once the gateway has caught up with the client.
+ *
+ * Delivery is idempotent per message ID, as a retried send may repeat one whose acknowledgement
+ * was lost. A reject rate can be set to simulate a flaky gateway.
+ */
+public class LoopbackGateway implements Closeable {
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("gateway-connection-", 0).factory());
+    private final Set<Socket> openSockets = ConcurrentHashMap.newKeySet();
+    private final Set<String> delivered = ConcurrentHashMap.newKeySet();
+    private final Thread acceptor;
+    private volatile double rejectRate = 0;
+    private volatile boolean closed;
+
+    /**
+     * Binds the gateway to a port on the loopback interface and starts accepting connections.
+     * @param port The port, or 0 for any free port.
+     * @return The running gateway.
+     * @throws IOException If the port cannot be bound.
+     */
+    public static LoopbackGateway start(int port) throws IOException {
+        return new LoopbackGateway(port);
+    }
+
+    private LoopbackGateway(int port) throws IOException {
+        this.serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        this.acceptor = new Thread(this::acceptLoop, "gateway-acceptor");
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Returns the number of distinct messages delivered.
+     * @return The delivered message count; repeated deliveries of a message count once.
+     */
+    public int getDeliveredCount() {
+        return delivered.size();
+    }
+
+    public boolean isDelivered(String messageID) {
+        return delivered.contains(messageID);
+    }
+
+    /**
+     * Makes the gateway reject a share of deliveries at random.
+     * @param rejectRate The probability of rejecting each delivery, from 0 to 1.
+     */
+    public void setRejectRate(double rejectRate) {
+        if (rejectRate < 0 || rejectRate > 1) {
+            throw new IllegalArgumentException("Reject rate must be between 0 and 1.");
+        }
+        this.rejectRate = rejectRate;
+    }
+
+    /**
+     * Stops accepting connections and disconnects the connected clients.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        serverSocket.close();
+        for (Socket socket : openSockets) {
+            closeQuietly(socket);
+        }
+        connections.close();
+        try {
+            acceptor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                openSockets.add(socket);
+                if (closed) {
+                    closeQuietly(socket);
+                    openSockets.remove(socket);
+                    break;
+                }
+                connections.execute(() -> serve(socket));
+            } catch (RejectedExecutionException e) {
+                break;
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("Error accepting gateway connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            String line;
+            while ((line = in.readLine()) != null) {
+                out.write(handle(line));
+                out.write('\n');
+                if (!in.ready()) {
+                    out.flush(); // One write for every answer to requests that arrived together
+                }
+            }
+        } catch (SocketException e) {
+            // Connection reset, or closed by close()
+        } catch (IOException e) {
+            System.err.println("Error serving gateway connection: " + e.getMessage());
+        } finally {
+            openSockets.remove(socket);
+        }
+    }
+
+    private String handle(String line) {
+        String[] parts = line.split(" ", 4);
+        if (parts.length < 3 || !parts[0].equals("DELIVER")) {
+            return "NACK - Malformed request.";
+        }
+        String messageID = parts[1];
+        if (!delivered.contains(messageID) && ThreadLocalRandom.current().nextDouble() < rejectRate) {
+            return "NACK " + messageID + " Gateway busy.";
+        }
+        delivered.add(messageID);
+        return "ACK " + messageID;
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // Already closing
+        }
+    }
+}
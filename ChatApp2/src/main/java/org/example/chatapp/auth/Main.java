@@ -1,15 +1,18 @@
 package org.example.chatapp.auth;
 // src/Main.java (Part 3)
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 import javax.swing.JOptionPane;
-import com.google.gson.Gson; // For JSON parsing
-import com.google.gson.reflect.TypeToken; // For deserializing List<Message>
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.Closeable;
 import java.io.IOException;
-import java.lang.reflect.Type; // For TypeToken
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 
 //https://www.w3schools.com/java/default.asp
@@ -21,24 +24,52 @@ import java.lang.reflect.Type; // For TypeToken
 //Google Gemini AI Language Model, version 2025
 public class Main {
 
-    // --- Arrays to populate as per Part 3 requirements ---
-    private static final List<Message> sentMessages = new ArrayList<>(); // Contains all messages sent.
-    private static final List<Message> disregardedMessages = new ArrayList<>(); // Contains all messages that were disregarded.
-    private static final List<Message> storedMessages = new ArrayList<>(); // Contains the stored messages (from JSON).
-    private static final List<String> messageHashes = new ArrayList<>(); // Contains all message hashes.
-    private static final List<String> messageIDs = new ArrayList<>(); // Contains all message IDs.
+    private static final Login loginApp = new Login(); // Re-use the Login instance from Part 1
 
+    private static final int TOP_LONGEST_MESSAGES = 5; // Number of messages listed in the longest message report
+    private static final int TOP_RECIPIENTS = 5; // Number of recipients listed in the message counts report
+    private static final long MAX_SEND_DELAY_MINUTES = 525_600; // Stored messages can be scheduled up to a year ahead
 
-    private static final Login loginApp = new Login(); // Re-use the Login instance from Part 1
+    private static String currentUsername; // Username of the logged-in user, recorded as the sender of their messages
+    private static DeliveryTransport deliveryTransport; // Delivers messages sent from the console; null if the gateway is unreachable
+
+    private static final String ALL_INTERFACES_FLAG = "--all-interfaces"; // Server mode: accept clients from other hosts
+    private static final String STORED_MESSAGES_STORE = "stored_messages"; // Message store, kept in stored_messages-NNNNNN.seg segments
+    private static final String STORED_MESSAGES_FILE = "stored_messages.json"; // Checkpoint written by earlier versions, imported once
+    private static final String STORED_MESSAGES_JOURNAL = "stored_messages.journal"; // Journal written by earlier versions, imported once
+    private static final String USER_STORE_FILE = "users"; // Registered users, kept in users.dat and users.idx
+    private static final String MESSAGE_ID_FILTER_FILE = UniqueRandomMessageIdGenerator.DEFAULT_FILTER_FILE; // Bloom filter of issued message IDs
+    private static final String ISSUED_MESSAGE_IDS_FILE = UniqueRandomMessageIdGenerator.DEFAULT_ISSUED_IDS_FILE; // Every issued message ID
 
-    private static final String STORED_MESSAGES_FILE = "stored_messages.json"; // File for JSON storage
+    // --- All messages (sent, stored and disregarded); stored ones are kept in the message store across runs ---
+    private static final MessageService messageService = new MessageService(Paths.get(STORED_MESSAGES_STORE));
 
     public static void main(String[] args) {
+        if (args.length > 0 && (args[0].equals("--server") || args[0].equals("--nio-server"))) {
+            // Headless multi-client mode, see ChatServer and NioChatServer
+            boolean allInterfaces = false;
+            String portArgument = null;
+            for (int i = 1; i < args.length; i++) {
+                if (args[i].equals(ALL_INTERFACES_FLAG)) {
+                    allInterfaces = true;
+                } else {
+                    portArgument = args[i];
+                }
+            }
+            runServer(args[0].equals("--nio-server"), portArgument, allInterfaces);
+            return;
+        }
         Scanner scanner = new Scanner(System.in);
+        UserStore userStore = openUserStore(); // Users registered in earlier runs can log in straight away
+        UniqueRandomMessageIdGenerator idGenerator = openIdGenerator(); // Message IDs never repeat one from an earlier run
 
         // --- Part 1: Registration ---
         System.out.println("--- Chat App Registration ---");
         boolean registrationSuccessful = false;
+        if (userStore != null && userStore.size() > 0) {
+            System.out.print("Do you already have an account? (yes/no): ");
+            registrationSuccessful = scanner.nextLine().trim().equalsIgnoreCase("yes");
+        }
         while (!registrationSuccessful) {
             System.out.print("Enter your first name: ");
             String firstName = scanner.nextLine();
@@ -77,6 +108,9 @@ public class Main {
             String loginPassword = scanner.nextLine();
 
             loggedIn = loginApp.loginUser(loginUsername, loginPassword);
+            if (loggedIn) {
+                currentUsername = loginUsername;
+            }
             String loginStatusMessage = loginApp.returnLoginStatus(loggedIn);
             System.out.println(loginStatusMessage);
 
@@ -91,14 +125,161 @@ public class Main {
         if (loggedIn) {
             System.out.println("\nWelcome to QuickChat.");
             loadStoredMessages(); // Load any previously stored messages at startup
+            LoopbackGateway gateway = startGateway();
+            deliveryTransport = connectTransport(gateway);
+            // Reschedules loaded messages with a send time
+            DeliveryScheduler scheduler = DeliveryScheduler.start(messageService, DeliveryScheduler.DEFAULT_TICK_MILLIS, deliveryTransport);
             runChatMenu(scanner); // Proceed to chat menu
+            scheduler.close();
+            closeQuietly(deliveryTransport); // Waits for deliveries in flight
+            closeQuietly(gateway);
+            closeStoredMessages(); // Force the message store to disk
         } else {
             System.out.println("Too many failed login attempts. Exiting application.");
         }
 
+        closeQuietly(idGenerator);
+        closeUserStore(userStore);
         scanner.close();
     }
 
+    /**
+     * Runs the TCP chat server until the JVM is stopped. Users and stored messages are loaded at
+     * startup and saved by a shutdown hook. The server only accepts local clients unless
+     * {@value #ALL_INTERFACES_FLAG} is given, since the protocol sends passwords in plain text.
+     * @param nonBlocking True for the selector-based server with framed requests, false for the
+     *                    thread-per-connection server with line requests.
+     * @param portArgument The port to listen on, or null for {@link ChatServer#DEFAULT_PORT}.
+     * @param allInterfaces True to listen on all interfaces, false for the loopback interface only.
+     */
+    private static void runServer(boolean nonBlocking, String portArgument, boolean allInterfaces) {
+        int port;
+        try {
+            port = portArgument == null ? ChatServer.DEFAULT_PORT : Integer.parseInt(portArgument);
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid port: " + portArgument);
+            return;
+        }
+        UserStore userStore = openUserStore();
+        UniqueRandomMessageIdGenerator idGenerator = openIdGenerator();
+        loadStoredMessages();
+        LoopbackGateway gateway = startGateway();
+        DeliveryTransport transport = connectTransport(gateway);
+        DeliveryScheduler scheduler = DeliveryScheduler.start(messageService, DeliveryScheduler.DEFAULT_TICK_MILLIS, transport);
+        // Sends from all clients are batched on one thread instead of each taking the service lock
+        OutboundDispatcher outbound = OutboundDispatcher.start(messageService, OutboundDispatcher.DEFAULT_CAPACITY,
+                OutboundDispatcher.DEFAULT_BATCH_SIZE, BackpressurePolicy.BLOCK, transport);
+        // Expired sessions are otherwise only dropped when looked up or when the session table is full
+        ScheduledExecutorService sessionSweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sessionSweeper.scheduleAtFixedRate(Login::evictExpiredSessions, 1, 1, TimeUnit.MINUTES);
+        InetSocketAddress address = allInterfaces ? new InetSocketAddress(port)
+                : new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+        Closeable server;
+        int boundPort;
+        try {
+            if (nonBlocking) {
+                NioChatServer nioServer = NioChatServer.start(address, messageService, outbound);
+                server = nioServer;
+                boundPort = nioServer.getPort();
+            } else {
+                ChatServer chatServer = ChatServer.start(address, messageService, outbound);
+                server = chatServer;
+                boundPort = chatServer.getPort();
+            }
+        } catch (IOException e) {
+            System.err.println("Error starting chat server: " + e.getMessage());
+            sessionSweeper.shutdownNow();
+            outbound.close();
+            scheduler.close();
+            closeQuietly(transport);
+            closeQuietly(gateway);
+            closeStoredMessages();
+            closeQuietly(idGenerator);
+            closeUserStore(userStore);
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+            } catch (IOException e) {
+                System.err.println("Error stopping chat server: " + e.getMessage());
+            }
+            sessionSweeper.shutdownNow();
+            outbound.close(); // Sends whatever is still queued
+            scheduler.close(); // Unsent scheduled messages stay stored and are rescheduled on restart
+            closeQuietly(transport); // Waits for deliveries in flight
+            closeQuietly(gateway);
+            closeStoredMessages();
+            closeQuietly(idGenerator);
+            closeUserStore(userStore);
+        }, "chat-server-shutdown"));
+        System.out.println("QuickChat server listening on " + (allInterfaces ? "all interfaces" : "the loopback interface")
+                + ", port " + boundPort + ".");
+    }
+
+    /**
+     * Starts the local stand-in delivery gateway.
+     * @return The gateway, or null if it could not be started (sent messages are then only recorded).
+     */
+    private static LoopbackGateway startGateway() {
+        try {
+            return LoopbackGateway.start(0);
+        } catch (IOException e) {
+            System.err.println("Error starting delivery gateway, messages will not be delivered: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Connects a transport to the delivery gateway: pipelined, retrying, and keeping each recipient's messages in order.
+     * @param gateway The gateway, may be null.
+     * @return The transport, or null if there is no gateway or it cannot be reached.
+     */
+    private static DeliveryTransport connectTransport(LoopbackGateway gateway) {
+        if (gateway == null) {
+            return null;
+        }
+        try {
+            InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), gateway.getPort());
+            // Retries happen inside the recipient's chain, so a retried message is never overtaken by a later one
+            return new OrderedDeliveryTransport(new RetryingTransport(PipelinedTransport.connect(address)));
+        } catch (IOException e) {
+            System.err.println("Error connecting to delivery gateway, messages will not be delivered: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Hands a message sent from the console to the delivery transport, if there is one.
+     * The delivery completes in the background; a failure is logged.
+     * @param message The sent message.
+     */
+    private static void deliver(Message message) {
+        if (deliveryTransport == null) {
+            return;
+        }
+        deliveryTransport.send(message).whenComplete((ignored, e) -> {
+            if (e != null) {
+                System.err.println("Error delivering message " + message.getMessageID() + ": " + e.getMessage());
+            }
+        });
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            System.err.println("Error closing " + closeable.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+    }
+
     /**
      * Displays the main chat application menu and handles user choices.
      * The menu is displayed numerically using `JOptionPane`.
@@ -200,42 +381,35 @@ public class Main {
                 }
             } while (!validMessageLength);
 
-            Message currentMessage = new Message(recipient, messageText);
+            Message currentMessage = messageService.compose(recipient, messageText);
+            currentMessage.setSender(currentUsername);
             System.out.println("Message ID generated: " + currentMessage.getMessageID());
 
-            // Add ID to messageIDs array
-            messageIDs.add(currentMessage.getMessageID());
-
             int choice = currentMessage.sendMessageOptions();
 
             switch (choice) {
                 case 1: // Send Message
-                    currentMessage.setSent(true);
-                    Message.incrementTotalMessagesSent();
-                    currentMessage.createMessageHash();
-                    sentMessages.add(currentMessage);
-                    messageHashes.add(currentMessage.getMessageHash());
+                    messageService.send(currentMessage);
+                    deliver(currentMessage);
                     System.out.println("Message successfully sent.");
                     JOptionPane.showMessageDialog(null, currentMessage.getMessageDetailsForDisplay(),
                             "Message Sent Details", JOptionPane.INFORMATION_MESSAGE);
                     break;
                 case 2: // Store Message (JSON)
-                    currentMessage.createMessageHash(); // Generate hash for stored messages too
-                    storedMessages.add(currentMessage);
-                    messageHashes.add(currentMessage.getMessageHash());
-                    saveStoredMessages(); // Save all stored messages to JSON file
+                    currentMessage.setSendAt(readSendAt(scanner));
+                    storeMessage(currentMessage); // Hashed and appended to the message store
                     System.out.println("Message successfully stored.");
                     JOptionPane.showMessageDialog(null, "Message stored for later sending (JSON):\n" + currentMessage.toJson(),
                             "Message Stored", JOptionPane.INFORMATION_MESSAGE);
                     break;
                 case 3: // Disregard Message
-                    disregardedMessages.add(currentMessage);
+                    messageService.disregard(currentMessage);
                     // No hash or total messages count for disregarded as per requirements.
                     System.out.println("Press 0 to delete message."); // Interpreting this as "message disregarded"
                     break;
                 default:
                     System.out.println("Invalid option. Message disregarded by default.");
-                    disregardedMessages.add(currentMessage);
+                    messageService.disregard(currentMessage);
                     break;
             }
         }
@@ -243,32 +417,42 @@ public class Main {
     }
 
     /**
-     * Loads messages from the stored_messages.json file into the storedMessages array.
+     * Asks when a stored message should be sent automatically.
+     * @param scanner The Scanner object for console input.
+     * @return The send time in epoch milliseconds, or 0 to keep the message stored.
      */
-    private static void loadStoredMessages() {
-        Gson gson = new Gson();
-        try (FileReader reader = new FileReader(STORED_MESSAGES_FILE)) {
-            // Define the type for Gson to deserialize a List of Message objects
-            Type messageListType = new TypeToken<ArrayList<Message>>(){}.getType();
-            List<Message> loadedMessages = gson.fromJson(reader, messageListType);
-            if (loadedMessages != null) {
-                storedMessages.clear(); // Clear existing in-memory list before loading
-                storedMessages.addAll(loadedMessages);
-                // Also add their IDs and hashes to the respective tracking lists if not already present
-                for (Message msg : loadedMessages) {
-                    if (!messageIDs.contains(msg.getMessageID())) {
-                        messageIDs.add(msg.getMessageID());
-                    }
-                    // Ensure hash is created and added if it wasn't during loading (e.g., if loaded from old file)
-                    if (msg.getMessageHash() == null) {
-                        msg.createMessageHash(); // Re-create hash if missing
-                    }
-                    if (msg.getMessageHash() != null && !messageHashes.contains(msg.getMessageHash())) {
-                        messageHashes.add(msg.getMessageHash());
-                    }
+    private static long readSendAt(Scanner scanner) {
+        while (true) {
+            System.out.print("Send automatically in how many minutes? (leave blank to keep it stored): ");
+            String input = scanner.nextLine().trim();
+            if (input.isEmpty()) {
+                return 0;
+            }
+            try {
+                long minutes = Long.parseLong(input);
+                if (minutes >= 0 && minutes <= MAX_SEND_DELAY_MINUTES) {
+                    return System.currentTimeMillis() + minutes * 60_000;
                 }
-                System.out.println("Stored messages loaded successfully from " + STORED_MESSAGES_FILE);
+            } catch (NumberFormatException e) {
+                // Fall through to the prompt below
             }
+            System.out.println("Please enter a number of minutes from 0 to " + MAX_SEND_DELAY_MINUTES + ".");
+        }
+    }
+
+    /**
+     * Opens the message store, whose messages are read in place rather than loaded, and moves
+     * in any stored_messages.json checkpoint and journal left by an earlier version.
+     */
+    private static void loadStoredMessages() {
+        try {
+            messageService.loadStoredMessages();
+            if (Files.exists(Paths.get(STORED_MESSAGES_FILE)) || Files.exists(Paths.get(STORED_MESSAGES_JOURNAL))) {
+                int imported = messageService.importStoredMessages(Paths.get(STORED_MESSAGES_FILE),
+                        Paths.get(STORED_MESSAGES_JOURNAL));
+                System.out.println("Moved " + imported + " stored messages from " + STORED_MESSAGES_FILE + " into the message store");
+            }
+            System.out.println("Stored messages opened from " + STORED_MESSAGES_STORE);
         } catch (IOException e) {
             System.out.println("No existing stored messages file found, or error reading file: " + e.getMessage());
             // This is common on first run, so don't treat as a critical error.
@@ -276,13 +460,71 @@ public class Main {
     }
 
     /**
-     * Saves all messages in the storedMessages array to the stored_messages.json file.
+     * Forces the stored messages to disk and closes the message store.
      */
-    private static void saveStoredMessages() {
-        Gson gson = new Gson();
-        try (FileWriter writer = new FileWriter(STORED_MESSAGES_FILE)) {
-            gson.toJson(storedMessages, writer);
-            System.out.println("Messages saved to " + STORED_MESSAGES_FILE);
+    private static void closeStoredMessages() {
+        try {
+            messageService.close();
+        } catch (IOException e) {
+            System.err.println("Error saving messages: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Opens the generator of unique random message IDs and makes it the one new messages use.
+     * @return The generator, or null if its files could not be opened (IDs then come from the default generator).
+     */
+    private static UniqueRandomMessageIdGenerator openIdGenerator() {
+        try {
+            UniqueRandomMessageIdGenerator generator = UniqueRandomMessageIdGenerator.open(
+                    Paths.get(MESSAGE_ID_FILTER_FILE), Paths.get(ISSUED_MESSAGE_IDS_FILE));
+            Message.setIdGenerator(generator);
+            return generator;
+        } catch (IOException e) {
+            System.err.println("Error opening message ID history, using the default ID generator: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Opens the user store and attaches it to Login.
+     * @return The store, or null if it could not be opened (users are then kept in memory only).
+     */
+    private static UserStore openUserStore() {
+        try {
+            UserStore store = UserStore.open(Paths.get(USER_STORE_FILE));
+            Login.attachUserStore(store);
+            return store;
+        } catch (IOException e) {
+            System.err.println("Error opening user store, users will not be saved: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Flushes and closes the user store.
+     * @param store The store, may be null.
+     */
+    private static void closeUserStore(UserStore store) {
+        if (store == null) {
+            return;
+        }
+        try {
+            store.close();
+        } catch (IOException e) {
+            System.err.println("Error saving users: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stores a message for later sending; the service appends it to the message store.
+     * Only the new entry is written; nothing else in the store is rewritten.
+     * @param message The message to store.
+     */
+    private static void storeMessage(Message message) {
+        try {
+            messageService.store(message);
+            System.out.println("Message saved to " + STORED_MESSAGES_STORE);
         } catch (IOException e) {
             System.err.println("Error saving messages: " + e.getMessage());
         }
@@ -301,6 +543,8 @@ public class Main {
                     "Search by Message ID",
                     "Search by Recipient",
                     "Delete Message by Hash",
+                    "Search Message Text",
+                    "Message Counts",
                     "Back to Main Menu"
             };
             int choice = JOptionPane.showOptionDialog(null,
@@ -312,7 +556,9 @@ public class Main {
                             3) Search by Message ID
                             4) Search by Recipient
                             5) Delete Message by Hash
-                            6) Back to Main Menu""",
+                            6) Search Message Text
+                            7) Message Counts
+                            8) Back to Main Menu""",
                     "Message Reports",
                     JOptionPane.DEFAULT_OPTION,
                     JOptionPane.INFORMATION_MESSAGE,
@@ -339,6 +585,12 @@ public class Main {
                     deleteMessageByHash(scanner);
                     break;
                 case 6:
+                    searchMessageText(scanner);
+                    break;
+                case 7:
+                    displayMessageCounts();
+                    break;
+                case 8:
                     backToMainMenu = true;
                     System.out.println("Returning to main menu.");
                     break;
@@ -358,6 +610,7 @@ public class Main {
      * Also displays sender (implicit: sender is the logged-in user).
      */
     private static void displayAllSentMessages() {
+        List<Message> sentMessages = messageService.findByStatus(MessageStatus.SENT);
         if (sentMessages.isEmpty()) {
             JOptionPane.showMessageDialog(null, "No messages have been sent yet.", "Sent Messages Report", JOptionPane.INFORMATION_MESSAGE);
             return;
@@ -375,29 +628,55 @@ public class Main {
     }
 
     /**
-     * Displays the longest sent message.
+     * Displays the longest sent message, followed by the next longest ones.
+     * Reads the running statistics, so the cost does not grow with the number of sent messages.
      */
     private static void displayLongestSentMessage() {
-        if (sentMessages.isEmpty()) {
+        List<Message> topMessages = messageService.getLongestSent(TOP_LONGEST_MESSAGES);
+        if (topMessages.isEmpty()) {
             JOptionPane.showMessageDialog(null, "No messages have been sent to determine the longest message.", "Longest Message", JOptionPane.INFORMATION_MESSAGE);
             return;
         }
 
-        Message longestMessage = null;
-        int maxLength = -1;
-
-        for (Message msg : sentMessages) {
-            if (msg.getMessageText().length() > maxLength) {
-                maxLength = msg.getMessageText().length();
-                longestMessage = msg;
+        Message longestMessage = topMessages.get(0);
+        StringBuilder report = new StringBuilder("Longest Sent Message:\n")
+                .append("Length: ").append(longestMessage.getMessageText().length()).append(" characters\n")
+                .append("Message: \"").append(longestMessage.getMessageText()).append("\"");
+
+        if (topMessages.size() > 1) {
+            report.append("\n\nTop ").append(topMessages.size()).append(" Longest Sent Messages:\n");
+            for (int i = 0; i < topMessages.size(); i++) {
+                Message msg = topMessages.get(i);
+                report.append(i + 1).append(") ").append(msg.getMessageText().length()).append(" characters: \"")
+                        .append(msg.getMessageText()).append("\"\n");
             }
         }
+        report.append(String.format("%nSent messages: %d (average length %.1f characters)",
+                messageService.getSentCount(), messageService.getAverageSentLength()));
 
-        JOptionPane.showMessageDialog(null,
-                "Longest Sent Message:\n" +
-                        "Length: " + maxLength + " characters\n" +
-                        "Message: \"" + longestMessage.getMessageText() + "\"",
-                "Longest Message Report", JOptionPane.INFORMATION_MESSAGE);
+        JOptionPane.showMessageDialog(null, report.toString(), "Longest Message Report", JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    /**
+     * Displays how many messages were sent, stored and disregarded, how many the logged-in user
+     * sent, and the recipients that were sent the most messages.
+     */
+    private static void displayMessageCounts() {
+        MessageCounters counters = Message.getCounters();
+        StringBuilder report = new StringBuilder("--- Message Counts ---\n\n")
+                .append("Sent: ").append(counters.getSentCount()).append("\n")
+                .append("Stored: ").append(counters.getStoredCount()).append("\n")
+                .append("Disregarded: ").append(counters.getDisregardedCount()).append("\n")
+                .append("Sent by you: ").append(counters.getSentBy(currentUsername)).append("\n");
+
+        List<Map.Entry<String, Long>> topRecipients = counters.getTopRecipients(TOP_RECIPIENTS);
+        if (!topRecipients.isEmpty()) {
+            report.append("\nMost messaged recipients:\n");
+            for (Map.Entry<String, Long> recipient : topRecipients) {
+                report.append(recipient.getKey()).append(": ").append(recipient.getValue()).append("\n");
+            }
+        }
+        JOptionPane.showMessageDialog(null, report.toString(), "Message Counts", JOptionPane.INFORMATION_MESSAGE);
     }
 
     /**
@@ -411,33 +690,8 @@ public class Main {
             return;
         }
 
-        Message foundMessage = null;
-        // Search in sent messages
-        for (Message msg : sentMessages) {
-            if (msg.getMessageID().equals(searchID.trim())) {
-                foundMessage = msg;
-                break;
-            }
-        }
-        // Search in stored messages
-        if (foundMessage == null) {
-            for (Message msg : storedMessages) {
-                if (msg.getMessageID().equals(searchID.trim())) {
-                    foundMessage = msg;
-                    break;
-                }
-            }
-        }
-        // Search in disregarded messages (optional, based on requirement "search for all messages sent or stored")
-        if (foundMessage == null) {
-            for (Message msg : disregardedMessages) {
-                if (msg.getMessageID().equals(searchID.trim())) {
-                    foundMessage = msg;
-                    break;
-                }
-            }
-        }
-
+        // Sent, stored and disregarded messages are all in the service's ID index
+        Message foundMessage = messageService.findByID(searchID.trim());
 
         if (foundMessage != null) {
             JOptionPane.showMessageDialog(null,
@@ -461,32 +715,16 @@ public class Main {
             return;
         }
 
-        List<Message> matchingMessages = new ArrayList<>();
-        // Search across all message lists
-        for (Message msg : sentMessages) {
-            if (msg.getRecipientCellNumber().equals(searchRecipient.trim())) {
-                matchingMessages.add(msg);
-            }
-        }
-        for (Message msg : storedMessages) {
-            if (msg.getRecipientCellNumber().equals(searchRecipient.trim())) {
-                matchingMessages.add(msg);
-            }
-        }
-        for (Message msg : disregardedMessages) {
-            if (msg.getRecipientCellNumber().equals(searchRecipient.trim())) {
-                matchingMessages.add(msg);
-            }
-        }
-
+        // Sent, stored and disregarded messages are all in the service's recipient index
+        List<Message> matchingMessages = messageService.findByRecipient(searchRecipient.trim());
 
         if (!matchingMessages.isEmpty()) {
             StringBuilder result = new StringBuilder("Messages for Recipient: " + searchRecipient + "\n\n");
             for (Message msg : matchingMessages) {
                 result.append("- \"").append(msg.getMessageText()).append("\" (ID: ").append(msg.getMessageID()).append(", Status: ");
-                if (msg.isSent()) result.append("Sent");
-                else if (storedMessages.contains(msg)) result.append("Stored"); // This check is approximate, a flag on Message would be better
-                else if (disregardedMessages.contains(msg)) result.append("Disregarded");
+                if (msg.getStatus() == MessageStatus.SENT) result.append("Sent");
+                else if (msg.getStatus() == MessageStatus.STORED) result.append("Stored");
+                else if (msg.getStatus() == MessageStatus.DISREGARDED) result.append("Disregarded");
                 result.append(")\n");
             }
             JOptionPane.showMessageDialog(null, result.toString(), "Messages by Recipient", JOptionPane.INFORMATION_MESSAGE);
@@ -496,71 +734,53 @@ public class Main {
     }
 
     /**
-     * Deletes a message using its message hash.
+     * Searches the text of all messages. Words in double quotes are matched as an exact phrase,
+     * otherwise messages containing every word (in any order) are listed.
      * @param ignoredScanner The Scanner object for console input (not used directly for input here due to JOptionPane).
      */
-    private static void deleteMessageByHash(Scanner ignoredScanner) {
-        String hashToDelete = JOptionPane.showInputDialog(null, "Enter Message Hash to delete:");
-        if (hashToDelete == null || hashToDelete.trim().isEmpty()) {
-            JOptionPane.showMessageDialog(null, "Deletion cancelled or empty hash entered.", "Delete Message", JOptionPane.INFORMATION_MESSAGE);
+    private static void searchMessageText(Scanner ignoredScanner) {
+        String query = JOptionPane.showInputDialog(null, "Enter words to search for (use \"quotes\" for an exact phrase):");
+        if (query == null || query.trim().isEmpty()) {
+            JOptionPane.showMessageDialog(null, "Search cancelled or empty text entered.", "Search", JOptionPane.INFORMATION_MESSAGE);
             return;
         }
 
-        boolean foundAndRemoved = false;
-        String deletedMessageText = "";
+        String trimmed = query.trim();
+        List<Message> matchingMessages = messageService.searchText(trimmed);
 
-        // Attempt to remove from sentMessages
-        var sentIterator = sentMessages.iterator();
-        while (sentIterator.hasNext()) {
-            Message msg = sentIterator.next();
-            if (msg.getMessageHash() != null && msg.getMessageHash().equals(hashToDelete.trim())) {
-                deletedMessageText = msg.getMessageText();
-                sentIterator.remove();
-                foundAndRemoved = true;
-                break;
-            }
-        }
-
-        // If not found in sent, attempt to remove from storedMessages
-        if (!foundAndRemoved) {
-            var storedIterator = storedMessages.iterator();
-            while (storedIterator.hasNext()) {
-                Message msg = storedIterator.next();
-                if (msg.getMessageHash() != null && msg.getMessageHash().equals(hashToDelete.trim())) {
-                    deletedMessageText = msg.getMessageText();
-                    storedIterator.remove();
-                    foundAndRemoved = true;
-                    saveStoredMessages(); // Save file after removal from storedMessages
-                    break;
-                }
+        if (!matchingMessages.isEmpty()) {
+            StringBuilder result = new StringBuilder("Messages matching: " + trimmed + "\n\n");
+            for (Message msg : matchingMessages) {
+                result.append("- \"").append(msg.getMessageText()).append("\" (ID: ").append(msg.getMessageID())
+                        .append(", Recipient: ").append(msg.getRecipientCellNumber()).append(")\n");
             }
+            JOptionPane.showMessageDialog(null, result.toString(), "Message Text Search", JOptionPane.INFORMATION_MESSAGE);
+        } else {
+            JOptionPane.showMessageDialog(null, "No messages found containing: " + trimmed, "Message Text Search", JOptionPane.INFORMATION_MESSAGE);
         }
+    }
 
-        // If not found in sent or stored, attempt to remove from disregardedMessages
-        if (!foundAndRemoved) {
-            var disregardedIterator = disregardedMessages.iterator();
-            while (disregardedIterator.hasNext()) {
-                Message msg = disregardedIterator.next();
-                if (msg.getMessageHash() != null && msg.getMessageHash().equals(hashToDelete.trim())) {
-                    deletedMessageText = msg.getMessageText();
-                    disregardedIterator.remove();
-                    foundAndRemoved = true;
-                    break;
-                }
-            }
+    /**
+     * Deletes a message using its message hash.
+     * @param ignoredScanner The Scanner object for console input (not used directly for input here due to JOptionPane).
+     */
+    private static void deleteMessageByHash(Scanner ignoredScanner) {
+        String hashToDelete = JOptionPane.showInputDialog(null, "Enter Message Hash to delete:");
+        if (hashToDelete == null || hashToDelete.trim().isEmpty()) {
+            JOptionPane.showMessageDialog(null, "Deletion cancelled or empty hash entered.", "Delete Message", JOptionPane.INFORMATION_MESSAGE);
+            return;
         }
 
-        // Also remove from global ID and Hash lists if it was there
-        if (foundAndRemoved) {
-            // Removing from messageIDs and messageHashes needs careful handling
-            // as multiple messages might have the same hash if not unique enough.
-            // For simplicity, we remove the first occurrence.
-            messageHashes.remove(hashToDelete.trim());
-            // If message IDs are truly unique, we can iterate and remove.
-            // For production, you'd want to store the ID of the deleted message to remove it here.
-            // For now, if a message was deleted, its hash and ID (if present) are removed.
+        // The hash index finds the message directly; a stored message is also deleted from the message store
+        Message deletedMessage;
+        try {
+            deletedMessage = messageService.deleteByHash(hashToDelete.trim());
+        } catch (IOException e) {
+            System.err.println("Error saving messages: " + e.getMessage());
+            return;
         }
-
+        boolean foundAndRemoved = deletedMessage != null;
+        String deletedMessageText = foundAndRemoved ? deletedMessage.getMessageText() : "";
 
         if (foundAndRemoved) {
             JOptionPane.showMessageDialog(null, "Message \"" + deletedMessageText + "\" successfully deleted.", "Delete Message", JOptionPane.INFORMATION_MESSAGE);
@@ -0,0 +1,565 @@
+package org.example.chatapp.auth;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+
+/**
+ * Segment store for messages backed by memory-mapped files.
+ * Messages are appended to segment files named {@code <base>-000000.seg}, {@code <base>-000001.seg}
+ * and so on. A segment starts with a table of fixed-size message headers followed by a data area
+ * holding the variable-length fields. Headers carry the ID, encoded recipient, send-at time, status
+ * and a hash code of the message hash, plus where the fields sit in the data area, so messages can
+ * be found and filtered by reading headers alone, and a field is only decoded from the mapping when
+ * it is asked for. Opening the store deserializes nothing and the heap never holds the archive.
+ *
+ * Segment layout: a 32 byte file header (magic, version, entry count, data end) followed by
+ * 65,536 headers of 64 bytes, then the data area:
+ *   0  long  message ID (digits)          8  long  recipient (see {@link PhoneNumber})
+ *   16 long  send-at time                 24 int   data offset
+ *   28 int   text length (bytes)          32 int   hash code of the message hash
+ *   36 short hash length (-1 = none)      38 short recipient text length
+ *   40 short sender length (-1 = none)    42 byte  ID length (for leading zeros)
+ *   43 byte  status (0 = deleted)         44 byte  flags (1 = sent)
+ * At the data offset follow the recipient text (only for recipients PhoneNumber cannot encode),
+ * the sender, the hash and the text, as UTF-8.
+ *
+ * A message is addressed by a reference combining its segment and header index; references stay
+ * valid until the store is closed. A segment takes messages until its headers or its 256MB data
+ * area run out, so no mapping comes near 2GB. Deleting a message only marks its header; segments
+ * where deleted messages outnumber live ones are rewritten without them the next time the store
+ * is opened. The entry count is written after the entry, so a crash mid-append loses at most that
+ * message. Call {@link #force()} to make changes durable.
+ *
+ * Not thread-safe for writes; reads may run concurrently with each other.
+ */
+public class MappedMessageStore implements Closeable {
+
+    private static final int MAGIC = 0x51435347; // "QCSG"
+    private static final int VERSION = 1;
+
+    private static final int FILE_HEADER_SIZE = 32;
+    private static final int COUNT_OFFSET = 8;
+    private static final int DATA_END_OFFSET = 12;
+    private static final int ENTRY_SHIFT = 16;
+    private static final int ENTRIES_PER_SEGMENT = 1 << ENTRY_SHIFT;
+    private static final int ENTRY_SIZE = 64;
+    private static final int DATA_START = FILE_HEADER_SIZE + ENTRIES_PER_SEGMENT * ENTRY_SIZE;
+    private static final int MAX_DATA_SIZE = 1 << 28; // 256MB per segment
+    private static final int INITIAL_DATA_SIZE = 64 * 1024;
+    private static final int MAX_SEGMENTS = 1 << (31 - ENTRY_SHIFT); // References are non-negative ints
+
+    private static final int ID_OFFSET = 0;
+    private static final int RECIPIENT_NUMBER_OFFSET = 8;
+    private static final int SEND_AT_OFFSET = 16;
+    private static final int DATA_OFFSET_OFFSET = 24;
+    private static final int TEXT_LENGTH_OFFSET = 28;
+    private static final int HASH_CODE_OFFSET = 32;
+    private static final int HASH_LENGTH_OFFSET = 36;
+    private static final int RECIPIENT_LENGTH_OFFSET = 38;
+    private static final int SENDER_LENGTH_OFFSET = 40;
+    private static final int ID_LENGTH_OFFSET = 42;
+    private static final int STATUS_OFFSET = 43;
+    private static final int FLAGS_OFFSET = 44;
+
+    private static final byte STATUS_DELETED = 0;
+    private static final byte FLAG_SENT = 1;
+    private static final int MAX_ID_DIGITS = 17; // Keeps ID keys within a long, see getIDKey
+    private static final byte[] NO_BYTES = new byte[0];
+
+    // One segment file, mapped whole: file header, header table, then the data area
+    private static final class Segment {
+        final Path file;
+        FileChannel channel;
+        MappedByteBuffer buffer;
+        int count;
+        int dataEnd; // Relative to DATA_START
+
+        Segment(Path file, boolean create) throws IOException {
+            this.file = file;
+            channel = create
+                    ? FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                    : FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, create ? DATA_START + INITIAL_DATA_SIZE : channel.size());
+            if (create) {
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+            } else if (buffer.capacity() < DATA_START || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                channel.close();
+                throw new IOException("Not a message segment file: " + file);
+            }
+            count = buffer.getInt(COUNT_OFFSET);
+            dataEnd = buffer.getInt(DATA_END_OFFSET);
+        }
+
+        boolean hasRoom(int dataLength) {
+            return count < ENTRIES_PER_SEGMENT && (long) dataEnd + dataLength <= MAX_DATA_SIZE;
+        }
+
+        void ensureDataCapacity(int end) throws IOException {
+            if (DATA_START + end > buffer.capacity()) {
+                long size = Math.min(DATA_START + MAX_DATA_SIZE,
+                        Math.max(DATA_START + (long) end, DATA_START + 2L * (buffer.capacity() - DATA_START)));
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+        }
+
+        int liveCount() {
+            int live = 0;
+            for (int entry = 0; entry < count; entry++) {
+                if (buffer.get(position(entry) + STATUS_OFFSET) != STATUS_DELETED) {
+                    live++;
+                }
+            }
+            return live;
+        }
+
+        int dataLength(int position) {
+            return buffer.getShort(position + RECIPIENT_LENGTH_OFFSET)
+                    + Math.max(0, buffer.getShort(position + SENDER_LENGTH_OFFSET))
+                    + Math.max(0, buffer.getShort(position + HASH_LENGTH_OFFSET))
+                    + buffer.getInt(position + TEXT_LENGTH_OFFSET);
+        }
+
+        void close() throws IOException {
+            buffer = null;
+            channel.close();
+        }
+
+        static int position(int entry) {
+            return FILE_HEADER_SIZE + entry * ENTRY_SIZE;
+        }
+    }
+
+    private final Path basePath;
+    private final List<Segment> segments;
+    private int nextSegmentNumber;
+    private int liveCount;
+
+    /**
+     * Opens (or creates) the store whose segments are named after a base path. Segments where
+     * deleted messages outnumber live ones are rewritten first, and segments without live
+     * messages are deleted.
+     * @param basePath Path of the segments without the {@code -NNNNNN.seg} suffix.
+     * @return The store.
+     * @throws IOException If a segment cannot be opened or is not a segment file.
+     */
+    public static MappedMessageStore open(Path basePath) throws IOException {
+        Path directory = basePath.toAbsolutePath().getParent();
+        String prefix = basePath.getFileName() + "-";
+        TreeMap<Integer, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, prefix + "[0-9][0-9][0-9][0-9][0-9][0-9].seg")) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                files.put(Integer.parseInt(name.substring(prefix.length(), name.length() - ".seg".length())), file);
+            }
+        }
+        List<Segment> segments = new ArrayList<>(files.size() + 1);
+        int liveCount = 0;
+        try {
+            for (Path file : files.values()) {
+                Segment segment = new Segment(file, false);
+                int live = segment.liveCount();
+                if (live == 0) {
+                    segment.close();
+                    Files.delete(file);
+                    continue;
+                }
+                segments.add(live < segment.count - live ? compact(segment) : segment);
+                liveCount += live;
+            }
+        } catch (IOException e) {
+            for (Segment segment : segments) {
+                segment.close();
+            }
+            throw e;
+        }
+        return new MappedMessageStore(basePath, segments, files.isEmpty() ? 0 : files.lastKey() + 1, liveCount);
+    }
+
+    private MappedMessageStore(Path basePath, List<Segment> segments, int nextSegmentNumber, int liveCount) throws IOException {
+        this.basePath = basePath;
+        this.segments = segments;
+        this.nextSegmentNumber = nextSegmentNumber;
+        this.liveCount = liveCount;
+        if (segments.isEmpty()) {
+            startSegment();
+        }
+    }
+
+    /**
+     * Appends a message with its current status.
+     * @param message The message. Its ID must be 1 to 17 digits and its status set.
+     * @return The reference of the stored message.
+     * @throws IOException If the segment cannot be grown or a new one cannot be created.
+     * @throws IllegalArgumentException If the message cannot be stored.
+     */
+    public int append(Message message) throws IOException {
+        String messageID = message.getMessageID();
+        if (!isStorableID(messageID)) {
+            throw new IllegalArgumentException("Message ID must be 1 to " + MAX_ID_DIGITS + " digits: " + messageID);
+        }
+        if (message.getStatus() == null) {
+            throw new IllegalArgumentException("Message " + messageID + " has no status.");
+        }
+        long recipientNumber = message.getRecipientNumber();
+        byte[] recipientBytes = recipientNumber == PhoneNumber.NONE ? utf8(message.getRecipientCellNumber()) : NO_BYTES;
+        byte[] senderBytes = message.getSender() == null ? NO_BYTES : utf8(message.getSender());
+        byte[] hashBytes = message.getMessageHash() == null ? NO_BYTES : utf8(message.getMessageHash());
+        byte[] textBytes = utf8(message.getMessageText());
+        if (Math.max(recipientBytes.length, Math.max(senderBytes.length, hashBytes.length)) > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Recipient, sender or hash of message " + messageID + " is too long.");
+        }
+        long dataLength = (long) recipientBytes.length + senderBytes.length + hashBytes.length + textBytes.length;
+        if (dataLength > MAX_DATA_SIZE) {
+            throw new IllegalArgumentException("Message " + messageID + " is too long.");
+        }
+
+        Segment segment = segments.get(segments.size() - 1);
+        if (!segment.hasRoom((int) dataLength)) {
+            segment = startSegment();
+        }
+        int offset = segment.dataEnd;
+        segment.ensureDataCapacity(offset + (int) dataLength);
+        MappedByteBuffer buffer = segment.buffer;
+        int dataPosition = DATA_START + offset;
+        buffer.put(dataPosition, recipientBytes);
+        dataPosition += recipientBytes.length;
+        buffer.put(dataPosition, senderBytes);
+        dataPosition += senderBytes.length;
+        buffer.put(dataPosition, hashBytes);
+        dataPosition += hashBytes.length;
+        buffer.put(dataPosition, textBytes);
+
+        int entry = segment.count;
+        int position = Segment.position(entry);
+        buffer.putLong(position + ID_OFFSET, Long.parseLong(messageID));
+        buffer.putLong(position + RECIPIENT_NUMBER_OFFSET, recipientNumber);
+        buffer.putLong(position + SEND_AT_OFFSET, message.getSendAt());
+        buffer.putInt(position + DATA_OFFSET_OFFSET, offset);
+        buffer.putInt(position + TEXT_LENGTH_OFFSET, textBytes.length);
+        buffer.putInt(position + HASH_CODE_OFFSET, message.getMessageHash() == null ? 0 : message.getMessageHash().hashCode());
+        buffer.putShort(position + HASH_LENGTH_OFFSET, (short) (message.getMessageHash() == null ? -1 : hashBytes.length));
+        buffer.putShort(position + RECIPIENT_LENGTH_OFFSET, (short) recipientBytes.length);
+        buffer.putShort(position + SENDER_LENGTH_OFFSET, (short) (message.getSender() == null ? -1 : senderBytes.length));
+        buffer.put(position + ID_LENGTH_OFFSET, (byte) messageID.length());
+        buffer.put(position + STATUS_OFFSET, (byte) (message.getStatus().ordinal() + 1));
+        buffer.put(position + FLAGS_OFFSET, message.isSent() ? FLAG_SENT : 0);
+
+        segment.dataEnd = offset + (int) dataLength;
+        buffer.putInt(DATA_END_OFFSET, segment.dataEnd);
+        // Publish the entry last so a crash never leaves a counted entry with missing data
+        buffer.putInt(COUNT_OFFSET, ++segment.count);
+        liveCount++;
+        return (segments.size() - 1) << ENTRY_SHIFT | entry;
+    }
+
+    /**
+     * Returns the number of messages that were not deleted.
+     * @return The live message count.
+     */
+    public int getLiveCount() {
+        return liveCount;
+    }
+
+    /**
+     * Passes the reference of every live message to an action, in the order they were appended.
+     * Only headers are read.
+     * @param action Receives each reference.
+     */
+    public void forEach(IntConsumer action) {
+        for (int s = 0; s < segments.size(); s++) {
+            Segment segment = segments.get(s);
+            for (int entry = 0; entry < segment.count; entry++) {
+                if (segment.buffer.get(Segment.position(entry) + STATUS_OFFSET) != STATUS_DELETED) {
+                    action.accept(s << ENTRY_SHIFT | entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the ID of a message.
+     * @param ref The message reference.
+     * @return The message ID, padded with leading zeros to its original length.
+     */
+    public String getMessageID(int ref) {
+        MappedByteBuffer buffer = segment(ref).buffer;
+        int position = position(ref);
+        String digits = Long.toString(buffer.getLong(position + ID_OFFSET));
+        int length = buffer.get(position + ID_LENGTH_OFFSET);
+        return digits.length() >= length ? digits : "0".repeat(length - digits.length()) + digits;
+    }
+
+    /**
+     * Returns a key that identifies a message ID, read from the header alone.
+     * @param ref The message reference.
+     * @return The same value {@link #idKey(String)} gives for the message's ID.
+     */
+    public long getIDKey(int ref) {
+        MappedByteBuffer buffer = segment(ref).buffer;
+        int position = position(ref);
+        return buffer.getLong(position + ID_OFFSET) * (MAX_ID_DIGITS + 1) + buffer.get(position + ID_LENGTH_OFFSET);
+    }
+
+    /**
+     * Returns a key that identifies a message ID without holding the ID string.
+     * @param messageID The message ID.
+     * @return The key, or -1 if no stored message can have this ID.
+     */
+    public static long idKey(String messageID) {
+        return isStorableID(messageID) ? Long.parseLong(messageID) * (MAX_ID_DIGITS + 1) + messageID.length() : -1;
+    }
+
+    /**
+     * Returns the recipient of a message as an encoded phone number, read from the header alone.
+     * @param ref The message reference.
+     * @return The encoded number, or {@link PhoneNumber#NONE} if the recipient is kept as text.
+     */
+    public long getRecipientNumber(int ref) {
+        return segment(ref).buffer.getLong(position(ref) + RECIPIENT_NUMBER_OFFSET);
+    }
+
+    /**
+     * Returns the recipient of a message.
+     * @param ref The message reference.
+     * @return The recipient cell number.
+     */
+    public String getRecipientCellNumber(int ref) {
+        Segment segment = segment(ref);
+        int position = position(ref);
+        long recipientNumber = segment.buffer.getLong(position + RECIPIENT_NUMBER_OFFSET);
+        if (recipientNumber != PhoneNumber.NONE) {
+            return PhoneNumber.decode(recipientNumber);
+        }
+        return readString(segment, DATA_START + segment.buffer.getInt(position + DATA_OFFSET_OFFSET),
+                segment.buffer.getShort(position + RECIPIENT_LENGTH_OFFSET));
+    }
+
+    /**
+     * Returns when a stored message is due to be sent, read from the header alone.
+     * @param ref The message reference.
+     * @return The send-at time in epoch milliseconds, or 0 if not scheduled.
+     */
+    public long getSendAt(int ref) {
+        return segment(ref).buffer.getLong(position(ref) + SEND_AT_OFFSET);
+    }
+
+    /**
+     * Returns the status of a message.
+     * @param ref The message reference.
+     * @return The status, or null if the message was deleted.
+     */
+    public MessageStatus getStatus(int ref) {
+        byte code = segment(ref).buffer.get(position(ref) + STATUS_OFFSET);
+        return code == STATUS_DELETED ? null : MessageStatus.values()[code - 1];
+    }
+
+    /**
+     * Returns the {@link String#hashCode()} of a message's hash, read from the header alone, so
+     * hash lookups only decode the hashes of likely matches.
+     * @param ref The message reference.
+     * @return The hash code, or 0 if the message has no hash.
+     */
+    public int getHashCode(int ref) {
+        return segment(ref).buffer.getInt(position(ref) + HASH_CODE_OFFSET);
+    }
+
+    /**
+     * Returns the sender of a message.
+     * @param ref The message reference.
+     * @return The sender's username, or null if unknown.
+     */
+    public String getSender(int ref) {
+        Segment segment = segment(ref);
+        int position = position(ref);
+        int length = segment.buffer.getShort(position + SENDER_LENGTH_OFFSET);
+        if (length < 0) {
+            return null;
+        }
+        int offset = DATA_START + segment.buffer.getInt(position + DATA_OFFSET_OFFSET)
+                + segment.buffer.getShort(position + RECIPIENT_LENGTH_OFFSET);
+        return readString(segment, offset, length);
+    }
+
+    /**
+     * Returns the hash of a message.
+     * @param ref The message reference.
+     * @return The message hash, or null if none was generated.
+     */
+    public String getMessageHash(int ref) {
+        Segment segment = segment(ref);
+        int position = position(ref);
+        int length = segment.buffer.getShort(position + HASH_LENGTH_OFFSET);
+        if (length < 0) {
+            return null;
+        }
+        int offset = DATA_START + segment.buffer.getInt(position + DATA_OFFSET_OFFSET)
+                + segment.buffer.getShort(position + RECIPIENT_LENGTH_OFFSET)
+                + Math.max(0, segment.buffer.getShort(position + SENDER_LENGTH_OFFSET));
+        return readString(segment, offset, length);
+    }
+
+    /**
+     * Returns the text of a message.
+     * @param ref The message reference.
+     * @return The message text.
+     */
+    public String getMessageText(int ref) {
+        Segment segment = segment(ref);
+        int position = position(ref);
+        int length = segment.buffer.getInt(position + TEXT_LENGTH_OFFSET);
+        return readString(segment, DATA_START + segment.buffer.getInt(position + DATA_OFFSET_OFFSET) + segment.dataLength(position) - length, length);
+    }
+
+    /**
+     * Reads a message into a new {@link Message} object. Changing the object does not change the store.
+     * @param ref The message reference.
+     * @return The message.
+     */
+    public Message read(int ref) {
+        Segment segment = segment(ref);
+        int position = position(ref);
+        Message message = new Message(getMessageID(ref), getRecipientCellNumber(ref), getMessageText(ref),
+                getMessageHash(ref), (segment.buffer.get(position + FLAGS_OFFSET) & FLAG_SENT) != 0);
+        message.setStatus(getStatus(ref));
+        message.setSender(getSender(ref));
+        message.setSendAt(getSendAt(ref));
+        return message;
+    }
+
+    /**
+     * Marks a message as deleted. Its space is reclaimed when its segment is next rewritten.
+     * @param ref The message reference.
+     */
+    public void delete(int ref) {
+        Segment segment = segment(ref);
+        int position = position(ref);
+        if (segment.buffer.get(position + STATUS_OFFSET) != STATUS_DELETED) {
+            segment.buffer.put(position + STATUS_OFFSET, STATUS_DELETED);
+            liveCount--;
+        }
+    }
+
+    /**
+     * Flushes every segment to disk.
+     */
+    public void force() {
+        for (Segment segment : segments) {
+            segment.buffer.force();
+        }
+    }
+
+    /**
+     * Flushes and closes every segment.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (Segment segment : segments) {
+            try {
+                segment.buffer.force();
+                segment.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        segments.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private Segment startSegment() throws IOException {
+        if (segments.size() == MAX_SEGMENTS) {
+            throw new IllegalStateException("Message store is full.");
+        }
+        Segment segment = new Segment(segmentFile(nextSegmentNumber++), true);
+        segments.add(segment);
+        return segment;
+    }
+
+    private Path segmentFile(int number) {
+        return basePath.resolveSibling(basePath.getFileName() + "-" + String.format("%06d", number) + ".seg");
+    }
+
+    // Rewrites a segment without its deleted messages into a temporary file that then replaces it
+    private static Segment compact(Segment segment) throws IOException {
+        Path tempFile = segment.file.resolveSibling(segment.file.getFileName() + ".tmp");
+        Files.deleteIfExists(tempFile); // Left over from a crash during an earlier rewrite
+        Segment compacted = new Segment(tempFile, true);
+        try {
+            for (int entry = 0; entry < segment.count; entry++) {
+                int position = Segment.position(entry);
+                if (segment.buffer.get(position + STATUS_OFFSET) == STATUS_DELETED) {
+                    continue;
+                }
+                int length = segment.dataLength(position);
+                int offset = compacted.dataEnd;
+                compacted.ensureDataCapacity(offset + length);
+                compacted.buffer.put(DATA_START + offset, segment.buffer,
+                        DATA_START + segment.buffer.getInt(position + DATA_OFFSET_OFFSET), length);
+                int newPosition = Segment.position(compacted.count);
+                compacted.buffer.put(newPosition, segment.buffer, position, ENTRY_SIZE);
+                compacted.buffer.putInt(newPosition + DATA_OFFSET_OFFSET, offset);
+                compacted.dataEnd = offset + length;
+                compacted.count++;
+            }
+            compacted.buffer.putInt(DATA_END_OFFSET, compacted.dataEnd);
+            compacted.buffer.putInt(COUNT_OFFSET, compacted.count);
+            compacted.buffer.force();
+        } finally {
+            compacted.close();
+            segment.close();
+        }
+        Files.move(tempFile, segment.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new Segment(segment.file, false);
+    }
+
+    private Segment segment(int ref) {
+        int index = ref >>> ENTRY_SHIFT;
+        int entry = ref & (ENTRIES_PER_SEGMENT - 1);
+        if (ref < 0 || index >= segments.size() || entry >= segments.get(index).count) {
+            throw new IndexOutOfBoundsException("No message with reference " + ref);
+        }
+        return segments.get(index);
+    }
+
+    private static int position(int ref) {
+        return Segment.position(ref & (ENTRIES_PER_SEGMENT - 1));
+    }
+
+    private static String readString(Segment segment, int offset, int length) {
+        byte[] bytes = new byte[length];
+        segment.buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static boolean isStorableID(String messageID) {
+        if (messageID == null || messageID.isEmpty() || messageID.length() > MAX_ID_DIGITS) {
+            return false;
+        }
+        for (int i = 0; i < messageID.length(); i++) {
+            char c = messageID.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
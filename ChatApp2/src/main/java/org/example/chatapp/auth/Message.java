@@ -1,19 +1,34 @@
 package org.example.chatapp.auth;
 // src/Message.java (Part 3)
 import com.google.gson.Gson; // For JSON serialization
+import com.google.gson.annotations.JsonAdapter;
 import javax.swing.JOptionPane; // For displaying messages
-import java.util.Random; // For generating Message ID
 
+@JsonAdapter(MessageJsonAdapter.class) // Writes the recipient as a string, see PhoneNumber
 public class Message {
     private final String messageID;
-    private final String recipientCellNumber;
+    // Recipient encoded as a long (see PhoneNumber); recipientText is only kept for numbers that cannot be encoded
+    private final long recipientNumber;
+    private final String recipientText;
     private final String messageText;
     private String messageHash;
     private boolean isSent;
+    private MessageStatus status; // Sent, stored or disregarded; null until the user chooses
+    private String sender; // Username of the sender, null if unknown
+    private long sendAt; // When a stored message is due to be sent (epoch millis), 0 if not scheduled
     // You can add isReceived and isRead flags here if needed for future parts
 
-    // Static counter for total messages sent.
-    public static int totalMessagesSent = 0;
+    // Longest message text the app accepts.
+    public static final int MAX_MESSAGE_LENGTH = 250;
+
+    // Generator for new message IDs; sequence-based so IDs cannot collide within this node.
+    private static volatile MessageIdGenerator idGenerator = new SequenceMessageIdGenerator(0);
+
+    // Reused per thread by createMessageHash() so hashing only allocates the final string.
+    private static final ThreadLocal<StringBuilder> HASH_BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(64));
+
+    // Sent sequence (numbers hashes) and the sent/stored/disregarded counts; replaceable like the ID generator.
+    private static volatile MessageCounters counters = new MessageCounters();
 
     /**
      * Constructor for the Message class.
@@ -23,18 +38,44 @@ public class Message {
      */
     public Message(String recipientCellNumber, String messageText) {
         this.messageID = generateMessageID(); // Generate unique 10-digit ID
-        this.recipientCellNumber = recipientCellNumber;
+        this.recipientNumber = PhoneNumber.encode(recipientCellNumber);
+        this.recipientText = recipientNumber == PhoneNumber.NONE ? recipientCellNumber : null;
         this.messageText = messageText;
         this.isSent = false; // Default to not sent
     }
 
+    /**
+     * Constructor for restoring a message that was created earlier (e.g. read back from a message store).
+     * @param messageID The existing message ID.
+     * @param recipientCellNumber The cell number of the recipient.
+     * @param messageText The actual message payload.
+     * @param messageHash The existing message hash, or null if none was generated.
+     * @param isSent Whether the message was sent.
+     */
+    public Message(String messageID, String recipientCellNumber, String messageText, String messageHash, boolean isSent) {
+        this.messageID = messageID;
+        this.recipientNumber = PhoneNumber.encode(recipientCellNumber);
+        this.recipientText = recipientNumber == PhoneNumber.NONE ? recipientCellNumber : null;
+        this.messageText = messageText;
+        this.messageHash = messageHash;
+        this.isSent = isSent;
+    }
+
     // Getters
     public String getMessageID() {
         return messageID;
     }
 
     public String getRecipientCellNumber() {
-        return recipientCellNumber;
+        return recipientNumber != PhoneNumber.NONE ? PhoneNumber.decode(recipientNumber) : recipientText;
+    }
+
+    /**
+     * Returns the recipient as an encoded phone number.
+     * @return The encoded number, or {@link PhoneNumber#NONE} if the recipient is not an international number.
+     */
+    public long getRecipientNumber() {
+        return recipientNumber;
     }
 
     public String getMessageText() {
@@ -49,22 +90,64 @@ public class Message {
         return isSent;
     }
 
+    public MessageStatus getStatus() {
+        return status;
+    }
+
+    public String getSender() {
+        return sender;
+    }
+
+    public long getSendAt() {
+        return sendAt;
+    }
+
     // Setters
     public void setSent(boolean sent) {
         isSent = sent;
     }
 
+    public void setSender(String sender) {
+        this.sender = sender;
+    }
+
+    /**
+     * Schedules a stored message to be sent automatically, see {@link DeliveryScheduler}.
+     * @param sendAt When to send it (epoch milliseconds), or 0 to keep it stored until sent by hand.
+     */
+    public void setSendAt(long sendAt) {
+        this.sendAt = sendAt;
+    }
+
+    public void setStatus(MessageStatus status) {
+        this.status = status;
+        if (status == MessageStatus.SENT) {
+            isSent = true;
+        }
+    }
+
     /**
-     * Generates a unique, random 10-digit message ID.
+     * Generates a unique 10-digit message ID using the configured generator.
      * @return A 10-digit string representing the message ID.
      */
     private String generateMessageID() {
-        Random random = new Random();
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < 10; i++) {
-            sb.append(random.nextInt(10)); // Append a random digit (0-9)
-        }
-        return sb.toString();
+        return idGenerator.nextID();
+    }
+
+    /**
+     * Replaces the generator used for new message IDs.
+     * @param generator The generator to use from now on.
+     */
+    public static void setIdGenerator(MessageIdGenerator generator) {
+        idGenerator = generator;
+    }
+
+    /**
+     * Returns the generator used for new message IDs.
+     * @return The current generator.
+     */
+    public static MessageIdGenerator getIdGenerator() {
+        return idGenerator;
     }
 
     /**
@@ -76,7 +159,7 @@ public class Message {
     }
 
     /**
-     * Creates and returns the Message Hash.
+     * Creates and returns the Message Hash, numbered with the last number in the sent sequence.
      * The hash contains the first two numbers of the message ID, a colon {:},
      * the number of the message ID (totalMessagesSent, as per provided example),
      * and the first and last words in the message (displayed in all caps).
@@ -84,46 +167,99 @@ public class Message {
      * @return The generated message hash.
      */
     public final String createMessageHash() {
-        String firstTwoID = messageID.substring(0, 2);
-        String[] words = messageText.split("\\s+"); // Split by one or more spaces
-        @SuppressWarnings("ReassignedVariable") String firstWord = "";
-        @SuppressWarnings("ReassignedVariable") String lastWord = "";
-
-        if (words.length > 0) {
-            firstWord = words[0];
-            if (words.length > 1) {
-                lastWord = words[words.length - 1];
-            } else {
-                lastWord = firstWord; // If only one word, first and last are the same
-            }
-        }
+        return createMessageHash(counters.getLastSentNumber());
+    }
+
+    /**
+     * Creates and returns the Message Hash with a given message number.
+     * Sending passes the number it took from the sent sequence, so concurrent sends never
+     * read each other's number.
+     * @param messageNumber The number written after the ID prefix.
+     * @return The generated message hash.
+     */
+    public final String createMessageHash(long messageNumber) {
+        // Single pass over the text into a reused buffer, producing exactly what the original
+        // split("\\s+") / replaceAll("[^a-zA-Z0-9]", "") / toUpperCase() version produced.
+        StringBuilder hash = HASH_BUFFER.get();
+        hash.setLength(0);
+        hash.append(messageID, 0, 2).append(':').append(messageNumber).append(':');
 
-        // --- FIX START ---
-        // Strip non-alphanumeric characters from words before combining and uppercasing
-        // This handles punctuation like "?" or "!" at the end of words
-        firstWord = firstWord.replaceAll("[^a-zA-Z0-9]", "");
-        lastWord = lastWord.replaceAll("[^a-zA-Z0-9]", "");
-        // --- FIX END ---
+        int length = messageText.length();
+        // First word: up to the first whitespace. Text starting with whitespace has an empty
+        // first word, just as split() returns a leading empty string for it.
+        int firstEnd = 0;
+        while (firstEnd < length && !isWordSeparator(messageText.charAt(firstEnd))) {
+            firstEnd++;
+        }
+        appendAlphanumericUpperCase(hash, 0, firstEnd);
 
-        String combinedWords = (firstWord + lastWord).toUpperCase();
+        // Last word: the last run of non-whitespace (trailing whitespace is ignored, as split() drops
+        // trailing empty strings). For a single word this is the first word again.
+        int lastEnd = length;
+        while (lastEnd > 0 && isWordSeparator(messageText.charAt(lastEnd - 1))) {
+            lastEnd--;
+        }
+        int lastStart = lastEnd;
+        while (lastStart > 0 && !isWordSeparator(messageText.charAt(lastStart - 1))) {
+            lastStart--;
+        }
+        appendAlphanumericUpperCase(hash, lastStart, lastEnd);
 
-        this.messageHash = String.format("%s:%d:%s", firstTwoID, totalMessagesSent, combinedWords);
+        this.messageHash = hash.toString();
         return this.messageHash;
     }
 
     /**
-     * Increments the static counter for the total number of messages sent.
+     * Appends the ASCII letters and digits of part of the message text, upper-cased.
+     * @param hash The buffer to append to.
+     * @param start Index of the first character.
+     * @param end Index after the last character.
+     */
+    private void appendAlphanumericUpperCase(StringBuilder hash, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = messageText.charAt(i);
+            if (c >= 'a' && c <= 'z') {
+                hash.append((char) (c - ('a' - 'A')));
+            } else if ((c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+                hash.append(c);
+            }
+        }
+    }
+
+    // Same characters as the regex class \s: space, tab, newline, vertical tab, form feed, carriage return
+    private static boolean isWordSeparator(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * Counts a sent message without a known sender or recipient, taking the next number in the sent sequence.
      */
     public static void incrementTotalMessagesSent() {
-        totalMessagesSent++;
+        counters.recordSent(null, null);
     }
 
     /**
      * Returns the total number of messages sent.
-     * @return The current count of total messages sent.
+     * @return The last number taken from the sent sequence.
      */
     public static int getTotalMessagesSent() {
-        return totalMessagesSent;
+        return (int) counters.getLastSentNumber();
+    }
+
+    /**
+     * Returns the counters used for hash numbering and message counts.
+     * @return The current counters.
+     */
+    public static MessageCounters getCounters() {
+        return counters;
+    }
+
+    /**
+     * Replaces the counters, e.g. to start counting afresh.
+     * @param messageCounters The counters to use from now on.
+     */
+    public static void setCounters(MessageCounters messageCounters) {
+        counters = messageCounters;
     }
 
     /**
@@ -152,7 +288,7 @@ public class Message {
     public String getMessageDetailsForDisplay() {
         return "Message ID: " + messageID + "\n" +
                 "Message Hash: " + (messageHash != null ? messageHash : "Not Generated") + "\n" +
-                "Recipient: " + recipientCellNumber + "\n" +
+                "Recipient: " + getRecipientCellNumber() + "\n" +
                 "Message: \"" + messageText + "\"";
     }
 
@@ -0,0 +1,135 @@
+package org.example.chatapp.auth;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Message counts for hashing and reporting.
+ *
+ * The sent sequence numbers sent messages for their hashes. Each send takes the next number with
+ * a single atomic increment, so concurrent sends never share a number. The totals and the
+ * per-sender and per-recipient counts are {@link LongAdder}s: each thread adds to its own cell,
+ * so counting never contends, and reads sum the cells. These counts are for reporting and may lag
+ * sends still in progress.
+ * Thread-safe.
+ */
+public class MessageCounters {
+
+    private final AtomicLong sentSequence;
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder stored = new LongAdder();
+    private final LongAdder disregarded = new LongAdder();
+    private final ConcurrentHashMap<String, LongAdder> sentBySender = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> sentToRecipient = new ConcurrentHashMap<>();
+
+    /**
+     * Creates counters with the sent sequence at zero.
+     */
+    public MessageCounters() {
+        this(0);
+    }
+
+    /**
+     * Creates counters with the sent sequence continuing after a given number.
+     * @param lastSentNumber The number of the last message sent; the next send gets this plus one.
+     */
+    public MessageCounters(long lastSentNumber) {
+        this.sentSequence = new AtomicLong(lastSentNumber);
+    }
+
+    /**
+     * Counts a sent message and gives it the next number in the sent sequence.
+     * @param sender The sender's username, or null if unknown.
+     * @param recipientCellNumber The recipient's cell number.
+     * @return The message's number, one more than the previous send's.
+     */
+    public long recordSent(String sender, String recipientCellNumber) {
+        long number = sentSequence.incrementAndGet();
+        sent.increment();
+        if (sender != null) {
+            sentBySender.computeIfAbsent(sender, k -> new LongAdder()).increment();
+        }
+        if (recipientCellNumber != null) {
+            sentToRecipient.computeIfAbsent(recipientCellNumber, k -> new LongAdder()).increment();
+        }
+        return number;
+    }
+
+    public void recordStored() {
+        stored.increment();
+    }
+
+    public void recordDisregarded() {
+        disregarded.increment();
+    }
+
+    /**
+     * Returns the number of the most recently sent message.
+     * @return The last number taken from the sent sequence.
+     */
+    public long getLastSentNumber() {
+        return sentSequence.get();
+    }
+
+    public long getSentCount() {
+        return sent.sum();
+    }
+
+    public long getStoredCount() {
+        return stored.sum();
+    }
+
+    public long getDisregardedCount() {
+        return disregarded.sum();
+    }
+
+    /**
+     * Returns how many messages a user has sent.
+     * @param sender The sender's username.
+     * @return The count, 0 for an unknown sender.
+     */
+    public long getSentBy(String sender) {
+        LongAdder count = sender == null ? null : sentBySender.get(sender);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * Returns how many messages were sent to a recipient.
+     * @param recipientCellNumber The recipient's cell number.
+     * @return The count, 0 for an unknown recipient.
+     */
+    public long getSentTo(String recipientCellNumber) {
+        LongAdder count = recipientCellNumber == null ? null : sentToRecipient.get(recipientCellNumber);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * Returns the senders with the most sent messages, most first.
+     * @param k The maximum number of senders to return.
+     * @return Up to K sender and count pairs.
+     */
+    public List<Map.Entry<String, Long>> getTopSenders(int k) {
+        return top(sentBySender, k);
+    }
+
+    /**
+     * Returns the recipients with the most sent messages, most first.
+     * @param k The maximum number of recipients to return.
+     * @return Up to K recipient and count pairs.
+     */
+    public List<Map.Entry<String, Long>> getTopRecipients(int k) {
+        return top(sentToRecipient, k);
+    }
+
+    private static List<Map.Entry<String, Long>> top(ConcurrentHashMap<String, LongAdder> counts, int k) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(counts.size());
+        counts.forEach((key, count) -> entries.add(Map.entry(key, count.sum())));
+        entries.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()).thenComparing(Map.Entry.comparingByKey()));
+        return entries.size() > k ? new ArrayList<>(entries.subList(0, k)) : entries;
+    }
+}
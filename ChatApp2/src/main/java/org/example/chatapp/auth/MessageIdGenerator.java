@@ -0,0 +1,22 @@
+package org.example.chatapp.auth;
+
+/**
+ * Source of message IDs. Implementations must be thread-safe and return 10-digit strings,
+ * since the message hash takes the first two digits of the ID.
+ */
+public interface MessageIdGenerator {
+
+    /**
+     * Returns the next message ID.
+     * @return A 10-digit string.
+     */
+    String nextID();
+
+    /**
+     * Records an ID issued earlier (e.g. one loaded from the message store at startup) so it is
+     * not issued again. Generators that cannot repeat an ID may ignore it.
+     * @param messageID A previously issued message ID.
+     */
+    default void observe(String messageID) {
+    }
+}
@@ -0,0 +1,229 @@
+package org.example.chatapp.auth;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Append-only journal for stored messages.
+ * Every store or delete is written as one JSON line to the journal file instead of rewriting
+ * the whole stored messages file. Every {@code checkpointInterval} records the live stored
+ * messages are written to the checkpoint file (the same JSON array format as before) and the
+ * journal is truncated. On startup {@link #recover} streams the checkpoint and then the journal
+ * tail to the caller one record at a time, so nothing but the record being read is held.
+ */
+public class MessageJournal implements Closeable {
+
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 500;
+
+    private static final String OP_STORE = "STORE";
+    private static final String OP_DELETE = "DELETE";
+
+    private final Path checkpointFile;
+    private final Path journalFile;
+    private final int checkpointInterval;
+    private final Supplier<? extends Collection<Message>> liveMessages; // Snapshot of stored messages for checkpoints
+    private final Gson gson = new Gson();
+
+    private FileChannel journalChannel;
+    private int recordsSinceCheckpoint = 0;
+
+    /**
+     * Creates a journal.
+     * @param checkpointFile The JSON array file holding the last checkpoint.
+     * @param journalFile The append-only file holding records written since the last checkpoint.
+     * @param checkpointInterval Number of journal records after which a checkpoint is taken.
+     * @param liveMessages Supplies the current stored messages when a checkpoint is taken.
+     */
+    public MessageJournal(Path checkpointFile, Path journalFile, int checkpointInterval,
+                          Supplier<? extends Collection<Message>> liveMessages) {
+        if (checkpointInterval <= 0) {
+            throw new IllegalArgumentException("Checkpoint interval must be positive.");
+        }
+        this.checkpointFile = checkpointFile;
+        this.journalFile = journalFile;
+        this.checkpointInterval = checkpointInterval;
+        this.liveMessages = liveMessages;
+    }
+
+    /**
+     * Replays the checkpoint and then the journal tail, passing each record on as it is read.
+     * Every checkpointed message is passed to {@code stored}; journal records follow in the order
+     * they were written, so a delete always comes after the store it undoes, and a message may be
+     * stored again after a checkpoint that already held it. The caller applies the records to
+     * wherever it keeps stored messages; the journal itself holds none of them.
+     * A torn final record (e.g. after a crash mid-write) is discarded and cut off the journal.
+     * @param stored Receives each stored message.
+     * @param deleted Receives the ID of each deleted message.
+     * @throws IOException If the files cannot be read.
+     */
+    public void recover(Consumer<Message> stored, Consumer<String> deleted) throws IOException {
+        if (Files.exists(checkpointFile)) {
+            StoredMessageReader.forEach(checkpointFile, msg -> {
+                stored.accept(msg);
+                return true;
+            });
+        }
+
+        long validLength = 0;
+        int replayed = 0;
+        if (Files.exists(journalFile)) {
+            try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!applyRecord(line, stored, deleted)) {
+                        break; // Torn or corrupt tail, everything after it is unreliable
+                    }
+                    validLength += line.getBytes(StandardCharsets.UTF_8).length + 1;
+                    replayed++;
+                }
+            }
+        }
+
+        openJournal();
+        if (journalChannel.size() > validLength) {
+            journalChannel.truncate(validLength);
+        } else if (journalChannel.size() < validLength) {
+            journalChannel.write(ByteBuffer.wrap(new byte[]{'\n'})); // Last record was complete but unterminated
+        }
+        recordsSinceCheckpoint = replayed;
+    }
+
+    /**
+     * Records that a message was stored.
+     * @param message The stored message.
+     * @throws IOException If the record cannot be written.
+     */
+    public void appendStore(Message message) throws IOException {
+        JsonObject record = new JsonObject();
+        record.addProperty("op", OP_STORE);
+        record.add("message", gson.toJsonTree(message));
+        append(record);
+    }
+
+    /**
+     * Records that a stored message was deleted.
+     * @param messageID The ID of the deleted message.
+     * @throws IOException If the record cannot be written.
+     */
+    public void appendDelete(String messageID) throws IOException {
+        JsonObject record = new JsonObject();
+        record.addProperty("op", OP_DELETE);
+        record.addProperty("messageID", messageID);
+        append(record);
+    }
+
+    /**
+     * Writes all live stored messages to the checkpoint file and empties the journal.
+     * The checkpoint is written to a temporary file first and moved into place, so a crash
+     * leaves either the old or the new checkpoint, never a partial one.
+     * @throws IOException If the checkpoint cannot be written.
+     */
+    public void checkpoint() throws IOException {
+        Path tempFile = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8)) {
+            gson.toJson(new ArrayList<>(liveMessages.get()), writer);
+            writer.flush();
+            channel.force(true);
+        }
+        Files.move(tempFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // Records already covered by the checkpoint can go; replaying them again would be harmless anyway.
+        openJournal();
+        journalChannel.truncate(0);
+        recordsSinceCheckpoint = 0;
+    }
+
+    /**
+     * Returns the number of records written since the last checkpoint.
+     * @return The journal record count.
+     */
+    public int getRecordsSinceCheckpoint() {
+        return recordsSinceCheckpoint;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (journalChannel != null) {
+            journalChannel.close();
+            journalChannel = null;
+        }
+    }
+
+    private void append(JsonObject record) throws IOException {
+        openJournal();
+        byte[] line = (gson.toJson(record) + "\n").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        while (buffer.hasRemaining()) {
+            journalChannel.write(buffer);
+        }
+        if (++recordsSinceCheckpoint >= checkpointInterval) {
+            checkpoint();
+        }
+    }
+
+    private boolean applyRecord(String line, Consumer<Message> stored, Consumer<String> deleted) {
+        String op = null;
+        String messageID = null;
+        Message message = null;
+        try (JsonReader reader = new JsonReader(new StringReader(line))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "op":
+                        op = reader.nextString();
+                        break;
+                    case "messageID":
+                        messageID = reader.nextString();
+                        break;
+                    case "message":
+                        message = StoredMessageReader.readMessage(reader);
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+        } catch (IOException | JsonParseException | IllegalStateException e) {
+            return false;
+        }
+        // Applied only once the whole record has parsed
+        if (OP_STORE.equals(op) && message != null) {
+            stored.accept(message);
+            return true;
+        } else if (OP_DELETE.equals(op) && messageID != null) {
+            deleted.accept(messageID);
+            return true;
+        }
+        return false;
+    }
+
+    private void openJournal() throws IOException {
+        if (journalChannel == null) {
+            journalChannel = FileChannel.open(journalFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+    }
+}
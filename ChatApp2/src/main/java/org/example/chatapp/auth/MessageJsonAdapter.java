@@ -0,0 +1,52 @@
+package org.example.chatapp.auth;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Gson adapter for {@link Message}, writing the stored messages format field by field.
+ * Message keeps its recipient as an encoded {@link PhoneNumber} rather than a string, so the
+ * adapter writes it back out as the "recipientCellNumber" string and files stay in the same
+ * format. Reading is shared with {@link StoredMessageReader#readMessage(JsonReader)}.
+ */
+public class MessageJsonAdapter extends TypeAdapter<Message> {
+
+    @Override
+    public void write(JsonWriter out, Message message) throws IOException {
+        if (message == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("messageID").value(message.getMessageID());
+        out.name("recipientCellNumber").value(message.getRecipientCellNumber());
+        out.name("messageText").value(message.getMessageText());
+        if (message.getMessageHash() != null) {
+            out.name("messageHash").value(message.getMessageHash());
+        }
+        out.name("isSent").value(message.isSent());
+        if (message.getStatus() != null) {
+            out.name("status").value(message.getStatus().name());
+        }
+        if (message.getSender() != null) {
+            out.name("sender").value(message.getSender());
+        }
+        if (message.getSendAt() > 0) {
+            out.name("sendAt").value(message.getSendAt());
+        }
+        out.endObject();
+    }
+
+    @Override
+    public Message read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return StoredMessageReader.readMessage(in);
+    }
+}
@@ -0,0 +1,491 @@
+package org.example.chatapp.auth;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * Holds every message composed in the app, whatever its status.
+ * Replaces the separate sent/stored/disregarded/hash/ID lists: each message is held once and
+ * indexed by ID, hash and recipient, so lookups and deletes no longer scan every list.
+ * All indexes are updated together on add, status change and removal.
+ *
+ * Messages can also be kept in an attached {@link MappedMessageStore} archive instead of in
+ * memory. Archived messages are indexed by their store reference alone, using fields read from
+ * the store's fixed-size headers, and lookups read the matches back from the store in place, so
+ * the heap holds a few ints per archived message rather than the message. An archived message
+ * keeps its status; to change it, remove it and add it again.
+ * Not thread-safe.
+ */
+public class MessageRepository {
+
+    // Growable list of archive references in the order they were added
+    private static final class Refs {
+        int[] refs = new int[2];
+        int size = 0;
+
+        void add(int ref) {
+            if (size == refs.length) {
+                refs = Arrays.copyOf(refs, size * 2);
+            }
+            refs[size++] = ref;
+        }
+
+        void remove(int ref) {
+            for (int i = 0; i < size; i++) {
+                if (refs[i] == ref) {
+                    System.arraycopy(refs, i + 1, refs, i, size - i - 1);
+                    size--;
+                    return;
+                }
+            }
+        }
+    }
+
+    private final Map<String, Message> byID = new HashMap<>();
+    // Hashes are not guaranteed unique (same ID prefix, count and words), so each maps to its messages in insertion order
+    private final Map<String, List<Message>> byHash = new HashMap<>();
+    // Keyed by encoded phone number; recipients that cannot be encoded fall back to a string-keyed map
+    private final LongObjectHashMap<LinkedHashMap<String, Message>> byRecipient = new LongObjectHashMap<>();
+    private final Map<String, LinkedHashMap<String, Message>> byOtherRecipient = new HashMap<>();
+    private final Map<MessageStatus, LinkedHashMap<String, Message>> byStatus = new EnumMap<>(MessageStatus.class);
+    private final List<MessageRepositoryListener> listeners = new ArrayList<>();
+
+    private MappedMessageStore archive; // Null until attached
+    // Archived messages by ID key (see MappedMessageStore#idKey), hash code and recipient
+    private final LongObjectHashMap<Integer> archivedByID = new LongObjectHashMap<>();
+    private final LongObjectHashMap<Refs> archivedByHash = new LongObjectHashMap<>();
+    private final LongObjectHashMap<Refs> archivedByRecipient = new LongObjectHashMap<>();
+    private final Map<String, Refs> archivedByOtherRecipient = new HashMap<>();
+    private final int[] archivedCounts = new int[MessageStatus.values().length];
+
+    public MessageRepository() {
+        for (MessageStatus status : MessageStatus.values()) {
+            byStatus.put(status, new LinkedHashMap<>());
+        }
+    }
+
+    /**
+     * Registers a listener that is told about every later change.
+     * @param listener The listener to add.
+     */
+    public void addListener(MessageRepositoryListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Adds a message with the given status.
+     * @param message The message to add.
+     * @param status What the user chose to do with the message.
+     * @throws IllegalArgumentException If a message with the same ID is already held.
+     */
+    public void add(Message message, MessageStatus status) {
+        if (containsID(message.getMessageID())) {
+            throw new IllegalArgumentException("Duplicate message ID: " + message.getMessageID());
+        }
+        message.setStatus(status);
+        byID.put(message.getMessageID(), message);
+        indexHash(message);
+        recipientMessages(message, true).put(message.getMessageID(), message);
+        byStatus.get(status).put(message.getMessageID(), message);
+        for (MessageRepositoryListener listener : listeners) {
+            listener.messageAdded(message);
+        }
+    }
+
+    /**
+     * Attaches a message store as the archive. The store's live messages become part of the
+     * repository without being read into memory: only their headers are read to index them, and
+     * listeners are told about each. Messages whose ID is already held are left out.
+     * @param store The store.
+     * @throws IllegalStateException If an archive is already attached.
+     */
+    public void attachArchive(MappedMessageStore store) {
+        if (archive != null) {
+            throw new IllegalStateException("An archive is already attached.");
+        }
+        archive = store;
+        store.forEach(ref -> {
+            long idKey = store.getIDKey(ref);
+            if (!archivedByID.containsKey(idKey) && !byID.containsKey(store.getMessageID(ref))) {
+                indexArchived(ref, idKey);
+            }
+        });
+    }
+
+    public boolean hasArchive() {
+        return archive != null;
+    }
+
+    /**
+     * Adds a message to the archive with the given status instead of holding it in memory.
+     * Later lookups return copies read back from the archive, not this object.
+     * @param message The message to add.
+     * @param status What the user chose to do with the message.
+     * @throws IOException If the archive cannot take the message.
+     * @throws IllegalArgumentException If a message with the same ID is already held, or the
+     * archive cannot store its ID.
+     * @throws IllegalStateException If no archive is attached.
+     */
+    public void archive(Message message, MessageStatus status) throws IOException {
+        if (archive == null) {
+            throw new IllegalStateException("No archive is attached.");
+        }
+        if (containsID(message.getMessageID())) {
+            throw new IllegalArgumentException("Duplicate message ID: " + message.getMessageID());
+        }
+        message.setStatus(status);
+        int ref = archive.append(message);
+        indexArchived(ref, archive.getIDKey(ref));
+    }
+
+    /**
+     * Checks whether a message is held in the archive rather than in memory.
+     * @param messageID The message ID.
+     * @return True if an archived message has that ID.
+     */
+    public boolean isArchived(String messageID) {
+        return archivedRef(messageID) >= 0;
+    }
+
+    /**
+     * Moves a held message to a new status (e.g. a stored message that is now sent).
+     * Call this instead of {@link Message#setStatus} so the status index stays consistent.
+     * @param message The message to update.
+     * @param status The new status.
+     */
+    public void updateStatus(Message message, MessageStatus status) {
+        if (byID.get(message.getMessageID()) != message) {
+            throw new IllegalArgumentException("Message is not in the repository: " + message.getMessageID());
+        }
+        MessageStatus oldStatus = message.getStatus();
+        byStatus.get(oldStatus).remove(message.getMessageID());
+        message.setStatus(status);
+        byStatus.get(status).put(message.getMessageID(), message);
+        for (MessageRepositoryListener listener : listeners) {
+            listener.statusChanged(message, oldStatus);
+        }
+    }
+
+    /**
+     * Re-indexes a message whose hash was (re)generated after it was added.
+     * @param message The message.
+     * @param oldHash The hash the message had when it was indexed, or null.
+     */
+    public void updateHash(Message message, String oldHash) {
+        unindexHash(message, oldHash);
+        indexHash(message);
+    }
+
+    /**
+     * Finds a message by its ID.
+     * @param messageID The message ID.
+     * @return The message, or null if none has that ID.
+     */
+    public Message findByID(String messageID) {
+        Message message = byID.get(messageID);
+        if (message != null) {
+            return message;
+        }
+        int ref = archivedRef(messageID);
+        return ref < 0 ? null : archive.read(ref);
+    }
+
+    /**
+     * Finds the earliest added message with the given hash.
+     * @param messageHash The message hash.
+     * @return The message, or null if none has that hash.
+     */
+    public Message findByHash(String messageHash) {
+        int ref = archivedRefByHash(messageHash); // Archived messages were added before any held in memory
+        if (ref >= 0) {
+            return archive.read(ref);
+        }
+        List<Message> matches = byHash.get(messageHash);
+        return matches == null ? null : matches.get(0);
+    }
+
+    /**
+     * Returns all messages to a recipient, in the order they were added.
+     * @param recipientCellNumber The recipient's cell number.
+     * @return The matching messages (empty if none).
+     */
+    public List<Message> findByRecipient(String recipientCellNumber) {
+        long number = PhoneNumber.encode(recipientCellNumber);
+        LinkedHashMap<String, Message> matches = number != PhoneNumber.NONE
+                ? byRecipient.get(number) : byOtherRecipient.get(recipientCellNumber);
+        Refs archived = number != PhoneNumber.NONE
+                ? archivedByRecipient.get(number) : archivedByOtherRecipient.get(recipientCellNumber);
+        return withArchived(archived, matches == null ? null : matches.values());
+    }
+
+    /**
+     * Returns all messages to a recipient, in the order they were added.
+     * @param recipientNumber The recipient's number, encoded with {@link PhoneNumber#encode(String)}.
+     * @return The matching messages (empty if none).
+     */
+    public List<Message> findByRecipient(long recipientNumber) {
+        LinkedHashMap<String, Message> matches = byRecipient.get(recipientNumber);
+        return withArchived(archivedByRecipient.get(recipientNumber), matches == null ? null : matches.values());
+    }
+
+    /**
+     * Returns all messages with a status, in the order they were added.
+     * @param status The status.
+     * @return The matching messages (empty if none).
+     */
+    public List<Message> findByStatus(MessageStatus status) {
+        List<Message> result = new ArrayList<>(countByStatus(status));
+        forEachArchived(ref -> archive.getStatus(ref) == status, result);
+        result.addAll(byStatus.get(status).values());
+        return result;
+    }
+
+    /**
+     * Returns the stored messages that are due to be sent at a set time, in the order they were
+     * added. Archived messages are filtered on their headers, so only the scheduled ones are read.
+     * @return The matching messages (empty if none).
+     */
+    public List<Message> findScheduled() {
+        List<Message> result = new ArrayList<>();
+        forEachArchived(ref -> archive.getStatus(ref) == MessageStatus.STORED && archive.getSendAt(ref) > 0, result);
+        for (Message message : byStatus.get(MessageStatus.STORED).values()) {
+            if (message.getSendAt() > 0) {
+                result.add(message);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of messages with a status.
+     * @param status The status.
+     * @return The number of messages.
+     */
+    public int countByStatus(MessageStatus status) {
+        return byStatus.get(status).size() + archivedCounts[status.ordinal()];
+    }
+
+    public boolean containsID(String messageID) {
+        return byID.containsKey(messageID) || archivedRef(messageID) >= 0;
+    }
+
+    public boolean containsHash(String messageHash) {
+        return byHash.containsKey(messageHash) || archivedRefByHash(messageHash) >= 0;
+    }
+
+    public int size() {
+        return byID.size() + archivedByID.size();
+    }
+
+    /**
+     * Removes a message by its ID.
+     * @param messageID The message ID.
+     * @return The removed message, or null if none has that ID.
+     */
+    public Message removeByID(String messageID) {
+        Message message = byID.remove(messageID);
+        if (message == null) {
+            int ref = archivedRef(messageID);
+            return ref < 0 ? null : removeArchived(ref);
+        }
+        unindexHash(message, message.getMessageHash());
+        LinkedHashMap<String, Message> recipientMessages = recipientMessages(message, false);
+        recipientMessages.remove(messageID);
+        if (recipientMessages.isEmpty()) {
+            if (message.getRecipientNumber() != PhoneNumber.NONE) {
+                byRecipient.remove(message.getRecipientNumber());
+            } else {
+                byOtherRecipient.remove(message.getRecipientCellNumber());
+            }
+        }
+        byStatus.get(message.getStatus()).remove(messageID);
+        for (MessageRepositoryListener listener : listeners) {
+            listener.messageRemoved(message);
+        }
+        return message;
+    }
+
+    /**
+     * Removes the earliest added message with the given hash.
+     * @param messageHash The message hash.
+     * @return The removed message, or null if none has that hash.
+     */
+    public Message removeByHash(String messageHash) {
+        int ref = archivedRefByHash(messageHash);
+        if (ref >= 0) {
+            return removeArchived(ref);
+        }
+        Message message = findByHash(messageHash);
+        return message == null ? null : removeByID(message.getMessageID());
+    }
+
+    /**
+     * Removes every message; archived ones are deleted from the archive. Listeners are told about
+     * each removal.
+     */
+    public void clear() {
+        if (archive != null && !archivedByID.isEmpty()) {
+            List<Integer> archivedRefs = new ArrayList<>(archivedByID.size());
+            archivedByID.forEachValue(archivedRefs::add);
+            for (int ref : archivedRefs) {
+                removeArchived(ref);
+            }
+        }
+        List<Message> removed = listeners.isEmpty() ? Collections.emptyList() : new ArrayList<>(byID.values());
+        byID.clear();
+        byHash.clear();
+        byRecipient.clear();
+        byOtherRecipient.clear();
+        for (LinkedHashMap<String, Message> messages : byStatus.values()) {
+            messages.clear();
+        }
+        for (Message message : removed) {
+            for (MessageRepositoryListener listener : listeners) {
+                listener.messageRemoved(message);
+            }
+        }
+    }
+
+    // Returns the archive reference of a message ID, or -1 if it is not archived
+    private int archivedRef(String messageID) {
+        if (archive == null || messageID == null) {
+            return -1;
+        }
+        long idKey = MappedMessageStore.idKey(messageID);
+        Integer ref = idKey < 0 ? null : archivedByID.get(idKey);
+        return ref == null ? -1 : ref;
+    }
+
+    // Returns the earliest archived message with a hash, or -1; hash codes are confirmed against the hash
+    private int archivedRefByHash(String messageHash) {
+        if (archive == null || messageHash == null) {
+            return -1;
+        }
+        Refs candidates = archivedByHash.get(messageHash.hashCode());
+        if (candidates != null) {
+            for (int i = 0; i < candidates.size; i++) {
+                if (messageHash.equals(archive.getMessageHash(candidates.refs[i]))) {
+                    return candidates.refs[i];
+                }
+            }
+        }
+        return -1;
+    }
+
+    private List<Message> withArchived(Refs archived, Collection<Message> held) {
+        if (archived == null && held == null) {
+            return Collections.emptyList();
+        }
+        List<Message> result = new ArrayList<>((archived == null ? 0 : archived.size) + (held == null ? 0 : held.size()));
+        if (archived != null) {
+            for (int i = 0; i < archived.size; i++) {
+                result.add(archive.read(archived.refs[i]));
+            }
+        }
+        if (held != null) {
+            result.addAll(held);
+        }
+        return result;
+    }
+
+    // Reads the indexed archived messages whose headers pass a filter into a list, in store order
+    private void forEachArchived(IntPredicate filter, List<Message> result) {
+        if (archive == null || archivedByID.isEmpty()) {
+            return;
+        }
+        archive.forEach(ref -> {
+            if (filter.test(ref) && isIndexed(ref)) {
+                result.add(archive.read(ref));
+            }
+        });
+    }
+
+    // False for store entries left out of the indexes because their ID was already held
+    private boolean isIndexed(int ref) {
+        Integer indexed = archivedByID.get(archive.getIDKey(ref));
+        return indexed != null && indexed == ref;
+    }
+
+    private Refs archivedRecipientRefs(int ref, boolean create) {
+        long number = archive.getRecipientNumber(ref);
+        if (number != PhoneNumber.NONE) {
+            return create ? archivedByRecipient.computeIfAbsent(number, k -> new Refs()) : archivedByRecipient.get(number);
+        }
+        String recipient = archive.getRecipientCellNumber(ref);
+        return create ? archivedByOtherRecipient.computeIfAbsent(recipient, k -> new Refs())
+                : archivedByOtherRecipient.get(recipient);
+    }
+
+    private void indexArchived(int ref, long idKey) {
+        archivedByID.put(idKey, ref);
+        archivedByHash.computeIfAbsent(archive.getHashCode(ref), k -> new Refs()).add(ref);
+        archivedRecipientRefs(ref, true).add(ref);
+        archivedCounts[archive.getStatus(ref).ordinal()]++;
+        for (MessageRepositoryListener listener : listeners) {
+            listener.archivedMessageAdded(archive, ref);
+        }
+    }
+
+    private Message removeArchived(int ref) {
+        Message message = archive.read(ref);
+        archivedByID.remove(archive.getIDKey(ref));
+        int hashCode = archive.getHashCode(ref);
+        Refs sameHash = archivedByHash.get(hashCode);
+        sameHash.remove(ref);
+        if (sameHash.size == 0) {
+            archivedByHash.remove(hashCode);
+        }
+        Refs sameRecipient = archivedRecipientRefs(ref, false);
+        sameRecipient.remove(ref);
+        if (sameRecipient.size == 0) {
+            if (archive.getRecipientNumber(ref) != PhoneNumber.NONE) {
+                archivedByRecipient.remove(archive.getRecipientNumber(ref));
+            } else {
+                archivedByOtherRecipient.remove(archive.getRecipientCellNumber(ref));
+            }
+        }
+        archivedCounts[archive.getStatus(ref).ordinal()]--;
+        for (MessageRepositoryListener listener : listeners) {
+            listener.archivedMessageRemoved(archive, ref);
+        }
+        archive.delete(ref);
+        return message;
+    }
+
+    private LinkedHashMap<String, Message> recipientMessages(Message message, boolean create) {
+        long number = message.getRecipientNumber();
+        if (number != PhoneNumber.NONE) {
+            return create ? byRecipient.computeIfAbsent(number, k -> new LinkedHashMap<>()) : byRecipient.get(number);
+        }
+        return create ? byOtherRecipient.computeIfAbsent(message.getRecipientCellNumber(), k -> new LinkedHashMap<>())
+                : byOtherRecipient.get(message.getRecipientCellNumber());
+    }
+
+    private void indexHash(Message message) {
+        if (message.getMessageHash() != null) {
+            byHash.computeIfAbsent(message.getMessageHash(), k -> new ArrayList<>(1)).add(message);
+        }
+    }
+
+    private void unindexHash(Message message, String messageHash) {
+        if (messageHash == null) {
+            return;
+        }
+        List<Message> matches = byHash.get(messageHash);
+        if (matches != null) {
+            matches.remove(message);
+            if (matches.isEmpty()) {
+                byHash.remove(messageHash);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.chatapp.auth;
+
+/**
+ * Receives changes made to a {@link MessageRepository}, so derived data (statistics, search
+ * indexes) can be kept up to date incrementally instead of being recomputed from all messages.
+ * Callbacks run on the thread that changed the repository, after the change was applied.
+ */
+public interface MessageRepositoryListener {
+
+    /**
+     * Called after a message was added.
+     * @param message The message, already carrying its status.
+     */
+    default void messageAdded(Message message) {
+    }
+
+    /**
+     * Called after a message was removed.
+     * @param message The removed message, still carrying its last status.
+     */
+    default void messageRemoved(Message message) {
+    }
+
+    /**
+     * Called after a message moved to a new status.
+     * @param message The message, already carrying its new status.
+     * @param oldStatus The status the message had before.
+     */
+    default void statusChanged(Message message, MessageStatus oldStatus) {
+    }
+
+    /**
+     * Called after a message was added to the repository's archive, where it is kept in a
+     * {@link MappedMessageStore} instead of as a {@link Message} object. Read the fields the
+     * listener needs from the store; holding on to the reference is enough to read them later.
+     * @param archive The store holding the message.
+     * @param ref The message's reference in the store.
+     */
+    default void archivedMessageAdded(MappedMessageStore archive, int ref) {
+    }
+
+    /**
+     * Called after an archived message was removed, before its entry in the store is deleted.
+     * @param archive The store holding the message.
+     * @param ref The message's reference in the store.
+     */
+    default void archivedMessageRemoved(MappedMessageStore archive, int ref) {
+    }
+}
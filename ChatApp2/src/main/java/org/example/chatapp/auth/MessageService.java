@@ -0,0 +1,659 @@
+package org.example.chatapp.auth;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Headless message operations: compose, send, store, disregard, search and delete.
+ * Owns the message repository with its statistics and text index, and what keeps stored
+ * messages across restarts, so the console/Swing UI, servers and benchmarks all go through the
+ * same code. Stored messages are kept either in a {@link MappedMessageStore}, which the
+ * repository reads in place instead of loading, or in memory backed by a {@link MessageJournal}.
+ *
+ * Invalid input throws {@link IllegalArgumentException}; lookups return null or an empty list.
+ * Thread-safe: reads share a lock and changes take it exclusively. Batch methods validate every
+ * message first and then apply them all under one lock acquisition.
+ */
+public class MessageService implements Closeable {
+
+    private final MessageRepository repository = new MessageRepository();
+    private final MessageStatistics sentStatistics = new MessageStatistics(MessageStatus.SENT);
+    private final MessageTextIndex textIndex = new MessageTextIndex();
+    private final MessageJournal journal; // Null when stored messages are kept in memory only
+    private final Path storeBasePath; // Null unless stored messages are kept in a message store
+    private MappedMessageStore store; // Opened on first use; guarded by the write lock
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Creates a service that keeps stored messages in memory only.
+     */
+    public MessageService() {
+        journal = null;
+        storeBasePath = null;
+        addListeners();
+    }
+
+    /**
+     * Creates a service that keeps stored messages in a memory-mapped message store. The store is
+     * opened by {@link #loadStoredMessages()} or the first store, whichever comes first.
+     * @param storeBasePath The path the store's segment files are named after.
+     */
+    public MessageService(Path storeBasePath) {
+        journal = null;
+        this.storeBasePath = storeBasePath;
+        addListeners();
+    }
+
+    /**
+     * Creates a service that journals stored messages.
+     * @param checkpointFile The JSON array file holding the last checkpoint.
+     * @param journalFile The append-only file holding stores and deletes since the checkpoint.
+     */
+    public MessageService(Path checkpointFile, Path journalFile) {
+        this(checkpointFile, journalFile, MessageJournal.DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * Creates a service that journals stored messages.
+     * @param checkpointFile The JSON array file holding the last checkpoint.
+     * @param journalFile The append-only file holding stores and deletes since the checkpoint.
+     * @param checkpointInterval Number of journal records after which a checkpoint is taken.
+     */
+    public MessageService(Path checkpointFile, Path journalFile, int checkpointInterval) {
+        // Checkpoints are only taken while the write lock is held, so the supplier reads the repository directly
+        journal = new MessageJournal(checkpointFile, journalFile, checkpointInterval,
+                () -> repository.findByStatus(MessageStatus.STORED));
+        storeBasePath = null;
+        addListeners();
+    }
+
+    private void addListeners() {
+        repository.addListener(sentStatistics);
+        repository.addListener(textIndex);
+    }
+
+    /**
+     * Registers a listener that is told about every later change to the messages held.
+     * Callbacks run while the service lock is held, so they must not call back into the service.
+     * @param listener The listener to add.
+     */
+    public void addListener(MessageRepositoryListener listener) {
+        lock.writeLock().lock();
+        try {
+            repository.addListener(listener);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Loads stored messages from the message store, or from the checkpoint and journal.
+     * A message store is attached to the repository as it is, reading only its headers, so the
+     * messages stay in the mapped files. Journal records are applied to the repository as they
+     * are read, so loading never holds a second copy of the stored messages. Messages already held
+     * are skipped; message IDs issued from now on will not repeat a loaded one.
+     * @return The number of stored messages added.
+     * @throws IOException If the files cannot be read.
+     */
+    public int loadStoredMessages() throws IOException {
+        if (journal == null && storeBasePath == null) {
+            return 0;
+        }
+        lock.writeLock().lock();
+        try {
+            int storedBefore = repository.countByStatus(MessageStatus.STORED);
+            if (storeBasePath != null) {
+                openStoreLocked();
+                return repository.countByStatus(MessageStatus.STORED) - storedBefore;
+            }
+            journal.recover(this::addRecovered, messageID -> {
+                Message message = repository.findByID(messageID);
+                if (message != null && message.getStatus() == MessageStatus.STORED) {
+                    repository.removeByID(messageID);
+                }
+            });
+            return repository.countByStatus(MessageStatus.STORED) - storedBefore;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Moves stored messages from a checkpoint and journal written by an earlier version into the
+     * message store, then deletes both files. Records are archived as they are read.
+     * @param checkpointFile The JSON array file holding the last checkpoint.
+     * @param journalFile The append-only file holding stores and deletes since the checkpoint.
+     * @return The number of stored messages added.
+     * @throws IOException If the files cannot be read or a message cannot be stored; the files
+     * are kept in that case.
+     * @throws IllegalStateException If the service does not keep stored messages in a store.
+     */
+    public int importStoredMessages(Path checkpointFile, Path journalFile) throws IOException {
+        if (storeBasePath == null) {
+            throw new IllegalStateException("Stored messages are not kept in a message store.");
+        }
+        lock.writeLock().lock();
+        try {
+            openStoreLocked();
+            int storedBefore = repository.countByStatus(MessageStatus.STORED);
+            try (MessageJournal legacy = new MessageJournal(checkpointFile, journalFile,
+                    MessageJournal.DEFAULT_CHECKPOINT_INTERVAL, List::of)) {
+                legacy.recover(this::addRecovered, messageID -> {
+                    Message message = repository.findByID(messageID);
+                    if (message != null && message.getStatus() == MessageStatus.STORED) {
+                        repository.removeByID(messageID);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Could not store an imported message: " + e.getMessage(), e);
+            }
+            store.force();
+            Files.deleteIfExists(journalFile);
+            Files.deleteIfExists(checkpointFile);
+            return repository.countByStatus(MessageStatus.STORED) - storedBefore;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the stored messages with a send-at time, in the order they were added.
+     * @return The matching messages (empty if none).
+     */
+    public List<Message> findScheduled() {
+        lock.readLock().lock();
+        try {
+            return repository.findScheduled();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock
+    private void openStoreLocked() throws IOException {
+        if (store != null) {
+            return;
+        }
+        store = MappedMessageStore.open(storeBasePath);
+        // Make sure new IDs never repeat one issued in an earlier run
+        store.forEach(ref -> Message.getIdGenerator().observe(store.getMessageID(ref)));
+        repository.attachArchive(store);
+    }
+
+    private void addRecovered(Message msg) {
+        if (repository.containsID(msg.getMessageID())) {
+            return; // Already held in memory, or stored again after the checkpoint
+        }
+        // Make sure new IDs never repeat one issued in an earlier run
+        Message.getIdGenerator().observe(msg.getMessageID());
+        if (msg.getMessageHash() == null) {
+            msg.createMessageHash(); // Stores from older versions may lack a hash
+        }
+        if (store == null) {
+            repository.add(msg, MessageStatus.STORED);
+            return;
+        }
+        try {
+            repository.archive(msg, MessageStatus.STORED);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Checks a recipient and message text and creates a message for them.
+     * The message gets an ID but is not held by the service until it is sent, stored or disregarded.
+     * @param recipientCellNumber The recipient's South African cell number.
+     * @param messageText The message text.
+     * @return The new message.
+     * @throws IllegalArgumentException If the recipient or text is invalid.
+     */
+    public Message compose(String recipientCellNumber, String messageText) {
+        if (!InputValidator.isValidCellNumber(recipientCellNumber)) {
+            throw new IllegalArgumentException(Login.INVALID_CELL_NUMBER_MESSAGE);
+        }
+        checkMessageText(messageText);
+        return new Message(recipientCellNumber, messageText);
+    }
+
+    /**
+     * Composes several messages, checking every recipient in one batch.
+     * @param recipientCellNumbers The recipients.
+     * @param messageTexts The message texts, one per recipient.
+     * @return The new messages in the given order.
+     * @throws IllegalArgumentException If the arrays differ in length or any recipient or text is invalid;
+     * no message is created in that case.
+     */
+    public List<Message> composeAll(String[] recipientCellNumbers, String[] messageTexts) {
+        if (recipientCellNumbers.length != messageTexts.length) {
+            throw new IllegalArgumentException("Every message needs exactly one recipient.");
+        }
+        BitSet valid = InputValidator.validateCellNumbers(recipientCellNumbers);
+        int firstInvalid = valid.nextClearBit(0);
+        if (firstInvalid < recipientCellNumbers.length) {
+            throw new IllegalArgumentException(Login.INVALID_CELL_NUMBER_MESSAGE + " (message " + (firstInvalid + 1) + ")");
+        }
+        for (String messageText : messageTexts) {
+            checkMessageText(messageText);
+        }
+        List<Message> messages = new ArrayList<>(messageTexts.length);
+        for (int i = 0; i < messageTexts.length; i++) {
+            messages.add(new Message(recipientCellNumbers[i], messageTexts[i]));
+        }
+        return messages;
+    }
+
+    /**
+     * Composes and sends a message.
+     * @param recipientCellNumber The recipient's cell number.
+     * @param messageText The message text.
+     * @return The sent message.
+     * @throws IllegalArgumentException If the recipient or text is invalid.
+     */
+    public Message send(String recipientCellNumber, String messageText) {
+        Message message = compose(recipientCellNumber, messageText);
+        send(message);
+        return message;
+    }
+
+    /**
+     * Composes and stores a message for sending later.
+     * @param recipientCellNumber The recipient's cell number.
+     * @param messageText The message text.
+     * @return The stored message.
+     * @throws IllegalArgumentException If the recipient or text is invalid.
+     * @throws IOException If the message could not be written to the store, or is held but could
+     * not be journalled.
+     */
+    public Message store(String recipientCellNumber, String messageText) throws IOException {
+        Message message = compose(recipientCellNumber, messageText);
+        store(message);
+        return message;
+    }
+
+    /**
+     * Composes and disregards a message.
+     * @param recipientCellNumber The recipient's cell number.
+     * @param messageText The message text.
+     * @return The disregarded message.
+     * @throws IllegalArgumentException If the recipient or text is invalid.
+     */
+    public Message disregard(String recipientCellNumber, String messageText) {
+        Message message = compose(recipientCellNumber, messageText);
+        disregard(message);
+        return message;
+    }
+
+    /**
+     * Sends a composed message: marks it sent, counts it and gives it a hash.
+     * @param message The message.
+     */
+    public void send(Message message) {
+        lock.writeLock().lock();
+        try {
+            sendLocked(message);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stores a composed message for sending later, in the message store or journalled.
+     * @param message The message.
+     * @throws IOException If the message could not be written to the store, or is held but could
+     * not be journalled.
+     */
+    public void store(Message message) throws IOException {
+        lock.writeLock().lock();
+        try {
+            storeLocked(message);
+            if (journal != null) {
+                journal.appendStore(message);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Disregards a composed message. Disregarded messages get no hash and are not counted.
+     * @param message The message.
+     */
+    public void disregard(Message message) {
+        lock.writeLock().lock();
+        try {
+            disregardLocked(message);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sends a stored message: counts it, gives it a new hash numbered like any other send, moves it
+     * to sent and journals its removal from the stored messages.
+     * @param messageID The stored message's ID.
+     * @return True if the message was sent, false if it is no longer held or no longer stored.
+     * @throws IOException If the message was sent but its removal could not be journalled.
+     */
+    public boolean sendStored(String messageID) throws IOException {
+        lock.writeLock().lock();
+        try {
+            Message message = repository.findByID(messageID);
+            if (message == null || message.getStatus() != MessageStatus.STORED) {
+                return false; // Deleted or already sent in the meantime
+            }
+            if (repository.isArchived(messageID)) {
+                // Archived messages keep their status, so the copy read back is held as sent instead
+                repository.removeByID(messageID);
+                sendLocked(message);
+                return true;
+            }
+            String oldHash = message.getMessageHash();
+            long messageNumber = Message.getCounters().recordSent(message.getSender(), message.getRecipientCellNumber());
+            message.createMessageHash(messageNumber);
+            repository.updateHash(message, oldHash);
+            repository.updateStatus(message, MessageStatus.SENT);
+            if (journal != null) {
+                journal.appendDelete(messageID);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sends, stores or disregards a composed message.
+     * @param message The message.
+     * @param action What to do with it.
+     * @throws IOException If a stored message is held but could not be journalled.
+     */
+    public void submit(Message message, MessageStatus action) throws IOException {
+        submitAll(List.of(message), action);
+    }
+
+    /**
+     * Sends, stores or disregards composed messages in order under a single lock acquisition.
+     * Stored messages are journalled after all of them are held.
+     * @param messages The messages.
+     * @param action What to do with them.
+     * @throws IOException If stored messages are held but could not all be journalled.
+     */
+    public void submitAll(List<Message> messages, MessageStatus action) throws IOException {
+        lock.writeLock().lock();
+        try {
+            for (Message message : messages) {
+                switch (action) {
+                    case SENT -> sendLocked(message);
+                    case STORED -> storeLocked(message);
+                    case DISREGARDED -> disregardLocked(message);
+                }
+            }
+            if (action == MessageStatus.STORED && journal != null) {
+                for (Message message : messages) {
+                    journal.appendStore(message);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Message findByID(String messageID) {
+        lock.readLock().lock();
+        try {
+            return repository.findByID(messageID);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Message findByHash(String messageHash) {
+        lock.readLock().lock();
+        try {
+            return repository.findByHash(messageHash);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Message> findByRecipient(String recipientCellNumber) {
+        lock.readLock().lock();
+        try {
+            return repository.findByRecipient(recipientCellNumber);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Message> findByStatus(MessageStatus status) {
+        lock.readLock().lock();
+        try {
+            return repository.findByStatus(status);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int countByStatus(MessageStatus status) {
+        lock.readLock().lock();
+        try {
+            return repository.countByStatus(status);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Searches the text of all messages. A query in double quotes is matched as an exact phrase,
+     * otherwise messages containing every word (in any order) are returned.
+     * @param query The search query.
+     * @return The matching messages in the order they were added; empty for a blank query.
+     */
+    public List<Message> searchText(String query) {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        String trimmed = query.trim();
+        boolean isPhrase = trimmed.length() > 1 && trimmed.startsWith("\"") && trimmed.endsWith("\"");
+        lock.readLock().lock();
+        try {
+            return isPhrase
+                    ? textIndex.searchPhrase(trimmed.substring(1, trimmed.length() - 1))
+                    : textIndex.searchAllTerms(trimmed);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the K longest sent messages, longest first.
+     * @param k The maximum number of messages to return.
+     * @return Up to K messages.
+     * @throws IllegalArgumentException If K is negative.
+     */
+    public List<Message> getLongestSent(int k) {
+        lock.readLock().lock();
+        try {
+            return sentStatistics.getLongest(k);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getSentCount() {
+        lock.readLock().lock();
+        try {
+            return sentStatistics.getCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public double getAverageSentLength() {
+        lock.readLock().lock();
+        try {
+            return sentStatistics.getAverageLength();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Deletes a message by its hash, journalling the deletion if it was stored.
+     * @param messageHash The message hash.
+     * @return The deleted message, or null if no message has that hash.
+     * @throws IOException If the message was deleted but the deletion could not be journalled.
+     */
+    public Message deleteByHash(String messageHash) throws IOException {
+        lock.writeLock().lock();
+        try {
+            return journalDeletion(repository.removeByHash(messageHash));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Deletes a message by its ID, journalling the deletion if it was stored.
+     * @param messageID The message ID.
+     * @return The deleted message, or null if no message has that ID.
+     * @throws IOException If the message was deleted but the deletion could not be journalled.
+     */
+    public Message deleteByID(String messageID) throws IOException {
+        lock.writeLock().lock();
+        try {
+            return journalDeletion(repository.removeByID(messageID));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Deletes several messages by hash under a single lock acquisition.
+     * @param messageHashes The message hashes.
+     * @return The deleted messages; hashes that matched nothing are skipped.
+     * @throws IOException If the messages were deleted but a deletion could not be journalled.
+     */
+    public List<Message> deleteAllByHash(List<String> messageHashes) throws IOException {
+        List<Message> deleted = new ArrayList<>(messageHashes.size());
+        lock.writeLock().lock();
+        try {
+            for (String messageHash : messageHashes) {
+                Message message = repository.removeByHash(messageHash);
+                if (message != null) {
+                    deleted.add(message);
+                }
+            }
+            for (Message message : deleted) {
+                journalDeletion(message);
+            }
+            return deleted;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Forces the message store to disk, or writes all stored messages to the checkpoint file and
+     * empties the journal.
+     * @throws IOException If the checkpoint cannot be written.
+     */
+    public void checkpoint() throws IOException {
+        if (journal == null && store == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (store != null) {
+                store.force();
+            }
+            if (journal != null) {
+                journal.checkpoint();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Forces and closes the message store, or takes a final checkpoint and closes the journal.
+     * @throws IOException If the checkpoint cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        if (journal == null && store == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (store != null) {
+                try {
+                    store.force();
+                } finally {
+                    store.close();
+                }
+            }
+            if (journal != null) {
+                try {
+                    journal.checkpoint();
+                } finally {
+                    journal.close();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void sendLocked(Message message) {
+        message.setSent(true);
+        // The hash is numbered with the sequence number this send took, never another thread's
+        long messageNumber = Message.getCounters().recordSent(message.getSender(), message.getRecipientCellNumber());
+        message.createMessageHash(messageNumber);
+        repository.add(message, MessageStatus.SENT);
+    }
+
+    private void storeLocked(Message message) throws IOException {
+        message.createMessageHash(); // Stored messages get a hash too
+        if (storeBasePath != null) {
+            openStoreLocked();
+            repository.archive(message, MessageStatus.STORED);
+        } else {
+            repository.add(message, MessageStatus.STORED);
+        }
+        Message.getCounters().recordStored();
+    }
+
+    private void disregardLocked(Message message) {
+        repository.add(message, MessageStatus.DISREGARDED);
+        Message.getCounters().recordDisregarded();
+    }
+
+    private Message journalDeletion(Message message) throws IOException {
+        if (message != null && message.getStatus() == MessageStatus.STORED && journal != null) {
+            journal.appendDelete(message.getMessageID());
+        }
+        return message;
+    }
+
+    private static void checkMessageText(String messageText) {
+        if (messageText == null) {
+            throw new IllegalArgumentException("Message text is required.");
+        }
+        if (messageText.length() > Message.MAX_MESSAGE_LENGTH) {
+            throw new IllegalArgumentException("Message exceeds " + Message.MAX_MESSAGE_LENGTH + " characters by "
+                    + (messageText.length() - Message.MAX_MESSAGE_LENGTH) + ", please reduce size.");
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package org.example.chatapp.auth;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Running statistics over the messages with one status (e.g. all sent messages).
+ * Registered as a {@link MessageRepositoryListener}, it is updated on every add, removal and
+ * status change, so reports read the answer instead of scanning every message:
+ * count, total and average length are O(1), and the longest message and the K longest messages
+ * are O(1) and O(K), whatever the number of messages tracked.
+ *
+ * Messages are kept in one bucket per length, each in the order the messages were tracked.
+ * Message text is at most {@link Message#MAX_MESSAGE_LENGTH} characters, so walking down from the
+ * longest non-empty bucket passes a bounded number of buckets. Longer texts (only possible in
+ * messages restored from older files) go into a sorted map of their own, walked first.
+ * Reading the longest messages changes nothing, so concurrent readers are safe.
+ */
+public class MessageStatistics implements MessageRepositoryListener {
+
+    private final MessageStatus trackedStatus;
+    // Tracked messages and the length each was tracked with
+    private final Map<Message, Integer> trackedLengths = new IdentityHashMap<>();
+    // byLength.get(n) holds the messages of length n in tracking order, so ties go to the earliest message
+    private final List<Set<Message>> byLength = new ArrayList<>(Message.MAX_MESSAGE_LENGTH + 1);
+    private final NavigableMap<Integer, Set<Message>> overlong = new TreeMap<>(); // Longer than MAX_MESSAGE_LENGTH
+    // lengthHistogram[n] counts messages of length n; the last bucket holds anything longer than MAX_MESSAGE_LENGTH
+    private final int[] lengthHistogram = new int[Message.MAX_MESSAGE_LENGTH + 2];
+    private long totalLength = 0;
+    private int maxLength = -1; // Upper bound on the longest bucket in byLength that is not empty
+
+    /**
+     * Creates statistics for the messages with one status.
+     * @param trackedStatus The status of the messages to track.
+     */
+    public MessageStatistics(MessageStatus trackedStatus) {
+        this.trackedStatus = trackedStatus;
+        for (int length = 0; length <= Message.MAX_MESSAGE_LENGTH; length++) {
+            byLength.add(new LinkedHashSet<>()); // Message keeps identity equality, so sets hold each object once
+        }
+    }
+
+    @Override
+    public void messageAdded(Message message) {
+        if (message.getStatus() == trackedStatus) {
+            track(message);
+        }
+    }
+
+    @Override
+    public void messageRemoved(Message message) {
+        if (message.getStatus() == trackedStatus) {
+            untrack(message);
+        }
+    }
+
+    @Override
+    public void statusChanged(Message message, MessageStatus oldStatus) {
+        if (oldStatus == trackedStatus && message.getStatus() != trackedStatus) {
+            untrack(message);
+        } else if (oldStatus != trackedStatus && message.getStatus() == trackedStatus) {
+            track(message);
+        }
+    }
+
+    /**
+     * Returns the number of tracked messages.
+     * @return The message count.
+     */
+    public int getCount() {
+        return trackedLengths.size();
+    }
+
+    /**
+     * Returns the combined length of all tracked messages.
+     * @return The total number of characters.
+     */
+    public long getTotalLength() {
+        return totalLength;
+    }
+
+    /**
+     * Returns the average length of the tracked messages.
+     * @return The average number of characters, or 0 if there are none.
+     */
+    public double getAverageLength() {
+        return trackedLengths.isEmpty() ? 0 : (double) totalLength / trackedLengths.size();
+    }
+
+    /**
+     * Returns the longest tracked message. Ties go to the message that was added first.
+     * @return The longest message, or null if there are none.
+     */
+    public Message getLongest() {
+        List<Message> longest = getLongest(1);
+        return longest.isEmpty() ? null : longest.get(0);
+    }
+
+    /**
+     * Returns the K longest tracked messages, longest first. Ties go to the message that was added first.
+     * @param k The maximum number of messages to return.
+     * @return Up to K messages; empty if K is 0.
+     * @throws IllegalArgumentException If K is negative.
+     */
+    public List<Message> getLongest(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("The number of messages must not be negative.");
+        }
+        List<Message> result = new ArrayList<>(Math.min(k, trackedLengths.size()));
+        for (Set<Message> bucket : overlong.descendingMap().values()) {
+            if (!addUpTo(result, bucket, k)) {
+                return result;
+            }
+        }
+        for (int length = maxLength; length >= 0; length--) {
+            if (!addUpTo(result, byLength.get(length), k)) {
+                return result;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns how many tracked messages have each length.
+     * Index n holds the count for length n; the last index counts messages longer than
+     * {@link Message#MAX_MESSAGE_LENGTH}.
+     * @return A copy of the histogram.
+     */
+    public int[] getLengthHistogram() {
+        return lengthHistogram.clone();
+    }
+
+    private void track(Message message) {
+        int length = message.getMessageText().length();
+        if (trackedLengths.putIfAbsent(message, length) != null) {
+            return;
+        }
+        if (length > Message.MAX_MESSAGE_LENGTH) {
+            overlong.computeIfAbsent(length, l -> new LinkedHashSet<>()).add(message);
+        } else {
+            byLength.get(length).add(message);
+            maxLength = Math.max(maxLength, length);
+        }
+        lengthHistogram[Math.min(length, lengthHistogram.length - 1)]++;
+        totalLength += length;
+    }
+
+    private void untrack(Message message) {
+        Integer length = trackedLengths.remove(message);
+        if (length == null) {
+            return;
+        }
+        if (length > Message.MAX_MESSAGE_LENGTH) {
+            Set<Message> bucket = overlong.get(length);
+            bucket.remove(message);
+            if (bucket.isEmpty()) {
+                overlong.remove(length);
+            }
+        } else {
+            byLength.get(length).remove(message);
+            while (maxLength >= 0 && byLength.get(maxLength).isEmpty()) {
+                maxLength--; // Bounded by MAX_MESSAGE_LENGTH steps
+            }
+        }
+        lengthHistogram[Math.min(length, lengthHistogram.length - 1)]--;
+        totalLength -= length;
+    }
+
+    // Adds messages from a bucket until the result holds K; returns false once it does
+    private static boolean addUpTo(List<Message> result, Set<Message> bucket, int k) {
+        for (Message message : bucket) {
+            if (result.size() >= k) {
+                return false;
+            }
+            result.add(message);
+        }
+        return result.size() < k;
+    }
+}
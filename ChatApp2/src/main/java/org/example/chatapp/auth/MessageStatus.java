@@ -0,0 +1,10 @@
+package org.example.chatapp.auth;
+
+/**
+ * What happened to a message after it was composed.
+ */
+public enum MessageStatus {
+    SENT,        // Option 1: Send Message
+    STORED,      // Option 2: Store Message to send later
+    DISREGARDED  // Option 3: Disregard Message
+}
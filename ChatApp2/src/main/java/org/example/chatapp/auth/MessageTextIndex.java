@@ -0,0 +1,345 @@
+package org.example.chatapp.auth;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory inverted index over message text.
+ * Each message gets an ordinal when it is added. For every token the index keeps a posting list
+ * of (ordinal, position) pairs in a primitive int array, sorted because ordinals only grow.
+ * Term queries read one posting list; all-terms queries walk the shortest list and gallop
+ * forward through the longer ones; phrase queries check that each following token occurs at the
+ * next position with a binary search.
+ *
+ * Tokens are runs of letters and digits, compared case-insensitively. Deleted messages are
+ * skipped at query time. Once they outnumber live messages they are purged from the posting
+ * lists and the live messages are renumbered, so deleted ordinals free their slots.
+ *
+ * Messages archived in a {@link MappedMessageStore} are indexed from text read out of the store;
+ * the index keeps only their store reference and reads a match back when a query returns it.
+ * Registered as a {@link MessageRepositoryListener}; not thread-safe.
+ */
+public class MessageTextIndex implements MessageRepositoryListener {
+
+    // Growable array of (ordinal, position) pairs
+    private static final class Postings {
+        int[] pairs = new int[4];
+        int size = 0; // Number of ints used, two per occurrence
+
+        void add(int ordinal, int position) {
+            if (size + 2 > pairs.length) {
+                pairs = Arrays.copyOf(pairs, pairs.length * 2);
+            }
+            pairs[size++] = ordinal;
+            pairs[size++] = position;
+        }
+
+        boolean contains(int ordinal, int position) {
+            int low = 0;
+            int high = size / 2 - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int midOrdinal = pairs[mid * 2];
+                int cmp = midOrdinal != ordinal ? Integer.compare(midOrdinal, ordinal) : Integer.compare(pairs[mid * 2 + 1], position);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Returns the index of the first pair at or after from whose ordinal is at least the given
+        // one, or size if there is none. Gallops ahead in doubling steps, then binary searches the
+        // last step, so a cursor moved forward through the list costs O(log gap) per move.
+        int seek(int ordinal, int from) {
+            int low = from / 2;
+            int pairCount = size / 2;
+            int step = 1;
+            int high = low;
+            while (high < pairCount && pairs[high * 2] < ordinal) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            high = Math.min(high, pairCount);
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (pairs[mid * 2] < ordinal) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low * 2;
+        }
+    }
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final ArrayList<Message> messagesByOrdinal = new ArrayList<>();
+    private final Map<Message, Integer> ordinals = new IdentityHashMap<>();
+    private MappedMessageStore archive;
+    private int[] refsByOrdinal = new int[16]; // Archive reference per ordinal, -1 for held messages
+    private final LongObjectHashMap<Integer> archivedOrdinals = new LongObjectHashMap<>(); // By reference
+    private BitSet deleted = new BitSet(); // Replaced by an empty set on purge, which releases its words
+    private int deletedCount = 0;
+
+    @Override
+    public void messageAdded(Message message) {
+        int ordinal = addOrdinal(message, -1);
+        ordinals.put(message, ordinal);
+        indexText(ordinal, message.getMessageText());
+    }
+
+    @Override
+    public void messageRemoved(Message message) {
+        Integer ordinal = ordinals.remove(message);
+        if (ordinal != null) {
+            messagesByOrdinal.set(ordinal, null); // Let the message be collected
+            markDeleted(ordinal);
+        }
+    }
+
+    @Override
+    public void archivedMessageAdded(MappedMessageStore archive, int ref) {
+        this.archive = archive;
+        int ordinal = addOrdinal(null, ref);
+        archivedOrdinals.put(ref, ordinal);
+        indexText(ordinal, archive.getMessageText(ref));
+    }
+
+    @Override
+    public void archivedMessageRemoved(MappedMessageStore archive, int ref) {
+        Integer ordinal = archivedOrdinals.remove(ref);
+        if (ordinal != null) {
+            refsByOrdinal[ordinal] = -1;
+            markDeleted(ordinal);
+        }
+    }
+
+    /**
+     * Finds the messages containing a term.
+     * @param term A single word; case is ignored.
+     * @return The matching messages in the order they were added.
+     */
+    public List<Message> searchTerm(String term) {
+        List<String> tokens = tokenize(term);
+        if (tokens.size() != 1) {
+            return tokens.isEmpty() ? Collections.emptyList() : searchAllTerms(term);
+        }
+        Postings list = postings.get(tokens.get(0));
+        List<Message> result = new ArrayList<>();
+        if (list != null) {
+            int lastOrdinal = -1;
+            for (int i = 0; i < list.size; i += 2) {
+                int ordinal = list.pairs[i];
+                if (ordinal != lastOrdinal && !deleted.get(ordinal)) {
+                    result.add(messageAt(ordinal));
+                }
+                lastOrdinal = ordinal;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds the messages containing every word of a query, in any order.
+     * @param query The words to search for; case and punctuation are ignored.
+     * @return The matching messages in the order they were added.
+     */
+    public List<Message> searchAllTerms(String query) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Postings[] lists = new Postings[tokens.size()];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = postings.get(tokens.get(i));
+            if (lists[i] == null) {
+                return Collections.emptyList();
+            }
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+
+        // Candidates come from the shortest list; each longer list keeps a cursor that only moves forward
+        Postings shortest = lists[0];
+        int[] cursors = new int[lists.length];
+        List<Message> result = new ArrayList<>();
+        int lastOrdinal = -1;
+        for (int i = 0; i < shortest.size; i += 2) {
+            int ordinal = shortest.pairs[i];
+            if (ordinal == lastOrdinal || deleted.get(ordinal)) {
+                continue;
+            }
+            lastOrdinal = ordinal;
+            boolean matched = true;
+            for (int t = 1; t < lists.length && matched; t++) {
+                cursors[t] = lists[t].seek(ordinal, cursors[t]);
+                if (cursors[t] == lists[t].size) {
+                    return result; // This list has nothing at or after the candidate, so neither will later ones
+                }
+                matched = lists[t].pairs[cursors[t]] == ordinal;
+            }
+            if (matched) {
+                result.add(messageAt(ordinal));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds the messages containing the words of a phrase next to each other, in order.
+     * @param phrase The phrase to search for; case and punctuation are ignored.
+     * @return The matching messages in the order they were added.
+     */
+    public List<Message> searchPhrase(String phrase) {
+        List<String> tokens = tokenize(phrase);
+        if (tokens.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Postings[] lists = new Postings[tokens.size()];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = postings.get(tokens.get(i));
+            if (lists[i] == null) {
+                return Collections.emptyList();
+            }
+        }
+
+        List<Message> result = new ArrayList<>();
+        Postings first = lists[0];
+        int lastMatched = -1;
+        for (int i = 0; i < first.size; i += 2) {
+            int ordinal = first.pairs[i];
+            if (ordinal == lastMatched || deleted.get(ordinal)) {
+                continue;
+            }
+            int position = first.pairs[i + 1];
+            boolean matched = true;
+            for (int t = 1; t < lists.length && matched; t++) {
+                matched = lists[t].contains(ordinal, position + t);
+            }
+            if (matched) {
+                result.add(messageAt(ordinal));
+                lastMatched = ordinal;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of distinct tokens in the index.
+     * @return The vocabulary size.
+     */
+    public int getTermCount() {
+        return postings.size();
+    }
+
+    /**
+     * Splits text into lower-case tokens made of letters and digits.
+     * @param text The text to split.
+     * @return The tokens in order.
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                current.append(Character.toLowerCase(c));
+            } else if (current.length() > 0) {
+                tokens.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (current.length() > 0) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+
+    private int addOrdinal(Message message, int ref) {
+        int ordinal = messagesByOrdinal.size();
+        messagesByOrdinal.add(message);
+        if (ordinal == refsByOrdinal.length) {
+            refsByOrdinal = Arrays.copyOf(refsByOrdinal, ordinal * 2);
+        }
+        refsByOrdinal[ordinal] = ref;
+        return ordinal;
+    }
+
+    private void indexText(int ordinal, String text) {
+        List<String> tokens = tokenize(text);
+        for (int position = 0; position < tokens.size(); position++) {
+            postings.computeIfAbsent(tokens.get(position), k -> new Postings()).add(ordinal, position);
+        }
+    }
+
+    private void markDeleted(int ordinal) {
+        deleted.set(ordinal);
+        if (++deletedCount > ordinals.size() + archivedOrdinals.size() + 1024) {
+            purgeDeleted();
+        }
+    }
+
+    // Archived messages are read back from the store, so callers get a copy
+    private Message messageAt(int ordinal) {
+        Message message = messagesByOrdinal.get(ordinal);
+        return message != null ? message : archive.read(refsByOrdinal[ordinal]);
+    }
+
+    // Drops deleted messages from the posting lists and renumbers the live ones 0..n-1 in the order
+    // they were added, so posting lists stay sorted and the message list and deleted bits shrink
+    private void purgeDeleted() {
+        int[] remap = new int[messagesByOrdinal.size()];
+        int live = 0;
+        for (int ordinal = 0; ordinal < remap.length; ordinal++) {
+            if (deleted.get(ordinal)) {
+                remap[ordinal] = -1;
+            } else {
+                Message message = messagesByOrdinal.get(ordinal);
+                int ref = refsByOrdinal[ordinal];
+                remap[ordinal] = live;
+                messagesByOrdinal.set(live, message);
+                refsByOrdinal[live++] = ref;
+                if (message != null) {
+                    ordinals.put(message, remap[ordinal]);
+                } else {
+                    archivedOrdinals.put(ref, remap[ordinal]);
+                }
+            }
+        }
+        messagesByOrdinal.subList(live, messagesByOrdinal.size()).clear();
+        messagesByOrdinal.trimToSize();
+        refsByOrdinal = Arrays.copyOf(refsByOrdinal, Math.max(16, live));
+        deleted = new BitSet();
+        deletedCount = 0;
+
+        var iterator = postings.values().iterator();
+        while (iterator.hasNext()) {
+            Postings list = iterator.next();
+            int kept = 0;
+            for (int i = 0; i < list.size; i += 2) {
+                int ordinal = remap[list.pairs[i]];
+                if (ordinal >= 0) {
+                    list.pairs[kept++] = ordinal;
+                    list.pairs[kept++] = list.pairs[i + 1];
+                }
+            }
+            list.size = kept;
+            if (kept == 0) {
+                iterator.remove();
+            } else if (kept * 4 <= list.pairs.length && list.pairs.length > 4) {
+                list.pairs = Arrays.copyOf(list.pairs, Math.max(4, kept * 2)); // Give back space the purge freed
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package org.example.chatapp.auth;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free queue for many producer threads and a single consumer thread.
+ * Each slot carries a sequence number saying whose turn it is: producers claim a slot by
+ * advancing the tail with one compare-and-set and publish the element by bumping the slot's
+ * sequence; the consumer takes elements in order without any atomic read-modify-write.
+ * Capacity is rounded up to a power of two, and to at least two: with a single slot a published
+ * element and a slot freed for the next lap would carry the same sequence. Null elements are not allowed.
+ *
+ * @param <E> The element type.
+ */
+public class MpscRingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    // sequence == position: free for the producer claiming position
+    // sequence == position + 1: published, ready for the consumer
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong(); // Next position to claim
+    private volatile long head = 0; // Next position to consume; written by the consumer only
+
+    /**
+     * Creates an empty buffer.
+     * @param capacity The minimum number of elements the buffer can hold.
+     */
+    public MpscRingBuffer(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30.");
+        }
+        int size = Math.max(2, Integer.highestOneBit(capacity));
+        if (size < capacity) {
+            size <<= 1;
+        }
+        mask = size - 1;
+        elements = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds an element if there is room. Safe to call from any thread.
+     * @param element The element.
+     * @return True if the element was added, false if the buffer is full.
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new IllegalArgumentException("Element must not be null.");
+        }
+        while (true) {
+            long position = tail.get();
+            int slot = (int) position & mask;
+            long sequence = sequences.get(slot);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.lazySet(slot, element);
+                    sequences.set(slot, position + 1); // Publish
+                    return true;
+                }
+            } else if (sequence < position) {
+                return false; // The consumer has not yet freed this slot from the previous lap
+            }
+            // Otherwise another producer claimed the position first; retry with the new tail
+        }
+    }
+
+    /**
+     * Removes the next element. Consumer thread only.
+     * @return The element, or null if none has been published yet.
+     */
+    public E poll() {
+        long position = head;
+        int slot = (int) position & mask;
+        if (sequences.get(slot) != position + 1) {
+            return null;
+        }
+        E element = elements.get(slot);
+        elements.lazySet(slot, null);
+        sequences.set(slot, position + mask + 1); // Free the slot for the next lap
+        head = position + 1;
+        return element;
+    }
+
+    /**
+     * Removes up to {@code limit} elements in order and passes them to an action. Consumer thread only.
+     * @param action Receives each element.
+     * @param limit The maximum number of elements to remove.
+     * @return The number of elements removed.
+     */
+    public int drain(Consumer<? super E> action, int limit) {
+        int drained = 0;
+        E element;
+        while (drained < limit && (element = poll()) != null) {
+            action.accept(element);
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * Returns the number of elements claimed and not yet consumed. Approximate while producers are active.
+     * @return The element count.
+     */
+    public int size() {
+        long size = tail.get() - head;
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,379 @@
+package org.example.chatapp.auth;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking chat server: one selector thread multiplexes every connection.
+ * Speaks {@link ChatProtocol} in length-prefixed frames instead of lines: each request and
+ * response is a 4 byte big-endian length followed by that many bytes of UTF-8 text. A response
+ * to a multi-line result (FIND, RECIPIENT, SEARCH) is a single frame whose lines are separated by '\n'.
+ *
+ * An idle connection holds no buffer at all. Reads go into one shared direct buffer, and a
+ * connection borrows a pooled direct buffer only while it has a partial request or an unsent
+ * response. Requests are handled on virtual threads, since logins block on password
+ * verification; each connection has at most one request in flight and is not read from until
+ * its response has been written, which keeps responses in order and pushes back on fast senders.
+ *
+ * A frame longer than {@link #MAX_FRAME_BYTES} is answered with an error and the connection closed.
+ */
+public class NioChatServer implements Closeable {
+
+    public static final int BUFFER_SIZE = 8192;
+    public static final int MAX_FRAME_BYTES = BUFFER_SIZE - 4; // A whole request always fits in one buffer
+
+    private static final int MAX_POOLED_BUFFERS = 1024;
+
+    private final MessageService messageService;
+    private final OutboundDispatcher outbound; // Null to send on the client's request
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final int port;
+    private final BufferPool pool = new BufferPool(BUFFER_SIZE, MAX_POOLED_BUFFERS);
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE); // Shared by all reads
+    private final ExecutorService workers = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("nio-chat-worker-", 0).factory());
+    // Work handed back to the selector thread by workers, run before the next select
+    private final Queue<Runnable> completions = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final Thread selectorThread;
+    private volatile boolean closed;
+
+    // Per-connection state, only touched on the selector thread
+    private final class Connection {
+        final SocketChannel channel;
+        final SelectionKey key;
+        final ChatProtocol protocol = new ChatProtocol(messageService, outbound);
+        ByteBuffer pending;    // Unprocessed request bytes in write mode, or null
+        ByteBuffer out;        // Response bytes being written in read mode, or null
+        byte[] response;       // Encoded response frame being copied into out
+        int responseOffset;
+        boolean handling;      // A worker is handling a request
+        boolean closeAfterWrite;
+        boolean closed;
+
+        Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+    }
+
+    /**
+     * Binds the server to a port on the loopback interface only and starts accepting clients.
+     * @param port The port, or 0 for any free port.
+     * @param messageService The message service shared by all clients.
+     * @return The running server.
+     * @throws IOException If the port cannot be bound.
+     */
+    public static NioChatServer start(int port, MessageService messageService) throws IOException {
+        return start(port, messageService, null);
+    }
+
+    /**
+     * Binds the server to a port on the loopback interface only and starts accepting clients.
+     * @param port The port, or 0 for any free port.
+     * @param messageService The message service shared by all clients.
+     * @param outbound The dispatcher sends are queued on, or null to send on the client's request.
+     * @return The running server.
+     * @throws IOException If the port cannot be bound.
+     */
+    public static NioChatServer start(int port, MessageService messageService, OutboundDispatcher outbound) throws IOException {
+        return start(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), messageService, outbound);
+    }
+
+    /**
+     * Binds the server to an address and starts accepting clients. The protocol sends passwords in
+     * plain text and lets any logged-in client read and delete stored messages, so only bind beyond
+     * the loopback interface on a trusted network.
+     * @param address The address, e.g. {@code new InetSocketAddress(port)} for all interfaces.
+     * @param messageService The message service shared by all clients.
+     * @param outbound The dispatcher sends are queued on, or null to send on the client's request.
+     * @return The running server.
+     * @throws IOException If the address cannot be bound.
+     */
+    public static NioChatServer start(InetSocketAddress address, MessageService messageService, OutboundDispatcher outbound) throws IOException {
+        return new NioChatServer(address, messageService, outbound);
+    }
+
+    private NioChatServer(InetSocketAddress address, MessageService messageService, OutboundDispatcher outbound) throws IOException {
+        this.messageService = messageService;
+        this.outbound = outbound;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address, 1024);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        this.port = ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+        this.selectorThread = new Thread(this::selectLoop, "nio-chat-selector");
+        selectorThread.start();
+    }
+
+    /**
+     * Returns the port the server is listening on.
+     * @return The local port.
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Returns the number of connected clients.
+     * @return The open connection count.
+     */
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    /**
+     * Stops the selector thread, disconnects all clients and waits for requests being handled.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        selector.wakeup();
+        try {
+            selectorThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers.close();
+        // Requests that finished after the selector stopped only need their sessions ended
+        Runnable completion;
+        while ((completion = completions.poll()) != null) {
+            completion.run();
+        }
+    }
+
+    private void selectLoop() {
+        try {
+            while (!closed) {
+                selector.select();
+                Runnable completion;
+                while ((completion = completions.poll()) != null) {
+                    completion.run();
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isWritable()) {
+                            flush(connection);
+                        }
+                        if (key.isValid() && key.isReadable()) {
+                            read(connection);
+                        }
+                    } catch (IOException e) {
+                        closeConnection(connection); // Reset by the client
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error in chat server selector: " + e.getMessage());
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof Connection connection) {
+                    closeConnection(connection);
+                }
+            }
+            try {
+                serverChannel.close();
+                selector.close();
+            } catch (IOException e) {
+                System.err.println("Error stopping chat server: " + e.getMessage());
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true); // Small responses a client waits for
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            key.attach(new Connection(channel, key));
+            connectionCount.incrementAndGet();
+        }
+    }
+
+    private void read(Connection connection) throws IOException {
+        ByteBuffer target = connection.pending;
+        if (target == null) {
+            target = readBuffer;
+            target.clear();
+        }
+        if (connection.channel.read(target) < 0) {
+            closeConnection(connection);
+            return;
+        }
+        target.flip();
+        dispatchNextFrame(connection, target);
+        keepUnprocessed(connection, target);
+    }
+
+    // Holds on to bytes not yet dispatched, borrowing a pooled buffer only when there are some
+    private void keepUnprocessed(Connection connection, ByteBuffer source) {
+        if (connection.closed) {
+            return;
+        }
+        if (source == readBuffer) {
+            if (source.hasRemaining()) {
+                connection.pending = pool.acquire();
+                connection.pending.put(source);
+            }
+        } else {
+            source.compact();
+            if (source.position() == 0) {
+                pool.release(source);
+                connection.pending = null;
+            }
+        }
+    }
+
+    // Hands the first complete frame in source (read mode) to a worker, if the connection is free
+    private void dispatchNextFrame(Connection connection, ByteBuffer source) {
+        if (connection.handling || connection.out != null || connection.closed || source.remaining() < 4) {
+            return;
+        }
+        int length = source.getInt(source.position());
+        if (length < 0 || length > MAX_FRAME_BYTES) {
+            source.position(source.limit()); // Nothing after a bad length can be trusted
+            respond(connection, "ERR Frame length " + length + " is not between 0 and " + MAX_FRAME_BYTES + ".", true);
+            return;
+        }
+        if (source.remaining() < 4 + length) {
+            return; // Wait for the rest of the frame
+        }
+        byte[] payload = new byte[length];
+        source.position(source.position() + 4);
+        source.get(payload);
+        String request = new String(payload, StandardCharsets.UTF_8);
+
+        connection.handling = true;
+        connection.key.interestOps(0); // Stop reading until the response has been written
+        ChatProtocol protocol = connection.protocol;
+        workers.execute(() -> {
+            String response;
+            try {
+                response = protocol.handle(request);
+            } catch (RuntimeException e) {
+                response = "ERR " + e.getMessage();
+            }
+            String finalResponse = response;
+            boolean quit = protocol.isClosed();
+            completions.add(() -> {
+                connection.handling = false;
+                if (connection.closed) {
+                    protocol.logout(); // Disconnected while the request was handled
+                } else {
+                    respond(connection, finalResponse, quit);
+                }
+            });
+            selector.wakeup();
+        });
+    }
+
+    private void respond(Connection connection, String response, boolean closeAfterWrite) {
+        byte[] body = response.getBytes(StandardCharsets.UTF_8);
+        byte[] frame = new byte[4 + body.length];
+        frame[0] = (byte) (body.length >>> 24);
+        frame[1] = (byte) (body.length >>> 16);
+        frame[2] = (byte) (body.length >>> 8);
+        frame[3] = (byte) body.length;
+        System.arraycopy(body, 0, frame, 4, body.length);
+
+        connection.response = frame;
+        connection.responseOffset = 0;
+        connection.closeAfterWrite = closeAfterWrite;
+        connection.out = pool.acquire().flip(); // Empty, so the first flush fills it
+        try {
+            flush(connection);
+        } catch (IOException e) {
+            closeConnection(connection);
+        }
+    }
+
+    private void flush(Connection connection) throws IOException {
+        ByteBuffer out = connection.out;
+        while (true) {
+            if (!out.hasRemaining()) {
+                int chunk = Math.min(out.capacity(), connection.response.length - connection.responseOffset);
+                if (chunk == 0) {
+                    break; // Whole response written
+                }
+                out.clear();
+                out.put(connection.response, connection.responseOffset, chunk).flip();
+                connection.responseOffset += chunk;
+            }
+            connection.channel.write(out);
+            if (out.hasRemaining()) {
+                connection.key.interestOps(SelectionKey.OP_WRITE); // Socket buffer full; continue when writable
+                return;
+            }
+        }
+        pool.release(out);
+        connection.out = null;
+        connection.response = null;
+        if (connection.closeAfterWrite) {
+            closeConnection(connection);
+            return;
+        }
+        // A pipelined request may already be buffered
+        if (connection.pending != null) {
+            ByteBuffer pending = connection.pending.flip();
+            dispatchNextFrame(connection, pending);
+            keepUnprocessed(connection, pending);
+        }
+        if (!connection.handling && connection.out == null && !connection.closed) {
+            connection.key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    private void closeConnection(Connection connection) {
+        if (connection.closed) {
+            return;
+        }
+        connection.closed = true;
+        connection.key.cancel();
+        try {
+            connection.channel.close();
+        } catch (IOException ignored) {
+            // Already closing
+        }
+        if (connection.pending != null) {
+            pool.release(connection.pending);
+            connection.pending = null;
+        }
+        if (connection.out != null) {
+            pool.release(connection.out);
+            connection.out = null;
+        }
+        if (!connection.handling) {
+            connection.protocol.logout(); // Otherwise the worker's completion logs out
+        }
+        connectionCount.decrementAndGet();
+    }
+}
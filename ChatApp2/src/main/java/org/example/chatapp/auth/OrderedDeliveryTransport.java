@@ -0,0 +1,104 @@
+package org.example.chatapp.auth;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Delivers messages to each recipient in the order they were sent.
+ * A pipelined or retrying transport can let a later message overtake an earlier one (the
+ * earlier one is rejected and retried while the later one goes through). This transport chains
+ * each recipient's deliveries: a message is handed to the wrapped transport only once the
+ * previous message to the same recipient was acknowledged or finally failed. Messages to
+ * different recipients are independent, so one recipient's slow or retried message never holds
+ * up another's.
+ *
+ * No thread waits for an acknowledgement: the next message in a chain is started from the
+ * completion of the one before, on a virtual thread, since starting a send may wait for room in
+ * the wrapped transport's window.
+ */
+public class OrderedDeliveryTransport implements DeliveryTransport {
+
+    private final DeliveryTransport transport;
+    // Last delivery queued for each recipient with a delivery still unfinished
+    private final ConcurrentHashMap<Long, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+    private final ExecutorService starters = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("delivery-chain-", 0).factory());
+    private volatile boolean closed;
+
+    /**
+     * Wraps a transport.
+     * @param transport The transport messages are delivered on.
+     */
+    public OrderedDeliveryTransport(DeliveryTransport transport) {
+        this.transport = transport;
+    }
+
+    /**
+     * Queues a message behind earlier unfinished messages to the same recipient. If there are
+     * none it is handed to the wrapped transport at once, waiting if its window is full.
+     * @param message The sent message.
+     * @return A future completed when the message is acknowledged or finally fails.
+     */
+    @Override
+    public CompletableFuture<Void> send(Message message) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Delivery transport is closed."));
+        }
+        Long key = recipientKey(message);
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        CompletableFuture<Void> previous = tails.put(key, result);
+        result.whenComplete((ignored, e) -> tails.remove(key, result)); // Forget the recipient once its chain is done
+        if (previous == null) {
+            start(message, result);
+        } else {
+            previous.whenCompleteAsync((ignored, e) -> start(message, result), starters);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the key that chains a message's delivery behind its recipient's earlier ones.
+     * @param message The message.
+     * @return The encoded recipient number, or a hash of the recipient if it cannot be encoded.
+     */
+    public static long recipientKey(Message message) {
+        long recipientNumber = message.getRecipientNumber();
+        return recipientNumber != PhoneNumber.NONE ? recipientNumber : message.getRecipientCellNumber().hashCode();
+    }
+
+    /**
+     * Stops accepting messages, waits for the ones already queued to finish, then closes the
+     * wrapped transport.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        for (CompletableFuture<Void> tail : tails.values()) {
+            try {
+                tail.join(); // Each chain ends with its last message, so this covers every queued delivery
+            } catch (CompletionException e) {
+                // Failed for good; already reported to the sender
+            }
+        }
+        starters.close();
+        transport.close();
+    }
+
+    private void start(Message message, CompletableFuture<Void> result) {
+        try {
+            transport.send(message).whenComplete((ignored, e) -> {
+                if (e == null) {
+                    result.complete(null);
+                } else {
+                    result.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                }
+            });
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+    }
+}
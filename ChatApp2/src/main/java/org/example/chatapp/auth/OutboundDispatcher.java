@@ -0,0 +1,262 @@
+package org.example.chatapp.auth;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends messages in batches on a dedicated thread.
+ * Producers only enqueue a composed message into an {@link MpscRingBuffer}; the dispatcher
+ * thread drains up to a batch at a time and hands each batch to
+ * {@link MessageService#submitAll}, which hashes, counts and indexes the whole batch under a
+ * single lock acquisition. Messages are sent in the order they were queued.
+ *
+ * When the queue is full the {@link BackpressurePolicy} decides: BLOCK waits for room, DROP
+ * returns false, FAIL throws {@link IllegalStateException}. The dispatcher thread parks while
+ * the queue is empty and is woken by the next producer.
+ *
+ * With a {@link DeliveryTransport}, each batch is handed to the transport once it is recorded as
+ * sent. The transport keeps many deliveries in flight, so the dispatcher never waits a round trip
+ * per message; deliveries that still fail after the transport's retries are counted and logged.
+ */
+public class OutboundDispatcher implements Closeable {
+
+    public static final int DEFAULT_CAPACITY = 8192;
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private static final long MAX_IDLE_PARK_NANOS = 10_000_000; // Re-check now and then in case a wake-up was missed
+    private static final long MAX_BLOCK_PARK_NANOS = 1_000_000;
+
+    private final MessageService messageService;
+    private final MpscRingBuffer<Message> queue;
+    private final int batchSize;
+    private final BackpressurePolicy policy;
+    private final DeliveryTransport transport; // Null when sent messages are only recorded
+    private final Thread dispatcher;
+    private final AtomicLong accepted = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder deliveryFailures = new LongAdder();
+    private volatile long dispatched = 0; // Written by the dispatcher thread only
+    private volatile boolean idle;        // The dispatcher thread is parked waiting for messages
+    private volatile boolean closed;
+
+    /**
+     * Starts a dispatcher with the default capacity and batch size that blocks when full.
+     * @param messageService The service messages are sent through.
+     * @return The running dispatcher.
+     */
+    public static OutboundDispatcher start(MessageService messageService) {
+        return start(messageService, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, BackpressurePolicy.BLOCK);
+    }
+
+    /**
+     * Starts a dispatcher.
+     * @param messageService The service messages are sent through.
+     * @param capacity The number of messages that can wait to be sent (rounded up to a power of two).
+     * @param batchSize The maximum number of messages sent under one lock acquisition.
+     * @param policy What {@link #submit} does when the queue is full.
+     * @return The running dispatcher.
+     */
+    public static OutboundDispatcher start(MessageService messageService, int capacity, int batchSize, BackpressurePolicy policy) {
+        return start(messageService, capacity, batchSize, policy, null);
+    }
+
+    /**
+     * Starts a dispatcher that delivers sent messages.
+     * @param messageService The service messages are sent through.
+     * @param capacity The number of messages that can wait to be sent (rounded up to a power of two).
+     * @param batchSize The maximum number of messages sent under one lock acquisition.
+     * @param policy What {@link #submit} does when the queue is full.
+     * @param transport The transport sent messages are delivered on, or null to only record them as sent.
+     * @return The running dispatcher.
+     */
+    public static OutboundDispatcher start(MessageService messageService, int capacity, int batchSize, BackpressurePolicy policy,
+                                           DeliveryTransport transport) {
+        OutboundDispatcher outbound = new OutboundDispatcher(messageService, capacity, batchSize, policy, transport);
+        outbound.dispatcher.start(); // Once fully built, so the thread never sees a half-made dispatcher
+        return outbound;
+    }
+
+    private OutboundDispatcher(MessageService messageService, int capacity, int batchSize, BackpressurePolicy policy,
+                               DeliveryTransport transport) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive.");
+        }
+        this.messageService = messageService;
+        this.queue = new MpscRingBuffer<>(capacity);
+        this.batchSize = batchSize;
+        this.policy = policy;
+        this.transport = transport;
+        this.dispatcher = new Thread(this::dispatchLoop, "outbound-dispatcher");
+        dispatcher.setDaemon(true);
+    }
+
+    /**
+     * Queues a composed message to be sent. Safe to call from any thread.
+     * @param message The message, as returned by {@link MessageService#compose}.
+     * @return True if the message was queued, false if the queue was full and the policy is DROP.
+     * @throws IllegalStateException If the dispatcher is closed, the queue is full and the policy is
+     * FAIL, or the thread is interrupted while blocked.
+     */
+    public boolean submit(Message message) {
+        if (closed) {
+            throw new IllegalStateException("Outbound dispatcher is closed.");
+        }
+        if (!queue.offer(message)) {
+            switch (policy) {
+                case DROP:
+                    dropped.increment();
+                    return false;
+                case FAIL:
+                    throw new IllegalStateException("Outbound queue is full.");
+                case BLOCK:
+                    awaitRoom(message);
+                    break;
+            }
+        }
+        accepted.incrementAndGet();
+        if (idle) {
+            LockSupport.unpark(dispatcher);
+        }
+        return true;
+    }
+
+    /**
+     * Waits until every message queued before the call has been sent.
+     * @param timeoutMillis The longest time to wait.
+     * @return True if they were all sent, false on timeout or interrupt.
+     */
+    public boolean flush(long timeoutMillis) {
+        long target = accepted.get();
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000;
+        while (dispatched < target) {
+            if (System.nanoTime() - deadline >= 0 || Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+            LockSupport.unpark(dispatcher);
+            LockSupport.parkNanos(100_000);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of messages waiting to be sent.
+     * @return The queue depth.
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getDispatchedCount() {
+        return dispatched;
+    }
+
+    /**
+     * Returns the number of sent messages the transport has delivered.
+     * @return The delivered message count, 0 without a transport.
+     */
+    public long getDeliveredCount() {
+        return delivered.sum();
+    }
+
+    /**
+     * Returns the number of sent messages the transport failed to deliver, retries included.
+     * @return The failed delivery count.
+     */
+    public long getDeliveryFailureCount() {
+        return deliveryFailures.sum();
+    }
+
+    /**
+     * Returns the number of messages turned away because the queue was full (DROP policy only).
+     * @return The dropped message count.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Stops accepting messages, sends the ones already queued and stops the dispatcher thread.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(dispatcher);
+        try {
+            dispatcher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        // A producer may have queued a message just as the thread stopped; this thread is now the only consumer
+        drainAndDispatch(new ArrayList<>(batchSize));
+    }
+
+    private void dispatchLoop() {
+        List<Message> batch = new ArrayList<>(batchSize);
+        while (true) {
+            if (drainAndDispatch(batch)) {
+                continue;
+            }
+            if (closed) {
+                return;
+            }
+            idle = true;
+            if (queue.isEmpty()) { // Checked after idle is set, so a producer either sees idle or we see its message
+                LockSupport.parkNanos(this, MAX_IDLE_PARK_NANOS);
+            }
+            idle = false;
+        }
+    }
+
+    // Sends one batch; returns false if the queue was empty
+    private boolean drainAndDispatch(List<Message> batch) {
+        if (queue.drain(batch::add, batchSize) == 0) {
+            return false;
+        }
+        try {
+            messageService.submitAll(batch, MessageStatus.SENT);
+            if (transport != null) {
+                for (Message message : batch) {
+                    deliver(message);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error sending messages: " + e.getMessage());
+        }
+        dispatched += batch.size();
+        batch.clear();
+        return true;
+    }
+
+    // Blocks only while the transport's window is full
+    private void deliver(Message message) {
+        transport.send(message).whenComplete((ignored, e) -> {
+            if (e == null) {
+                delivered.increment();
+            } else {
+                deliveryFailures.increment();
+                System.err.println("Error delivering message " + message.getMessageID() + ": " + e.getMessage());
+            }
+        });
+    }
+
+    private void awaitRoom(Message message) {
+        long parkNanos = 1_000;
+        while (!queue.offer(message)) {
+            if (closed) {
+                throw new IllegalStateException("Outbound dispatcher is closed.");
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                throw new IllegalStateException("Interrupted while waiting for room in the outbound queue.");
+            }
+            LockSupport.parkNanos(parkNanos);
+            parkNanos = Math.min(parkNanos * 2, MAX_BLOCK_PARK_NANOS);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.chatapp.auth;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Salted PBKDF2 password hashing using only the JDK.
+ * Hashes are encoded as {@code pbkdf2-sha512$<iterations>$<salt>$<hash>} (Base64 salt and hash),
+ * so the iteration count can be raised later without invalidating existing hashes.
+ */
+public class PasswordHasher {
+
+    public static final int DEFAULT_ITERATIONS = 210_000;
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA512";
+    private static final String PREFIX = "pbkdf2-sha512";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 512;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final int iterations;
+
+    public PasswordHasher() {
+        this(DEFAULT_ITERATIONS);
+    }
+
+    /**
+     * Creates a hasher for new hashes.
+     * @param iterations The PBKDF2 iteration count for new hashes; verification uses the count stored in each hash.
+     */
+    public PasswordHasher(int iterations) {
+        if (iterations <= 0) {
+            throw new IllegalArgumentException("Iterations must be positive.");
+        }
+        this.iterations = iterations;
+    }
+
+    /**
+     * Hashes a password with a fresh random salt.
+     * @param password The password.
+     * @return The encoded hash.
+     */
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + "$" + iterations + "$" + base64.encodeToString(salt) + "$"
+                + base64.encodeToString(pbkdf2(password, salt, iterations));
+    }
+
+    /**
+     * Checks a password against an encoded hash in constant time.
+     * @param password The password to check.
+     * @param encodedHash A hash produced by {@link #hash(String)}.
+     * @return True if the password matches, false if it does not or the hash is malformed.
+     */
+    public boolean verify(String password, String encodedHash) {
+        if (password == null || encodedHash == null) {
+            return false;
+        }
+        String[] parts = encodedHash.split("\\$");
+        if (parts.length != 4 || !parts[0].equals(PREFIX)) {
+            return false;
+        }
+        try {
+            int storedIterations = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            return storedIterations > 0 && MessageDigest.isEqual(expected, pbkdf2(password, salt, storedIterations));
+        } catch (IllegalArgumentException e) {
+            return false; // Bad iteration count or Base64
+        }
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("PBKDF2 is not available.", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
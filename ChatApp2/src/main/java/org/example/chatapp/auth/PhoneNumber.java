@@ -0,0 +1,63 @@
+package org.example.chatapp.auth;
+
+/**
+ * Encodes international phone numbers as primitive longs.
+ * A number written as "+" followed by 1 to 15 digits, the first not zero (E.164, which includes
+ * every "+27" cell number the app accepts), is stored as the value of its digits, e.g.
+ * "+27838968976" becomes 27838968976L. The encoding is exact, so {@link #decode(long)} gives back
+ * the original string. Anything else cannot be encoded and is reported as {@link #NONE}.
+ */
+public final class PhoneNumber {
+
+    // Returned for strings that are not encodable numbers; never a valid encoding
+    public static final long NONE = -1;
+
+    private static final int MAX_DIGITS = 15;
+
+    private PhoneNumber() {
+        // Static helpers only
+    }
+
+    /**
+     * Encodes a phone number.
+     * @param number The number, e.g. "+27838968976".
+     * @return The encoded number, or {@link #NONE} if it is not "+" and 1 to 15 digits without a leading zero.
+     */
+    public static long encode(String number) {
+        if (number == null || number.length() < 2 || number.length() > MAX_DIGITS + 1
+                || number.charAt(0) != '+' || number.charAt(1) == '0') {
+            return NONE;
+        }
+        long value = 0;
+        for (int i = 1; i < number.length(); i++) {
+            char c = number.charAt(i);
+            if (c < '0' || c > '9') {
+                return NONE;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Decodes a number produced by {@link #encode(String)}.
+     * @param encoded The encoded number.
+     * @return The number as text, e.g. "+27838968976".
+     * @throws IllegalArgumentException If the value is not an encoded number.
+     */
+    public static String decode(long encoded) {
+        if (encoded <= 0) {
+            throw new IllegalArgumentException("Not an encoded phone number: " + encoded);
+        }
+        return "+" + encoded;
+    }
+
+    /**
+     * Checks whether a number is a South African cell number, i.e. "+27" and 9 digits.
+     * @param encoded The encoded number.
+     * @return True if it is a South African cell number.
+     */
+    public static boolean isSouthAfricanCellNumber(long encoded) {
+        return encoded >= 27_000_000_000L && encoded <= 27_999_999_999L;
+    }
+}
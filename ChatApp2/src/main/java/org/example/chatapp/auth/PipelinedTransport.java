@@ -0,0 +1,263 @@
+package org.example.chatapp.auth;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers messages to a gateway speaking the {@link LoopbackGateway} protocol over one
+ * connection, with many requests in flight at once.
+ * {@link #send} writes the request and returns without waiting for the answer; a reader thread
+ * matches each ACK or NACK to its message by ID and completes the message's future. A window
+ * bounds the requests in flight: once it is full, send blocks until an answer frees a place,
+ * which keeps a slow gateway from being buried. Requests written by concurrent senders are
+ * flushed together.
+ *
+ * A request not answered within the acknowledgement timeout fails with an {@link IOException}.
+ * If the connection breaks, every request in flight on it fails; the next send connects again,
+ * so a restarted gateway is picked up without replacing the transport. Wrap the transport in a
+ * {@link RetryingTransport} to retry rejected, timed-out or disconnected deliveries.
+ */
+public class PipelinedTransport implements DeliveryTransport {
+
+    public static final int DEFAULT_WINDOW = 128;
+    public static final long DEFAULT_ACK_TIMEOUT_MILLIS = 5_000;
+
+    private final InetSocketAddress address;
+    private final int window;
+    private final Semaphore windowPlaces;
+    private final long ackTimeoutMillis;
+    private final ScheduledThreadPoolExecutor timeouts;
+    private final Object connectLock = new Object();
+    private volatile Connection connection; // Replaced under connectLock once broken
+    private volatile boolean closed;
+
+    // One socket to the gateway and the requests waiting for an answer on it
+    private final class Connection {
+        private final Socket socket;
+        private final Writer out;
+        private final Thread reader;
+        private final ConcurrentHashMap<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+        private final AtomicInteger waitingWriters = new AtomicInteger();
+        private volatile IOException failure; // Set once the connection breaks
+
+        private Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            this.reader = new Thread(() -> readLoop(in), "delivery-ack-reader");
+            reader.setDaemon(true);
+        }
+
+        private void write(String request) throws IOException {
+            waitingWriters.incrementAndGet();
+            synchronized (out) {
+                out.write(request);
+                // Only the last of the writers waiting here flushes, so a burst goes out in one write
+                if (waitingWriters.decrementAndGet() == 0) {
+                    out.flush();
+                }
+            }
+        }
+
+        private void readLoop(BufferedReader in) {
+            try {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String[] parts = line.split(" ", 3);
+                    CompletableFuture<Void> future = parts.length < 2 ? null : inFlight.get(parts[1]);
+                    if (future == null) {
+                        continue; // Answer to a request that already timed out
+                    }
+                    if (parts[0].equals("ACK")) {
+                        future.complete(null);
+                    } else {
+                        future.completeExceptionally(new IOException("Delivery rejected: " + (parts.length > 2 ? parts[2] : line)));
+                    }
+                }
+                fail(new IOException("Gateway closed the connection."));
+            } catch (IOException e) {
+                fail(closed ? new IOException("Delivery transport is closed.") : e);
+            }
+        }
+
+        private void fail(IOException e) {
+            if (failure == null) {
+                failure = e;
+            }
+            for (CompletableFuture<Void> future : inFlight.values()) {
+                future.completeExceptionally(e);
+            }
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // Already broken
+            }
+        }
+    }
+
+    /**
+     * Connects to a gateway with the default window and acknowledgement timeout.
+     * @param address The gateway's address.
+     * @return The connected transport.
+     * @throws IOException If the gateway cannot be reached.
+     */
+    public static PipelinedTransport connect(InetSocketAddress address) throws IOException {
+        return connect(address, DEFAULT_WINDOW, DEFAULT_ACK_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Connects to a gateway.
+     * @param address The gateway's address.
+     * @param window The maximum number of requests in flight.
+     * @param ackTimeoutMillis How long to wait for each request's answer.
+     * @return The connected transport.
+     * @throws IOException If the gateway cannot be reached.
+     */
+    public static PipelinedTransport connect(InetSocketAddress address, int window, long ackTimeoutMillis) throws IOException {
+        if (window <= 0 || ackTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("Window and acknowledgement timeout must be positive.");
+        }
+        PipelinedTransport transport = new PipelinedTransport(address, window, ackTimeoutMillis);
+        transport.connection = transport.openConnection();
+        return transport;
+    }
+
+    private PipelinedTransport(InetSocketAddress address, int window, long ackTimeoutMillis) {
+        this.address = address;
+        this.window = window;
+        this.windowPlaces = new Semaphore(window);
+        this.ackTimeoutMillis = ackTimeoutMillis;
+        this.timeouts = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "delivery-ack-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timeouts.setRemoveOnCancelPolicy(true); // Answered requests leave nothing queued behind
+    }
+
+    /**
+     * Writes a delivery request, first waiting for a place in the window if it is full.
+     * Reconnects first if the connection broke.
+     * @param message The sent message.
+     * @return A future completed by the gateway's answer, or failed if the gateway cannot be reached.
+     */
+    @Override
+    public CompletableFuture<Void> send(Message message) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Delivery transport is closed."));
+        }
+        Connection current;
+        try {
+            current = liveConnection();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        try {
+            windowPlaces.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(new IllegalStateException("Interrupted while waiting for the delivery window."));
+        }
+        String messageID = message.getMessageID();
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        CompletableFuture<Void> existing = current.inFlight.putIfAbsent(messageID, future);
+        if (existing != null) {
+            windowPlaces.release();
+            return existing; // Already on its way; share the answer
+        }
+        ScheduledFuture<?> timeout = timeouts.schedule(() -> future.completeExceptionally(
+                new IOException("No acknowledgement for message " + messageID + " within " + ackTimeoutMillis + " ms.")),
+                ackTimeoutMillis, TimeUnit.MILLISECONDS);
+        future.whenComplete((ignored, e) -> {
+            timeout.cancel(false);
+            current.inFlight.remove(messageID, future);
+            windowPlaces.release();
+        });
+        try {
+            current.write("DELIVER " + messageID + " " + message.getRecipientCellNumber() + " "
+                    + message.getMessageText().replace('\n', ' ').replace('\r', ' ') + "\n");
+        } catch (IOException e) {
+            current.fail(e);
+        }
+        return future;
+    }
+
+    /**
+     * Returns the number of requests waiting for an answer.
+     * @return The in-flight request count.
+     */
+    public int getInFlightCount() {
+        return connection.inFlight.size();
+    }
+
+    /**
+     * Stops accepting messages, waits up to the acknowledgement timeout for the requests in
+     * flight to be answered, then disconnects.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (connectLock) {
+            closed = true; // No reconnecting from here on
+        }
+        try {
+            if (windowPlaces.tryAcquire(window, ackTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                windowPlaces.release(window);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Connection current = connection;
+        current.socket.close(); // Ends the reader, which fails anything still in flight
+        try {
+            current.reader.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        timeouts.shutdownNow();
+    }
+
+    // Returns the current connection, replacing it first if it broke
+    private Connection liveConnection() throws IOException {
+        Connection current = connection;
+        if (current.failure == null) {
+            return current;
+        }
+        synchronized (connectLock) {
+            if (closed) {
+                throw new IOException("Delivery transport is closed.");
+            }
+            if (connection.failure != null) {
+                connection = openConnection();
+            }
+            return connection;
+        }
+    }
+
+    private Connection openConnection() throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.connect(address);
+            socket.setTcpNoDelay(true); // Writes are already batched
+            Connection opened = new Connection(socket);
+            opened.reader.start();
+            return opened;
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package org.example.chatapp.auth;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates random 10-digit message IDs, as the app originally did.
+ * IDs are not guaranteed to be unique; see {@link SequenceMessageIdGenerator} or
+ * {@link UniqueRandomMessageIdGenerator} for that.
+ */
+public class RandomMessageIdGenerator implements MessageIdGenerator {
+
+    private static final long ID_SPACE = 10_000_000_000L;
+
+    @Override
+    public String nextID() {
+        return SequenceMessageIdGenerator.formatID(ThreadLocalRandom.current().nextLong(ID_SPACE));
+    }
+}
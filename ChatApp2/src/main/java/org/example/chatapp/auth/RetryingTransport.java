@@ -0,0 +1,127 @@
+package org.example.chatapp.auth;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Retries failed deliveries with exponential backoff.
+ * Each retry waits twice as long as the one before, up to a maximum, with the wait picked at
+ * random from its upper half so messages that failed together do not all retry at the same
+ * moment. A delivery fails for good after the maximum number of attempts, or at once if the
+ * transport is closed.
+ */
+public class RetryingTransport implements DeliveryTransport {
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 5;
+    public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 50;
+    public static final long DEFAULT_MAX_BACKOFF_MILLIS = 5_000;
+
+    private final DeliveryTransport transport;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final ScheduledExecutorService retries = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "delivery-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Set<CompletableFuture<Void>> waiting = ConcurrentHashMap.newKeySet(); // Deliveries between attempts
+    private final LongAdder retryCount = new LongAdder();
+    private volatile boolean closed;
+
+    /**
+     * Wraps a transport with the default attempts and backoff.
+     * @param transport The transport deliveries are attempted on.
+     */
+    public RetryingTransport(DeliveryTransport transport) {
+        this(transport, DEFAULT_MAX_ATTEMPTS, DEFAULT_INITIAL_BACKOFF_MILLIS, DEFAULT_MAX_BACKOFF_MILLIS);
+    }
+
+    /**
+     * Wraps a transport.
+     * @param transport The transport deliveries are attempted on.
+     * @param maxAttempts The number of attempts before a delivery fails, including the first.
+     * @param initialBackoffMillis The wait before the first retry.
+     * @param maxBackoffMillis The longest wait between attempts.
+     */
+    public RetryingTransport(DeliveryTransport transport, int maxAttempts, long initialBackoffMillis, long maxBackoffMillis) {
+        if (maxAttempts <= 0 || initialBackoffMillis <= 0 || maxBackoffMillis < initialBackoffMillis) {
+            throw new IllegalArgumentException("Attempts and backoff must be positive, and the maximum backoff at least the initial one.");
+        }
+        this.transport = transport;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    @Override
+    public CompletableFuture<Void> send(Message message) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        attempt(message, 1, result);
+        return result;
+    }
+
+    /**
+     * Returns the number of retries made.
+     * @return The retry count, not counting first attempts.
+     */
+    public long getRetryCount() {
+        return retryCount.sum();
+    }
+
+    /**
+     * Closes the wrapped transport; deliveries waiting to retry fail.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        retries.shutdownNow();
+        IllegalStateException closedException = new IllegalStateException("Delivery transport is closed.");
+        for (CompletableFuture<Void> future : waiting) {
+            future.completeExceptionally(closedException);
+        }
+        transport.close();
+    }
+
+    private void attempt(Message message, int attempt, CompletableFuture<Void> result) {
+        transport.send(message).whenComplete((ignored, e) -> {
+            if (e == null) {
+                result.complete(null);
+                return;
+            }
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (attempt >= maxAttempts || closed || cause instanceof IllegalStateException) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            waiting.add(result);
+            try {
+                retries.schedule(() -> {
+                    waiting.remove(result);
+                    if (!result.isDone()) {
+                        retryCount.increment();
+                        attempt(message, attempt + 1, result);
+                    }
+                }, backoffMillis(attempt), TimeUnit.MILLISECONDS);
+            } catch (RuntimeException rejected) {
+                waiting.remove(result);
+                result.completeExceptionally(new IllegalStateException("Delivery transport is closed."));
+            }
+        });
+    }
+
+    // Full backoff doubles per attempt; the wait is drawn from its upper half
+    private long backoffMillis(int attempt) {
+        long backoff = initialBackoffMillis << Math.min(attempt - 1, 30);
+        backoff = Math.min(backoff, maxBackoffMillis);
+        return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+}
@@ -0,0 +1,130 @@
+package org.example.chatapp.auth;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Bloom filter that grows as keys are added.
+ * Keys go into the newest stage; when it reaches its capacity a new stage with twice the
+ * capacity and half the false-positive rate is added. The first stage gets half the configured
+ * rate, so the stage rates r/2, r/4, ... sum to less than the configured rate r however many
+ * keys are added, and memory grows linearly with the number of keys (roughly 2 bytes per key
+ * at a 0.1% rate) rather than with their size.
+ */
+public class ScalableBloomFilter {
+
+    private static final int FILE_MAGIC = 0x51434246; // "QCBF"
+
+    private final long initialCapacity;
+    private final double initialFalsePositiveRate;
+    private volatile BloomFilter[] stages;
+    private long countInLastStage;
+
+    /**
+     * Creates an empty filter.
+     * @param initialCapacity The capacity of the first stage.
+     * @param falsePositiveRate The overall false-positive rate; the first stage gets half of it.
+     */
+    public ScalableBloomFilter(long initialCapacity, double falsePositiveRate) {
+        this.initialCapacity = initialCapacity;
+        this.initialFalsePositiveRate = falsePositiveRate;
+        this.stages = new BloomFilter[]{new BloomFilter(initialCapacity, falsePositiveRate / 2)};
+    }
+
+    private ScalableBloomFilter(long initialCapacity, double falsePositiveRate, BloomFilter[] stages, long countInLastStage) {
+        this.initialCapacity = initialCapacity;
+        this.initialFalsePositiveRate = falsePositiveRate;
+        this.stages = stages;
+        this.countInLastStage = countInLastStage;
+    }
+
+    /**
+     * Checks whether a key may have been added.
+     * @param key The key.
+     * @return False if the key was definitely never added; true if it possibly was.
+     */
+    public boolean mightContain(long key) {
+        for (BloomFilter stage : stages) {
+            if (stage.mightContain(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds a key.
+     * @param key The key.
+     */
+    public synchronized void add(long key) {
+        BloomFilter[] current = stages;
+        BloomFilter last = current[current.length - 1];
+        if (countInLastStage >= last.getCapacity()) {
+            last = new BloomFilter(last.getCapacity() * 2, last.getFalsePositiveRate() / 2);
+            BloomFilter[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = last;
+            stages = grown;
+            countInLastStage = 0;
+        }
+        if (last.add(key)) {
+            countInLastStage++;
+        }
+    }
+
+    /**
+     * Returns the number of stages, which grows logarithmically with the number of keys.
+     * @return The stage count.
+     */
+    public int getStageCount() {
+        return stages.length;
+    }
+
+    /**
+     * Saves the filter to a file, replacing it atomically.
+     * @param file The file to write.
+     * @throws IOException If writing fails.
+     */
+    public synchronized void save(Path file) throws IOException {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeLong(initialCapacity);
+            out.writeDouble(initialFalsePositiveRate);
+            out.writeLong(countInLastStage);
+            out.writeInt(stages.length);
+            for (BloomFilter stage : stages) {
+                stage.writeTo(out);
+            }
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads a filter saved with {@link #save(Path)}.
+     * @param file The file to read.
+     * @return The filter.
+     * @throws IOException If the file cannot be read or is not a filter file.
+     */
+    public static ScalableBloomFilter load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC) {
+                throw new IOException("Not a Bloom filter file: " + file);
+            }
+            long initialCapacity = in.readLong();
+            double falsePositiveRate = in.readDouble();
+            long countInLastStage = in.readLong();
+            BloomFilter[] stages = new BloomFilter[in.readInt()];
+            for (int i = 0; i < stages.length; i++) {
+                stages[i] = BloomFilter.readFrom(in);
+            }
+            return new ScalableBloomFilter(initialCapacity, falsePositiveRate, stages, countInLastStage);
+        }
+    }
+}
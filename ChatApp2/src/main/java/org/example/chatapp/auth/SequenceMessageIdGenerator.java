@@ -0,0 +1,114 @@
+package org.example.chatapp.auth;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates collision-free 10-digit message IDs from a clock-seeded sequence and a node number.
+ * The ID is an 8-digit sequence followed by a 2-digit node number (0-99), so every node
+ * (process) has its own ID space and two nodes can never issue the same ID.
+ *
+ * The sequence starts at the number of seconds since 2025-01-01 and grows by one per ID; it is
+ * never allowed to fall behind the clock. Within a process, IDs are unique until the 8-digit
+ * sequence wraps (after 100 million IDs, or roughly three years of one ID per second). Across
+ * restarts they stay unique as long as the node issued no more than one ID per second on
+ * average, or the sequence is fast-forwarded past the IDs already issued with
+ * {@link #observe(String)}.
+ *
+ * Lock-free: concurrent callers race on a single compare-and-set, and the only allocation is
+ * the returned string.
+ */
+public class SequenceMessageIdGenerator implements MessageIdGenerator {
+
+    private static final long EPOCH_SECONDS = 1_735_689_600L; // 2025-01-01T00:00:00Z
+    private static final long SEQUENCE_SPACE = 100_000_000L; // 8 digits
+    private static final int NODE_SPACE = 100; // 2 digits
+
+    // Scratch buffer per thread, so formatting allocates nothing but the final string
+    private static final ThreadLocal<char[]> DIGITS = ThreadLocal.withInitial(() -> new char[10]);
+
+    private final int node;
+    private final AtomicLong sequence;
+
+    /**
+     * Creates a generator for a node.
+     * @param node The node number, 0 to 99. Each process issuing IDs for the same store needs its own.
+     */
+    public SequenceMessageIdGenerator(int node) {
+        if (node < 0 || node >= NODE_SPACE) {
+            throw new IllegalArgumentException("Node must be between 0 and " + (NODE_SPACE - 1) + ".");
+        }
+        this.node = node;
+        this.sequence = new AtomicLong(currentSeconds() - 1);
+    }
+
+    @Override
+    public String nextID() {
+        long next;
+        while (true) {
+            long current = sequence.get();
+            next = Math.max(current + 1, currentSeconds());
+            if (sequence.compareAndSet(current, next)) {
+                break;
+            }
+        }
+        return formatID((next % SEQUENCE_SPACE) * NODE_SPACE + node);
+    }
+
+    /**
+     * Fast-forwards the sequence past an ID issued earlier by this node (e.g. one loaded from the
+     * message store at startup), so it is not issued again. IDs from other nodes are ignored.
+     * @param messageID A previously issued message ID.
+     */
+    @Override
+    public void observe(String messageID) {
+        if (messageID == null || messageID.length() != 10) {
+            return;
+        }
+        long value = 0;
+        for (int i = 0; i < 10; i++) {
+            char c = messageID.charAt(i);
+            if (c < '0' || c > '9') {
+                return;
+            }
+            value = value * 10 + (c - '0');
+        }
+        if (value % NODE_SPACE != node) {
+            return;
+        }
+        long issued = value / NODE_SPACE;
+        // The stored ID only holds the low 8 digits; pick the candidate closest to the current sequence
+        long current = sequence.get();
+        long base = current - current % SEQUENCE_SPACE;
+        long candidate = base + issued;
+        if (candidate > current + SEQUENCE_SPACE / 2) {
+            candidate -= SEQUENCE_SPACE;
+        }
+        sequence.accumulateAndGet(candidate, Math::max);
+    }
+
+    /**
+     * Returns this generator's node number.
+     * @return The node number.
+     */
+    public int getNode() {
+        return node;
+    }
+
+    /**
+     * Formats a number as a 10-digit, zero-padded string.
+     * @param value A number between 0 and 9,999,999,999.
+     * @return The 10-digit string.
+     */
+    static String formatID(long value) {
+        char[] digits = DIGITS.get();
+        for (int i = 9; i >= 0; i--) {
+            digits[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return new String(digits);
+    }
+
+    private static long currentSeconds() {
+        return System.currentTimeMillis() / 1000 - EPOCH_SECONDS;
+    }
+}
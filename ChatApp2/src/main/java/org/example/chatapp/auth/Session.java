@@ -0,0 +1,59 @@
+package org.example.chatapp.auth;
+
+/**
+ * A logged-in user, identified by an opaque token.
+ * Holds a snapshot of the user's details taken at login, so several users can be logged in at
+ * once without sharing mutable state. Issued and validated by {@link SessionManager}.
+ */
+public final class Session {
+
+    private final String token;
+    private final String username;
+    private final String firstName;
+    private final String lastName;
+    private final String cellPhoneNumber;
+    private final long createdAtNanos;
+    private volatile long lastAccessNanos;
+
+    Session(String token, UserRecord user, long nowNanos) {
+        this.token = token;
+        this.username = user.getUsername();
+        this.firstName = user.getFirstName();
+        this.lastName = user.getLastName();
+        this.cellPhoneNumber = user.getCellPhoneNumber();
+        this.createdAtNanos = nowNanos;
+        this.lastAccessNanos = nowNanos;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public String getCellPhoneNumber() {
+        return cellPhoneNumber;
+    }
+
+    long getCreatedAtNanos() {
+        return createdAtNanos;
+    }
+
+    long getLastAccessNanos() {
+        return lastAccessNanos;
+    }
+
+    void touch(long nowNanos) {
+        lastAccessNanos = nowNanos;
+    }
+}
@@ -0,0 +1,209 @@
+package org.example.chatapp.auth;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Issues and validates session tokens.
+ * Sessions live in a {@link ConcurrentHashMap} keyed by token, so validation is a single O(1)
+ * lookup without locks. A session expires when it has been idle for longer than the idle TTL or
+ * has existed for longer than the absolute TTL, whichever comes first; expired sessions are
+ * removed when they are next looked up, when they reach the head of the creation order while the
+ * manager is full, or by {@link #evictExpired()}, which a periodic caller should run.
+ *
+ * The number of sessions is bounded. When a new session would exceed the bound, sessions are
+ * evicted from the head of the creation order: tokens already removed and expired sessions are
+ * dropped first and, if that is not enough, the oldest live sessions. Creating a session never
+ * scans the whole map.
+ */
+public class SessionManager {
+
+    public static final long DEFAULT_IDLE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    public static final long DEFAULT_ABSOLUTE_TTL_MILLIS = TimeUnit.HOURS.toMillis(12);
+    public static final int DEFAULT_MAX_SESSIONS = 100_000;
+
+    private static final int TOKEN_BYTES = 32;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final long idleTtlNanos;
+    private final long absoluteTtlNanos;
+    private final int maxSessions;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    // Tokens in creation order, for evicting the oldest sessions; may hold tokens already removed
+    private final ConcurrentLinkedQueue<String> creationOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger creationOrderSize = new AtomicInteger();
+
+    public SessionManager() {
+        this(DEFAULT_IDLE_TTL_MILLIS, DEFAULT_ABSOLUTE_TTL_MILLIS, DEFAULT_MAX_SESSIONS, System::nanoTime);
+    }
+
+    /**
+     * Creates a session manager.
+     * @param idleTtlMillis How long a session may go unused.
+     * @param absoluteTtlMillis How long a session may exist at all.
+     * @param maxSessions The maximum number of sessions held at once.
+     * @param clock Source of {@link System#nanoTime()}-style timestamps.
+     */
+    public SessionManager(long idleTtlMillis, long absoluteTtlMillis, int maxSessions, LongSupplier clock) {
+        if (idleTtlMillis <= 0 || absoluteTtlMillis <= 0 || maxSessions <= 0) {
+            throw new IllegalArgumentException("TTLs and the maximum number of sessions must be positive.");
+        }
+        this.idleTtlNanos = TimeUnit.MILLISECONDS.toNanos(idleTtlMillis);
+        this.absoluteTtlNanos = TimeUnit.MILLISECONDS.toNanos(absoluteTtlMillis);
+        this.maxSessions = maxSessions;
+        this.clock = clock;
+    }
+
+    /**
+     * Starts a session for an authenticated user.
+     * @param user The user.
+     * @return The new session.
+     */
+    public Session create(UserRecord user) {
+        long now = clock.getAsLong();
+        if (sessions.size() >= maxSessions) {
+            evictStaleHead(now);
+            while (sessions.size() >= maxSessions && evictOldest()) {
+                // Keep evicting until there is room
+            }
+        }
+        Session session = new Session(newToken(), user, now);
+        sessions.put(session.getToken(), session);
+        creationOrder.add(session.getToken());
+        if (creationOrderSize.incrementAndGet() > 2 * maxSessions) {
+            compactCreationOrder();
+        }
+        return session;
+    }
+
+    /**
+     * Validates a token and marks its session as used.
+     * @param token The token.
+     * @return The session, or null if the token is unknown or its session has expired.
+     */
+    public Session validate(String token) {
+        if (token == null) {
+            return null;
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        long now = clock.getAsLong();
+        if (isExpired(session, now)) {
+            sessions.remove(token, session);
+            return null;
+        }
+        session.touch(now);
+        return session;
+    }
+
+    /**
+     * Ends a session, e.g. on logout.
+     * @param token The token.
+     * @return True if a session was ended.
+     */
+    public boolean invalidate(String token) {
+        return token != null && sessions.remove(token) != null;
+    }
+
+    /**
+     * Ends every session of a user, e.g. after a password change.
+     * @param username The username.
+     * @return The number of sessions ended.
+     */
+    public int invalidateUser(String username) {
+        int[] removed = {0};
+        sessions.values().removeIf(session -> {
+            if (session.getUsername().equals(username)) {
+                removed[0]++;
+                return true;
+            }
+            return false;
+        });
+        return removed[0];
+    }
+
+    /**
+     * Removes every expired session. Scans every session, so run it periodically rather than on
+     * the request path.
+     * @return The number of sessions removed.
+     */
+    public int evictExpired() {
+        long now = clock.getAsLong();
+        int before = sessions.size();
+        sessions.values().removeIf(session -> isExpired(session, now));
+        return Math.max(0, before - sessions.size());
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Ends every session.
+     */
+    public void clear() {
+        sessions.clear();
+        creationOrder.clear();
+        creationOrderSize.set(0);
+    }
+
+    private boolean isExpired(Session session, long now) {
+        return now - session.getCreatedAtNanos() >= absoluteTtlNanos || now - session.getLastAccessNanos() >= idleTtlNanos;
+    }
+
+    // Drops tokens from the head of the creation order while they are already removed or expired
+    // and the manager is still full; stops at the first live session
+    private void evictStaleHead(long now) {
+        String token;
+        while (sessions.size() >= maxSessions && (token = creationOrder.peek()) != null) {
+            Session session = sessions.get(token);
+            if (session != null && !isExpired(session, now)) {
+                return;
+            }
+            if (creationOrder.remove(token)) { // Another thread may have taken the head meanwhile
+                creationOrderSize.decrementAndGet();
+            }
+            if (session != null) {
+                sessions.remove(token, session);
+            }
+        }
+    }
+
+    private boolean evictOldest() {
+        String token;
+        while ((token = creationOrder.poll()) != null) {
+            creationOrderSize.decrementAndGet();
+            if (sessions.remove(token) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Drops tokens of sessions that were already invalidated or expired
+    private void compactCreationOrder() {
+        int removed = 0;
+        for (Iterator<String> it = creationOrder.iterator(); it.hasNext(); ) {
+            if (!sessions.containsKey(it.next())) {
+                it.remove();
+                removed++;
+            }
+        }
+        creationOrderSize.addAndGet(-removed);
+    }
+
+    private static String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,217 @@
+package org.example.chatapp.auth;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+/**
+ * Streaming reader for the stored_messages.json array.
+ * Messages are pulled one at a time with a {@link JsonReader}, so only the message currently
+ * being read is materialized. Callers can stop early, skip records without building them,
+ * or read the file a page at a time.
+ */
+public class StoredMessageReader implements Iterator<Message>, Closeable {
+
+    private final JsonReader jsonReader;
+    private boolean started = false;
+    private boolean exhausted = false;
+
+    /**
+     * Creates a reader over a JSON array of messages.
+     * @param reader The source of the JSON text.
+     */
+    public StoredMessageReader(Reader reader) {
+        this.jsonReader = new JsonReader(reader);
+    }
+
+    /**
+     * Opens a reader over a stored messages file.
+     * @param file The JSON file to read.
+     * @return The reader.
+     * @throws IOException If the file cannot be opened.
+     */
+    public static StoredMessageReader open(Path file) throws IOException {
+        return new StoredMessageReader(Files.newBufferedReader(file, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Streams every message in a file to a callback until the callback returns false.
+     * @param file The JSON file to read.
+     * @param consumer Receives each message; return false to stop reading.
+     * @return The number of messages passed to the callback.
+     * @throws IOException If the file cannot be read.
+     */
+    public static int forEach(Path file, Predicate<Message> consumer) throws IOException {
+        int count = 0;
+        try (StoredMessageReader reader = open(file)) {
+            while (reader.hasNext()) {
+                count++;
+                if (!consumer.test(reader.next())) {
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            if (!started) {
+                started = true;
+                try {
+                    jsonReader.peek();
+                } catch (EOFException e) {
+                    exhausted = true; // Empty file
+                }
+                if (exhausted) {
+                    return false;
+                }
+                if (jsonReader.peek() == JsonToken.NULL) {
+                    jsonReader.nextNull(); // Gson writes a null list as "null"
+                    return false;
+                }
+                jsonReader.beginArray();
+            }
+            return !exhausted && jsonReader.peek() == JsonToken.BEGIN_OBJECT;
+        } catch (IOException e) {
+            throw new JsonParseException("Error reading stored messages: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Message next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            return readMessage(jsonReader);
+        } catch (IOException e) {
+            throw new JsonParseException("Error reading stored messages: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Skips messages without materializing them.
+     * @param count The number of messages to skip.
+     * @return The number of messages actually skipped (less if the file ended).
+     */
+    public int skip(int count) {
+        int skipped = 0;
+        try {
+            while (skipped < count && hasNext()) {
+                jsonReader.skipValue();
+                skipped++;
+            }
+        } catch (IOException e) {
+            throw new JsonParseException("Error reading stored messages: " + e.getMessage(), e);
+        }
+        return skipped;
+    }
+
+    /**
+     * Reads the next page of messages.
+     * @param pageSize The maximum number of messages to return.
+     * @return The messages read; empty once the file is exhausted.
+     */
+    public List<Message> nextPage(int pageSize) {
+        List<Message> page = new ArrayList<>(Math.min(pageSize, 1024));
+        while (page.size() < pageSize && hasNext()) {
+            page.add(next());
+        }
+        return page;
+    }
+
+    @Override
+    public void close() throws IOException {
+        jsonReader.close();
+    }
+
+    /**
+     * Reads a single message object in the stored messages format.
+     * Unknown fields are skipped so older and newer files can both be read.
+     * @param reader A JSON reader positioned at the start of a message object.
+     * @return The message.
+     * @throws IOException If the JSON cannot be read.
+     * @throws JsonParseException If a required field is missing.
+     */
+    public static Message readMessage(JsonReader reader) throws IOException {
+        String messageID = null;
+        String recipientCellNumber = null;
+        String messageText = null;
+        String messageHash = null;
+        boolean isSent = false;
+        MessageStatus status = null;
+        String sender = null;
+        long sendAt = 0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "messageID":
+                    messageID = reader.nextString();
+                    break;
+                case "recipientCellNumber":
+                    recipientCellNumber = reader.nextString();
+                    break;
+                case "messageText":
+                    messageText = reader.nextString();
+                    break;
+                case "messageHash":
+                    messageHash = reader.nextString();
+                    break;
+                case "isSent":
+                    isSent = reader.nextBoolean();
+                    break;
+                case "status":
+                    status = parseStatus(reader.nextString());
+                    break;
+                case "sender":
+                    sender = reader.nextString();
+                    break;
+                case "sendAt":
+                    sendAt = reader.nextLong();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (messageID == null || recipientCellNumber == null || messageText == null) {
+            throw new JsonParseException("Stored message is missing its ID, recipient or text.");
+        }
+        Message message = new Message(messageID, recipientCellNumber, messageText, messageHash, isSent);
+        message.setStatus(status);
+        message.setSender(sender);
+        message.setSendAt(sendAt);
+        return message;
+    }
+
+    private static MessageStatus parseStatus(String value) {
+        for (MessageStatus status : MessageStatus.values()) {
+            if (status.name().equals(value)) {
+                return status;
+            }
+        }
+        return null; // Unknown status from a newer file
+    }
+}
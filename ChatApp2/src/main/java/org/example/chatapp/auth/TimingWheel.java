@@ -0,0 +1,232 @@
+package org.example.chatapp.auth;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: holds items until their deadline and hands them out as time advances.
+ * Level 0 has one slot per tick; each higher level has slots as wide as a full turn of the level
+ * below. An item goes into the lowest level whose span reaches its deadline, and items move down
+ * a level when the level below wraps round to their slot. Inserting and cancelling are O(1) list
+ * operations whatever the number of pending items; advancing costs O(1) per tick plus the items
+ * that fire or move down.
+ *
+ * Deadlines are rounded up to whole ticks, so an item never fires before its deadline and at most
+ * one tick after it (given {@link #advance} is called every tick). Deadlines beyond the span of the
+ * top level wait in an overflow list that is re-examined each time the top level wraps.
+ * Not thread-safe.
+ *
+ * @param <T> The type of item scheduled.
+ */
+public class TimingWheel<T> {
+
+    /**
+     * A scheduled item; keep it to cancel the item.
+     * @param <T> The type of item scheduled.
+     */
+    public static final class Timeout<T> {
+        private final T item;
+        private final long deadlineTick;
+        private Slot<T> slot; // Null once fired or cancelled
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T getItem() {
+            return item;
+        }
+
+        /**
+         * Returns whether the item is still waiting to fire.
+         * @return True until the item fires or is cancelled.
+         */
+        public boolean isPending() {
+            return slot != null;
+        }
+    }
+
+    // Doubly linked list of timeouts
+    private static final class Slot<T> {
+        Timeout<T> head;
+
+        void add(Timeout<T> timeout) {
+            timeout.slot = this;
+            timeout.prev = null;
+            timeout.next = head;
+            if (head != null) {
+                head.prev = timeout;
+            }
+            head = timeout;
+        }
+
+        void remove(Timeout<T> timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.slot = null;
+            timeout.prev = null;
+            timeout.next = null;
+        }
+
+        // Unlinks and returns the whole list
+        Timeout<T> takeAll() {
+            Timeout<T> all = head;
+            head = null;
+            return all;
+        }
+    }
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final int bits;  // log2 of the slots per level
+    private final int mask;
+    private final Slot<T>[][] levels;
+    private final Slot<T> due = new Slot<>();      // Deadline already reached when scheduled
+    private final Slot<T> overflow = new Slot<>(); // Deadline beyond the top level
+    private long currentTick = 0;
+    private int size = 0;
+
+    /**
+     * Creates an empty wheel.
+     * @param tickMillis Length of one tick in milliseconds.
+     * @param slotsPerLevel Slots in each level (rounded up to a power of two).
+     * @param levelCount Number of levels.
+     * @param startMillis The time of tick 0, usually the current time.
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int slotsPerLevel, int levelCount, long startMillis) {
+        if (tickMillis <= 0 || slotsPerLevel < 2 || levelCount <= 0) {
+            throw new IllegalArgumentException("Tick length and level count must be positive and there must be at least two slots per level.");
+        }
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.bits = 32 - Integer.numberOfLeadingZeros(slotsPerLevel - 1);
+        if ((long) bits * levelCount > 62) {
+            throw new IllegalArgumentException("The wheel spans more ticks than fit in a long.");
+        }
+        this.mask = (1 << bits) - 1;
+        this.levels = (Slot<T>[][]) new Slot<?>[levelCount][1 << bits];
+        for (Slot<T>[] level : levels) {
+            for (int i = 0; i < level.length; i++) {
+                level[i] = new Slot<>();
+            }
+        }
+    }
+
+    /**
+     * Schedules an item.
+     * @param item The item.
+     * @param deadlineMillis When the item should fire; a time already passed fires on the next advance.
+     * @return The handle for cancelling.
+     */
+    public Timeout<T> schedule(T item, long deadlineMillis) {
+        long deadlineTick = Math.max(0, Math.ceilDiv(deadlineMillis - startMillis, tickMillis));
+        Timeout<T> timeout = new Timeout<>(item, deadlineTick);
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Cancels a scheduled item.
+     * @param timeout The handle returned by {@link #schedule}.
+     * @return True if the item was pending, false if it had already fired or been cancelled.
+     */
+    public boolean cancel(Timeout<T> timeout) {
+        if (timeout == null || timeout.slot == null) {
+            return false;
+        }
+        timeout.slot.remove(timeout);
+        size--;
+        return true;
+    }
+
+    /**
+     * Advances the wheel to a time, firing every item whose deadline has been reached.
+     * Items fire in deadline order, tick by tick; items in the same tick fire in no particular order.
+     * @param nowMillis The current time.
+     * @param expired Receives each item that fires.
+     * @return The number of items fired.
+     */
+    public int advance(long nowMillis, Consumer<? super T> expired) {
+        int fired = fire(due, expired);
+        long targetTick = Math.floorDiv(nowMillis - startMillis, tickMillis);
+        while (currentTick < targetTick) {
+            currentTick++;
+            // Move items down from every level whose lower levels just wrapped, highest first
+            for (int level = levels.length - 1; level >= 1; level--) {
+                if ((currentTick & ((1L << (bits * level)) - 1)) == 0) {
+                    cascade(levels[level][(int) (currentTick >>> (bits * level)) & mask]);
+                }
+            }
+            if ((currentTick & ((1L << (bits * levels.length)) - 1)) == 0) {
+                cascade(overflow);
+            }
+            fired += fire(due, expired); // Items that moved down onto this very tick
+            fired += fire(levels[0][(int) currentTick & mask], expired);
+        }
+        return fired;
+    }
+
+    /**
+     * Returns the number of items waiting to fire.
+     * @return The pending item count.
+     */
+    public int size() {
+        return size;
+    }
+
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    private void place(Timeout<T> timeout) {
+        long deadlineTick = timeout.deadlineTick;
+        if (deadlineTick <= currentTick) {
+            due.add(timeout);
+            return;
+        }
+        // Lowest level at which the deadline and the current tick agree on every higher digit
+        for (int level = 0; level < levels.length; level++) {
+            int shift = bits * (level + 1);
+            if ((deadlineTick >>> shift) == (currentTick >>> shift)) {
+                levels[level][(int) (deadlineTick >>> (bits * level)) & mask].add(timeout);
+                return;
+            }
+        }
+        overflow.add(timeout);
+    }
+
+    private void cascade(Slot<T> slot) {
+        Timeout<T> timeout = slot.takeAll();
+        while (timeout != null) {
+            Timeout<T> next = timeout.next;
+            place(timeout);
+            timeout = next;
+        }
+    }
+
+    private int fire(Slot<T> slot, Consumer<? super T> expired) {
+        int fired = 0;
+        Timeout<T> timeout = slot.takeAll();
+        while (timeout != null) {
+            Timeout<T> next = timeout.next;
+            timeout.slot = null;
+            timeout.prev = null;
+            timeout.next = null;
+            size--;
+            fired++;
+            expired.accept(timeout.item);
+            timeout = next;
+        }
+        return fired;
+    }
+}
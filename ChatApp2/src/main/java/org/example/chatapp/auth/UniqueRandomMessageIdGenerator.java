@@ -0,0 +1,140 @@
+package org.example.chatapp.auth;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Random 10-digit message IDs that are checked against every ID issued before.
+ * Every issued ID is kept in an {@link IssuedIdSet} on disk, and also recorded in a
+ * {@link ScalableBloomFilter} that answers most checks from memory at about two bytes per ID.
+ *
+ * A negative answer from the filter means the ID is new. A positive answer is confirmed against
+ * the exact set: if the ID is there it is a real collision and another one is drawn, otherwise it
+ * is a false positive of the filter and the ID is issued. The set records issued IDs, not stored
+ * messages, so an ID is never reissued even if its message was sent and never stored.
+ *
+ * Open the generator next to the message store and {@link #save()} or {@link #close()} it on
+ * shutdown. If the last run ended without saving, the filter may lack IDs the set holds, so it
+ * is rebuilt from the set on open.
+ */
+public class UniqueRandomMessageIdGenerator implements MessageIdGenerator, Closeable {
+
+    public static final String DEFAULT_FILTER_FILE = "message_ids.bloom";
+    public static final String DEFAULT_ISSUED_IDS_FILE = "message_ids.set";
+
+    private static final long ID_SPACE = 10_000_000_000L;
+    private static final long INITIAL_CAPACITY = 1 << 20;
+    private static final double FALSE_POSITIVE_RATE = 0.001;
+    // Give up rather than loop forever once the ID space is almost exhausted
+    private static final int MAX_ATTEMPTS = 1000;
+
+    private final Object lock = new Object();
+    // Guarded by lock
+    private final ScalableBloomFilter filter;
+    private final IssuedIdSet issuedIDs;
+    private final Path filterFile;
+
+    /**
+     * Opens a generator whose issued IDs are persisted in two files.
+     * @param filterFile The Bloom filter file; loaded if it exists and the last run saved it.
+     * @param issuedIDsFile The exact set of issued IDs; created if it does not exist.
+     * @return The generator.
+     * @throws IOException If an existing file cannot be read.
+     */
+    public static UniqueRandomMessageIdGenerator open(Path filterFile, Path issuedIDsFile) throws IOException {
+        IssuedIdSet issuedIDs = IssuedIdSet.open(issuedIDsFile);
+        ScalableBloomFilter filter;
+        if (Files.exists(filterFile) && issuedIDs.isClean()) {
+            filter = ScalableBloomFilter.load(filterFile);
+        } else {
+            // The filter is missing or older than the set; the set is the record of what was issued
+            filter = new ScalableBloomFilter(Math.max(INITIAL_CAPACITY, issuedIDs.size()), FALSE_POSITIVE_RATE);
+            issuedIDs.forEach(filter::add);
+        }
+        return new UniqueRandomMessageIdGenerator(filter, issuedIDs, filterFile);
+    }
+
+    private UniqueRandomMessageIdGenerator(ScalableBloomFilter filter, IssuedIdSet issuedIDs, Path filterFile) {
+        this.filter = filter;
+        this.issuedIDs = issuedIDs;
+        this.filterFile = filterFile;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws UncheckedIOException If the issued ID cannot be recorded.
+     */
+    @Override
+    public String nextID() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            long candidate = random.nextLong(ID_SPACE);
+            // Check and record under one lock so two threads cannot both claim the same ID
+            synchronized (lock) {
+                if (!filter.mightContain(candidate) || !issuedIDs.contains(candidate)) {
+                    record(candidate);
+                    return SequenceMessageIdGenerator.formatID(candidate);
+                }
+            }
+        }
+        throw new IllegalStateException("Could not find an unused message ID.");
+    }
+
+    /**
+     * Records an ID issued elsewhere (e.g. loaded from the message store) so it is not reissued.
+     * @param messageID The ID.
+     * @throws UncheckedIOException If the ID cannot be recorded.
+     */
+    @Override
+    public void observe(String messageID) {
+        long value;
+        try {
+            value = Long.parseLong(messageID);
+        } catch (NumberFormatException e) {
+            return; // Not a numeric ID, so it can never collide with a generated one
+        }
+        if (value < 0 || value >= ID_SPACE) {
+            return;
+        }
+        synchronized (lock) {
+            record(value);
+        }
+    }
+
+    /**
+     * Saves the filter and forces the issued-ID set to disk.
+     * @throws IOException If writing fails.
+     */
+    public void save() throws IOException {
+        synchronized (lock) {
+            filter.save(filterFile);
+            issuedIDs.force(); // Marks the set clean, so the saved filter is trusted on the next open
+        }
+    }
+
+    /**
+     * Saves and closes the generator.
+     * @throws IOException If writing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            save();
+            issuedIDs.close();
+        }
+    }
+
+    // Caller holds lock
+    private void record(long id) {
+        try {
+            issuedIDs.add(id); // Before the filter, so the filter never holds an ID the set lacks
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        filter.add(id);
+    }
+}
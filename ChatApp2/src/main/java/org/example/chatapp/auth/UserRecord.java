@@ -0,0 +1,54 @@
+package org.example.chatapp.auth;
+
+/**
+ * An immutable registered user.
+ * Replaces the positional {@code String[]} of [password, cell, firstName, lastName] that Login
+ * used to keep per username. The password is held only as a salted PBKDF2 hash.
+ */
+public final class UserRecord {
+
+    private final String username;
+    private final String passwordHash;
+    private final String cellPhoneNumber;
+    private final String firstName;
+    private final String lastName;
+
+    /**
+     * Creates a user record.
+     * @param username The username.
+     * @param passwordHash The encoded password hash from {@link PasswordHasher}.
+     * @param cellPhoneNumber The user's cell phone number.
+     * @param firstName The user's first name.
+     * @param lastName The user's last name.
+     */
+    public UserRecord(String username, String passwordHash, String cellPhoneNumber, String firstName, String lastName) {
+        if (username == null) {
+            throw new IllegalArgumentException("Username must not be null.");
+        }
+        this.username = username;
+        this.passwordHash = passwordHash;
+        this.cellPhoneNumber = cellPhoneNumber;
+        this.firstName = firstName;
+        this.lastName = lastName;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getPasswordHash() {
+        return passwordHash;
+    }
+
+    public String getCellPhoneNumber() {
+        return cellPhoneNumber;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+}
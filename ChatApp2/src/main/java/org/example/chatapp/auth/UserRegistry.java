@@ -0,0 +1,60 @@
+package org.example.chatapp.auth;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe registry of users keyed by username.
+ * Backed by a {@link ConcurrentHashMap}, so lookups never lock and registration is a single atomic
+ * put-if-absent: when several threads register the same username at once exactly one succeeds.
+ */
+public class UserRegistry {
+
+    private final ConcurrentHashMap<String, UserRecord> users = new ConcurrentHashMap<>();
+
+    /**
+     * Registers a user unless the username is already taken.
+     * @param user The user to register.
+     * @return True if the user was registered, false if the username already exists.
+     */
+    public boolean register(UserRecord user) {
+        return users.putIfAbsent(user.getUsername(), user) == null;
+    }
+
+    /**
+     * Finds a user by username.
+     * @param username The username.
+     * @return The user, or null if no user is registered under that name.
+     */
+    public UserRecord find(String username) {
+        return username == null ? null : users.get(username);
+    }
+
+    /**
+     * Checks whether a username is taken.
+     * @param username The username.
+     * @return True if a user is registered under that name.
+     */
+    public boolean contains(String username) {
+        return username != null && users.containsKey(username);
+    }
+
+    /**
+     * Removes a user.
+     * @param username The username.
+     * @return The removed user, or null if there was none.
+     */
+    public UserRecord remove(String username) {
+        return username == null ? null : users.remove(username);
+    }
+
+    public int size() {
+        return users.size();
+    }
+
+    /**
+     * Removes every user.
+     */
+    public void clear() {
+        users.clear();
+    }
+}
@@ -0,0 +1,365 @@
+package org.example.chatapp.auth;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Persistent user store: an append-only file of binary user records plus a memory-mapped hash
+ * index from username to record offset.
+ * Opening the store maps the index and reads nothing else, so startup time does not depend on
+ * the number of users; a lookup probes the mapped index and reads the single record it points at.
+ *
+ * Data file: one record per user, an int record length followed by the username, password hash,
+ * cell phone number, first name and last name, each as a presence byte and a modified UTF-8 string.
+ *
+ * Index file layout: a 32 byte header (magic, version, slot count, user count, and the length of
+ * the data file covered by the index) followed by an open-addressing table of 16 byte slots:
+ *   0  long  record offset + 1 (0 = empty)    8  int  username hash    12 int  reserved
+ *
+ * A record is written and forced to disk before its index slot is published, so a slot never
+ * points past the data that survived a crash; the index may instead miss the last few records,
+ * which are re-indexed from the data file when the store is next opened. If the index covers more
+ * data than the data file holds (e.g. the data file was restored from an older copy), the index
+ * is rebuilt from the data file. Thread-safe.
+ */
+public class UserStore implements Closeable {
+
+    private static final int MAGIC = 0x51435553; // "QCUS"
+    private static final int VERSION = 1;
+
+    private static final int FILE_HEADER_SIZE = 32;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int COUNT_OFFSET = 12;
+    private static final int INDEXED_DATA_END_OFFSET = 16;
+    private static final int SLOT_SIZE = 16;
+    private static final int SLOT_HASH_OFFSET = 8;
+
+    private static final int INITIAL_CAPACITY = 1024; // Slots, always a power of two
+    private static final double MAX_LOAD_FACTOR = 0.7;
+    // Marks an index being rebuilt; if seen on open the index is rebuilt from the data file
+    private static final long REBUILDING = -1;
+
+    private final FileChannel indexChannel;
+    private final FileChannel dataChannel;
+    private MappedByteBuffer index;
+    private int capacity;
+    private int count;
+    private long dataEnd;
+
+    /**
+     * Opens (or creates) the store kept in {@code basePath + ".idx"} and {@code basePath + ".dat"}.
+     * @param basePath Path of the store without extension.
+     * @return The store.
+     * @throws IOException If the files cannot be opened or are not user store files.
+     */
+    public static UserStore open(Path basePath) throws IOException {
+        return new UserStore(basePath);
+    }
+
+    private UserStore(Path basePath) throws IOException {
+        Path indexFile = basePath.resolveSibling(basePath.getFileName() + ".idx");
+        Path dataFile = basePath.resolveSibling(basePath.getFileName() + ".dat");
+        indexChannel = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        dataChannel = FileChannel.open(dataFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        if (indexChannel.size() == 0) {
+            capacity = INITIAL_CAPACITY;
+            mapIndex();
+            index.putInt(0, MAGIC);
+            index.putInt(4, VERSION);
+            index.putInt(CAPACITY_OFFSET, capacity);
+            index.putInt(COUNT_OFFSET, 0);
+            index.putLong(INDEXED_DATA_END_OFFSET, 0);
+        } else {
+            index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_HEADER_SIZE);
+            if (index.getInt(0) != MAGIC || index.getInt(4) != VERSION) {
+                close();
+                throw new IOException("Not a user store file: " + indexFile);
+            }
+            capacity = index.getInt(CAPACITY_OFFSET);
+            mapIndex();
+        }
+        count = index.getInt(COUNT_OFFSET);
+        long indexedDataEnd = index.getLong(INDEXED_DATA_END_OFFSET);
+        if (indexedDataEnd == REBUILDING || indexedDataEnd > dataChannel.size()) {
+            // A resize was interrupted, or slots point at data that is gone; rebuild everything from the data file
+            clearSlots();
+            indexedDataEnd = 0;
+        }
+        dataEnd = indexedDataEnd;
+        indexTail();
+    }
+
+    /**
+     * Adds a user unless the username is already stored.
+     * @param user The user.
+     * @return True if the user was added, false if the username already exists.
+     * @throws IOException If the record cannot be written.
+     */
+    public synchronized boolean put(UserRecord user) throws IOException {
+        return putAll(List.of(user))[0];
+    }
+
+    /**
+     * Adds several users, skipping usernames already stored or earlier in the list.
+     * The records are forced to disk once for the whole batch.
+     * @param users The users.
+     * @return For each user, true if it was added, false if the username already exists.
+     * @throws IOException If the records cannot be written.
+     */
+    public synchronized boolean[] putAll(List<UserRecord> users) throws IOException {
+        boolean[] added = new boolean[users.size()];
+        long[] offsets = new long[users.size()];
+        int[] hashes = new int[users.size()];
+        Set<String> batch = new HashSet<>();
+        long offset = dataEnd;
+        for (int i = 0; i < users.size(); i++) {
+            UserRecord user = users.get(i);
+            hashes[i] = hash(user.getUsername());
+            if (findSlot(user.getUsername(), hashes[i]) >= 0 || !batch.add(user.getUsername())) {
+                continue;
+            }
+            byte[] record = encode(user);
+            ByteBuffer buffer = ByteBuffer.allocate(4 + record.length);
+            buffer.putInt(record.length).put(record).flip();
+            while (buffer.hasRemaining()) {
+                dataChannel.write(buffer, offset + buffer.position());
+            }
+            offsets[i] = offset;
+            offset += buffer.limit();
+            added[i] = true;
+        }
+        if (offset == dataEnd) {
+            return added;
+        }
+        // The mapped index can reach the disk at any time, so the records must be there first
+        dataChannel.force(false);
+        dataEnd = offset;
+        for (int i = 0; i < users.size(); i++) {
+            if (added[i]) {
+                insert(hashes[i], offsets[i]);
+            }
+        }
+        index.putLong(INDEXED_DATA_END_OFFSET, dataEnd);
+        return added;
+    }
+
+    /**
+     * Looks up a user.
+     * @param username The username.
+     * @return The user, or null if no user is stored under that name.
+     * @throws IOException If the record cannot be read.
+     */
+    public synchronized UserRecord find(String username) throws IOException {
+        if (username == null) {
+            return null;
+        }
+        int slot = findSlot(username, hash(username));
+        return slot < 0 ? null : readRecord(index.getLong(slotPosition(slot)) - 1);
+    }
+
+    /**
+     * Checks whether a username is stored.
+     * @param username The username.
+     * @return True if a user is stored under that name.
+     * @throws IOException If a record cannot be read.
+     */
+    public synchronized boolean contains(String username) throws IOException {
+        return username != null && findSlot(username, hash(username)) >= 0;
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Flushes records and the index to disk.
+     * @throws IOException If flushing fails.
+     */
+    public synchronized void force() throws IOException {
+        dataChannel.force(false);
+        index.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (index != null) {
+                force();
+            }
+        } finally {
+            index = null;
+            indexChannel.close();
+            dataChannel.close();
+        }
+    }
+
+    // Returns the slot holding the username, or -1 if it is not indexed
+    private int findSlot(String username, int hash) throws IOException {
+        int mask = capacity - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int position = slotPosition(slot);
+            long offsetPlusOne = index.getLong(position);
+            if (offsetPlusOne == 0) {
+                return -1;
+            }
+            // Compare the stored hash first so most probes never touch the data file
+            if (index.getInt(position + SLOT_HASH_OFFSET) == hash
+                    && readUsername(offsetPlusOne - 1).equals(username)) {
+                return slot;
+            }
+        }
+    }
+
+    private void insert(int hash, long offset) throws IOException {
+        if (count + 1 > capacity * MAX_LOAD_FACTOR) {
+            resize(capacity * 2);
+        }
+        placeSlot(hash, offset + 1);
+        index.putInt(COUNT_OFFSET, ++count);
+    }
+
+    private void placeSlot(int hash, long offsetPlusOne) {
+        int mask = capacity - 1;
+        int slot = hash & mask;
+        while (index.getLong(slotPosition(slot)) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        int position = slotPosition(slot);
+        index.putInt(position + SLOT_HASH_OFFSET, hash);
+        index.putLong(position, offsetPlusOne);
+    }
+
+    private void resize(int newCapacity) throws IOException {
+        long[] offsets = new long[count];
+        int[] hashes = new int[count];
+        int n = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            int position = slotPosition(slot);
+            long offsetPlusOne = index.getLong(position);
+            if (offsetPlusOne != 0) {
+                offsets[n] = offsetPlusOne;
+                hashes[n++] = index.getInt(position + SLOT_HASH_OFFSET);
+            }
+        }
+        long indexedDataEnd = index.getLong(INDEXED_DATA_END_OFFSET);
+        index.putLong(INDEXED_DATA_END_OFFSET, REBUILDING);
+        index.force();
+
+        capacity = newCapacity;
+        index.putInt(CAPACITY_OFFSET, capacity);
+        mapIndex();
+        clearSlots();
+        for (int i = 0; i < n; i++) {
+            placeSlot(hashes[i], offsets[i]);
+        }
+        count = n;
+        index.putInt(COUNT_OFFSET, n);
+        index.putLong(INDEXED_DATA_END_OFFSET, indexedDataEnd);
+        index.force();
+    }
+
+    private void clearSlots() {
+        for (int slot = 0; slot < capacity; slot++) {
+            index.putLong(slotPosition(slot), 0);
+        }
+        count = 0;
+        index.putInt(COUNT_OFFSET, 0);
+    }
+
+    // Indexes records written after the last indexed one, dropping a torn record at the end
+    private void indexTail() throws IOException {
+        long size = dataChannel.size();
+        ByteBuffer lengthBuffer = ByteBuffer.allocate(4);
+        while (dataEnd + 4 <= size) {
+            lengthBuffer.clear();
+            readFully(lengthBuffer, dataEnd);
+            int length = lengthBuffer.getInt(0);
+            if (length <= 0 || dataEnd + 4 + length > size) {
+                break;
+            }
+            UserRecord user = readRecord(dataEnd);
+            int hash = hash(user.getUsername());
+            if (findSlot(user.getUsername(), hash) < 0) {
+                insert(hash, dataEnd);
+            }
+            dataEnd += 4 + length;
+            index.putLong(INDEXED_DATA_END_OFFSET, dataEnd);
+        }
+        if (dataEnd < size) {
+            dataChannel.truncate(dataEnd);
+        }
+    }
+
+    private void mapIndex() throws IOException {
+        index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_HEADER_SIZE + (long) capacity * SLOT_SIZE);
+    }
+
+    private UserRecord readRecord(long offset) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(readRecordBytes(offset)));
+        return new UserRecord(readString(in), readString(in), readString(in), readString(in), readString(in));
+    }
+
+    private String readUsername(long offset) throws IOException {
+        return readString(new DataInputStream(new ByteArrayInputStream(readRecordBytes(offset))));
+    }
+
+    private byte[] readRecordBytes(long offset) throws IOException {
+        ByteBuffer lengthBuffer = ByteBuffer.allocate(4);
+        readFully(lengthBuffer, offset);
+        ByteBuffer record = ByteBuffer.allocate(lengthBuffer.getInt(0));
+        readFully(record, offset + 4);
+        return record.array();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (dataChannel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of user data file.");
+            }
+        }
+    }
+
+    private static byte[] encode(UserRecord user) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeString(out, user.getUsername());
+        writeString(out, user.getPasswordHash());
+        writeString(out, user.getCellPhoneNumber());
+        writeString(out, user.getFirstName());
+        writeString(out, user.getLastName());
+        return bytes.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static int slotPosition(int slot) {
+        return FILE_HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private static int hash(String username) {
+        int h = username.hashCode() * 0x9E3779B9; // Spread similar usernames across the table
+        return h ^ (h >>> 16);
+    }
+}
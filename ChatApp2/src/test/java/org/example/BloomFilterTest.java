@@ -0,0 +1,123 @@
+package org.example;
+// test/BloomFilterTest.java
+import org.example.chatapp.auth.BloomFilter;
+import org.example.chatapp.auth.ScalableBloomFilter;
+import org.example.chatapp.auth.UniqueRandomMessageIdGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BloomFilterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testNoFalseNegativesAndLowFalsePositives() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        assertTrue(filter.add(0), "Adding to an empty filter should change it.");
+        for (long key = 1; key < 10_000; key++) {
+            filter.add(key * 7919);
+        }
+        for (long key = 0; key < 10_000; key++) {
+            assertTrue(filter.mightContain(key * 7919), "Added keys must always be reported.");
+        }
+        int falsePositives = 0;
+        for (long key = 1_000_000; key < 1_100_000; key++) {
+            if (filter.mightContain(key * 7919 + 1)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2000, "False-positive rate should be close to 1%, was " + falsePositives + " in 100000.");
+    }
+
+    @Test
+    public void testScalableFilterGrowsAndSurvivesSaveAndLoad() throws IOException {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1000, 0.001);
+        for (long key = 0; key < 10_000; key++) {
+            filter.add(key);
+        }
+        assertTrue(filter.getStageCount() > 1, "The filter should have added stages beyond its initial capacity.");
+
+        Path file = tempDir.resolve("ids.bloom");
+        filter.save(file);
+        ScalableBloomFilter loaded = ScalableBloomFilter.load(file);
+        for (long key = 0; key < 10_000; key++) {
+            assertTrue(loaded.mightContain(key), "Loaded filter lost key " + key);
+        }
+        assertEquals(filter.getStageCount(), loaded.getStageCount(), "Stage count should survive saving.");
+    }
+
+    @Test
+    public void testGeneratorNeverReissuesIDsAcrossRestarts() throws IOException {
+        Set<String> issued = new HashSet<>();
+        try (UniqueRandomMessageIdGenerator generator = openGenerator()) {
+            for (int i = 0; i < 20_000; i++) {
+                assertTrue(issued.add(generator.nextID()), "Generator issued a duplicate ID.");
+            }
+        }
+
+        try (UniqueRandomMessageIdGenerator restarted = openGenerator()) {
+            for (int i = 0; i < 20_000; i++) {
+                String id = restarted.nextID();
+                assertEquals(10, id.length(), "IDs should be 10 digits long.");
+                assertTrue(issued.add(id), "Restarted generator reissued an ID.");
+            }
+        }
+    }
+
+    @Test
+    public void testUnsavedFilterIsRebuiltFromIssuedIDs() throws IOException {
+        Set<String> issued = new HashSet<>();
+        UniqueRandomMessageIdGenerator crashed = openGenerator();
+        crashed.save();
+        for (int i = 0; i < 20_000; i++) {
+            issued.add(crashed.nextID()); // Recorded in the set but not in the saved filter
+        }
+
+        // Opened without the first generator saving, as after a crash
+        try (UniqueRandomMessageIdGenerator restarted = openGenerator()) {
+            for (String id : issued) {
+                restarted.observe(id); // Observing an issued ID must not add it twice
+            }
+            for (int i = 0; i < 20_000; i++) {
+                assertTrue(issued.add(restarted.nextID()), "Generator reissued an ID the last run did not save.");
+            }
+        }
+        crashed.close();
+    }
+
+    @Test
+    public void testFilterHitsAreConfirmedAgainstIssuedIDs() throws IOException {
+        // A filter that answers "possibly issued" for most IDs, so most draws go to the exact set
+        ScalableBloomFilter crowded = new ScalableBloomFilter(100, 0.9);
+        for (long key = 0; key < 100_000; key++) {
+            crowded.add(key * 99_991);
+        }
+        crowded.save(tempDir.resolve(UniqueRandomMessageIdGenerator.DEFAULT_FILTER_FILE));
+
+        Set<String> issued = new HashSet<>();
+        try (UniqueRandomMessageIdGenerator generator = openGenerator()) {
+            for (int i = 0; i < 5_000; i++) {
+                assertTrue(issued.add(generator.nextID()), "Generator issued a duplicate ID.");
+            }
+        }
+        try (UniqueRandomMessageIdGenerator restarted = openGenerator()) {
+            for (int i = 0; i < 5_000; i++) {
+                assertTrue(issued.add(restarted.nextID()), "An ID issued on a filter false positive was reissued.");
+            }
+        }
+    }
+
+    private UniqueRandomMessageIdGenerator openGenerator() throws IOException {
+        return UniqueRandomMessageIdGenerator.open(tempDir.resolve(UniqueRandomMessageIdGenerator.DEFAULT_FILTER_FILE),
+                tempDir.resolve(UniqueRandomMessageIdGenerator.DEFAULT_ISSUED_IDS_FILE));
+    }
+}
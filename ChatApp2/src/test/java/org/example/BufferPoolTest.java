@@ -0,0 +1,33 @@
+package org.example;
+// test/BufferPoolTest.java
+import org.example.chatapp.auth.BufferPool;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BufferPoolTest {
+
+    @Test
+    public void testBuffersAreReusedUpToTheLimit() {
+        BufferPool pool = new BufferPool(64, 1);
+        ByteBuffer first = pool.acquire();
+        ByteBuffer second = pool.acquire();
+        assertTrue(first.isDirect(), "Pooled buffers should be direct.");
+        assertEquals(2, pool.getInUseCount(), "Both buffers should be in use.");
+
+        first.putInt(42);
+        pool.release(first);
+        pool.release(second);
+        assertEquals(1, pool.getPooledCount(), "Only one free buffer should be kept.");
+        ByteBuffer reused = pool.acquire();
+        assertSame(first, reused, "A released buffer should be handed out again.");
+        assertEquals(0, reused.position(), "A reused buffer should be cleared.");
+        assertThrows(IllegalArgumentException.class, () -> pool.release(ByteBuffer.allocate(64)),
+                "A buffer from elsewhere should be refused.");
+    }
+}
@@ -0,0 +1,114 @@
+package org.example;
+// test/BulkUserImporterTest.java
+import org.example.chatapp.auth.BulkUserImporter;
+import org.example.chatapp.auth.CredentialVerifier;
+import org.example.chatapp.auth.ImportReport;
+import org.example.chatapp.auth.Login;
+import org.example.chatapp.auth.PasswordHasher;
+import org.example.chatapp.auth.UserStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BulkUserImporterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    public void setUp() {
+        Login.clearUsersForTesting();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Login.clearUsersForTesting();
+    }
+
+    @Test
+    public void testRowsAreValidatedAndRejectsReported() throws IOException {
+        String csv = """
+                username,password,cellPhoneNumber,firstName,lastName
+                kyl_1,Ch&&sec@ke99!,+27838968976,Kyle,Smith
+                john.doe,Ch&&sec@ke99!,+27838968976,John,Doe
+                ann_1,password,+27838968976,Ann,Jones
+                bob_1,Ch&&sec@ke99!,0838968976,Bob,Brown
+                kyl_1,Other@Pass99,+27831112222,Second,Kyle
+                "q_1","Pa$$w0rd,""x""\",+27831112222,"Smith, Jr",Q
+                too,few
+                """;
+        List<ImportReport.Reject> rejects = new ArrayList<>();
+        ImportReport report = new BulkUserImporter(2, 2, new PasswordHasher(1000)).importCsv(new StringReader(csv), rejects::add);
+
+        assertEquals(7, report.getRowsRead(), "Every data row should be read.");
+        assertEquals(2, report.getImported(), "Two rows should be imported.");
+        assertEquals(5, report.getRejected(), "Five rows should be rejected.");
+        assertEquals(List.of(3L, 4L, 5L, 6L, 8L), rejects.stream().map(ImportReport.Reject::getLineNumber).toList(),
+                "Rejects should be reported in file order with their line numbers.");
+        assertEquals("Username already exists.", rejects.get(3).getReason(), "The second row for a username should be a duplicate.");
+        assertEquals(rejects, report.getRejects(), "The report should record the rejects.");
+
+        Login login = new Login();
+        assertTrue(login.loginUser("kyl_1", "Ch&&sec@ke99!"), "The first row for a duplicated username should win.");
+        assertEquals("Smith, Jr", firstNameOf("q_1", "Pa$$w0rd,\"x\""), "Quoted fields should be parsed.");
+    }
+
+    @Test
+    public void testLargeImportCommitsToUserStore() throws IOException {
+        Path csvFile = tempDir.resolve("users.csv");
+        StringBuilder csv = new StringBuilder();
+        int users = 2000;
+        for (int i = 0; i < users; i++) {
+            csv.append("u_").append(i).append(",Pa$$w0rd!,+27838968976,First").append(i).append(",Last\n");
+        }
+        Files.writeString(csvFile, csv);
+        try (UserStore store = UserStore.open(tempDir.resolve("users"))) {
+            Login.attachUserStore(store);
+            ImportReport report = new BulkUserImporter(4, 256, new PasswordHasher(10)).importCsv(csvFile, null);
+            assertEquals(users, report.getImported(), "Every user should be imported.");
+            assertTrue(report.getRowsPerSecond() > 0, "Throughput should be reported.");
+            assertEquals(users, store.size(), "Every user should be committed to the store.");
+
+            Login.attachUserStore(null);
+            assertFalse(new Login().loginUser("u_7", "Pa$$w0rd!"), "Imported users should not be held in memory.");
+            Login.attachUserStore(store);
+            assertTrue(new Login().loginUser("u_7", "Pa$$w0rd!"), "Imported users should be loaded from the store on login.");
+        }
+    }
+
+    @Test
+    public void testRejectsKeepTheirLineNumbersPastBlankLines() throws IOException {
+        String csv = "kyl_1,Ch&&sec@ke99!,+27838968976,Kyle,Smith\n"
+                + "\n"
+                + "\n"
+                + "john.doe,Ch&&sec@ke99!,+27838968976,John,Doe\n"
+                + "ann_1,Ch&&sec@ke99!,+27838968976,Ann,Jones\n"
+                + "\n"
+                + "kyl_1,Ch&&sec@ke99!,+27838968976,Kyle,Again\n";
+        List<ImportReport.Reject> rejects = new ArrayList<>();
+        try (UserStore store = UserStore.open(tempDir.resolve("users"))) {
+            Login.attachUserStore(store);
+            new BulkUserImporter(2, 2, new PasswordHasher(10)).importCsv(new StringReader(csv), rejects::add);
+        }
+        assertEquals(List.of(4L, 7L), rejects.stream().map(ImportReport.Reject::getLineNumber).toList(),
+                "Rejects should report the line they were read from, counting blank lines.");
+        assertEquals("Username already exists.", rejects.get(1).getReason(), "A username already committed should be rejected.");
+    }
+
+    private static String firstNameOf(String username, String password) {
+        Login login = new Login();
+        return login.loginUser(username, password) ? login.getStoredFirstName() : null;
+    }
+}
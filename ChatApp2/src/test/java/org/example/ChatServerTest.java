@@ -0,0 +1,116 @@
+package org.example;
+// test/ChatServerTest.java
+import org.example.chatapp.auth.ChatServer;
+import org.example.chatapp.auth.CredentialVerifier;
+import org.example.chatapp.auth.Login;
+import org.example.chatapp.auth.MessageService;
+import org.example.chatapp.auth.PasswordHasher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChatServerTest {
+
+    private MessageService messageService;
+    private ChatServer server;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Login.clearUsersForTesting();
+        // Every client logs in at once; the queue must hold them all or some are shed as overload
+        Login.setCredentialVerifier(new CredentialVerifier(new PasswordHasher(1000), 2, 256, CredentialVerifier.DEFAULT_CACHE_TTL_MILLIS));
+        messageService = new MessageService();
+        server = ChatServer.start(0, messageService);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        server.close();
+        Login.setCredentialVerifier(new CredentialVerifier(new PasswordHasher()));
+        Login.clearUsersForTesting();
+    }
+
+    @Test
+    public void testLoginSendAndSearch() throws IOException {
+        try (Client client = new Client(server.getPort())) {
+            assertEquals("ERR Not logged in.", client.request("SEND +27834557896 Hi"), "Sending should need a login.");
+            assertEquals("OK", client.request("REGISTER kyl_1 Ch&&sec@ke99! +27838968976 Kyle Smith"), "Registration should succeed.");
+            assertTrue(client.request("LOGIN kyl_1 wrong").startsWith("ERR"), "A wrong password should be refused.");
+            assertTrue(client.request("LOGIN kyl_1 Ch&&sec@ke99!").endsWith(" Kyle Smith"), "Login should greet the user.");
+
+            String[] sent = client.request("SEND +27834557896 Did you get the cake?").split(" ");
+            assertEquals("OK", sent[0], "Sending should succeed.");
+            assertTrue(client.request("SEND 0834557896 Hi").startsWith("ERR Invalid cell phone number"), "A bad recipient should be refused.");
+            assertEquals("OK 1", client.request("SEARCH cake"), "Search should report one match.");
+            assertEquals("MSG " + sent[1] + " SENT +27834557896 Did you get the cake?", client.readLine(), "The match should be listed.");
+            assertEquals("OK " + sent[1], client.request("DELETE " + sent[2]), "Deleting by hash should succeed.");
+            assertEquals("OK Goodbye.", client.request("QUIT"), "Quit should be acknowledged.");
+            assertEquals(null, client.readLine(), "The server should close the connection after quit.");
+        }
+    }
+
+    @Test
+    public void testManyConcurrentClients() throws Exception {
+        int clients = 200;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                String username = "c_" + i;
+                results.add(executor.submit(() -> {
+                    try (Client client = new Client(server.getPort())) {
+                        client.request("REGISTER " + username + " Pa$$w0rd! +27838968976 First Last");
+                        client.request("LOGIN " + username + " Pa$$w0rd!");
+                        return client.request("SEND +27834557896 Hello from " + username);
+                    }
+                }));
+            }
+            for (Future<String> result : results) {
+                assertTrue(result.get().startsWith("OK "), "Every client should be able to send.");
+            }
+        }
+        assertEquals(clients, messageService.getSentCount(), "Every message should reach the shared service.");
+    }
+
+    private static final class Client implements AutoCloseable {
+        private final Socket socket;
+        private final BufferedReader in;
+        private final PrintWriter out;
+
+        Client(int port) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+        }
+
+        String request(String line) throws IOException {
+            out.print(line + "\r\n");
+            out.flush();
+            return in.readLine();
+        }
+
+        String readLine() throws IOException {
+            return in.readLine();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.example;
+// test/DeliverySchedulerTest.java
+import org.example.chatapp.auth.DeliveryScheduler;
+import org.example.chatapp.auth.LoopbackGateway;
+import org.example.chatapp.auth.Message;
+import org.example.chatapp.auth.MessageService;
+import org.example.chatapp.auth.MessageStatus;
+import org.example.chatapp.auth.PipelinedTransport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DeliverySchedulerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testScheduledMessageIsSentAtItsTime() throws Exception {
+        MessageService service = new MessageService();
+        try (DeliveryScheduler scheduler = DeliveryScheduler.start(service, 10)) {
+            Message due = service.compose("+27831234567", "Hello later");
+            due.setSendAt(System.currentTimeMillis() + 50);
+            service.store(due);
+            Message cancelled = service.compose("+27831234567", "Never mind");
+            cancelled.setSendAt(System.currentTimeMillis() + 50);
+            service.store(cancelled);
+            Message unscheduled = service.store("+27831234567", "Keep me");
+            assertEquals(2, scheduler.getPendingCount(), "Only stored messages with a send time should be scheduled");
+
+            service.deleteByHash(cancelled.getMessageHash());
+            assertFalse(scheduler.isScheduled(cancelled.getMessageID()), "Deleting a message should cancel its delivery");
+
+            awaitDelivered(scheduler, 1);
+            assertEquals(MessageStatus.SENT, due.getStatus(), "The scheduled message should be sent");
+            assertTrue(due.isSent(), "The scheduled message should be marked sent");
+            assertEquals(due, service.findByHash(due.getMessageHash()), "The new hash should be indexed");
+            assertEquals(MessageStatus.STORED, unscheduled.getStatus(), "A message without a send time should stay stored");
+            assertEquals(0, scheduler.getPendingCount(), "Nothing should remain pending");
+        }
+    }
+
+    @Test
+    public void testPendingDeliveriesAreRebuiltAfterRestart() throws Exception {
+        Path checkpoint = tempDir.resolve("stored.json");
+        Path journal = tempDir.resolve("stored.journal");
+        String messageID;
+        try (MessageService service = new MessageService(checkpoint, journal)) {
+            DeliveryScheduler scheduler = DeliveryScheduler.start(service, 10);
+            Message message = service.compose("+27831234567", "Survives a restart");
+            message.setSendAt(System.currentTimeMillis() + 200);
+            service.store(message);
+            messageID = message.getMessageID();
+            scheduler.close(); // Stopped before the send time
+            assertEquals(MessageStatus.STORED, message.getStatus(), "The message should not be sent yet");
+        }
+
+        MessageService restarted = new MessageService(checkpoint, journal);
+        assertEquals(1, restarted.loadStoredMessages(), "The stored message should be loaded");
+        try (DeliveryScheduler scheduler = DeliveryScheduler.start(restarted, 10)) {
+            assertTrue(scheduler.isScheduled(messageID), "The delivery should be rescheduled from the loaded message");
+            awaitDelivered(scheduler, 1);
+            Message message = restarted.findByID(messageID);
+            assertNotNull(message, "The message should still be held");
+            assertEquals(MessageStatus.SENT, message.getStatus(), "The message should be sent after the restart");
+        }
+        restarted.close();
+
+        MessageService again = new MessageService(checkpoint, journal);
+        assertEquals(0, again.loadStoredMessages(), "A delivered message should no longer be stored");
+        again.close();
+    }
+
+    @Test
+    public void testScheduledMessageIsHandedToTheTransport() throws Exception {
+        MessageService service = new MessageService();
+        try (LoopbackGateway gateway = LoopbackGateway.start(0);
+             PipelinedTransport transport = PipelinedTransport.connect(
+                     new InetSocketAddress(InetAddress.getLoopbackAddress(), gateway.getPort()));
+             DeliveryScheduler scheduler = DeliveryScheduler.start(service, 10, transport)) {
+            Message message = service.compose("+27831234567", "Delivered later");
+            message.setSendAt(System.currentTimeMillis() + 50);
+            service.store(message);
+
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (!gateway.isDelivered(message.getMessageID()) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(gateway.isDelivered(message.getMessageID()), "A scheduled message should reach the gateway once sent");
+            assertEquals(1, scheduler.getDeliveredCount(), "The scheduler should count the message as sent");
+        }
+    }
+
+    private static void awaitDelivered(DeliveryScheduler scheduler, long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (scheduler.getDeliveredCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, scheduler.getDeliveredCount(), "Scheduled messages should be delivered");
+    }
+}
@@ -0,0 +1,77 @@
+package org.example;
+// test/InputValidatorTest.java
+import org.example.chatapp.auth.InputValidator;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InputValidatorTest {
+
+    // The regexes Login used before the hand-coded validators; the validators must agree with them exactly
+    private static final Pattern USERNAME_PATTERN = Pattern.compile("^[a-zA-Z0-9]+[a-zA-Z0-9_]*$");
+    private static final Pattern PASSWORD_PATTERN = Pattern.compile("^(?=.*[A-Z])(?=.*\\d)(?=.*[!@#$%^&*()_+\\-=\\[\\]{};':\"\\\\|,.<>/?]).{8,}$");
+    private static final Pattern CELL_NUMBER_PATTERN = Pattern.compile("^\\+27[0-9]{9}$");
+
+    private static final String ALPHABET = "aZ09_+27!@#.-\\\" \n\r \u0085é٣😀\uD83D";
+
+    @Test
+    public void testKnownInputs() {
+        assertTrue(InputValidator.isValidUserName("s_"), "Two-character username with an underscore should be valid.");
+        assertFalse(InputValidator.isValidUserName("_user"), "Username starting with an underscore should be invalid.");
+        assertFalse(InputValidator.isValidUserName("john_doe"), "Username longer than 7 characters should be invalid.");
+        assertTrue(InputValidator.isValidPassword("Ch&&sec@ke99!"), "Complex password should be valid.");
+        assertFalse(InputValidator.isValidPassword("Ch&&sec@ke99!\n"), "Password with a line break should be invalid.");
+        assertFalse(InputValidator.isValidPassword("A1!😀😀😀"), "Surrogate pairs should count as one character each.");
+        assertTrue(InputValidator.isValidCellNumber("+27838968976"), "SA cell number should be valid.");
+        assertFalse(InputValidator.isValidCellNumber("+2783896897٣"), "Non-ASCII digits should be invalid.");
+        assertFalse(InputValidator.isValidCellNumber(null), "Null cell number should be invalid.");
+    }
+
+    @Test
+    public void testValidatorsMatchOriginalRegexes() {
+        Random random = new Random(10);
+        for (int i = 0; i < 200_000; i++) {
+            String input = randomInput(random);
+            assertEquals(input.length() >= 2 && input.length() <= 7 && input.contains("_") && USERNAME_PATTERN.matcher(input).matches(),
+                    InputValidator.isValidUserName(input), "Username validation should match the regex for: " + input);
+            assertEquals(PASSWORD_PATTERN.matcher(input).matches(), InputValidator.isValidPassword(input),
+                    "Password validation should match the regex for: " + input);
+            assertEquals(CELL_NUMBER_PATTERN.matcher(input).matches(), InputValidator.isValidCellNumber(input),
+                    "Cell number validation should match the regex for: " + input);
+        }
+    }
+
+    @Test
+    public void testBatchValidationReturnsBitSet() {
+        String[] numbers = {"+27838968976", "0838968976", null, "+27123456789"};
+        BitSet valid = InputValidator.validateCellNumbers(numbers);
+        assertEquals(2, valid.cardinality(), "Two numbers should be valid.");
+        assertTrue(valid.get(0) && valid.get(3), "The first and last numbers should be valid.");
+
+        BitSet validNames = InputValidator.validateUserNames(new String[]{"kyl_1", "kyle!!!!!!!"});
+        assertTrue(validNames.get(0) && !validNames.get(1), "Only the first username should be valid.");
+        BitSet validPasswords = InputValidator.validatePasswords(new String[]{"password", "Ch&&sec@ke99!"});
+        assertTrue(!validPasswords.get(0) && validPasswords.get(1), "Only the second password should be valid.");
+    }
+
+    private static String randomInput(Random random) {
+        // Mostly near-valid inputs so every branch of each validator is exercised
+        StringBuilder sb = new StringBuilder();
+        switch (random.nextInt(3)) {
+            case 0 -> sb.append("+27");
+            case 1 -> sb.append("Ab1!");
+            default -> { }
+        }
+        int length = random.nextInt(14);
+        for (int i = 0; i < length; i++) {
+            sb.append(random.nextInt(3) == 0 ? (char) ('0' + random.nextInt(10)) : ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,72 @@
+package org.example;
+// test/IssuedIdSetTest.java
+import org.example.chatapp.auth.IssuedIdSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IssuedIdSetTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testIDsSurviveGrowthAndReopening() throws IOException {
+        Path file = tempDir.resolve("ids.set");
+        try (IssuedIdSet set = IssuedIdSet.open(file)) {
+            for (long id = 0; id < 100_000; id++) {
+                assertTrue(set.add(id * 99_991), "A new ID should be added.");
+            }
+            assertFalse(set.add(0), "An ID already in the set should not be added again.");
+            set.force();
+        }
+
+        try (IssuedIdSet reopened = IssuedIdSet.open(file)) {
+            assertTrue(reopened.isClean(), "A forced set should open clean.");
+            assertEquals(100_000, reopened.size(), "Size should survive growing and reopening.");
+            for (long id = 0; id < 100_000; id++) {
+                assertTrue(reopened.contains(id * 99_991), "Reopened set lost ID " + id * 99_991);
+            }
+            assertFalse(reopened.contains(1), "An ID never added should not be in the set.");
+            assertTrue(reopened.add(9_999_999_999L), "The largest ID should be accepted.");
+        }
+    }
+
+    @Test
+    public void testTableLargerThanOneMappingCanBeCreated() throws IOException {
+        Path file = tempDir.resolve("ids.set");
+        // 100M IDs need 2^28 slots: a 2GB table, past the largest single mapping (sparse on disk)
+        try (IssuedIdSet set = IssuedIdSet.open(file, 100_000_000)) {
+            assertTrue(Files.size(file) > Integer.MAX_VALUE, "The table should be sized beyond one mapping.");
+            for (long id = 0; id < 1_000; id++) {
+                assertTrue(set.add(id * 9_999_991), "A new ID should be added.");
+            }
+            set.force();
+        }
+        try (IssuedIdSet reopened = IssuedIdSet.open(file)) {
+            assertEquals(1_000, reopened.size(), "Size should survive reopening.");
+            for (long id = 0; id < 1_000; id++) {
+                assertTrue(reopened.contains(id * 9_999_991), "Reopened set lost ID " + id * 9_999_991);
+            }
+        }
+    }
+
+    @Test
+    public void testChangesAfterForceMarkTheSetDirty() throws IOException {
+        Path file = tempDir.resolve("ids.set");
+        try (IssuedIdSet set = IssuedIdSet.open(file)) {
+            set.add(42);
+        }
+        try (IssuedIdSet reopened = IssuedIdSet.open(file)) {
+            assertFalse(reopened.isClean(), "A set closed without forcing should open dirty.");
+            assertTrue(reopened.contains(42), "The unforced ID should still be in the file.");
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.example;
+// test/LoginThrottleTest.java
+import org.example.chatapp.auth.CredentialVerifier;
+import org.example.chatapp.auth.Login;
+import org.example.chatapp.auth.LoginThrottle;
+import org.example.chatapp.auth.PasswordHasher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LoginThrottleTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    @BeforeEach
+    public void setUp() {
+        Login.clearUsersForTesting();
+        Login.setCredentialVerifier(new CredentialVerifier(new PasswordHasher(1000)));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Login.setCredentialVerifier(new CredentialVerifier(new PasswordHasher()));
+        Login.setLoginThrottle(new LoginThrottle());
+    }
+
+    @Test
+    public void testBucketEmptiesAndRefills() {
+        LoginThrottle throttle = new LoginThrottle(3, 1000, now::get);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(throttle.tryAcquire("kyl_1"), "Attempts within the capacity should be allowed.");
+        }
+        assertFalse(throttle.tryAcquire("kyl_1"), "An attempt beyond the capacity should be throttled.");
+        assertTrue(throttle.tryAcquire("ann_1"), "Other usernames should not be affected.");
+
+        now.addAndGet(1000);
+        assertTrue(throttle.tryAcquire("kyl_1"), "One attempt should be earned back per refill interval.");
+        assertFalse(throttle.tryAcquire("kyl_1"), "Only one attempt should have been earned back.");
+
+        now.addAndGet(10_000);
+        assertEquals(3, throttle.getRemainingAttempts("kyl_1"), "The bucket should not refill past its capacity.");
+        assertEquals(2, throttle.evictIdle(), "Fully refilled buckets should be evicted.");
+    }
+
+    @Test
+    public void testSuccessfulLoginsDoNotCount() {
+        Login.setLoginThrottle(new LoginThrottle(3, 60_000, now::get));
+        Login login = new Login();
+        login.registerUser("kyl_1", "Ch&&sec@ke99!", "+27838968976", "Kyle", "Smith");
+        for (int i = 0; i < 10; i++) {
+            assertTrue(login.loginUser("kyl_1", "Ch&&sec@ke99!"), "Successful logins should never be throttled.");
+        }
+        for (int i = 0; i < 3; i++) {
+            assertFalse(login.loginUser("kyl_1", "guess" + i), "Wrong passwords should fail.");
+        }
+        assertFalse(login.loginUser("kyl_1", "Ch&&sec@ke99!"), "Even the right password should be refused once throttled.");
+        now.addAndGet(60_000);
+        assertTrue(login.loginUser("kyl_1", "Ch&&sec@ke99!"), "Logins should be allowed again after a refill.");
+    }
+
+    @Test
+    public void testConcurrentAttemptsNeverExceedCapacity() throws InterruptedException {
+        LoginThrottle throttle = new LoginThrottle(100, 60_000, now::get);
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[8];
+        for (int t = 0; t < workers.length; t++) {
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < 10_000; i++) {
+                    if (throttle.tryAcquire("kyl_1")) {
+                        allowed.incrementAndGet();
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(100, allowed.get(), "Exactly the capacity should be allowed under contention.");
+    }
+}
@@ -0,0 +1,48 @@
+package org.example;
+// test/LongObjectHashMapTest.java
+import org.example.chatapp.auth.LongObjectHashMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class LongObjectHashMapTest {
+
+    @Test
+    public void testBasicOperationsIncludingZeroKey() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        assertNull(map.put(27838968976L, "a"), "A new key should have no previous value.");
+        assertEquals("a", map.put(27838968976L, "b"), "Replacing should return the previous value.");
+        map.put(0, "zero");
+        assertEquals("zero", map.get(0), "Key 0 should be supported.");
+        assertEquals(2, map.size(), "Size should count every key.");
+        assertEquals("b", map.remove(27838968976L), "Removing should return the value.");
+        assertEquals("zero", map.remove(0), "Removing key 0 should return its value.");
+        assertEquals(0, map.size(), "The map should be empty.");
+        assertEquals("c", map.computeIfAbsent(5, k -> "c"), "computeIfAbsent should map an absent key.");
+    }
+
+    @Test
+    public void testMatchesHashMapUnderRandomOperations() {
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>();
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(17);
+        for (int i = 0; i < 200_000; i++) {
+            // Phone-number-like keys from a small range so removals often hit long probe runs
+            long key = 27_830_000_000L + random.nextInt(5000);
+            switch (random.nextInt(3)) {
+                case 0 -> assertEquals(expected.put(key, (long) i), map.put(key, (long) i), "put should match HashMap.");
+                case 1 -> assertEquals(expected.remove(key), map.remove(key), "remove should match HashMap.");
+                default -> assertEquals(expected.get(key), map.get(key), "get should match HashMap.");
+            }
+        }
+        assertEquals(expected.size(), map.size(), "Size should match HashMap.");
+        for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()), "Every remaining key should be found.");
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package org.example;
+// test/MappedMessageStoreTest.java
+import org.example.chatapp.auth.MappedMessageStore;
+import org.example.chatapp.auth.Message;
+import org.example.chatapp.auth.MessageStatus;
+import org.example.chatapp.auth.PhoneNumber;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MappedMessageStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testMessagesRoundTripAndSurviveReopening() throws IOException {
+        Path basePath = tempDir.resolve("messages");
+        Message full = new Message("0000000042", "+27838884567", "Where are you? You are late!", "00:1:WHEREYOULATE!", false);
+        full.setStatus(MessageStatus.STORED);
+        full.setSender("kyl_1");
+        full.setSendAt(1_700_000_000_000L);
+        Message bare = new Message("1234567890", "not a number", "Héllo wörld", null, true);
+        bare.setStatus(MessageStatus.SENT);
+
+        try (MappedMessageStore store = MappedMessageStore.open(basePath)) {
+            store.append(full);
+            store.append(bare);
+            store.force();
+        }
+
+        try (MappedMessageStore store = MappedMessageStore.open(basePath)) {
+            List<Integer> refs = new ArrayList<>();
+            store.forEach(refs::add);
+            assertEquals(2, refs.size(), "Both messages should survive reopening.");
+            assertEquals(2, store.getLiveCount(), "The live count should be read back.");
+
+            int fullRef = refs.get(0);
+            assertEquals("0000000042", store.getMessageID(fullRef), "Leading zeros of the ID should be kept.");
+            assertEquals(MappedMessageStore.idKey("0000000042"), store.getIDKey(fullRef), "The header ID key should match the string's.");
+            assertEquals(PhoneNumber.encode("+27838884567"), store.getRecipientNumber(fullRef), "The recipient should be encoded in the header.");
+            assertEquals("00:1:WHEREYOULATE!".hashCode(), store.getHashCode(fullRef), "The hash code should be in the header.");
+            Message readFull = store.read(fullRef);
+            assertEquals("+27838884567", readFull.getRecipientCellNumber(), "The recipient should be decoded.");
+            assertEquals("Where are you? You are late!", readFull.getMessageText(), "The text should be read back.");
+            assertEquals("00:1:WHEREYOULATE!", readFull.getMessageHash(), "The hash should be read back.");
+            assertEquals("kyl_1", readFull.getSender(), "The sender should be read back.");
+            assertEquals(1_700_000_000_000L, readFull.getSendAt(), "The send-at time should be read back.");
+            assertEquals(MessageStatus.STORED, readFull.getStatus(), "The status should be read back.");
+            assertFalse(readFull.isSent(), "The sent flag should be read back.");
+
+            Message readBare = store.read(refs.get(1));
+            assertEquals("not a number", readBare.getRecipientCellNumber(), "A recipient kept as text should be read back.");
+            assertEquals("Héllo wörld", readBare.getMessageText(), "Non-ASCII text should survive.");
+            assertNull(readBare.getMessageHash(), "A missing hash should stay missing.");
+            assertNull(readBare.getSender(), "A missing sender should stay missing.");
+            assertTrue(readBare.isSent(), "The sent flag should be read back.");
+        }
+    }
+
+    @Test
+    public void testDeletedMessagesAreDroppedOnReopen() throws IOException {
+        Path basePath = tempDir.resolve("messages");
+        try (MappedMessageStore store = MappedMessageStore.open(basePath)) {
+            List<Integer> refs = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                refs.add(store.append(storedMessage(i)));
+            }
+            for (int i = 0; i < 8; i++) {
+                store.delete(refs.get(i));
+            }
+            assertEquals(2, store.getLiveCount(), "Deleted messages should not be counted.");
+        }
+
+        try (MappedMessageStore store = MappedMessageStore.open(basePath)) {
+            List<String> texts = new ArrayList<>();
+            store.forEach(ref -> texts.add(store.getMessageText(ref)));
+            assertEquals(List.of("Message 8", "Message 9"), texts, "Only live messages should remain, in order.");
+            store.forEach(store::delete);
+        }
+
+        try (MappedMessageStore store = MappedMessageStore.open(basePath)) {
+            assertFalse(Files.exists(tempDir.resolve("messages-000000.seg")), "A segment without live messages should be deleted.");
+            assertEquals(0, store.getLiveCount(), "No messages should remain.");
+            int ref = store.append(storedMessage(10));
+            assertEquals("Message 10", store.getMessageText(ref), "A new segment should take messages.");
+        }
+    }
+
+    @Test
+    public void testMessagesWithoutNumericIDsAreRejected() throws IOException {
+        try (MappedMessageStore store = MappedMessageStore.open(tempDir.resolve("messages"))) {
+            Message message = new Message("MSG-1", "+27838884567", "Hi", null, false);
+            message.setStatus(MessageStatus.STORED);
+            assertThrows(IllegalArgumentException.class, () -> store.append(message),
+                    "An ID the header cannot hold should be rejected.");
+            assertEquals(0, store.getLiveCount(), "Nothing should have been stored.");
+        }
+    }
+
+    private static Message storedMessage(int i) {
+        Message message = new Message(String.format("%010d", 1000 + i), "+27834557896", "Message " + i, "HASH" + i, false);
+        message.setStatus(MessageStatus.STORED);
+        return message;
+    }
+}
@@ -0,0 +1,85 @@
+package org.example;
+// test/MessageCountersTest.java
+import org.example.chatapp.auth.Message;
+import org.example.chatapp.auth.MessageCounters;
+import org.example.chatapp.auth.MessageService;
+import org.example.chatapp.auth.MessageStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MessageCountersTest {
+
+    @BeforeEach
+    public void setUp() {
+        Message.setCounters(new MessageCounters());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Message.setCounters(new MessageCounters());
+    }
+
+    @Test
+    public void testPerSenderAndPerRecipientCounts() {
+        MessageCounters counters = new MessageCounters(10);
+        assertEquals(11, counters.recordSent("kyl_1", "+27834557896"), "The sequence should continue after the start number.");
+        assertEquals(12, counters.recordSent("kyl_1", "+27838884567"), "Each send should take the next number.");
+        counters.recordSent("ann_1", "+27834557896");
+        counters.recordStored();
+        counters.recordDisregarded();
+
+        assertEquals(3, counters.getSentCount(), "Three sends should be counted.");
+        assertEquals(1, counters.getStoredCount(), "One store should be counted.");
+        assertEquals(1, counters.getDisregardedCount(), "One disregard should be counted.");
+        assertEquals(2, counters.getSentBy("kyl_1"), "kyl_1 sent two messages.");
+        assertEquals(0, counters.getSentBy("nobody"), "Unknown senders have sent nothing.");
+        assertEquals(2, counters.getSentTo("+27834557896"), "Two messages went to the first recipient.");
+        assertEquals(List.of(Map.entry("+27834557896", 2L)), counters.getTopRecipients(1), "The most messaged recipient should come first.");
+        assertEquals(List.of(Map.entry("kyl_1", 2L), Map.entry("ann_1", 1L)), counters.getTopSenders(5), "Senders should be ordered by count.");
+    }
+
+    @Test
+    public void testConcurrentSendsGetDistinctHashNumbers() throws InterruptedException {
+        MessageService service = new MessageService();
+        int threads = 8;
+        int perThread = 1000;
+        Thread[] senders = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            String sender = "s_" + t;
+            senders[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    Message message = service.compose("+27834557896", "Hello there");
+                    message.setSender(sender);
+                    service.send(message);
+                }
+            });
+            senders[t].start();
+        }
+        for (Thread sender : senders) {
+            sender.join();
+        }
+
+        Set<String> hashNumbers = new HashSet<>();
+        for (Message message : service.findByStatus(MessageStatus.SENT)) {
+            hashNumbers.add(message.getMessageHash().split(":")[1]);
+        }
+        assertEquals(threads * perThread, hashNumbers.size(), "Every sent message should have its own hash number.");
+        MessageCounters counters = Message.getCounters();
+        assertEquals(threads * perThread, counters.getSentCount(), "Every send should be counted.");
+        assertEquals(threads * perThread, Message.getTotalMessagesSent(), "The sequence should end at the number of sends.");
+        for (int t = 0; t < threads; t++) {
+            assertEquals(perThread, counters.getSentBy("s_" + t), "Each sender's sends should be counted.");
+        }
+        assertTrue(hashNumbers.contains("1") && hashNumbers.contains(String.valueOf(threads * perThread)),
+                "Hash numbers should run from 1 to the number of sends.");
+    }
+}
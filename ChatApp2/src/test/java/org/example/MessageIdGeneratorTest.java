@@ -0,0 +1,89 @@
+package org.example;
+// test/MessageIdGeneratorTest.java
+import org.example.chatapp.auth.RandomMessageIdGenerator;
+import org.example.chatapp.auth.SequenceMessageIdGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MessageIdGeneratorTest {
+
+    @Test
+    public void testSequenceIDsAreTenDigitsAndEndWithNode() {
+        SequenceMessageIdGenerator generator = new SequenceMessageIdGenerator(42);
+        String id = generator.nextID();
+        assertEquals(10, id.length(), "Message ID should be 10 digits long.");
+        assertTrue(id.chars().allMatch(Character::isDigit), "Message ID should only contain digits.");
+        assertTrue(id.endsWith("42"), "Message ID should end with the node number.");
+    }
+
+    @Test
+    public void testSequenceIDsAreUniqueAcrossThreads() throws InterruptedException {
+        SequenceMessageIdGenerator generator = new SequenceMessageIdGenerator(7);
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        int threads = 8;
+        int perThread = 50_000;
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    ids.add(generator.nextID());
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(threads * perThread, ids.size(), "Every generated ID should be unique.");
+    }
+
+    @Test
+    public void testNodesNeverCollide() {
+        SequenceMessageIdGenerator node1 = new SequenceMessageIdGenerator(1);
+        SequenceMessageIdGenerator node2 = new SequenceMessageIdGenerator(2);
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(node1.nextID());
+            ids.add(node2.nextID());
+        }
+        assertEquals(20_000, ids.size(), "IDs from different nodes should never collide.");
+    }
+
+    @Test
+    public void testObserveSkipsPastPreviouslyIssuedIDs() {
+        SequenceMessageIdGenerator previousRun = new SequenceMessageIdGenerator(3);
+        Set<String> issued = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < 1000; i++) {
+            issued.add(previousRun.nextID()); // Far more than one per second, borrowing ahead of the clock
+        }
+
+        SequenceMessageIdGenerator restarted = new SequenceMessageIdGenerator(3);
+        issued.forEach(restarted::observe);
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(issued.contains(restarted.nextID()), "A restarted node should not reissue an observed ID.");
+        }
+    }
+
+    @Test
+    public void testInvalidNodeAndRandomFormat() {
+        assertThrows(IllegalArgumentException.class, () -> new SequenceMessageIdGenerator(100));
+        String randomID = new RandomMessageIdGenerator().nextID();
+        assertEquals(10, randomID.length(), "Random IDs should be zero-padded to 10 digits.");
+    }
+}
@@ -0,0 +1,101 @@
+package org.example;
+// test/MessageJournalTest.java
+import org.example.chatapp.auth.Message;
+import org.example.chatapp.auth.MessageJournal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MessageJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path checkpointFile;
+    private Path journalFile;
+    private List<Message> stored;
+
+    @BeforeEach
+    public void setUp() {
+        checkpointFile = tempDir.resolve("stored_messages.json");
+        journalFile = tempDir.resolve("stored_messages.journal");
+        stored = new ArrayList<>();
+    }
+
+    @Test
+    public void testStoreAndDeleteAreReplayedOnRecovery() throws IOException {
+        Message msg1 = new Message("+27838884567", "Where are you? You are late!");
+        Message msg2 = new Message("+27838884567", "Ok, I am leaving without you.");
+        try (MessageJournal journal = new MessageJournal(checkpointFile, journalFile, 100, () -> stored)) {
+            recover(journal);
+            journal.appendStore(msg1);
+            journal.appendStore(msg2);
+            journal.appendDelete(msg1.getMessageID());
+        }
+
+        try (MessageJournal journal = new MessageJournal(checkpointFile, journalFile, 100, () -> stored)) {
+            List<Message> recovered = recover(journal);
+            assertEquals(1, recovered.size(), "Only the undeleted message should be recovered.");
+            assertEquals(msg2.getMessageID(), recovered.get(0).getMessageID(), "Recovered message ID mismatch.");
+            assertEquals("Ok, I am leaving without you.", recovered.get(0).getMessageText(), "Recovered message text mismatch.");
+        }
+    }
+
+    @Test
+    public void testCheckpointTruncatesJournal() throws IOException {
+        try (MessageJournal journal = new MessageJournal(checkpointFile, journalFile, 2, () -> stored)) {
+            recover(journal);
+            for (int i = 0; i < 3; i++) {
+                Message msg = new Message("+27834557896", "Message " + i);
+                stored.add(msg);
+                journal.appendStore(msg);
+            }
+            assertEquals(1, journal.getRecordsSinceCheckpoint(), "Journal should hold only the record after the checkpoint.");
+        }
+        assertTrue(Files.exists(checkpointFile), "A checkpoint file should have been written.");
+
+        try (MessageJournal journal = new MessageJournal(checkpointFile, journalFile, 2, () -> stored)) {
+            assertEquals(3, recover(journal).size(), "Checkpoint plus journal tail should give all three messages.");
+        }
+    }
+
+    @Test
+    public void testTornTailIsDiscarded() throws IOException {
+        Message msg = new Message("+27834557896", "Did you get the cake?");
+        try (MessageJournal journal = new MessageJournal(checkpointFile, journalFile, 100, () -> stored)) {
+            recover(journal);
+            journal.appendStore(msg);
+        }
+        // Simulate a crash half way through writing the next record
+        Files.write(journalFile, "{\"op\":\"STORE\",\"mess".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        Message next = new Message("+27834557896", "It is dinner time!");
+        try (MessageJournal journal = new MessageJournal(checkpointFile, journalFile, 100, () -> stored)) {
+            assertEquals(1, recover(journal).size(), "The torn record should be ignored.");
+            journal.appendStore(next);
+        }
+        try (MessageJournal journal = new MessageJournal(checkpointFile, journalFile, 100, () -> stored)) {
+            assertEquals(2, recover(journal).size(), "Records appended after recovery should not be lost.");
+        }
+    }
+
+    // Applies the replayed records the way the message service does
+    private static List<Message> recover(MessageJournal journal) throws IOException {
+        Map<String, Message> live = new LinkedHashMap<>();
+        journal.recover(msg -> live.put(msg.getMessageID(), msg), live::remove);
+        return new ArrayList<>(live.values());
+    }
+}
@@ -0,0 +1,71 @@
+package org.example;
+// test/MessageRepositoryTest.java
+import org.example.chatapp.auth.Message;
+import org.example.chatapp.auth.MessageRepository;
+import org.example.chatapp.auth.MessageStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MessageRepositoryTest {
+
+    private MessageRepository repository;
+
+    @BeforeEach
+    public void setUp() {
+        repository = new MessageRepository();
+    }
+
+    @Test
+    public void testStatusUpdateMovesMessageBetweenStatuses() {
+        Message msg = new Message("1111111111", "+27838884567", "Ok, I am leaving without you.", "11:0:OKYOU", false);
+        repository.add(msg, MessageStatus.STORED);
+
+        repository.updateStatus(msg, MessageStatus.SENT);
+
+        assertEquals(0, repository.countByStatus(MessageStatus.STORED), "Message should have left the stored messages.");
+        assertEquals(1, repository.countByStatus(MessageStatus.SENT), "Message should now be a sent message.");
+        assertTrue(msg.isSent(), "Message should be flagged as sent.");
+        assertSame(msg, repository.findByID("1111111111"), "ID index should be unaffected by a status change.");
+    }
+
+    @Test
+    public void testDuplicateHashesAreDeletedOneAtATime() {
+        Message first = new Message("1200000001", "+27838884567", "Hi there", "12:0:HITHERE", false);
+        Message second = new Message("1200000002", "+27834557896", "Hi there", "12:0:HITHERE", false);
+        repository.add(first, MessageStatus.STORED);
+        repository.add(second, MessageStatus.STORED);
+
+        assertSame(first, repository.removeByHash("12:0:HITHERE"), "The earliest message with the hash should be removed first.");
+        assertTrue(repository.containsHash("12:0:HITHERE"), "The second message should still be indexed by its hash.");
+        assertSame(second, repository.removeByHash("12:0:HITHERE"), "The second message should be removed next.");
+        assertFalse(repository.containsHash("12:0:HITHERE"), "No message should be left with the hash.");
+        assertNull(repository.removeByHash("12:0:HITHERE"), "Removing an unknown hash should return null.");
+    }
+
+    @Test
+    public void testRemovalKeepsAllIndexesConsistent() {
+        Message msg = new Message("1300000001", "+27838884567", "Where are you?", "13:1:WHEREYOU", true);
+        repository.add(msg, MessageStatus.SENT);
+
+        assertSame(msg, repository.removeByID("1300000001"), "Message should be removed by ID.");
+        assertFalse(repository.containsHash("13:1:WHEREYOU"), "Hash index should no longer hold the message.");
+        assertTrue(repository.findByRecipient("+27838884567").isEmpty(), "Recipient index should no longer hold the message.");
+        assertEquals(0, repository.countByStatus(MessageStatus.SENT), "Status index should no longer hold the message.");
+        assertEquals(0, repository.size(), "Repository should be empty.");
+    }
+
+    @Test
+    public void testDuplicateIDIsRejected() {
+        repository.add(new Message("1400000001", "+27838884567", "First", null, false), MessageStatus.DISREGARDED);
+        assertThrows(IllegalArgumentException.class,
+                () -> repository.add(new Message("1400000001", "+27838884567", "Second", null, false), MessageStatus.STORED));
+        assertEquals("First", repository.findByID("1400000001").getMessageText(), "The original message should be kept.");
+    }
+}
@@ -0,0 +1,155 @@
+package org.example;
+// test/MessageServiceTest.java
+import org.example.chatapp.auth.Message;
+import org.example.chatapp.auth.MessageService;
+import org.example.chatapp.auth.MessageStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MessageServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testSendStoreDisregardSearchAndDelete() throws IOException {
+        MessageService service = new MessageService();
+        Message sent = service.send("+27834557896", "Did you get the cake?");
+        Message stored = service.store("+27838884567", "Where are you? You are late! I have asked you to be on time.");
+        Message disregarded = service.disregard("+27834484567", "Yohoooo, I am at your gate.");
+
+        assertTrue(sent.isSent(), "A sent message should be marked sent.");
+        assertNotNull(stored.getMessageHash(), "A stored message should get a hash.");
+        assertNull(disregarded.getMessageHash(), "A disregarded message should not get a hash.");
+        assertEquals(MessageStatus.DISREGARDED, service.findByID(disregarded.getMessageID()).getStatus(), "Disregarded messages should be held.");
+        assertEquals(List.of(sent), service.searchText("cake"), "Text search should find the sent message.");
+        assertEquals(List.of(stored), service.searchText("\"you are late\""), "Phrase search should find the stored message.");
+        assertEquals(1, service.getSentCount(), "One message should be counted as sent.");
+
+        assertEquals(stored, service.deleteByHash(stored.getMessageHash()), "Deleting by hash should return the message.");
+        assertEquals(0, service.countByStatus(MessageStatus.STORED), "The stored message should be gone.");
+        assertNull(service.deleteByID("missing"), "Deleting an unknown ID should return null.");
+    }
+
+    @Test
+    public void testInvalidInputIsRejected() {
+        MessageService service = new MessageService();
+        assertThrows(IllegalArgumentException.class, () -> service.send("0838968976", "Hi"),
+                "A recipient without an international code should be rejected.");
+        assertThrows(IllegalArgumentException.class, () -> service.send("+27838968976", "x".repeat(Message.MAX_MESSAGE_LENGTH + 1)),
+                "A message over the length limit should be rejected.");
+        assertThrows(IllegalArgumentException.class,
+                () -> service.composeAll(new String[]{"+27838968976", "bad"}, new String[]{"Hi", "There"}),
+                "A batch with an invalid recipient should be rejected as a whole.");
+        assertEquals(0, service.countByStatus(MessageStatus.SENT), "Nothing should have been sent.");
+    }
+
+    @Test
+    public void testBatchStoreSurvivesRestart() throws IOException {
+        Path checkpointFile = tempDir.resolve("stored_messages.json");
+        Path journalFile = tempDir.resolve("stored_messages.journal");
+        String[] recipients = new String[50];
+        String[] texts = new String[50];
+        for (int i = 0; i < recipients.length; i++) {
+            recipients[i] = "+2783455" + String.format("%04d", i);
+            texts[i] = "Batch message " + i;
+        }
+
+        List<Message> messages;
+        try (MessageService service = new MessageService(checkpointFile, journalFile, 16)) {
+            service.loadStoredMessages();
+            messages = service.composeAll(recipients, texts);
+            service.submitAll(messages, MessageStatus.STORED);
+            service.deleteAllByHash(List.of(messages.get(0).getMessageHash()));
+        }
+
+        try (MessageService service = new MessageService(checkpointFile, journalFile, 16)) {
+            assertEquals(49, service.loadStoredMessages(), "Every undeleted stored message should be loaded.");
+            assertNull(service.findByID(messages.get(0).getMessageID()), "The deleted message should stay deleted.");
+            assertEquals("Batch message 49", service.findByID(messages.get(49).getMessageID()).getMessageText(),
+                    "Stored messages should be loaded with their text.");
+        }
+    }
+
+    @Test
+    public void testStoredMessagesAreReadInPlaceAfterRestart() throws IOException {
+        Path storeBasePath = tempDir.resolve("stored_messages");
+        Message late;
+        Message cake;
+        Message scheduled;
+        try (MessageService service = new MessageService(storeBasePath)) {
+            assertEquals(0, service.loadStoredMessages(), "A new store should hold nothing.");
+            late = service.store("+27838884567", "Where are you? You are late!");
+            cake = service.store("+27834557896", "Did you get the cake?");
+            scheduled = service.compose("+27834557896", "Happy birthday!");
+            scheduled.setSendAt(System.currentTimeMillis() + 60_000);
+            service.store(scheduled);
+            assertEquals(3, service.countByStatus(MessageStatus.STORED), "Archived messages should be counted.");
+        }
+
+        try (MessageService service = new MessageService(storeBasePath)) {
+            assertEquals(3, service.loadStoredMessages(), "Every stored message should be opened.");
+            assertEquals("Where are you? You are late!", service.findByID(late.getMessageID()).getMessageText(),
+                    "A stored message should be read from the store by ID.");
+            assertEquals(cake.getMessageID(), service.findByHash(cake.getMessageHash()).getMessageID(),
+                    "A stored message should be found by hash.");
+            assertEquals(2, service.findByRecipient("+27834557896").size(), "Stored messages should be found by recipient.");
+            assertEquals(late.getMessageID(), service.searchText("\"you are late\"").get(0).getMessageID(),
+                    "Stored text should be searchable.");
+            assertEquals(List.of(scheduled.getMessageID()),
+                    service.findScheduled().stream().map(Message::getMessageID).toList(), "The scheduled message should be found.");
+
+            assertEquals(late.getMessageID(), service.deleteByHash(late.getMessageHash()).getMessageID(),
+                    "Deleting by hash should return the message.");
+            assertTrue(service.searchText("late").isEmpty(), "A deleted message should no longer be searchable.");
+            assertTrue(service.sendStored(cake.getMessageID()), "An archived message should be sendable.");
+            assertEquals(MessageStatus.SENT, service.findByID(cake.getMessageID()).getStatus(), "The sent message should be held as sent.");
+            assertFalse(service.sendStored(cake.getMessageID()), "A message should only be sent once.");
+            assertEquals(1, service.countByStatus(MessageStatus.STORED), "One stored message should remain.");
+        }
+
+        try (MessageService service = new MessageService(storeBasePath)) {
+            assertEquals(1, service.loadStoredMessages(), "Deleted and sent messages should not come back.");
+            assertEquals("Happy birthday!", service.findByID(scheduled.getMessageID()).getMessageText(),
+                    "The remaining message should be kept.");
+        }
+    }
+
+    @Test
+    public void testJournalledMessagesAreImportedIntoTheStore() throws IOException {
+        Path checkpointFile = tempDir.resolve("stored_messages.json");
+        Path journalFile = tempDir.resolve("stored_messages.journal");
+        Message kept;
+        try (MessageService service = new MessageService(checkpointFile, journalFile)) {
+            service.loadStoredMessages();
+            kept = service.store("+27838884567", "Where are you? You are late!");
+            Message deleted = service.store("+27834557896", "Did you get the cake?");
+            service.deleteByID(deleted.getMessageID());
+        }
+
+        Path storeBasePath = tempDir.resolve("stored_messages");
+        try (MessageService service = new MessageService(storeBasePath)) {
+            service.loadStoredMessages();
+            assertEquals(1, service.importStoredMessages(checkpointFile, journalFile), "Only the undeleted message should be imported.");
+            assertFalse(Files.exists(checkpointFile) || Files.exists(journalFile), "The journal files should be removed.");
+        }
+
+        try (MessageService service = new MessageService(storeBasePath)) {
+            assertEquals(1, service.loadStoredMessages(), "The imported message should be in the store.");
+            assertEquals("Where are you? You are late!", service.findByID(kept.getMessageID()).getMessageText(),
+                    "The imported message should keep its text.");
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.example;
+// test/MessageStatisticsTest.java
+import org.example.chatapp.auth.Message;
+import org.example.chatapp.auth.MessageRepository;
+import org.example.chatapp.auth.MessageStatistics;
+import org.example.chatapp.auth.MessageStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MessageStatisticsTest {
+
+    private MessageRepository repository;
+    private MessageStatistics sentStatistics;
+
+    @BeforeEach
+    public void setUp() {
+        repository = new MessageRepository();
+        sentStatistics = new MessageStatistics(MessageStatus.SENT);
+        repository.addListener(sentStatistics);
+    }
+
+    @Test
+    public void testLongestSentMessageIgnoresOtherStatuses() {
+        Message msg1 = new Message("+27834557896", "Did you get the cake?");
+        Message msg2 = new Message("+27838884567", "Where are you? You are late! I have asked you to be on time.");
+        Message msg3 = new Message("+27834484567", "Yohoooo, I am at your gate. This one is the longest but it is disregarded.");
+        Message msg4 = new Message("0838884567", "It is dinner time!");
+        repository.add(msg1, MessageStatus.SENT);
+        repository.add(msg2, MessageStatus.SENT);
+        repository.add(msg3, MessageStatus.DISREGARDED);
+        repository.add(msg4, MessageStatus.SENT);
+
+        assertSame(msg2, sentStatistics.getLongest(), "Longest sent message mismatch.");
+        assertEquals(3, sentStatistics.getCount(), "Only sent messages should be counted.");
+        assertEquals(List.of(msg2, msg1, msg4), sentStatistics.getLongest(5), "Top messages should be ordered longest first.");
+        assertEquals(List.of(msg2, msg1, msg4), sentStatistics.getLongest(5), "Reading the top messages should not consume them.");
+    }
+
+    @Test
+    public void testRemovalAndStatusChangesUpdateStatistics() {
+        Message longMsg = new Message("+27838884567", "Where are you? You are late! I have asked you to be on time.");
+        Message shortMsg = new Message("+27834557896", "Did you get the cake?");
+        Message storedMsg = new Message("+27834557896", "Ok, I am leaving without you, and this text is the longest of all.");
+        repository.add(longMsg, MessageStatus.SENT);
+        repository.add(shortMsg, MessageStatus.SENT);
+        repository.add(storedMsg, MessageStatus.STORED);
+
+        repository.removeByID(longMsg.getMessageID());
+        assertSame(shortMsg, sentStatistics.getLongest(), "Deleted messages should no longer count as longest.");
+
+        repository.updateStatus(storedMsg, MessageStatus.SENT);
+        assertSame(storedMsg, sentStatistics.getLongest(), "A stored message that is sent should be tracked.");
+        assertEquals(shortMsg.getMessageText().length() + storedMsg.getMessageText().length(), sentStatistics.getTotalLength(),
+                "Total length should cover the two sent messages.");
+
+        repository.clear();
+        assertNull(sentStatistics.getLongest(), "No longest message should remain after clearing.");
+        assertEquals(0, sentStatistics.getCount(), "Count should be zero after clearing.");
+    }
+
+    @Test
+    public void testTiesGoToEarliestMessageAndHistogramCounts() {
+        Message first = new Message("+27834557896", "abcde");
+        Message second = new Message("+27834557896", "vwxyz");
+        repository.add(first, MessageStatus.SENT);
+        repository.add(second, MessageStatus.SENT);
+
+        assertSame(first, sentStatistics.getLongest(), "Ties should go to the first message, as in the original report.");
+        assertEquals(2, sentStatistics.getLengthHistogram()[5], "Both messages should be in the length 5 bucket.");
+        assertEquals(5.0, sentStatistics.getAverageLength(), 0.0001, "Average length mismatch.");
+    }
+
+    @Test
+    public void testOverlongRestoredMessagesRankFirst() {
+        Message normal = new Message("+27834557896", "x".repeat(Message.MAX_MESSAGE_LENGTH));
+        // Restored messages skip the length check, so older files may hold longer ones
+        Message overlong = new Message("0000000001", "+27834557896", "y".repeat(Message.MAX_MESSAGE_LENGTH + 10), null, true);
+        repository.add(normal, MessageStatus.SENT);
+        repository.add(overlong, MessageStatus.SENT);
+
+        assertEquals(List.of(overlong, normal), sentStatistics.getLongest(5), "Overlong messages should come first.");
+        repository.removeByID(overlong.getMessageID());
+        assertSame(normal, sentStatistics.getLongest(), "A removed overlong message should no longer count.");
+    }
+
+    @Test
+    public void testManyRemovalsKeepBucketsCorrect() {
+        Message keeper = new Message("+27834557896", "x".repeat(10));
+        repository.add(keeper, MessageStatus.SENT);
+        for (int i = 0; i < 500; i++) {
+            Message msg = new Message("+27834557896", "y".repeat(20 + i % 200));
+            repository.add(msg, MessageStatus.SENT);
+            repository.removeByID(msg.getMessageID());
+        }
+        assertSame(keeper, sentStatistics.getLongest(), "Removed messages should never be reported.");
+        assertEquals(1, sentStatistics.getLongest(10).size(), "Only the live message should be returned.");
+        assertEquals(List.of(), sentStatistics.getLongest(0), "Asking for no messages should return none.");
+        assertThrows(IllegalArgumentException.class, () -> sentStatistics.getLongest(-1), "A negative count should be rejected.");
+    }
+}
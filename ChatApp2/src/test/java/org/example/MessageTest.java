@@ -1,14 +1,15 @@
 package org.example;
 // test/MessageTest.java (Part 3)
 import org.example.chatapp.auth.Login;
-import org.example.chatapp.auth.Main;
 import org.example.chatapp.auth.Message;
+import org.example.chatapp.auth.MessageCounters;
+import org.example.chatapp.auth.MessageRepository;
+import org.example.chatapp.auth.MessageStatus;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import java.lang.reflect.Field; // For reflective access to private static fields
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -17,91 +18,16 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 public class MessageTest {
 
     private Login loginApp; // Needed to reuse checkCellPhoneNumber for recipient tests
-    // Reflective access to Main's static lists for testing purposes
-    private static List<Message> sentMessages;
-    private static List<Message> storedMessages;
-    private static List<Message> disregardedMessages;
-    private static List<String> messageHashes;
-    private static List<String> messageIDs;
-
-
-    // Helper to reset static fields in Main for testing purposes
-    // This is crucial for isolated unit tests when dealing with static collections.
-    @SuppressWarnings("unchecked")
-    private void resetMainStaticFields() {
-        try {
-            // Get the Field object for each static list
-            Field sentMessagesField = Main.class.getDeclaredField("sentMessages");
-            sentMessagesField.setAccessible(true); // Allow access to private field
-            // Add null check for sentMessages. If it's not initialized, initialize it.
-            Object sentMessagesObj = sentMessagesField.get(null);
-            if (sentMessagesObj instanceof List) {
-                sentMessages = (List<Message>) sentMessagesObj;
-            } else {
-                sentMessages = new ArrayList<>(); // Initialize if not already a list
-                sentMessagesField.set(null, sentMessages); // Set the field back to the new list
-            }
-            sentMessages.clear(); // Clear the list
-
-            Field storedMessagesField = Main.class.getDeclaredField("storedMessages");
-            storedMessagesField.setAccessible(true);
-            Object storedMessagesObj = storedMessagesField.get(null);
-            if (storedMessagesObj instanceof List) {
-                storedMessages = (List<Message>) storedMessagesObj;
-            } else {
-                storedMessages = new ArrayList<>();
-                storedMessagesField.set(null, storedMessages);
-            }
-            storedMessages.clear();
-
-            Field disregardedMessagesField = Main.class.getDeclaredField("disregardedMessages");
-            disregardedMessagesField.setAccessible(true);
-            Object disregardedMessagesObj = disregardedMessagesField.get(null);
-            if (disregardedMessagesObj instanceof List) {
-                disregardedMessages = (List<Message>) disregardedMessagesObj;
-            } else {
-                disregardedMessages = new ArrayList<>();
-                disregardedMessagesField.set(null, disregardedMessages);
-            }
-            disregardedMessages.clear();
-
-            Field messageHashesField = Main.class.getDeclaredField("messageHashes");
-            messageHashesField.setAccessible(true);
-            Object messageHashesObj = messageHashesField.get(null);
-            if (messageHashesObj instanceof List) {
-                messageHashes = (List<String>) messageHashesObj;
-            } else {
-                messageHashes = new ArrayList<>();
-                messageHashesField.set(null, messageHashes);
-            }
-            messageHashes.clear();
-
-
-            Field messageIDsField = Main.class.getDeclaredField("messageIDs");
-            messageIDsField.setAccessible(true);
-            Object messageIDsObj = messageIDsField.get(null);
-            if (messageIDsObj instanceof List) {
-                messageIDs = (List<String>) messageIDsObj;
-            } else {
-                messageIDs = new ArrayList<>();
-                messageIDsField.set(null, messageIDs);
-            }
-            messageIDs.clear();
-
-
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            e.printStackTrace();
-            Assertions.fail("Failed to reset static fields in Main. Check field names or access permissions.", e);
-        }
-    }
+    // Repository standing in for Main's message store; a fresh one per test keeps tests isolated
+    private MessageRepository repository;
 
 
     @BeforeEach
     public void setUp() {
-        // Reset the static counter for totalMessagesSent before each test
-        Message.totalMessagesSent = 0;
+        // Reset the sent sequence (totalMessagesSent) before each test
+        Message.setCounters(new MessageCounters());
         loginApp = new Login(); // Initialize Login for cell number validation
-        resetMainStaticFields(); // Reset static lists in Main before each test
+        repository = new MessageRepository(); // Fresh message store before each test
     }
 
     // --- Tests for Message Length ---
@@ -164,7 +90,7 @@ public class MessageTest {
 
     @Test
     public void testMessageHashGenerationForMessage2() {
-        Message.totalMessagesSent = 1; // Simulate that one message was already sent before this one.
+        Message.setCounters(new MessageCounters(1)); // Simulate that one message was already sent before this one.
         String recipient2 = "08575975889";
         String messageText2 = "Hi Keegan, did you receive the payment?";
         Message msg2 = new Message(recipient2, messageText2);
@@ -186,9 +112,57 @@ public class MessageTest {
         );
     }
 
+    /**
+     * The single-pass hash must match the original split/replaceAll/toUpperCase version exactly.
+     */
+    @Test
+    public void testMessageHashMatchesOriginalAlgorithm() {
+        Message.setCounters(new MessageCounters(3));
+        String[] texts = {
+                "Hi Mike, can you join us for dinner tonight",
+                "Hi Keegan, did you receive the payment?",
+                "Hello", "", " ", "   ", " leading space", "trailing space   ", "\tTabbed\ttext\n",
+                "One", "?!", "a,b c.d", "Caf\u00e9 na\u00efve r\u00e9sum\u00e9", "mixed \u000B vertical\fform\rfeed",
+                "non\u00a0breaking space", "123 456", "x"
+        };
+        for (String text : texts) {
+            Message msg = new Message("+27718693002", text);
+            assertEquals(originalMessageHash(msg.getMessageID(), text, Message.getTotalMessagesSent()), msg.createMessageHash(),
+                    "Hash mismatch for text: \"" + text + "\"");
+        }
+
+        Random random = new Random(5121);
+        String alphabet = "aZ9 \t\n!?._\u00e9";
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(20);
+            for (int j = 0; j < length; j++) {
+                text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            Message msg = new Message("+27718693002", text.toString());
+            assertEquals(originalMessageHash(msg.getMessageID(), text.toString(), Message.getTotalMessagesSent()),
+                    msg.createMessageHash(), "Hash mismatch for text: \"" + text + "\"");
+        }
+    }
+
+    // The original regex-based createMessageHash, kept as a reference for the test above
+    private static String originalMessageHash(String messageID, String messageText, int totalMessagesSent) {
+        String firstTwoID = messageID.substring(0, 2);
+        String[] words = messageText.split("\\s+");
+        String firstWord = "";
+        String lastWord = "";
+        if (words.length > 0) {
+            firstWord = words[0];
+            lastWord = words.length > 1 ? words[words.length - 1] : firstWord;
+        }
+        firstWord = firstWord.replaceAll("[^a-zA-Z0-9]", "");
+        lastWord = lastWord.replaceAll("[^a-zA-Z0-9]", "");
+        return String.format("%s:%d:%s", firstTwoID, totalMessagesSent, (firstWord + lastWord).toUpperCase());
+    }
+
     @Test
     public void testTotalMessagesSentIncrement() {
-        Message.totalMessagesSent = 0; // Ensure fresh start
+        Message.setCounters(new MessageCounters(0)); // Ensure fresh start
         Message.incrementTotalMessagesSent();
         Assertions.assertEquals(1, Message.getTotalMessagesSent(), "Total messages sent should be 1 after first increment.");
         Message.incrementTotalMessagesSent();
@@ -207,30 +181,26 @@ public class MessageTest {
         Message msg1 = new Message("+27834557896", "Did you get the cake?");
         msg1.setSent(true);
         msg1.createMessageHash();
-        sentMessages.add(msg1);
-        messageIDs.add(msg1.getMessageID());
-        messageHashes.add(msg1.getMessageHash());
+        repository.add(msg1, MessageStatus.SENT);
 
         // Simulate sending Message 4
         Message.incrementTotalMessagesSent();
         Message msg4 = new Message("0838884567", "It is dinner time!");
         msg4.setSent(true);
         msg4.createMessageHash();
-        sentMessages.add(msg4);
-        messageIDs.add(msg4.getMessageID());
-        messageHashes.add(msg4.getMessageHash());
+        repository.add(msg4, MessageStatus.SENT);
 
+        List<Message> sentMessages = repository.findByStatus(MessageStatus.SENT);
         assertEquals(2, sentMessages.size(), "Sent messages array should contain 2 messages.");
         assertEquals("Did you get the cake?", sentMessages.get(0).getMessageText(), "First sent message text mismatch.");
         assertEquals("It is dinner time!", sentMessages.get(1).getMessageText(), "Second sent message text mismatch.");
 
         // Verify message IDs and hashes are also captured
-        assertEquals(2, messageIDs.size(), "Message IDs array should contain 2 IDs.");
-        assertEquals(2, messageHashes.size(), "Message hashes array should contain 2 hashes.");
-        assertTrue(messageIDs.contains(msg1.getMessageID()));
-        assertTrue(messageIDs.contains(msg4.getMessageID()));
-        assertTrue(messageHashes.contains(msg1.getMessageHash()));
-        assertTrue(messageHashes.contains(msg4.getMessageHash()));
+        assertEquals(2, repository.size(), "Repository should contain 2 messages.");
+        assertTrue(repository.containsID(msg1.getMessageID()));
+        assertTrue(repository.containsID(msg4.getMessageID()));
+        assertTrue(repository.containsHash(msg1.getMessageHash()));
+        assertTrue(repository.containsHash(msg4.getMessageHash()));
     }
 
     /**
@@ -239,38 +209,35 @@ public class MessageTest {
     @Test
     public void testDisplayLongestMessage() {
         // Clear existing messages to ensure only test data for this specific test is used
-        sentMessages.clear();
-        Message.totalMessagesSent = 0; // Reset static counter
+        repository.clear();
+        Message.setCounters(new MessageCounters(0)); // Reset static counter
 
         // Populate messages based on the provided test data, specifically for *sent* messages.
         // Message 1 (Sent)
         Message.incrementTotalMessagesSent();
         Message msg1 = new Message("+27834557896", "Did you get the cake?");
-        msg1.setSent(true);
-        sentMessages.add(msg1);
+        repository.add(msg1, MessageStatus.SENT);
 
         // Message 2 (Marked as sent for this test to be considered for longest *sent* message)
         Message.incrementTotalMessagesSent();
         Message msg2 = new Message("+27838884567", "Where are you? You are late! I have asked you to be on time.");
-        msg2.setSent(true);
-        sentMessages.add(msg2);
+        repository.add(msg2, MessageStatus.SENT);
 
         // Message 3 (Disregard - not sent, so not considered for 'longest sent')
         Message msg3 = new Message("+27834484567", "Yohoooo, I am at your gate.");
-        disregardedMessages.add(msg3);
+        repository.add(msg3, MessageStatus.DISREGARDED);
 
         // Message 4 (Sent)
         Message.incrementTotalMessagesSent();
         Message msg4 = new Message("0838884567", "It is dinner time!");
-        msg4.setSent(true);
-        sentMessages.add(msg4);
+        repository.add(msg4, MessageStatus.SENT);
 
 
-        // Simulate the logic for finding the longest message within `sentMessages`.
+        // Simulate the logic for finding the longest message within the sent messages.
         Message longestMessage = null;
         int maxLength = -1;
 
-        for (Message msg : sentMessages) {
+        for (Message msg : repository.findByStatus(MessageStatus.SENT)) {
             if (msg.getMessageText().length() > maxLength) {
                 maxLength = msg.getMessageText().length();
                 longestMessage = msg;
@@ -288,39 +255,14 @@ public class MessageTest {
     public void testSearchMessageByID() {
         // Simulate adding Message 4
         Message msg4 = new Message("0838884567", "It is dinner time!");
-        msg4.setSent(true); // Flag as sent
         msg4.createMessageHash(); // Ensure hash is created
-        sentMessages.add(msg4); // Add to sent messages list
-        messageIDs.add(msg4.getMessageID()); // Add to the IDs list
+        repository.add(msg4, MessageStatus.SENT); // Add to the repository as a sent message
 
         // For the test, we know the ID.
-        Message found = null;
         String expectedID = msg4.getMessageID(); // The actual generated ID of msg4
 
-        // Simulate search logic that would be in Main.searchMessageByID
-        // It checks sent, then stored, then disregarded.
-        for (Message msg : sentMessages) {
-            if (msg.getMessageID().equals(expectedID)) {
-                found = msg;
-                break;
-            }
-        }
-        if (found == null) {
-            for (Message msg : storedMessages) {
-                if (msg.getMessageID().equals(expectedID)) {
-                    found = msg;
-                    break;
-                }
-            }
-        }
-        if (found == null) {
-            for (Message msg : disregardedMessages) {
-                if (msg.getMessageID().equals(expectedID)) {
-                    found = msg;
-                    break;
-                }
-            }
-        }
+        // The repository's ID index covers sent, stored and disregarded messages.
+        Message found = repository.findByID(expectedID);
 
         Assertions.assertNotNull(found, "Message with expected ID should be found.");
         Assertions.assertEquals("It is dinner time!", found.getMessageText(), "Message text for found ID mismatch.");
@@ -334,33 +276,16 @@ public class MessageTest {
         // Message 2 (Stored)
         Message msg2 = new Message("+27838884567", "Where are you? You are late! I have asked you to be on time.");
         msg2.createMessageHash(); // Ensure hash is created for this message
-        storedMessages.add(msg2); // Add to stored messages list
+        repository.add(msg2, MessageStatus.STORED); // Add as a stored message
 
         // Message 5 (Stored)
         Message msg5 = new Message("+27838884567", "Ok, I am leaving without you.");
         msg5.createMessageHash(); // Ensure hash is created for this message
-        storedMessages.add(msg5); // Add to stored messages list
+        repository.add(msg5, MessageStatus.STORED); // Add as a stored message
 
-        // Now, simulate the search for these messages
+        // Now search for these messages through the repository's recipient index
         String searchRecipient = "+27838884567";
-        List<Message> foundMessages = new ArrayList<>();
-
-        // Search through all relevant lists (sent, stored, disregarded)
-        for (Message msg : sentMessages) {
-            if (msg.getRecipientCellNumber().equals(searchRecipient)) {
-                foundMessages.add(msg);
-            }
-        }
-        for (Message msg : storedMessages) {
-            if (msg.getRecipientCellNumber().equals(searchRecipient)) {
-                foundMessages.add(msg);
-            }
-        }
-        for (Message msg : disregardedMessages) {
-            if (msg.getRecipientCellNumber().equals(searchRecipient)) {
-                foundMessages.add(msg);
-            }
-        }
+        List<Message> foundMessages = repository.findByRecipient(searchRecipient);
 
         assertEquals(2, foundMessages.size(), "Should find 2 messages for the recipient.");
         assertTrue(foundMessages.stream().anyMatch(m -> m.getMessageText().equals("Where are you? You are late! I have asked you to be on time.")), "Missing first expected message.");
@@ -375,31 +300,18 @@ public class MessageTest {
         // Simulate adding Message 2, ensuring its hash is generated, and it's in a list.
         Message msg2 = new Message("+27838884567", "Where are you? You are late! I have asked you to be on time.");
         msg2.createMessageHash(); // Generate the hash
-        storedMessages.add(msg2); // Add to stored messages list (as per test data "Flag: Stored")
-        messageHashes.add(msg2.getMessageHash()); // Add to messageHashes list
-        messageIDs.add(msg2.getMessageID()); // Add to messageIDs list
+        repository.add(msg2, MessageStatus.STORED); // Add as a stored message (as per test data "Flag: Stored")
 
         String hashToDelete = msg2.getMessageHash(); // Get the actual hash for testing
 
-        // Simulate the deletion logic that would be in Main.deleteMessageByHash
-        boolean foundAndRemoved = false;
-        // Search and remove from storedMessages (as this is where msg2 was added for this test)
-        var storedIterator = storedMessages.iterator();
-        while (storedIterator.hasNext()) {
-            Message msg = storedIterator.next();
-            if (msg.getMessageHash() != null && msg.getMessageHash().equals(hashToDelete.trim())) {
-                storedIterator.remove();
-                foundAndRemoved = true;
-                messageIDs.remove(msg.getMessageID()); // Also remove from global ID/Hash lists
-                messageHashes.remove(msg.getMessageHash());
-                break;
-            }
-        }
+        // Delete through the hash index, which also removes the message from the other indexes
+        Message removed = repository.removeByHash(hashToDelete.trim());
+        boolean foundAndRemoved = removed != null;
 
         assertTrue(foundAndRemoved, "Message with hash should be found and removed.");
-        assertFalse(storedMessages.contains(msg2), "Message should no longer be in storedMessages list.");
-        assertFalse(messageHashes.contains(hashToDelete), "Message hash should be removed from messageHashes list.");
-        assertFalse(messageIDs.contains(msg2.getMessageID()), "Message ID should be removed from messageIDs list.");
-        assertEquals(0, storedMessages.size(), "Stored messages list should be empty after deletion.");
+        assertFalse(repository.findByStatus(MessageStatus.STORED).contains(msg2), "Message should no longer be in the stored messages.");
+        assertFalse(repository.containsHash(hashToDelete), "Message hash should be removed from the hash index.");
+        assertFalse(repository.containsID(msg2.getMessageID()), "Message ID should be removed from the ID index.");
+        assertEquals(0, repository.countByStatus(MessageStatus.STORED), "Stored messages should be empty after deletion.");
     }
 }
\ No newline at end of file
@@ -0,0 +1,103 @@
+package org.example;
+// test/MessageTextIndexTest.java
+import org.example.chatapp.auth.Message;
+import org.example.chatapp.auth.MessageRepository;
+import org.example.chatapp.auth.MessageStatus;
+import org.example.chatapp.auth.MessageTextIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MessageTextIndexTest {
+
+    private MessageRepository repository;
+    private MessageTextIndex textIndex;
+    private Message msg1;
+    private Message msg2;
+    private Message msg3;
+
+    @BeforeEach
+    public void setUp() {
+        repository = new MessageRepository();
+        textIndex = new MessageTextIndex();
+        repository.addListener(textIndex);
+
+        msg1 = new Message("+27718693002", "Hi Mike, can you join us for dinner tonight");
+        msg2 = new Message("+27838884567", "Where are you? You are late! I have asked you to be on time.");
+        msg3 = new Message("0838884567", "It is dinner time!");
+        repository.add(msg1, MessageStatus.SENT);
+        repository.add(msg2, MessageStatus.STORED);
+        repository.add(msg3, MessageStatus.DISREGARDED);
+    }
+
+    @Test
+    public void testTermSearchIgnoresCaseAndPunctuation() {
+        assertEquals(List.of(msg1, msg3), textIndex.searchTerm("DINNER"), "Both dinner messages should match.");
+        assertEquals(List.of(msg1, msg2), textIndex.searchTerm("you"), "A term repeated in one message should list it once.");
+        assertTrue(textIndex.searchTerm("breakfast").isEmpty(), "Unknown terms should match nothing.");
+    }
+
+    @Test
+    public void testPhraseSearchRequiresAdjacentWordsInOrder() {
+        assertEquals(List.of(msg3), textIndex.searchPhrase("dinner time"), "Only the adjacent phrase should match.");
+        assertEquals(List.of(msg2), textIndex.searchPhrase("be on time"), "Three word phrase mismatch.");
+        assertTrue(textIndex.searchPhrase("time dinner").isEmpty(), "Words in the wrong order should not match.");
+        assertEquals(List.of(msg3), textIndex.searchAllTerms("time dinner"), "Any-order search should match regardless of order.");
+    }
+
+    @Test
+    public void testDeletedMessagesAreNotReturned() {
+        repository.removeByID(msg3.getMessageID());
+        assertEquals(List.of(msg1), textIndex.searchTerm("dinner"), "Deleted messages should not be found.");
+        assertTrue(textIndex.searchPhrase("dinner time").isEmpty(), "Deleted messages should not match phrases.");
+    }
+
+    @Test
+    public void testPurgeKeepsLiveMessagesSearchable() {
+        for (int i = 0; i < 3000; i++) {
+            Message temp = new Message("+27834557896", "temporary dinner note " + i);
+            repository.add(temp, MessageStatus.STORED);
+            repository.removeByID(temp.getMessageID());
+        }
+        assertEquals(List.of(msg1, msg3), textIndex.searchTerm("dinner"), "Live messages should survive purging.");
+        assertTrue(textIndex.searchTerm("temporary").isEmpty(), "Purged messages should not be found.");
+    }
+
+    @Test
+    public void testAllTermsSearchWalksLongListsFromTheShortest() {
+        List<Message> expected = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            boolean rare = i % 250 == 7;
+            Message message = new Message("+27834557896", "common filler " + (i % 3 == 0 ? "third " : "") + (rare ? "rare" : ""));
+            repository.add(message, MessageStatus.STORED);
+            if (rare && i % 3 == 0) {
+                expected.add(message);
+            }
+        }
+        assertEquals(expected, textIndex.searchAllTerms("third common rare"), "Only messages with every term should match, in order.");
+        assertEquals(expected, textIndex.searchAllTerms("rare third rare"), "Repeated query terms should not change the result.");
+        assertTrue(textIndex.searchAllTerms("common missing").isEmpty(), "An unknown term should match nothing.");
+    }
+
+    @Test
+    public void testPurgeRenumbersLiveMessages() {
+        for (int i = 0; i < 3000; i++) {
+            Message temp = new Message("+27834557896", "temporary dinner note " + i);
+            repository.add(temp, MessageStatus.STORED);
+            repository.removeByID(temp.getMessageID());
+        }
+        Message later = new Message("+27834557896", "Dinner time moved to eight");
+        repository.add(later, MessageStatus.STORED);
+        assertEquals(List.of(msg1, msg3, later), textIndex.searchTerm("dinner"), "Messages added after a purge should follow the survivors.");
+        assertEquals(List.of(msg3, later), textIndex.searchPhrase("dinner time"), "Phrases should match after renumbering.");
+        assertEquals(List.of(msg3, later), textIndex.searchAllTerms("time dinner"), "All-terms search should match after renumbering.");
+
+        repository.removeByID(msg3.getMessageID());
+        assertEquals(List.of(msg1, later), textIndex.searchTerm("dinner"), "A renumbered message should still be removable.");
+    }
+}
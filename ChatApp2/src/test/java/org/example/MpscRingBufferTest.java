@@ -0,0 +1,69 @@
+package org.example;
+// test/MpscRingBufferTest.java
+import org.example.chatapp.auth.MpscRingBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MpscRingBufferTest {
+
+    @Test
+    public void testBoundedFifoAcrossWrapAround() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(3);
+        assertEquals(4, buffer.capacity(), "Capacity should round up to a power of two.");
+        for (int lap = 0; lap < 3; lap++) {
+            for (int i = 0; i < 4; i++) {
+                assertTrue(buffer.offer(lap * 10 + i), "There should be room for four elements.");
+            }
+            assertFalse(buffer.offer(99), "A full buffer should refuse more.");
+            List<Integer> drained = new ArrayList<>();
+            assertEquals(4, buffer.drain(drained::add, 10), "Everything should be drained.");
+            assertEquals(List.of(lap * 10, lap * 10 + 1, lap * 10 + 2, lap * 10 + 3), drained, "Elements should come out in order.");
+        }
+        assertNull(buffer.poll(), "An empty buffer should return null.");
+        assertTrue(buffer.isEmpty(), "The buffer should be empty.");
+    }
+
+    @Test
+    public void testConcurrentProducersLoseNothing() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 50_000;
+        MpscRingBuffer<long[]> buffer = new MpscRingBuffer<>(1024);
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(new long[]{producer, i})) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+            threads[p].start();
+        }
+
+        long[] nextExpected = new long[producers];
+        int received = 0;
+        while (received < producers * perProducer) {
+            long[] element = buffer.poll();
+            if (element == null) {
+                Thread.yield();
+                continue;
+            }
+            int producer = (int) element[0];
+            assertEquals(nextExpected[producer], element[1], "Each producer's elements should arrive in order.");
+            nextExpected[producer]++;
+            received++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(buffer.isEmpty(), "Nothing should be left over.");
+    }
+}
@@ -0,0 +1,141 @@
+package org.example;
+// test/NioChatServerTest.java
+import org.example.chatapp.auth.CredentialVerifier;
+import org.example.chatapp.auth.Login;
+import org.example.chatapp.auth.MessageService;
+import org.example.chatapp.auth.NioChatServer;
+import org.example.chatapp.auth.PasswordHasher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NioChatServerTest {
+
+    private MessageService messageService;
+    private NioChatServer server;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Login.clearUsersForTesting();
+        // Every client logs in at once; the queue must hold them all or some are shed as overload
+        Login.setCredentialVerifier(new CredentialVerifier(new PasswordHasher(1000), 2, 256, CredentialVerifier.DEFAULT_CACHE_TTL_MILLIS));
+        messageService = new MessageService();
+        server = NioChatServer.start(0, messageService);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        server.close();
+        Login.setCredentialVerifier(new CredentialVerifier(new PasswordHasher()));
+        Login.clearUsersForTesting();
+    }
+
+    @Test
+    public void testFramedRequestsAreAnsweredInOrder() throws IOException {
+        try (Client client = new Client(server.getPort())) {
+            assertEquals("OK", client.request("REGISTER kyl_1 Ch&&sec@ke99! +27838968976 Kyle Smith"), "Registration should succeed.");
+            assertTrue(client.request("LOGIN kyl_1 Ch&&sec@ke99!").startsWith("OK "), "Login should succeed.");
+
+            // Pipelined: all three requests are written before any response is read
+            client.write("SEND +27834557896 Did you get the cake?");
+            client.write("STORE +27838884567 Where are you? You are late!");
+            client.write("SEARCH \"you are late\"");
+            assertTrue(client.read().startsWith("OK "), "The send should be answered first.");
+            String[] stored = client.read().split(" ");
+            String search = client.read();
+            assertEquals("OK 1\nMSG " + stored[1] + " STORED +27838884567 Where are you? You are late!", search,
+                    "A multi-line result should arrive as one frame.");
+            assertEquals("OK Goodbye.", client.request("QUIT"), "Quit should be acknowledged.");
+            assertThrows(EOFException.class, client::read, "The server should close the connection after quit.");
+        }
+    }
+
+    @Test
+    public void testOversizedFrameClosesConnection() throws IOException {
+        try (Client client = new Client(server.getPort())) {
+            client.out.writeInt(NioChatServer.MAX_FRAME_BYTES + 1);
+            client.out.flush();
+            assertTrue(client.read().startsWith("ERR Frame length"), "An oversized frame should be refused.");
+            assertThrows(EOFException.class, client::read, "The connection should then be closed.");
+        }
+    }
+
+    @Test
+    public void testManyConcurrentClients() throws Exception {
+        int clients = 200;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                String username = "n_" + i;
+                results.add(executor.submit(() -> {
+                    try (Client client = new Client(server.getPort())) {
+                        client.request("REGISTER " + username + " Pa$$w0rd! +27838968976 First Last");
+                        client.request("LOGIN " + username + " Pa$$w0rd!");
+                        // A response larger than one pooled buffer has to be written in chunks
+                        client.request("SEND +27834557896 " + "x".repeat(200));
+                        return client.request("RECIPIENT +27834557896");
+                    }
+                }));
+            }
+            for (Future<String> result : results) {
+                assertTrue(result.get().startsWith("OK "), "Every client should be answered.");
+            }
+        }
+        assertEquals(clients, messageService.getSentCount(), "Every message should reach the shared service.");
+    }
+
+    private static final class Client implements AutoCloseable {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+
+        Client(int port) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            in = new DataInputStream(socket.getInputStream());
+            out = new DataOutputStream(socket.getOutputStream());
+        }
+
+        String request(String request) throws IOException {
+            write(request);
+            return read();
+        }
+
+        void write(String request) throws IOException {
+            byte[] body = request.getBytes(StandardCharsets.UTF_8);
+            ByteArrayOutputStream frame = new ByteArrayOutputStream(4 + body.length);
+            new DataOutputStream(frame).writeInt(body.length);
+            frame.write(body);
+            out.write(frame.toByteArray());
+            out.flush();
+        }
+
+        String read() throws IOException {
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            return new String(body, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package org.example;
+// test/OrderedDeliveryTransportTest.java
+import org.example.chatapp.auth.DeliveryTransport;
+import org.example.chatapp.auth.Message;
+import org.example.chatapp.auth.OrderedDeliveryTransport;
+import org.example.chatapp.auth.RetryingTransport;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class OrderedDeliveryTransportTest {
+
+    // Rejects each message's first attempt, and records the messages it accepts
+    private static final class RejectFirstTransport implements DeliveryTransport {
+        final List<String> accepted = Collections.synchronizedList(new ArrayList<>());
+        final List<String> attempted = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public CompletableFuture<Void> send(Message message) {
+            if (!attempted.contains(message.getMessageID())) {
+                attempted.add(message.getMessageID());
+                return CompletableFuture.failedFuture(new IOException("Gateway busy."));
+            }
+            accepted.add(message.getMessageText());
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    public void testRetriedMessagesAreNotOvertaken() throws Exception {
+        RejectFirstTransport gateway = new RejectFirstTransport();
+        List<CompletableFuture<Void>> acks = new ArrayList<>();
+        try (OrderedDeliveryTransport transport = new OrderedDeliveryTransport(new RetryingTransport(gateway, 3, 1, 2))) {
+            for (int i = 0; i < 20; i++) {
+                acks.add(transport.send(new Message("+27831234567", "To A " + i)));
+                acks.add(transport.send(new Message("+27839876543", "To B " + i)));
+            }
+            CompletableFuture.allOf(acks.toArray(CompletableFuture<?>[]::new)).get(10, TimeUnit.SECONDS);
+        }
+        List<String> toA = new ArrayList<>();
+        List<String> toB = new ArrayList<>();
+        for (String text : gateway.accepted) {
+            (text.startsWith("To A") ? toA : toB).add(text);
+        }
+        for (int i = 0; i < 20; i++) {
+            assertEquals("To A " + i, toA.get(i), "Messages to one recipient should be delivered in order");
+            assertEquals("To B " + i, toB.get(i), "Messages to one recipient should be delivered in order");
+        }
+    }
+
+    @Test
+    public void testSlowRecipientDoesNotHoldUpOthers() throws Exception {
+        // Holds every delivery to one recipient until released, and acknowledges the rest at once
+        Map<String, CompletableFuture<Void>> held = new ConcurrentHashMap<>();
+        DeliveryTransport gateway = new DeliveryTransport() {
+            @Override
+            public CompletableFuture<Void> send(Message message) {
+                if (!message.getRecipientCellNumber().equals("+27831234567")) {
+                    return CompletableFuture.completedFuture(null);
+                }
+                CompletableFuture<Void> ack = new CompletableFuture<>();
+                held.put(message.getMessageText(), ack);
+                return ack;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        try (OrderedDeliveryTransport transport = new OrderedDeliveryTransport(gateway)) {
+            CompletableFuture<Void> first = transport.send(new Message("+27831234567", "Slow 1"));
+            CompletableFuture<Void> second = transport.send(new Message("+27831234567", "Slow 2"));
+            List<CompletableFuture<Void>> others = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                others.add(transport.send(new Message("+2783" + (1_000_000 + i), "Fast " + i)));
+            }
+            CompletableFuture.allOf(others.toArray(CompletableFuture<?>[]::new)).get(10, TimeUnit.SECONDS);
+            assertFalse(held.containsKey("Slow 2"), "A recipient's next message should wait for the previous one");
+
+            held.get("Slow 1").complete(null);
+            first.get(5, TimeUnit.SECONDS);
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (!held.containsKey("Slow 2") && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            held.get("Slow 2").complete(null);
+            second.get(5, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.example;
+// test/OutboundDispatcherTest.java
+import org.example.chatapp.auth.BackpressurePolicy;
+import org.example.chatapp.auth.DeliveryTransport;
+import org.example.chatapp.auth.LoopbackGateway;
+import org.example.chatapp.auth.Message;
+import org.example.chatapp.auth.MessageService;
+import org.example.chatapp.auth.MessageStatus;
+import org.example.chatapp.auth.OutboundDispatcher;
+import org.example.chatapp.auth.PipelinedTransport;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OutboundDispatcherTest {
+
+    // Holds the dispatcher thread inside its first batch until released, so the queue can fill up
+    private static final class GatedMessageService extends MessageService {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Integer> batchSizes = new ArrayList<>();
+
+        @Override
+        public void submitAll(List<Message> messages, MessageStatus action) throws IOException {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            batchSizes.add(messages.size());
+            super.submitAll(messages, action);
+        }
+    }
+
+    @Test
+    public void testConcurrentSendsAreBatched() throws InterruptedException {
+        MessageService service = new MessageService();
+        int producers = 4;
+        int perProducer = 2000;
+        try (OutboundDispatcher outbound = OutboundDispatcher.start(service, 256, 64, BackpressurePolicy.BLOCK)) {
+            Thread[] threads = new Thread[producers];
+            for (int p = 0; p < producers; p++) {
+                threads[p] = new Thread(() -> {
+                    for (int i = 0; i < perProducer; i++) {
+                        outbound.submit(service.compose("+27834557896", "Message " + i));
+                    }
+                });
+                threads[p].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertTrue(outbound.flush(10_000), "Every queued message should be sent.");
+            assertEquals(producers * perProducer, outbound.getDispatchedCount(), "Every message should be dispatched.");
+        }
+        assertEquals(producers * perProducer, service.getSentCount(), "Every message should be sent through the service.");
+        Message sent = service.findByStatus(MessageStatus.SENT).get(0);
+        assertNotNull(sent.getMessageHash(), "Dispatched messages should be hashed.");
+    }
+
+    @Test
+    public void testDropAndFailPoliciesWhenFull() throws InterruptedException {
+        GatedMessageService service = new GatedMessageService();
+        try (OutboundDispatcher outbound = OutboundDispatcher.start(service, 2, 8, BackpressurePolicy.DROP)) {
+            assertTrue(outbound.submit(service.compose("+27834557896", "First")), "The first message should be queued.");
+            service.entered.await(); // The dispatcher now holds the first message and is stuck
+            assertTrue(outbound.submit(service.compose("+27834557896", "Second")), "The queue should have room.");
+            assertTrue(outbound.submit(service.compose("+27834557896", "Third")), "The queue should have room.");
+            try {
+                assertFalse(outbound.submit(service.compose("+27834557896", "Fourth")), "A full queue should drop.");
+                assertEquals(1, outbound.getDroppedCount(), "The drop should be counted.");
+            } finally {
+                service.release.countDown();
+            }
+            assertTrue(outbound.flush(10_000), "Queued messages should be sent once the dispatcher resumes.");
+            assertEquals(List.of(1, 2), service.batchSizes, "The waiting messages should be sent as one batch.");
+        }
+
+        GatedMessageService failing = new GatedMessageService();
+        try (OutboundDispatcher outbound = OutboundDispatcher.start(failing, 2, 8, BackpressurePolicy.FAIL)) {
+            outbound.submit(failing.compose("+27834557896", "First"));
+            failing.entered.await();
+            outbound.submit(failing.compose("+27834557896", "Second"));
+            outbound.submit(failing.compose("+27834557896", "Third"));
+            try {
+                assertThrows(IllegalStateException.class, () -> outbound.submit(failing.compose("+27834557896", "Fourth")),
+                        "A full queue should fail with the FAIL policy.");
+            } finally {
+                failing.release.countDown();
+            }
+        }
+        assertEquals(3, failing.getSentCount(), "Messages queued before the failure should still be sent on close.");
+    }
+
+    @Test
+    public void testSentMessagesAreDeliveredThroughTheTransport() throws Exception {
+        MessageService service = new MessageService();
+        try (LoopbackGateway gateway = LoopbackGateway.start(0);
+             DeliveryTransport transport = PipelinedTransport.connect(
+                     new InetSocketAddress(InetAddress.getLoopbackAddress(), gateway.getPort()))) {
+            try (OutboundDispatcher outbound = OutboundDispatcher.start(service, 256, 64, BackpressurePolicy.BLOCK, transport)) {
+                for (int i = 0; i < 500; i++) {
+                    outbound.submit(service.compose("+27834557896", "Message " + i));
+                }
+                assertTrue(outbound.flush(10_000), "Every queued message should be sent.");
+                long deadline = System.currentTimeMillis() + 10_000;
+                while (outbound.getDeliveredCount() < 500 && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(10);
+                }
+                assertEquals(500, outbound.getDeliveredCount(), "Every sent message should be acknowledged.");
+                assertEquals(0, outbound.getDeliveryFailureCount(), "No delivery should fail.");
+            }
+            assertEquals(500, gateway.getDeliveredCount(), "Every sent message should reach the gateway.");
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.example;
+// test/PasswordHasherTest.java
+import org.example.chatapp.auth.CredentialVerifier;
+import org.example.chatapp.auth.PasswordHasher;
+import org.example.chatapp.auth.UserRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PasswordHasherTest {
+
+    @Test
+    public void testHashIsSaltedAndVerifies() {
+        PasswordHasher hasher = new PasswordHasher(1000);
+        String first = hasher.hash("Ch&&sec@ke99!");
+        String second = hasher.hash("Ch&&sec@ke99!");
+        assertNotEquals(first, second, "Each hash should use a fresh salt.");
+        assertFalse(first.contains("Ch&&sec@ke99!"), "The hash should not contain the password.");
+        assertTrue(hasher.verify("Ch&&sec@ke99!", first), "The correct password should verify.");
+        assertFalse(hasher.verify("Ch&&sec@ke99?", first), "A wrong password should not verify.");
+        assertTrue(new PasswordHasher(2000).verify("Ch&&sec@ke99!", first), "Verification should use the stored iteration count.");
+        assertFalse(hasher.verify("Ch&&sec@ke99!", "not-a-hash"), "A malformed hash should not verify.");
+        assertFalse(hasher.verify(null, first), "A null password should not verify.");
+    }
+
+    @Test
+    public void testVerifierCachesSuccessfulVerificationsOnly() {
+        AtomicInteger pbkdf2Calls = new AtomicInteger();
+        PasswordHasher countingHasher = new PasswordHasher(1000) {
+            @Override
+            public boolean verify(String password, String encodedHash) {
+                pbkdf2Calls.incrementAndGet();
+                return super.verify(password, encodedHash);
+            }
+        };
+        try (CredentialVerifier verifier = new CredentialVerifier(countingHasher, 1, 4, 60_000)) {
+            UserRecord user = new UserRecord("kyl_1", countingHasher.hash("Ch&&sec@ke99!"), "+27838968976", "Kyle", "Smith");
+            assertTrue(verifier.verify(user, "Ch&&sec@ke99!"), "The correct password should verify.");
+            assertTrue(verifier.verify(user, "Ch&&sec@ke99!"), "The correct password should verify from the cache.");
+            assertEquals(1, pbkdf2Calls.get(), "A repeated successful login should skip PBKDF2.");
+
+            assertFalse(verifier.verify(user, "wrong"), "A wrong password should never match a cached entry.");
+            assertFalse(verifier.verify(user, "wrong"), "Failed logins should not be cached.");
+            assertEquals(3, pbkdf2Calls.get(), "Each failed login should pay for PBKDF2.");
+
+            UserRecord changed = new UserRecord("kyl_1", countingHasher.hash("N3w@Password"), "+27838968976", "Kyle", "Smith");
+            assertFalse(verifier.verify(changed, "Ch&&sec@ke99!"), "The old password should not verify after a password change.");
+        }
+    }
+
+    @Test
+    public void testVerifierRefusesWhenQueueIsFull() throws InterruptedException {
+        Object gate = new Object();
+        PasswordHasher blockingHasher = new PasswordHasher(1000) {
+            @Override
+            public boolean verify(String password, String encodedHash) {
+                synchronized (gate) {
+                    return super.verify(password, encodedHash);
+                }
+            }
+        };
+        try (CredentialVerifier verifier = new CredentialVerifier(blockingHasher, 1, 1, 0)) {
+            UserRecord user = new UserRecord("kyl_1", blockingHasher.hash("Ch&&sec@ke99!"), "+27838968976", "Kyle", "Smith");
+            Thread[] waiting = new Thread[2];
+            synchronized (gate) {
+                // One login occupies the only worker, a second fills the queue
+                for (int i = 0; i < waiting.length; i++) {
+                    waiting[i] = new Thread(() -> verifier.verify(user, "Ch&&sec@ke99!"));
+                    waiting[i].start();
+                }
+                while (verifier.getQueueDepth() < 1) {
+                    Thread.sleep(1);
+                }
+                assertFalse(verifier.verify(user, "Ch&&sec@ke99!"), "A login beyond the queue limit should be refused.");
+            }
+            for (Thread thread : waiting) {
+                thread.join();
+            }
+            assertTrue(verifier.verify(user, "Ch&&sec@ke99!"), "Logins should succeed again once the queue drains.");
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package org.example;
+// test/PhoneNumberTest.java
+import org.example.chatapp.auth.Message;
+import org.example.chatapp.auth.MessageRepository;
+import org.example.chatapp.auth.MessageStatus;
+import org.example.chatapp.auth.PhoneNumber;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PhoneNumberTest {
+
+    @Test
+    public void testEncodeDecodeRoundTrip() {
+        assertEquals(27838968976L, PhoneNumber.encode("+27838968976"), "Digits should be encoded as their value.");
+        assertEquals("+27838968976", PhoneNumber.decode(27838968976L), "Decoding should give back the number.");
+        assertEquals("+999999999999999", PhoneNumber.decode(PhoneNumber.encode("+999999999999999")), "15 digits should round trip.");
+        assertTrue(PhoneNumber.isSouthAfricanCellNumber(PhoneNumber.encode("+27838968976")), "+27 numbers should be recognised.");
+        assertFalse(PhoneNumber.isSouthAfricanCellNumber(PhoneNumber.encode("+4420123456")), "Other countries should not be South African.");
+    }
+
+    @Test
+    public void testUnencodableNumbers() {
+        for (String number : new String[]{null, "", "+", "0838884567", "+0838884567", "+27 838", "+1234567890123456", "dummy"}) {
+            assertEquals(PhoneNumber.NONE, PhoneNumber.encode(number), "Should not be encodable: " + number);
+        }
+    }
+
+    @Test
+    public void testMessagesKeepRecipientTextAndJsonFormat() {
+        Message encoded = new Message("0012345678", "+27718693002", "Hi Mike", "00:0:HIMIKE", true);
+        Message local = new Message("0012345679", "0838884567", "It is dinner time!", null, false);
+        assertEquals("+27718693002", encoded.getRecipientCellNumber(), "An encoded recipient should read back unchanged.");
+        assertEquals(27718693002L, encoded.getRecipientNumber(), "The recipient should be held as a long.");
+        assertEquals("0838884567", local.getRecipientCellNumber(), "A local number should be kept as text.");
+        assertEquals("{\"messageID\":\"0012345678\",\"recipientCellNumber\":\"+27718693002\",\"messageText\":\"Hi Mike\","
+                + "\"messageHash\":\"00:0:HIMIKE\",\"isSent\":true}", encoded.toJson(), "The JSON format should be unchanged.");
+
+        MessageRepository repository = new MessageRepository();
+        repository.add(encoded, MessageStatus.SENT);
+        repository.add(local, MessageStatus.STORED);
+        assertEquals(List.of(encoded), repository.findByRecipient("+27718693002"), "Lookup by text should use the encoded index.");
+        assertEquals(List.of(encoded), repository.findByRecipient(27718693002L), "Lookup by encoded number should work.");
+        assertEquals(List.of(local), repository.findByRecipient("0838884567"), "Unencodable recipients should still be found.");
+        repository.removeByID("0012345678");
+        assertTrue(repository.findByRecipient(27718693002L).isEmpty(), "Removed messages should leave the recipient index.");
+    }
+}
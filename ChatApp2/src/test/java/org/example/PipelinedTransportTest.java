@@ -0,0 +1,94 @@
+package org.example;
+// test/PipelinedTransportTest.java
+import org.example.chatapp.auth.LoopbackGateway;
+import org.example.chatapp.auth.Message;
+import org.example.chatapp.auth.PipelinedTransport;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PipelinedTransportTest {
+
+    @Test
+    public void testManyMessagesInFlightAreAllAcknowledged() throws Exception {
+        try (LoopbackGateway gateway = LoopbackGateway.start(0);
+             PipelinedTransport transport = PipelinedTransport.connect(address(gateway), 16, 5_000)) {
+            List<CompletableFuture<Void>> acks = new ArrayList<>();
+            for (int i = 0; i < 1_000; i++) {
+                acks.add(transport.send(new Message("+27831234567", "Message " + i)));
+                assertTrue(transport.getInFlightCount() <= 16, "The window should bound the requests in flight");
+            }
+            CompletableFuture.allOf(acks.toArray(CompletableFuture<?>[]::new)).get(10, TimeUnit.SECONDS);
+            assertEquals(1_000, gateway.getDeliveredCount(), "Every message should reach the gateway");
+            assertEquals(0, transport.getInFlightCount(), "Nothing should be waiting once all are acknowledged");
+        }
+    }
+
+    @Test
+    public void testRejectedAndClosedDeliveriesFail() throws Exception {
+        try (LoopbackGateway gateway = LoopbackGateway.start(0)) {
+            gateway.setRejectRate(1);
+            PipelinedTransport transport = PipelinedTransport.connect(address(gateway), 4, 5_000);
+            ExecutionException rejected = assertThrows(ExecutionException.class,
+                    () -> transport.send(new Message("+27831234567", "Hi")).get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IOException.class, rejected.getCause(), "A rejection should fail with an IOException");
+
+            transport.close();
+            ExecutionException closed = assertThrows(ExecutionException.class,
+                    () -> transport.send(new Message("+27831234567", "Hi")).get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, closed.getCause(), "Sending after close should fail");
+        }
+    }
+
+    @Test
+    public void testReconnectsAfterGatewayRestart() throws Exception {
+        LoopbackGateway gateway = LoopbackGateway.start(0);
+        int port = gateway.getPort();
+        try (PipelinedTransport transport = PipelinedTransport.connect(address(gateway), 4, 5_000)) {
+            transport.send(new Message("+27831234567", "Before")).get(5, TimeUnit.SECONDS);
+
+            gateway.close();
+            ExecutionException down = assertThrows(ExecutionException.class,
+                    () -> transport.send(new Message("+27831234567", "While down")).get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IOException.class, down.getCause(), "Sending while the gateway is down should fail with an IOException");
+
+            try (LoopbackGateway restarted = LoopbackGateway.start(port)) {
+                Message after = new Message("+27831234567", "After");
+                transport.send(after).get(5, TimeUnit.SECONDS);
+                assertTrue(restarted.isDelivered(after.getMessageID()), "The transport should reconnect to the restarted gateway");
+            }
+        }
+    }
+
+    @Test
+    public void testUnansweredDeliveryTimesOut() throws Exception {
+        try (ServerSocket silentGateway = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+             PipelinedTransport transport = PipelinedTransport.connect(
+                     new InetSocketAddress(InetAddress.getLoopbackAddress(), silentGateway.getLocalPort()), 4, 200);
+             Socket accepted = silentGateway.accept()) {
+            assertTrue(accepted.isConnected(), "The transport should connect to the gateway");
+            ExecutionException timedOut = assertThrows(ExecutionException.class,
+                    () -> transport.send(new Message("+27831234567", "Hi")).get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IOException.class, timedOut.getCause(), "An unanswered request should fail with an IOException");
+            assertEquals(0, transport.getInFlightCount(), "A timed-out request should leave the window");
+        }
+    }
+
+    private static InetSocketAddress address(LoopbackGateway gateway) {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), gateway.getPort());
+    }
+}
@@ -0,0 +1,89 @@
+package org.example;
+// test/RetryingTransportTest.java
+import org.example.chatapp.auth.DeliveryTransport;
+import org.example.chatapp.auth.LoopbackGateway;
+import org.example.chatapp.auth.Message;
+import org.example.chatapp.auth.PipelinedTransport;
+import org.example.chatapp.auth.RetryingTransport;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RetryingTransportTest {
+
+    // Fails the first few attempts, then acknowledges
+    private static final class FlakyTransport implements DeliveryTransport {
+        final AtomicInteger attempts = new AtomicInteger();
+        final int failures;
+
+        FlakyTransport(int failures) {
+            this.failures = failures;
+        }
+
+        @Override
+        public CompletableFuture<Void> send(Message message) {
+            return attempts.incrementAndGet() <= failures
+                    ? CompletableFuture.failedFuture(new IOException("Gateway busy."))
+                    : CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    public void testRetriesWithBackoffUntilDelivered() throws Exception {
+        FlakyTransport flaky = new FlakyTransport(3);
+        try (RetryingTransport transport = new RetryingTransport(flaky, 5, 10, 40)) {
+            long start = System.nanoTime();
+            transport.send(new Message("+27831234567", "Hi")).get(5, TimeUnit.SECONDS);
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            assertEquals(4, flaky.attempts.get(), "The delivery should succeed on the fourth attempt");
+            assertEquals(3, transport.getRetryCount(), "Three retries should be counted");
+            // Waits of at least 5, 10 and 20 ms (the upper half of 10, 20 and 40)
+            assertTrue(elapsedMillis >= 35, "Retries should back off, took " + elapsedMillis + " ms");
+        }
+    }
+
+    @Test
+    public void testGivesUpAfterMaxAttempts() throws Exception {
+        FlakyTransport flaky = new FlakyTransport(Integer.MAX_VALUE);
+        try (RetryingTransport transport = new RetryingTransport(flaky, 3, 1, 2)) {
+            ExecutionException failure = assertThrows(ExecutionException.class,
+                    () -> transport.send(new Message("+27831234567", "Hi")).get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IOException.class, failure.getCause(), "The last attempt's failure should be reported");
+            assertEquals(3, flaky.attempts.get(), "Delivery should stop after the maximum attempts");
+        }
+    }
+
+    @Test
+    public void testFlakyGatewayDeliversEverything() throws Exception {
+        try (LoopbackGateway gateway = LoopbackGateway.start(0)) {
+            gateway.setRejectRate(0.3);
+            InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), gateway.getPort());
+            try (RetryingTransport transport = new RetryingTransport(PipelinedTransport.connect(address), 20, 1, 10)) {
+                List<CompletableFuture<Void>> acks = new ArrayList<>();
+                for (int i = 0; i < 200; i++) {
+                    acks.add(transport.send(new Message("+27831234567", "Message " + i)));
+                }
+                CompletableFuture.allOf(acks.toArray(CompletableFuture<?>[]::new)).get(20, TimeUnit.SECONDS);
+                assertEquals(200, gateway.getDeliveredCount(), "Retries should get every message through");
+                assertTrue(transport.getRetryCount() > 0, "Some deliveries should have needed a retry");
+            }
+        }
+    }
+}
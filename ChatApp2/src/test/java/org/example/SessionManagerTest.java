@@ -0,0 +1,114 @@
+package org.example;
+// test/SessionManagerTest.java
+import org.example.chatapp.auth.Login;
+import org.example.chatapp.auth.Session;
+import org.example.chatapp.auth.SessionManager;
+import org.example.chatapp.auth.UserRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SessionManagerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final UserRecord kyle = new UserRecord("kyl_1", "hash", "+27838968976", "Kyle", "Smith");
+
+    @BeforeEach
+    public void setUp() {
+        Login.clearUsersForTesting();
+    }
+
+    @Test
+    public void testIdleAndAbsoluteExpiry() {
+        SessionManager manager = new SessionManager(1000, 5000, 10, now::get);
+        Session session = manager.create(kyle);
+        assertSame(session, manager.validate(session.getToken()), "A fresh token should validate.");
+
+        // Keep the session busy: the idle TTL never passes, but the absolute TTL does
+        for (int i = 0; i < 4; i++) {
+            now.addAndGet(TimeUnit.MILLISECONDS.toNanos(900));
+            assertNotNull(manager.validate(session.getToken()), "A session in use should not idle out.");
+        }
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1500));
+        Session idle = manager.create(kyle);
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+        assertNull(manager.validate(idle.getToken()), "A session idle for the idle TTL should expire.");
+        assertNull(manager.validate(session.getToken()), "A session older than the absolute TTL should expire.");
+        assertEquals(0, manager.size(), "Expired sessions should be removed when looked up.");
+    }
+
+    @Test
+    public void testBoundedSizeEvictsOldestFirst() {
+        SessionManager manager = new SessionManager(60_000, 60_000, 3, now::get);
+        Session first = manager.create(kyle);
+        Session second = manager.create(kyle);
+        Session third = manager.create(kyle);
+        manager.invalidate(second.getToken());
+        Session fourth = manager.create(kyle);
+        Session fifth = manager.create(kyle);
+        assertEquals(3, manager.size(), "The manager should never hold more than its maximum.");
+        assertNull(manager.validate(first.getToken()), "The oldest session should be evicted first.");
+        assertNotNull(manager.validate(third.getToken()), "Newer sessions should be kept.");
+        assertNotNull(manager.validate(fourth.getToken()), "Newer sessions should be kept.");
+        assertNotNull(manager.validate(fifth.getToken()), "Newer sessions should be kept.");
+    }
+
+    @Test
+    public void testFullManagerDropsExpiredSessionsAtTheHeadBeforeLiveOnes() {
+        SessionManager manager = new SessionManager(1000, 60_000, 3, now::get);
+        Session first = manager.create(kyle);
+        Session second = manager.create(kyle);
+        Session third = manager.create(kyle);
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(800));
+        manager.validate(third.getToken()); // Only the newest stays in use
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(300));
+
+        Session fourth = manager.create(kyle);
+        assertEquals(3, manager.size(), "Only as many expired sessions as needed should be dropped.");
+        assertNotNull(manager.validate(third.getToken()), "A live session should be kept while expired ones make room.");
+        assertNotNull(manager.validate(fourth.getToken()), "The new session should be kept.");
+        assertNull(manager.validate(first.getToken()), "An expired session should not validate.");
+        assertNull(manager.validate(second.getToken()), "An expired session should not validate.");
+        assertEquals(2, manager.size(), "Looking up the expired session left behind should remove it.");
+    }
+
+    @Test
+    public void testPeriodicSweepRemovesExpiredSessionsBehindLiveOnes() {
+        SessionManager manager = new SessionManager(1000, 60_000, 10, now::get);
+        Session first = manager.create(kyle);
+        manager.create(kyle);
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(800));
+        manager.validate(first.getToken());
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(300));
+
+        assertEquals(1, manager.evictExpired(), "The sweep should remove the expired session behind a live one.");
+        assertEquals(1, manager.size(), "Only the live session should be left.");
+    }
+
+    @Test
+    public void testLoginStartsIndependentSessions() {
+        Login login = new Login();
+        login.registerUser("kyl_1", "Ch&&sec@ke99!", "+27838968976", "Kyle", "Smith");
+        login.registerUser("ann_1", "Ch&&sec@ke99!", "+27831112222", "Ann", "Jones");
+        Session kyleSession = login.startSession("kyl_1", "Ch&&sec@ke99!");
+        Session annSession = login.startSession("ann_1", "Ch&&sec@ke99!");
+        assertNull(login.startSession("ann_1", "wrong"), "A wrong password should not start a session.");
+        assertNotEquals(kyleSession.getToken(), annSession.getToken(), "Each session should get its own token.");
+        assertEquals("Kyle", login.getSession(kyleSession.getToken()).getFirstName(), "Sessions should not overwrite each other.");
+        assertEquals("Ann", login.getSession(annSession.getToken()).getFirstName(), "Sessions should not overwrite each other.");
+        assertNull(login.getStoredFirstName(), "Starting a session should not change the console user.");
+        assertTrue(login.logout(kyleSession.getToken()), "Logging out should end the session.");
+        assertNull(login.getSession(kyleSession.getToken()), "A logged-out token should not validate.");
+        assertFalse(login.logout(kyleSession.getToken()), "Logging out twice should report nothing ended.");
+    }
+}
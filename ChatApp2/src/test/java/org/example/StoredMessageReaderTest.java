@@ -0,0 +1,85 @@
+package org.example;
+// test/StoredMessageReaderTest.java
+import com.google.gson.Gson;
+import org.example.chatapp.auth.Message;
+import org.example.chatapp.auth.StoredMessageReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StoredMessageReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testReadsFilesWrittenByGson() throws IOException {
+        List<Message> messages = new ArrayList<>();
+        Message msg = new Message("+27838884567", "Where are you? You are late! I have asked you to be on time.");
+        msg.createMessageHash();
+        messages.add(msg);
+        messages.add(new Message("+27838884567", "Ok, I am leaving without you."));
+        Path file = tempDir.resolve("stored_messages.json");
+        Files.write(file, new Gson().toJson(messages).getBytes(StandardCharsets.UTF_8));
+
+        List<Message> read = new ArrayList<>();
+        int count = StoredMessageReader.forEach(file, read::add);
+
+        assertEquals(2, count, "Both messages should be streamed.");
+        assertEquals(msg.getMessageID(), read.get(0).getMessageID(), "Message ID mismatch.");
+        assertEquals(msg.getMessageHash(), read.get(0).getMessageHash(), "Message hash mismatch.");
+        assertEquals("Ok, I am leaving without you.", read.get(1).getMessageText(), "Message text mismatch.");
+    }
+
+    @Test
+    public void testStopsEarly() throws IOException {
+        Path file = tempDir.resolve("stored_messages.json");
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            messages.add(new Message("+27834557896", "Message " + i));
+        }
+        Files.write(file, new Gson().toJson(messages).getBytes(StandardCharsets.UTF_8));
+
+        int count = StoredMessageReader.forEach(file, m -> !m.getMessageText().equals("Message 2"));
+        assertEquals(3, count, "Reading should stop once the callback returns false.");
+    }
+
+    @Test
+    public void testSkipAndPage() throws IOException {
+        String json = "[{\"messageID\":\"1\",\"recipientCellNumber\":\"+27834557896\",\"messageText\":\"a\",\"isSent\":false},"
+                + "{\"messageID\":\"2\",\"recipientCellNumber\":\"+27834557896\",\"messageText\":\"b\",\"extra\":[1,2]},"
+                + "{\"messageID\":\"3\",\"recipientCellNumber\":\"+27834557896\",\"messageText\":\"c\",\"messageHash\":null}]";
+        try (StoredMessageReader reader = new StoredMessageReader(new StringReader(json))) {
+            assertEquals(1, reader.skip(1), "One message should be skipped.");
+            List<Message> page = reader.nextPage(5);
+            assertEquals(2, page.size(), "The page should hold the remaining two messages.");
+            assertEquals("2", page.get(0).getMessageID(), "Unknown fields should be ignored.");
+            assertEquals("c", page.get(1).getMessageText(), "Null fields should be ignored.");
+            assertFalse(reader.hasNext(), "Reader should be exhausted.");
+        }
+    }
+
+    @Test
+    public void testEmptyAndNullFiles() throws IOException {
+        try (StoredMessageReader reader = new StoredMessageReader(new StringReader(""))) {
+            assertFalse(reader.hasNext(), "An empty file has no messages.");
+        }
+        try (StoredMessageReader reader = new StoredMessageReader(new StringReader("null"))) {
+            assertFalse(reader.hasNext(), "A null list has no messages.");
+        }
+        try (StoredMessageReader reader = new StoredMessageReader(new StringReader("[]"))) {
+            assertTrue(reader.nextPage(10).isEmpty(), "An empty array has no messages.");
+        }
+    }
+}
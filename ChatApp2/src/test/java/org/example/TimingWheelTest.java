@@ -0,0 +1,80 @@
+package org.example;
+// test/TimingWheelTest.java
+import org.example.chatapp.auth.TimingWheel;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TimingWheelTest {
+
+    @Test
+    public void testItemsFireInDeadlineOrderAndNotBefore() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 4, 3, 0);
+        wheel.schedule("late", 95);
+        wheel.schedule("early", 20);
+        wheel.schedule("overdue", -50);
+        List<String> fired = new ArrayList<>();
+
+        wheel.advance(0, fired::add);
+        assertEquals(List.of("overdue"), fired, "A deadline already passed should fire on the next advance");
+        wheel.advance(19, fired::add);
+        assertEquals(List.of("overdue"), fired, "Nothing should fire before its deadline");
+        wheel.advance(20, fired::add);
+        assertEquals(List.of("overdue", "early"), fired, "An item should fire at its deadline");
+        wheel.advance(99, fired::add);
+        assertEquals(List.of("overdue", "early"), fired, "Deadlines are rounded up to whole ticks");
+        wheel.advance(100, fired::add);
+        assertEquals(List.of("overdue", "early", "late"), fired, "An item should fire within one tick of its deadline");
+        assertEquals(0, wheel.size(), "Fired items should no longer be pending");
+    }
+
+    @Test
+    public void testCancel() {
+        TimingWheel<String> wheel = new TimingWheel<>(1, 8, 2, 0);
+        TimingWheel.Timeout<String> kept = wheel.schedule("kept", 5);
+        TimingWheel.Timeout<String> cancelled = wheel.schedule("cancelled", 5);
+        TimingWheel.Timeout<String> far = wheel.schedule("far", 1_000); // Beyond both levels
+        assertTrue(wheel.cancel(cancelled), "A pending item should be cancellable");
+        assertFalse(wheel.cancel(cancelled), "Cancelling twice should report the item was not pending");
+        assertTrue(wheel.cancel(far), "An item in the overflow list should be cancellable");
+        assertEquals(1, wheel.size(), "Only the kept item should be pending");
+
+        List<String> fired = new ArrayList<>();
+        wheel.advance(2_000, fired::add);
+        assertEquals(List.of("kept"), fired, "Cancelled items should never fire");
+        assertFalse(kept.isPending(), "A fired item should not be pending");
+        assertFalse(wheel.cancel(kept), "A fired item cannot be cancelled");
+    }
+
+    @Test
+    public void testManyItemsAcrossLevelsFireOnTime() {
+        // 16 slots over 2 levels span 256 ticks, so later deadlines wait in the overflow list and cascade down
+        TimingWheel<Long> wheel = new TimingWheel<>(1, 16, 2, 0);
+        Random random = new Random(42);
+        int count = 20_000;
+        for (int i = 0; i < count; i++) {
+            long deadline = random.nextInt(5_000);
+            wheel.schedule(deadline, deadline);
+        }
+        long[] lastFired = {-1};
+        int[] firedCount = {0};
+        for (long now = 0; now < 5_000 + 7; now += 7) {
+            long time = now;
+            wheel.advance(time, deadline -> {
+                assertTrue(deadline <= time, "Item due at " + deadline + " fired early at " + time);
+                assertTrue(deadline > time - 7, "Item due at " + deadline + " fired late at " + time);
+                assertTrue(deadline >= lastFired[0], "Items should fire in deadline order");
+                lastFired[0] = deadline;
+                firedCount[0]++;
+            });
+        }
+        assertEquals(count, firedCount[0], "Every item should fire exactly once");
+        assertEquals(0, wheel.size(), "No items should remain");
+    }
+}
@@ -0,0 +1,112 @@
+package org.example;
+// test/UserRegistryTest.java
+import org.example.chatapp.auth.CredentialVerifier;
+import org.example.chatapp.auth.Login;
+import org.example.chatapp.auth.LoginThrottle;
+import org.example.chatapp.auth.PasswordHasher;
+import org.example.chatapp.auth.UserRecord;
+import org.example.chatapp.auth.UserRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UserRegistryTest {
+
+    @BeforeEach
+    public void setUp() {
+        Login.clearUsersForTesting();
+        // Few PBKDF2 iterations so thousands of registrations stay fast
+        Login.setCredentialVerifier(new CredentialVerifier(new PasswordHasher(1000)));
+        // Eight threads log in as the same user at once, each holding an attempt until verified
+        Login.setLoginThrottle(new LoginThrottle(64, LoginThrottle.DEFAULT_REFILL_INTERVAL_MILLIS, System::currentTimeMillis));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Login.setCredentialVerifier(new CredentialVerifier(new PasswordHasher()));
+        Login.setLoginThrottle(new LoginThrottle());
+    }
+
+    @Test
+    public void testRegisterFindAndRemove() {
+        UserRegistry registry = new UserRegistry();
+        UserRecord user = new UserRecord("kyl_1", "Ch&&sec@ke99!", "+27838968976", "Kyle", "Smith");
+        assertTrue(registry.register(user), "A new username should be registered.");
+        assertFalse(registry.register(new UserRecord("kyl_1", "Other@Pass1", "+27000000000", "Other", "User")),
+                "A taken username should not be registered again.");
+        assertEquals("Kyle", registry.find("kyl_1").getFirstName(), "The first registration should be kept.");
+        assertNull(registry.find(null), "Finding a null username should return null.");
+        assertEquals(user, registry.remove("kyl_1"), "Removing should return the removed user.");
+        assertEquals(0, registry.size(), "The registry should be empty after removal.");
+    }
+
+    @Test
+    public void testConcurrentRegistrationOfSameUsernameHasOneWinner() throws InterruptedException {
+        int threads = 16;
+        int usernames = 500;
+        AtomicInteger successes = new AtomicInteger();
+        runConcurrently(threads, t -> {
+            Login login = new Login();
+            for (int i = 0; i < usernames; i++) {
+                String result = login.registerUser("u_" + i, "Pa$$w0rd!", "+27838968976", "First" + t, "Last");
+                if (result.equals("User registered successfully.")) {
+                    successes.incrementAndGet();
+                }
+            }
+        });
+        assertEquals(usernames, successes.get(), "Each username should be registered by exactly one thread.");
+    }
+
+    @Test
+    public void testConcurrentLoginsDuringRegistration() throws InterruptedException {
+        new Login().registerUser("base_1", "Pa$$w0rd!", "+27838968976", "Base", "User");
+        int threads = 16;
+        AtomicInteger failedLogins = new AtomicInteger();
+        runConcurrently(threads, t -> {
+            Login login = new Login();
+            for (int i = 0; i < 2000; i++) {
+                if (t % 2 == 0) {
+                    login.registerUser("t" + t + "_" + (i % 100), "Pa$$w0rd!", "+27838968976", "T", "U");
+                } else if (!login.loginUser("base_1", "Pa$$w0rd!")) {
+                    failedLogins.incrementAndGet();
+                }
+            }
+        });
+        assertEquals(0, failedLogins.get(), "Logins should never fail while other users register.");
+        assertTrue(new Login().loginUser("t0_99", "Pa$$w0rd!"), "Users registered concurrently should be able to log in.");
+    }
+
+    private interface Worker {
+        void run(int thread);
+    }
+
+    private static void runConcurrently(int threads, Worker worker) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                worker.run(thread);
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread w : workers) {
+            w.join();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package org.example;
+// test/UserStoreTest.java
+import org.example.chatapp.auth.CredentialVerifier;
+import org.example.chatapp.auth.Login;
+import org.example.chatapp.auth.PasswordHasher;
+import org.example.chatapp.auth.UserRecord;
+import org.example.chatapp.auth.UserStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UserStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    public void setUp() {
+        Login.clearUsersForTesting();
+        Login.setCredentialVerifier(new CredentialVerifier(new PasswordHasher(1000)));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Login.clearUsersForTesting();
+        Login.setCredentialVerifier(new CredentialVerifier(new PasswordHasher()));
+    }
+
+    @Test
+    public void testUsersSurviveReopenAndIndexGrows() throws IOException {
+        Path base = tempDir.resolve("users");
+        int users = 5000; // Several index resizes
+        try (UserStore store = UserStore.open(base)) {
+            for (int i = 0; i < users; i++) {
+                assertTrue(store.put(new UserRecord("u_" + i, "hash" + i, "+27838968976", "First" + i, null)), "A new user should be stored.");
+            }
+            assertFalse(store.put(new UserRecord("u_7", "other", "+27000000000", "X", "Y")), "A duplicate username should be refused.");
+        }
+        try (UserStore store = UserStore.open(base)) {
+            assertEquals(users, store.size(), "All users should be indexed after reopening.");
+            UserRecord user = store.find("u_4321");
+            assertEquals("First4321", user.getFirstName(), "Stored fields should be read back.");
+            assertEquals("hash4321", user.getPasswordHash(), "Stored fields should be read back.");
+            assertNull(user.getLastName(), "Null fields should be preserved.");
+            assertNull(store.find("u_" + users), "An unknown username should not be found.");
+        }
+    }
+
+    @Test
+    public void testUnindexedAndTornRecordsAreRecovered() throws IOException {
+        Path base = tempDir.resolve("users");
+        Path indexFile = tempDir.resolve("users.idx");
+        try (UserStore store = UserStore.open(base)) {
+            store.put(new UserRecord("kyl_1", "hash", "+27838968976", "Kyle", "Smith"));
+        }
+        byte[] indexWithOneUser = Files.readAllBytes(indexFile);
+        try (UserStore store = UserStore.open(base)) {
+            store.put(new UserRecord("ann_1", "hash", "+27831112222", "Ann", "Jones"));
+        }
+        // Simulate a crash after the second record was written but before it was indexed, mid-way through a third
+        Files.write(indexFile, indexWithOneUser);
+        try (FileChannel data = FileChannel.open(tempDir.resolve("users.dat"), StandardOpenOption.APPEND)) {
+            data.write(java.nio.ByteBuffer.wrap(new byte[]{0, 0, 0, 100, 1, 2}));
+        }
+        try (UserStore store = UserStore.open(base)) {
+            assertEquals(2, store.size(), "The unindexed record should be re-indexed.");
+            assertEquals("Ann", store.find("ann_1").getFirstName(), "The unindexed record should be found.");
+            assertTrue(store.put(new UserRecord("bob_1", "hash", "+27833334444", "Bob", "Brown")), "Appending after a torn record should work.");
+        }
+        try (UserStore store = UserStore.open(base)) {
+            assertEquals("Bob", store.find("bob_1").getFirstName(), "Records after the truncated tail should be readable.");
+        }
+    }
+
+    @Test
+    public void testIndexPointingPastLostDataIsRebuilt() throws IOException {
+        Path base = tempDir.resolve("users");
+        Path dataFile = tempDir.resolve("users.dat");
+        try (UserStore store = UserStore.open(base)) {
+            store.put(new UserRecord("kyl_1", "hash", "+27838968976", "Kyle", "Smith"));
+        }
+        long dataWithOneUser = Files.size(dataFile);
+        try (UserStore store = UserStore.open(base)) {
+            store.put(new UserRecord("ann_1", "hash", "+27831112222", "Ann", "Jones"));
+        }
+        // Simulate losing the second record while its index slot survived
+        try (FileChannel data = FileChannel.open(dataFile, StandardOpenOption.WRITE)) {
+            data.truncate(dataWithOneUser);
+        }
+        try (UserStore store = UserStore.open(base)) {
+            assertEquals(1, store.size(), "Only the record still in the data file should be indexed.");
+            assertNull(store.find("ann_1"), "A slot pointing past the data should be dropped.");
+            assertEquals("Kyle", store.find("kyl_1").getFirstName(), "Records still in the data file should be found.");
+            assertTrue(store.put(new UserRecord("ann_1", "hash", "+27831112222", "Ann", "Jones")), "A lost user can be stored again.");
+        }
+    }
+
+    @Test
+    public void testLoginLoadsUsersFromStore() throws IOException {
+        Path base = tempDir.resolve("users");
+        try (UserStore store = UserStore.open(base)) {
+            Login.attachUserStore(store);
+            assertEquals("User registered successfully.", new Login().registerUser("kyl_1", "Ch&&sec@ke99!", "+27838968976", "Kyle", "Smith"),
+                    "Registration should succeed.");
+        }
+        Login.clearUsersForTesting(); // Simulate a restart
+        try (UserStore store = UserStore.open(base)) {
+            Login.attachUserStore(store);
+            Login login = new Login();
+            assertTrue(login.loginUser("kyl_1", "Ch&&sec@ke99!"), "A user registered in an earlier run should be able to log in.");
+            assertEquals("Username already exists.", login.registerUser("kyl_1", "Ch&&sec@ke99!", "+27838968976", "Kyle", "Smith"),
+                    "A user registered in an earlier run should not be registered again.");
+        }
+    }
+}